@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for binding property values onto a fresh bean through a {@link BeanWrapperImpl},
+ * with regular property path resolution versus {@link BeanWrapperImpl#setUseGeneratedAccessors
+ * generated accessors} and pre-resolved property paths.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@Benchmark
+	public void setPropertyValues(BenchmarkState state, Blackhole bh) {
+		BeanWrapperImpl bw = state.createBeanWrapper();
+		bw.setPropertyValues(state.propertyValues);
+		bh.consume(bw.getWrappedInstance());
+	}
+
+	@Benchmark
+	public void getNestedPropertyValue(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.beanWrapper.getPropertyValue("address.street"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"reflective", "generated"})
+		public String access;
+
+		public MutablePropertyValues propertyValues;
+
+		public BeanWrapperImpl beanWrapper;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.propertyValues = new MutablePropertyValues();
+			this.propertyValues.add("name", "juergen");
+			this.propertyValues.add("age", "42");
+			this.propertyValues.add("address.street", "Main Street");
+			this.propertyValues.add("address.city", "Linz");
+			this.beanWrapper = createBeanWrapper();
+			this.beanWrapper.setPropertyValues(this.propertyValues);
+		}
+
+		public BeanWrapperImpl createBeanWrapper() {
+			BeanWrapperImpl bw = new BeanWrapperImpl(new Person());
+			bw.setExtractOldValueForEditor(true);
+			bw.setAutoGrowNestedPaths(true);
+			bw.setUseGeneratedAccessors("generated".equals(this.access));
+			return bw;
+		}
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Address address = new Address();
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public void setAddress(Address address) {
+			this.address = address;
+		}
+	}
+
+
+	public static class Address {
+
+		private String street;
+
+		private String city;
+
+		public String getStreet() {
+			return this.street;
+		}
+
+		public void setStreet(String street) {
+			this.street = street;
+		}
+
+		public String getCity() {
+			return this.city;
+		}
+
+		public void setCity(String city) {
+			this.city = city;
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmark for retrieving singleton and prototype beans from a
+ * {@link DefaultListableBeanFactory}, by name and by type.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public void getBeanByName(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean(state.beanName));
+	}
+
+	@Benchmark
+	public void getBeanByType(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean(TestBean.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({BeanDefinition.SCOPE_SINGLETON, BeanDefinition.SCOPE_PROTOTYPE})
+		public String scope;
+
+		@Param({"10", "1000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		public String beanName = "testBean";
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("otherBean" + i, new RootBeanDefinition(OtherBean.class));
+			}
+			RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+			bd.setScope(this.scope);
+			bd.getPropertyValues().add("name", "juergen");
+			bd.getPropertyValues().add("spouse", new RuntimeBeanReference("otherBean0"));
+			this.beanFactory.registerBeanDefinition(this.beanName, bd);
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class TestBean {
+
+		private String name;
+
+		private OtherBean spouse;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public OtherBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(OtherBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+
+	public static class OtherBean {
+	}
+
+}
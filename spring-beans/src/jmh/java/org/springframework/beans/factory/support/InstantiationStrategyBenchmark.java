@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmark for creating prototype beans with the default reflective
+ * instantiation strategy versus the {@link GeneratedAccessorInstantiationStrategy}.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class InstantiationStrategyBenchmark {
+
+	@Benchmark
+	public void getPrototypeWithDefaultConstructor(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean("propertyBean"));
+	}
+
+	@Benchmark
+	public void getPrototypeWithConstructorArguments(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean("constructorBean"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"reflective", "generated"})
+		public String strategy;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			if ("generated".equals(this.strategy)) {
+				this.beanFactory.setInstantiationStrategy(new GeneratedAccessorInstantiationStrategy());
+			}
+			AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+			bpp.setBeanFactory(this.beanFactory);
+			this.beanFactory.addBeanPostProcessor(bpp);
+			this.beanFactory.registerBeanDefinition("otherBean", new RootBeanDefinition(OtherBean.class));
+
+			RootBeanDefinition propertyBean = new RootBeanDefinition(TestBean.class);
+			propertyBean.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			propertyBean.getPropertyValues().add("name", "juergen");
+			propertyBean.getPropertyValues().add("spouse", new RuntimeBeanReference("otherBean"));
+			this.beanFactory.registerBeanDefinition("propertyBean", propertyBean);
+
+			RootBeanDefinition constructorBean = new RootBeanDefinition(TestBean.class);
+			constructorBean.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			constructorBean.getConstructorArgumentValues().addGenericArgumentValue("juergen");
+			constructorBean.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("otherBean"));
+			this.beanFactory.registerBeanDefinition("constructorBean", constructorBean);
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class TestBean {
+
+		private String name;
+
+		private OtherBean spouse;
+
+		@Autowired
+		public OtherBean friend;
+
+		public TestBean() {
+		}
+
+		public TestBean(String name, OtherBean spouse) {
+			this.name = name;
+			this.spouse = spouse;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public OtherBean getSpouse() {
+			return this.spouse;
+		}
+
+		public void setSpouse(OtherBean spouse) {
+			this.spouse = spouse;
+		}
+	}
+
+
+	public static class OtherBean {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -462,26 +462,41 @@ public abstract class AbstractNestablePropertyAccessor extends AbstractPropertyA
 		catch (TypeMismatchException ex) {
 			throw ex;
 		}
-		catch (InvocationTargetException ex) {
-			PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(
-					getRootInstance(), this.nestedPath + tokens.canonicalName, oldValue, pv.getValue());
-			if (ex.getTargetException() instanceof ClassCastException) {
-				throw new TypeMismatchException(propertyChangeEvent, ph.getPropertyType(), ex.getTargetException());
+		catch (Exception ex) {
+			throw createPropertyAccessException(tokens.canonicalName, ph.getPropertyType(), oldValue, pv, ex);
+		}
+	}
+
+	/**
+	 * Translate an exception thrown when writing the given property value
+	 * into a corresponding {@link PropertyAccessException}.
+	 * @param propertyPath the property path, relative to this accessor's nested path
+	 * @param propertyType the type of the property
+	 * @param oldValue the previous value of the property, if known
+	 * @param pv the property value that could not be written
+	 * @param ex the exception thrown
+	 * @since 5.1
+	 */
+	PropertyAccessException createPropertyAccessException(String propertyPath, @Nullable Class<?> propertyType,
+			@Nullable Object oldValue, PropertyValue pv, Exception ex) {
+
+		PropertyChangeEvent propertyChangeEvent = new PropertyChangeEvent(
+				getRootInstance(), this.nestedPath + propertyPath, oldValue, pv.getValue());
+		if (ex instanceof InvocationTargetException) {
+			Throwable targetException = ((InvocationTargetException) ex).getTargetException();
+			if (targetException instanceof ClassCastException) {
+				return new TypeMismatchException(propertyChangeEvent, propertyType, targetException);
 			}
 			else {
-				Throwable cause = ex.getTargetException();
+				Throwable cause = targetException;
 				if (cause instanceof UndeclaredThrowableException) {
 					// May happen e.g. with Groovy-generated methods
 					cause = cause.getCause();
 				}
-				throw new MethodInvocationException(propertyChangeEvent, cause);
+				return new MethodInvocationException(propertyChangeEvent, cause);
 			}
 		}
-		catch (Exception ex) {
-			PropertyChangeEvent pce = new PropertyChangeEvent(
-					getRootInstance(), this.nestedPath + tokens.canonicalName, oldValue, pv.getValue());
-			throw new MethodInvocationException(pce, ex);
-		}
+		return new MethodInvocationException(propertyChangeEvent, ex);
 	}
 
 	@Override
@@ -0,0 +1,504 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.GeneratedClassLoader;
+import org.springframework.core.KotlinDetector;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Factory for non-reflective accessors to bean constructors, fields and methods,
+ * generated with ASM on first use and cached per member.
+ *
+ * <p>Generated accessors behave like their {@code java.lang.reflect} counterparts:
+ * exceptions thrown by the target constructor or method are wrapped in an
+ * {@link InvocationTargetException}, while a target or argument of the wrong type
+ * as well as {@code null} for a primitive parameter lead to an
+ * {@link IllegalArgumentException}. Since the
+ * accessor classes are defined in a child class loader of the bean class loader,
+ * accessors can only be generated for public members of public classes with
+ * public parameter types; for all other members, {@code null} is returned and
+ * the caller is expected to fall back to reflection.
+ *
+ * @since 5.1
+ * @see org.springframework.beans.factory.support.GeneratedAccessorInstantiationStrategy
+ */
+public abstract class BeanAccessors implements Opcodes {
+
+	private static final Log logger = LogFactory.getLog(BeanAccessors.class);
+
+	private static final String CONSTRUCTOR_ACCESSOR_NAME = Type.getInternalName(ConstructorAccessor.class);
+
+	private static final String METHOD_ACCESSOR_NAME = Type.getInternalName(MethodAccessor.class);
+
+	private static final String FIELD_ACCESSOR_NAME = Type.getInternalName(FieldAccessor.class);
+
+	private static final String UNBOXING_NAME = Type.getInternalName(Unboxing.class);
+
+	private static final String ACCESSOR_CLASS_SEPARATOR = "$$Accessor$$";
+
+	private static final Object NO_ACCESSOR = new Object();
+
+	private static final Map<Member, Object> accessorCache = new ConcurrentReferenceHashMap<>(256);
+
+	private static final AtomicInteger accessorCounter = new AtomicInteger();
+
+
+	/**
+	 * Return a generated accessor for the given constructor.
+	 * @param ctor the constructor to invoke
+	 * @return the accessor, or {@code null} if none can be generated
+	 * for the given constructor
+	 */
+	@Nullable
+	public static ConstructorAccessor getConstructorAccessor(Constructor<?> ctor) {
+		return (ConstructorAccessor) getAccessor(ctor);
+	}
+
+	/**
+	 * Return a generated accessor for the given method.
+	 * @param method the method to invoke
+	 * @return the accessor, or {@code null} if none can be generated
+	 * for the given method
+	 */
+	@Nullable
+	public static MethodAccessor getMethodAccessor(Method method) {
+		return (MethodAccessor) getAccessor(method);
+	}
+
+	/**
+	 * Return a generated accessor for setting the given field.
+	 * @param field the field to set
+	 * @return the accessor, or {@code null} if none can be generated
+	 * for the given field, e.g. for a final field
+	 */
+	@Nullable
+	public static FieldAccessor getFieldAccessor(Field field) {
+		return (FieldAccessor) getAccessor(field);
+	}
+
+	@Nullable
+	private static Object getAccessor(Member member) {
+		Object accessor = accessorCache.get(member);
+		if (accessor == null) {
+			accessor = resolveAccessor(member);
+			accessorCache.put(member, accessor);
+		}
+		return (accessor != NO_ACCESSOR ? accessor : null);
+	}
+
+	/**
+	 * Obtain the accessor for the given member from the {@link GeneratedClassLoader}
+	 * of its declaring class, generating it on first use. The generated class loader
+	 * holds on to its accessors, so that an accessor class does not get defined
+	 * again once the soft {@code accessorCache} entry has been cleared.
+	 */
+	private static Object resolveAccessor(Member member) {
+		ClassLoader classLoader = member.getDeclaringClass().getClassLoader();
+		if (!isSupported(member) || classLoader == null ||
+				!ClassUtils.isVisible(BeanAccessors.class, classLoader)) {
+			return NO_ACCESSOR;
+		}
+		GeneratedClassLoader accessorClassLoader = GeneratedClassLoader.forParent(classLoader);
+		return accessorClassLoader.getGenerated(member, key -> generateAccessor(key, accessorClassLoader));
+	}
+
+	private static Object generateAccessor(Member member, GeneratedClassLoader accessorClassLoader) {
+		Class<?> declaringClass = member.getDeclaringClass();
+		String className = declaringClass.getName() + ACCESSOR_CLASS_SEPARATOR + accessorCounter.incrementAndGet();
+		try {
+			byte[] bytes;
+			if (member instanceof Constructor) {
+				bytes = generateConstructorAccessor(className, (Constructor<?>) member, accessorClassLoader);
+			}
+			else if (member instanceof Method) {
+				bytes = generateMethodAccessor(className, (Method) member, accessorClassLoader);
+			}
+			else {
+				bytes = generateFieldAccessor(className, (Field) member, accessorClassLoader);
+			}
+			Class<?> accessorClass = accessorClassLoader.defineClass(className, bytes);
+			return ReflectionUtils.accessibleConstructor(accessorClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate accessor for " + member + " - falling back to reflection", ex);
+			}
+			return NO_ACCESSOR;
+		}
+	}
+
+	private static boolean isSupported(Member member) {
+		Class<?> declaringClass = member.getDeclaringClass();
+		if (!Modifier.isPublic(member.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers()) ||
+				KotlinDetector.isKotlinType(declaringClass)) {
+			return false;
+		}
+		if (member instanceof Constructor) {
+			Constructor<?> ctor = (Constructor<?>) member;
+			return (!Modifier.isAbstract(declaringClass.getModifiers()) && !declaringClass.isInterface() &&
+					isAccessible(ctor.getParameterTypes()));
+		}
+		else if (member instanceof Method) {
+			Method method = (Method) member;
+			return (isAccessible(method.getParameterTypes()) && isAccessible(method.getReturnType()));
+		}
+		else {
+			Field field = (Field) member;
+			return (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers()) &&
+					isAccessible(field.getType()));
+		}
+	}
+
+	private static boolean isAccessible(Class<?>... types) {
+		for (Class<?> type : types) {
+			Class<?> typeToCheck = type;
+			while (typeToCheck.isArray()) {
+				typeToCheck = typeToCheck.getComponentType();
+			}
+			if (!typeToCheck.isPrimitive() && !Modifier.isPublic(typeToCheck.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] generateConstructorAccessor(String className, Constructor<?> ctor, ClassLoader classLoader) {
+		ClassWriter cw = startAccessorClass(className, CONSTRUCTOR_ACCESSOR_NAME, classLoader);
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_VARARGS, "newInstance",
+				"([Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		String owner = Type.getInternalName(ctor.getDeclaringClass());
+		mv.visitTypeInsn(NEW, owner);
+		mv.visitInsn(DUP);
+		Class<?>[] parameterTypes = ctor.getParameterTypes();
+		if (parameterTypes.length > 0) {
+			translateClassCastExceptions(mv, () -> loadArguments(mv, 1, parameterTypes));
+		}
+		invokeWrappingExceptions(mv, () -> mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>",
+				Type.getConstructorDescriptor(ctor), false));
+		mv.visitInsn(ARETURN);
+		finishAccessorMethod(mv);
+		return finishAccessorClass(cw);
+	}
+
+	private static byte[] generateMethodAccessor(String className, Method method, ClassLoader classLoader) {
+		ClassWriter cw = startAccessorClass(className, METHOD_ACCESSOR_NAME, classLoader);
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_VARARGS, "invoke",
+				"(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Class<?> declaringClass = method.getDeclaringClass();
+		String owner = Type.getInternalName(declaringClass);
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		if (!isStatic || parameterTypes.length > 0) {
+			translateClassCastExceptions(mv, () -> {
+				if (!isStatic) {
+					mv.visitVarInsn(ALOAD, 1);
+					mv.visitTypeInsn(CHECKCAST, owner);
+				}
+				loadArguments(mv, 2, parameterTypes);
+			});
+		}
+		int opcode = (isStatic ? INVOKESTATIC : declaringClass.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL);
+		invokeWrappingExceptions(mv, () -> mv.visitMethodInsn(opcode, owner, method.getName(),
+				Type.getMethodDescriptor(method), declaringClass.isInterface()));
+		Class<?> returnType = method.getReturnType();
+		if (returnType == void.class) {
+			mv.visitInsn(ACONST_NULL);
+		}
+		else if (returnType.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+			mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+					Type.getMethodDescriptor(Type.getType(wrapperType), Type.getType(returnType)), false);
+		}
+		mv.visitInsn(ARETURN);
+		finishAccessorMethod(mv);
+		return finishAccessorClass(cw);
+	}
+
+	private static byte[] generateFieldAccessor(String className, Field field, ClassLoader classLoader) {
+		ClassWriter cw = startAccessorClass(className, FIELD_ACCESSOR_NAME, classLoader);
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "set", "(Ljava/lang/Object;Ljava/lang/Object;)V", null, null);
+		mv.visitCode();
+		String owner = Type.getInternalName(field.getDeclaringClass());
+		translateClassCastExceptions(mv, () -> {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, owner);
+			mv.visitVarInsn(ALOAD, 2);
+			convertArgument(mv, field.getType());
+		});
+		mv.visitFieldInsn(PUTFIELD, owner, field.getName(), Type.getDescriptor(field.getType()));
+		mv.visitInsn(RETURN);
+		finishAccessorMethod(mv);
+		return finishAccessorClass(cw);
+	}
+
+	private static ClassWriter startAccessorClass(String className, String accessorInterface, ClassLoader classLoader) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected ClassLoader getClassLoader() {
+				return classLoader;
+			}
+		};
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SYNTHETIC, className.replace('.', '/'), null,
+				"java/lang/Object", new String[] {accessorInterface});
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(RETURN);
+		finishAccessorMethod(mv);
+		return cw;
+	}
+
+	private static void finishAccessorMethod(MethodVisitor mv) {
+		mv.visitMaxs(0, 0);  // computed by the ClassWriter
+		mv.visitEnd();
+	}
+
+	private static byte[] finishAccessorClass(ClassWriter cw) {
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Load the elements of the {@code Object[]} in the given local variable onto
+	 * the stack, converted to the given parameter types.
+	 */
+	private static void loadArguments(MethodVisitor mv, int arrayIndex, Class<?>[] parameterTypes) {
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(ALOAD, arrayIndex);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(AALOAD);
+			convertArgument(mv, parameterTypes[i]);
+		}
+	}
+
+	private static void convertArgument(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			String name = type.getName();
+			String methodName = "to" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+			mv.visitMethodInsn(INVOKESTATIC, UNBOXING_NAME, methodName,
+					Type.getMethodDescriptor(Type.getType(type), Type.getType(Object.class)), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	/**
+	 * Emit the given (non-empty) code for loading the target and arguments,
+	 * translating a {@link ClassCastException} from one of its casts into an
+	 * {@link IllegalArgumentException}, as thrown by {@code java.lang.reflect}.
+	 */
+	private static void translateClassCastExceptions(MethodVisitor mv, Runnable loading) {
+		Label start = new Label();
+		Label end = new Label();
+		Label handler = new Label();
+		mv.visitTryCatchBlock(start, end, handler, "java/lang/ClassCastException");
+		mv.visitLabel(start);
+		loading.run();
+		mv.visitLabel(end);
+		Label after = new Label();
+		mv.visitJumpInsn(GOTO, after);
+		mv.visitLabel(handler);
+		mv.visitMethodInsn(INVOKESTATIC, UNBOXING_NAME, "argumentTypeMismatch",
+				"(Ljava/lang/ClassCastException;)Ljava/lang/IllegalArgumentException;", false);
+		mv.visitInsn(ATHROW);
+		mv.visitLabel(after);
+	}
+
+	/**
+	 * Emit the given invocation, wrapping any exception thrown by it
+	 * in an {@link InvocationTargetException}.
+	 */
+	private static void invokeWrappingExceptions(MethodVisitor mv, Runnable invocation) {
+		Label start = new Label();
+		Label end = new Label();
+		Label handler = new Label();
+		mv.visitTryCatchBlock(start, end, handler, "java/lang/Throwable");
+		mv.visitLabel(start);
+		invocation.run();
+		mv.visitLabel(end);
+		Label after = new Label();
+		mv.visitJumpInsn(GOTO, after);
+		mv.visitLabel(handler);
+		String exceptionType = Type.getInternalName(InvocationTargetException.class);
+		mv.visitTypeInsn(NEW, exceptionType);
+		mv.visitInsn(DUP_X1);
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(INVOKESPECIAL, exceptionType, "<init>", "(Ljava/lang/Throwable;)V", false);
+		mv.visitInsn(ATHROW);
+		mv.visitLabel(after);
+	}
+
+
+	/**
+	 * Generated accessor for a constructor.
+	 */
+	public interface ConstructorAccessor {
+
+		/**
+		 * Create a new instance with the given arguments.
+		 * @see Constructor#newInstance
+		 */
+		Object newInstance(Object... args) throws InvocationTargetException;
+	}
+
+
+	/**
+	 * Generated accessor for a method.
+	 */
+	public interface MethodAccessor {
+
+		/**
+		 * Invoke the method on the given target with the given arguments.
+		 * @param target the target instance ({@code null} for a static method)
+		 * @return the boxed return value, or {@code null} for a {@code void} method
+		 * @see Method#invoke
+		 */
+		@Nullable
+		Object invoke(@Nullable Object target, Object... args) throws InvocationTargetException;
+	}
+
+
+	/**
+	 * Generated accessor for setting a field.
+	 */
+	public interface FieldAccessor {
+
+		/**
+		 * Set the field on the given target to the given value.
+		 * @see Field#set
+		 */
+		void set(Object target, @Nullable Object value);
+	}
+
+
+	/**
+	 * Unboxing of primitive arguments, throwing {@link IllegalArgumentException}
+	 * like {@code java.lang.reflect} does for {@code null} or mismatched values,
+	 * also for failed casts of reference arguments. For use by generated
+	 * accessors only.
+	 */
+	public static final class Unboxing {
+
+		private Unboxing() {
+		}
+
+		public static boolean toBoolean(@Nullable Object value) {
+			if (value instanceof Boolean) {
+				return (Boolean) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static byte toByte(@Nullable Object value) {
+			if (value instanceof Byte) {
+				return (Byte) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static char toChar(@Nullable Object value) {
+			if (value instanceof Character) {
+				return (Character) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static short toShort(@Nullable Object value) {
+			if (value instanceof Short || value instanceof Byte) {
+				return ((Number) value).shortValue();
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static int toInt(@Nullable Object value) {
+			if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				return ((Number) value).intValue();
+			}
+			if (value instanceof Character) {
+				return (Character) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static long toLong(@Nullable Object value) {
+			if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				return ((Number) value).longValue();
+			}
+			if (value instanceof Character) {
+				return (Character) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static float toFloat(@Nullable Object value) {
+			if (value instanceof Float || value instanceof Long || value instanceof Integer ||
+					value instanceof Short || value instanceof Byte) {
+				return ((Number) value).floatValue();
+			}
+			if (value instanceof Character) {
+				return (Character) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static double toDouble(@Nullable Object value) {
+			if (value instanceof Double || value instanceof Float || value instanceof Long ||
+					value instanceof Integer || value instanceof Short || value instanceof Byte) {
+				return ((Number) value).doubleValue();
+			}
+			if (value instanceof Character) {
+				return (Character) value;
+			}
+			throw argumentTypeMismatch(value);
+		}
+
+		public static IllegalArgumentException argumentTypeMismatch(ClassCastException ex) {
+			return new IllegalArgumentException("argument type mismatch: " + ex.getMessage(), ex);
+		}
+
+		private static IllegalArgumentException argumentTypeMismatch(@Nullable Object value) {
+			return new IllegalArgumentException(value == null ? "null value for primitive argument" :
+					"argument type mismatch: " + value.getClass().getName());
+		}
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.beans;
 
 import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -24,10 +25,16 @@ import java.security.PrivilegedAction;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
+import java.util.Collection;
+import java.util.Map;
+
 import org.springframework.core.ResolvableType;
+import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.Property;
 import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -75,6 +82,8 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	private boolean useGeneratedAccessors = false;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +141,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setUseGeneratedAccessors(parent.useGeneratedAccessors);
 	}
 
 
@@ -194,6 +204,31 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		return this.acc;
 	}
 
+	/**
+	 * Set whether to invoke property setters through accessors generated by
+	 * {@link BeanAccessors} where possible, rather than through reflection.
+	 * <p>This also enables pre-resolved accessors for plain property paths
+	 * (without index or map keys), cached per bean class: reading and writing
+	 * such paths skips the tokenization of the path and the resolution of nested
+	 * BeanWrappers, as well as the type conversion step for values which do not
+	 * need any conversion (no custom editor registered, no actual conversion
+	 * required by the ConversionService if any, and not a Collection or Map).
+	 * <p>Default is "false". Nested BeanWrappers inherit this setting.
+	 * @since 5.1
+	 * @see BeanAccessors#getMethodAccessor
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether to invoke property setters through generated accessors.
+	 * @since 5.1
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
 
 	/**
 	 * Convert the given value for the specified property to the latter's type.
@@ -261,6 +296,130 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		return pd;
 	}
 
+	@Override
+	@Nullable
+	public Object getPropertyValue(String propertyName) throws BeansException {
+		PropertyPathAccessor accessor = getPropertyPathAccessor(propertyName);
+		if (accessor != null && accessor.isReadable()) {
+			Object target = accessor.getTarget(getWrappedInstance());
+			if (target != null) {
+				String actualName = propertyName.substring(
+						propertyName.lastIndexOf(NESTED_PROPERTY_SEPARATOR_CHAR) + 1);
+				try {
+					return accessor.getValue(target);
+				}
+				catch (InvocationTargetException ex) {
+					throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
+							"Getter for property '" + actualName + "' threw exception", ex);
+				}
+				catch (Exception ex) {
+					throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
+							"Illegal attempt to get property '" + actualName + "' threw exception", ex);
+				}
+			}
+		}
+		return super.getPropertyValue(propertyName);
+	}
+
+	@Override
+	public void setPropertyValue(String propertyName, @Nullable Object value) throws BeansException {
+		PropertyPathAccessor accessor = getPropertyPathAccessor(propertyName);
+		if (accessor == null || !setPropertyValue(accessor, new PropertyValue(propertyName, value))) {
+			super.setPropertyValue(propertyName, value);
+		}
+	}
+
+	@Override
+	public void setPropertyValue(PropertyValue pv) throws BeansException {
+		PropertyPathAccessor accessor = getPropertyPathAccessor(pv.getName());
+		if (accessor == null || !setPropertyValue(accessor, pv)) {
+			super.setPropertyValue(pv);
+		}
+	}
+
+	/**
+	 * Obtain a pre-resolved accessor for the given property path,
+	 * if generated accessors are to be used.
+	 */
+	@Nullable
+	private PropertyPathAccessor getPropertyPathAccessor(String propertyPath) {
+		if (!this.useGeneratedAccessors || System.getSecurityManager() != null) {
+			return null;
+		}
+		return getCachedIntrospectionResults().getPropertyPathAccessor(propertyPath);
+	}
+
+	/**
+	 * Write the given property value through the given accessor, provided that
+	 * the value does not need any conversion and the property path can be navigated.
+	 * @return {@code true} if the value has been written, {@code false} if
+	 * regular property access needs to be applied instead
+	 */
+	private boolean setPropertyValue(PropertyPathAccessor accessor, PropertyValue pv) throws BeansException {
+		if (!accessor.isWritable()) {
+			return false;
+		}
+		Object originalValue = pv.getValue();
+		Object valueToApply = originalValue;
+		boolean conversionNecessary = !Boolean.FALSE.equals(pv.conversionNecessary);
+		boolean converted = pv.isConverted();
+		if (conversionNecessary) {
+			if (converted) {
+				valueToApply = pv.getConvertedValue();
+			}
+			else if (!isConversionBypassable(accessor, pv.getName(), originalValue)) {
+				return false;
+			}
+		}
+		Object target = accessor.getTarget(getWrappedInstance());
+		if (target == null) {
+			return false;
+		}
+
+		Object oldValue = null;
+		try {
+			if (conversionNecessary) {
+				if (!converted && isExtractOldValueForEditor() && accessor.isReadable()) {
+					try {
+						oldValue = accessor.getValue(target);
+					}
+					catch (Exception ex) {
+						// Ignore - just like for regular property access, the old value
+						// would only have been exposed to a PropertyEditor
+					}
+				}
+				pv.getOriginalPropertyValue().conversionNecessary = (valueToApply != originalValue);
+			}
+			accessor.setValue(target, valueToApply);
+		}
+		catch (Exception ex) {
+			throw createPropertyAccessException(
+					pv.getName(), accessor.getTypeDescriptor().getType(), oldValue, pv, ex);
+		}
+		return true;
+	}
+
+	/**
+	 * Determine whether the given value may be written to the property as-is,
+	 * with regular type conversion leaving it unchanged anyway.
+	 * @see TypeConverterDelegate#convertIfNecessary
+	 */
+	private boolean isConversionBypassable(PropertyPathAccessor accessor, String propertyPath, @Nullable Object value) {
+		if (value == null || value instanceof Collection || value instanceof Map || value.getClass().isArray()) {
+			return false;
+		}
+		TypeDescriptor typeDescriptor = accessor.getTypeDescriptor();
+		Class<?> requiredType = typeDescriptor.getType();
+		if (requiredType.isArray() || !ClassUtils.isAssignableValue(requiredType, value) ||
+				findCustomEditor(requiredType, propertyPath) != null) {
+			return false;
+		}
+		ConversionService conversionService = getConversionService();
+		return (conversionService == null || (conversionService instanceof GenericConversionService &&
+				((GenericConversionService) conversionService).canBypassConvert(
+						TypeDescriptor.forObject(value), typeDescriptor)));
+	}
+
 
 	private class BeanPropertyHandler extends PropertyHandler {
 
@@ -329,8 +488,15 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
-				ReflectionUtils.makeAccessible(writeMethod);
-				writeMethod.invoke(getWrappedInstance(), value);
+				BeanAccessors.MethodAccessor accessor =
+						(useGeneratedAccessors ? BeanAccessors.getMethodAccessor(writeMethod) : null);
+				if (accessor != null) {
+					accessor.invoke(getWrappedInstance(), value);
+				}
+				else {
+					ReflectionUtils.makeAccessible(writeMethod);
+					writeMethod.invoke(getWrappedInstance(), value);
+				}
 			}
 		}
 	}
@@ -102,6 +102,9 @@ public class CachedIntrospectionResults {
 
 	private static final Log logger = LogFactory.getLog(CachedIntrospectionResults.class);
 
+	/** Maximum number of PropertyPathAccessors to cache per bean class */
+	private static final int MAX_PROPERTY_PATH_ACCESSORS = 256;
+
 	/**
 	 * Set of ClassLoaders that this CachedIntrospectionResults class will always
 	 * accept classes from, even if the classes do not qualify as cache-safe.
@@ -259,6 +262,9 @@ public class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** PropertyPathAccessor objects keyed by property path String */
+	private final ConcurrentMap<String, PropertyPathAccessor> propertyPathAccessorCache;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -314,6 +320,7 @@ public class CachedIntrospectionResults {
 			}
 
 			this.typeDescriptorCache = new ConcurrentReferenceHashMap<>();
+			this.propertyPathAccessorCache = new ConcurrentReferenceHashMap<>();
 		}
 		catch (IntrospectionException ex) {
 			throw new FatalBeanException("Failed to obtain BeanInfo for class [" + beanClass.getName() + "]", ex);
@@ -374,4 +381,27 @@ public class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return a pre-resolved accessor for the given property path,
+	 * resolving it on first access.
+	 * @param propertyPath the property path, possibly nested
+	 * @return the accessor, or {@code null} if not supported for the given path
+	 * @see PropertyPathAccessor#forPropertyPath
+	 */
+	@Nullable
+	PropertyPathAccessor getPropertyPathAccessor(String propertyPath) {
+		PropertyPathAccessor accessor = this.propertyPathAccessorCache.get(propertyPath);
+		if (accessor == null) {
+			accessor = PropertyPathAccessor.forPropertyPath(getBeanClass(), propertyPath);
+			// Unresolvable paths are not cached: they may be arbitrary (e.g. request parameter names)
+			if (accessor != null && this.propertyPathAccessorCache.size() < MAX_PROPERTY_PATH_ACCESSORS) {
+				PropertyPathAccessor existing = this.propertyPathAccessorCache.putIfAbsent(propertyPath, accessor);
+				if (existing != null) {
+					accessor = existing;
+				}
+			}
+		}
+		return accessor;
+	}
+
 }
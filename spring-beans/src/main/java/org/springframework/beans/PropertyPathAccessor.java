@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Optional;
+
+import org.springframework.core.convert.Property;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Pre-resolved accessor for a specific property path on a specific bean class,
+ * e.g. "address.street": invoking the getters along the path and the getter or
+ * setter of the final property directly, rather than tokenizing the path and
+ * resolving nested property accessors on every access.
+ *
+ * <p>Methods get invoked through accessors generated by {@link BeanAccessors}
+ * where possible, or through reflection otherwise. Only plain nested paths
+ * without index or map keys are supported, along concrete property types:
+ * the class of each nested value is checked against the declared property
+ * type at runtime. If a nested value is {@code null} or of a different class,
+ * {@link #getTarget} returns {@code null}, leaving it up to the caller to
+ * fall back to regular property access (e.g. for auto-growing the path).
+ *
+ * <p>Instances get cached per bean class in {@link CachedIntrospectionResults}.
+ *
+ * @since 5.1
+ * @see BeanWrapperImpl#setUseGeneratedAccessors
+ */
+final class PropertyPathAccessor {
+
+	private final Class<?>[] nestedTypes;
+
+	private final MethodInvoker[] nestedReadMethods;
+
+	private final TypeDescriptor typeDescriptor;
+
+	@Nullable
+	private final MethodInvoker readMethod;
+
+	@Nullable
+	private final MethodInvoker writeMethod;
+
+
+	private PropertyPathAccessor(Class<?>[] nestedTypes, MethodInvoker[] nestedReadMethods,
+			TypeDescriptor typeDescriptor, @Nullable Method readMethod, @Nullable Method writeMethod) {
+
+		this.nestedTypes = nestedTypes;
+		this.nestedReadMethods = nestedReadMethods;
+		this.typeDescriptor = typeDescriptor;
+		this.readMethod = (readMethod != null ? new MethodInvoker(readMethod) : null);
+		this.writeMethod = (writeMethod != null ? new MethodInvoker(writeMethod) : null);
+	}
+
+
+	/**
+	 * Return the type descriptor of the final property of the path.
+	 */
+	public TypeDescriptor getTypeDescriptor() {
+		return this.typeDescriptor;
+	}
+
+	/**
+	 * Return whether the final property of the path is readable.
+	 */
+	public boolean isReadable() {
+		return (this.readMethod != null);
+	}
+
+	/**
+	 * Return whether the final property of the path is writable.
+	 */
+	public boolean isWritable() {
+		return (this.writeMethod != null);
+	}
+
+	/**
+	 * Determine the object which holds the final property of the path,
+	 * navigating the nested properties from the given bean.
+	 * @param bean the bean to start from (an instance of the bean class
+	 * that this accessor has been resolved for)
+	 * @return the target object, or {@code null} if it cannot be reached
+	 * through this accessor (e.g. due to a {@code null} value along the path)
+	 */
+	@Nullable
+	public Object getTarget(Object bean) {
+		Object target = bean;
+		for (int i = 0; i < this.nestedReadMethods.length; i++) {
+			try {
+				target = this.nestedReadMethods[i].invoke(target);
+			}
+			catch (Exception ex) {
+				// Let regular property access translate the exception
+				return null;
+			}
+			if (target == null || target.getClass() != this.nestedTypes[i]) {
+				return null;
+			}
+		}
+		return target;
+	}
+
+	/**
+	 * Read the final property of the path from the given target object.
+	 * @param target the target object, as determined by {@link #getTarget}
+	 */
+	@Nullable
+	public Object getValue(Object target) throws Exception {
+		if (this.readMethod == null) {
+			throw new IllegalStateException("Property is not readable");
+		}
+		return this.readMethod.invoke(target);
+	}
+
+	/**
+	 * Write the final property of the path on the given target object.
+	 * @param target the target object, as determined by {@link #getTarget}
+	 * @param value the value to set (not subject to any conversion)
+	 */
+	public void setValue(Object target, @Nullable Object value) throws Exception {
+		if (this.writeMethod == null) {
+			throw new IllegalStateException("Property is not writable");
+		}
+		this.writeMethod.invoke(target, value);
+	}
+
+
+	/**
+	 * Resolve an accessor for the given property path on the given bean class.
+	 * @param beanClass the class of the bean to access
+	 * @param propertyPath the property path to access
+	 * @return the accessor, or {@code null} if the given path cannot be resolved
+	 * or is not supported by this accessor
+	 */
+	@Nullable
+	public static PropertyPathAccessor forPropertyPath(Class<?> beanClass, String propertyPath) {
+		if (propertyPath.indexOf(PropertyAccessor.PROPERTY_KEY_PREFIX_CHAR) != -1 ||
+				propertyPath.indexOf(PropertyAccessor.PROPERTY_KEY_SUFFIX_CHAR) != -1) {
+			return null;
+		}
+		String[] propertyNames = StringUtils.delimitedListToStringArray(
+				propertyPath, PropertyAccessor.NESTED_PROPERTY_SEPARATOR);
+		int nestingLevels = propertyNames.length - 1;
+		Class<?>[] nestedTypes = new Class<?>[nestingLevels];
+		MethodInvoker[] nestedReadMethods = new MethodInvoker[nestingLevels];
+		Class<?> currentType = beanClass;
+		for (int i = 0; i < nestingLevels; i++) {
+			PropertyDescriptor pd = getPropertyDescriptor(currentType, propertyNames[i]);
+			if (pd == null || pd.getReadMethod() == null || !isNavigable(pd.getPropertyType())) {
+				return null;
+			}
+			currentType = pd.getPropertyType();
+			nestedTypes[i] = currentType;
+			nestedReadMethods[i] = new MethodInvoker(pd.getReadMethod());
+		}
+		PropertyDescriptor pd = getPropertyDescriptor(currentType, propertyNames[nestingLevels]);
+		if (!(pd instanceof GenericTypeAwarePropertyDescriptor)) {
+			return null;
+		}
+		GenericTypeAwarePropertyDescriptor gpd = (GenericTypeAwarePropertyDescriptor) pd;
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(currentType);
+		TypeDescriptor td = results.getTypeDescriptor(gpd);
+		if (td == null) {
+			td = results.addTypeDescriptor(gpd, new TypeDescriptor(new Property(
+					gpd.getBeanClass(), gpd.getReadMethod(), gpd.getWriteMethod(), gpd.getName())));
+		}
+		return new PropertyPathAccessor(nestedTypes, nestedReadMethods, td,
+				gpd.getReadMethod(), (gpd.getWriteMethod() != null ? gpd.getWriteMethodForActualAccess() : null));
+	}
+
+	@Nullable
+	private static PropertyDescriptor getPropertyDescriptor(Class<?> beanClass, String propertyName) {
+		if (propertyName.isEmpty()) {
+			return null;
+		}
+		return CachedIntrospectionResults.forClass(beanClass).getPropertyDescriptor(propertyName);
+	}
+
+	/**
+	 * Determine whether values of the given nested property type may be
+	 * navigated through a runtime check against exactly that type.
+	 */
+	private static boolean isNavigable(@Nullable Class<?> propertyType) {
+		return (propertyType != null && !propertyType.isPrimitive() && !propertyType.isArray() &&
+				!Modifier.isAbstract(propertyType.getModifiers()) && Optional.class != propertyType);
+	}
+
+
+	/**
+	 * Invokes a specific method through a generated accessor, if available.
+	 */
+	private static final class MethodInvoker {
+
+		private final Method method;
+
+		@Nullable
+		private final BeanAccessors.MethodAccessor accessor;
+
+		public MethodInvoker(Method method) {
+			this.method = method;
+			this.accessor = BeanAccessors.getMethodAccessor(method);
+			if (this.accessor == null) {
+				ReflectionUtils.makeAccessible(method);
+			}
+		}
+
+		@Nullable
+		public Object invoke(Object target, Object... args) throws Exception {
+			return (this.accessor != null ? this.accessor.invoke(target, args) : this.method.invoke(target, args));
+		}
+	}
+
+}
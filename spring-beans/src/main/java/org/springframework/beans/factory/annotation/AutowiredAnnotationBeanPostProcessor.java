@@ -37,6 +37,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.BeanAccessors;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.PropertyValues;
@@ -51,6 +52,7 @@ import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.support.GeneratedAccessorInstantiationStrategy;
 import org.springframework.beans.factory.support.LookupOverride;
 import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
 import org.springframework.beans.factory.support.RootBeanDefinition;
@@ -60,6 +62,7 @@ import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -426,8 +429,15 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 	private InjectionMetadata buildAutowiringMetadata(final Class<?> clazz) {
 		LinkedList<InjectionMetadata.InjectedElement> elements = new LinkedList<>();
 		Class<?> targetClass = clazz;
+		ClassMetadataIndex index = ClassMetadataIndex.loadIndex(clazz.getClassLoader());
 
 		do {
+			if (index != null && !index.hasAnnotatedMembers(targetClass.getName())) {
+				// No annotated members according to the build-time index -> no injection points
+				targetClass = targetClass.getSuperclass();
+				continue;
+			}
+
 			final LinkedList<InjectionMetadata.InjectedElement> currElements = new LinkedList<>();
 
 			ReflectionUtils.doWithLocalFields(targetClass, field -> {
@@ -534,6 +544,14 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 		}
 	}
 
+	/**
+	 * Determine whether to inject through generated accessors, i.e. whether
+	 * the bean factory uses a {@link GeneratedAccessorInstantiationStrategy}.
+	 */
+	private boolean useGeneratedAccessors() {
+		return GeneratedAccessorInstantiationStrategy.isUsedBy(this.beanFactory);
+	}
+
 	/**
 	 * Resolve the specified cached method argument or field value.
 	 */
@@ -608,8 +626,15 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 				}
 			}
 			if (value != null) {
-				ReflectionUtils.makeAccessible(field);
-				field.set(bean, value);
+				BeanAccessors.FieldAccessor accessor =
+						(useGeneratedAccessors() ? BeanAccessors.getFieldAccessor(field) : null);
+				if (accessor != null) {
+					accessor.set(bean, value);
+				}
+				else {
+					ReflectionUtils.makeAccessible(field);
+					field.set(bean, value);
+				}
 			}
 		}
 	}
@@ -695,8 +720,15 @@ public class AutowiredAnnotationBeanPostProcessor extends InstantiationAwareBean
 			}
 			if (arguments != null) {
 				try {
-					ReflectionUtils.makeAccessible(method);
-					method.invoke(bean, arguments);
+					BeanAccessors.MethodAccessor accessor =
+							(useGeneratedAccessors() ? BeanAccessors.getMethodAccessor(method) : null);
+					if (accessor != null) {
+						accessor.invoke(bean, arguments);
+					}
+					else {
+						ReflectionUtils.makeAccessible(method);
+						method.invoke(bean, arguments);
+					}
 				}
 				catch (InvocationTargetException ex){
 					throw ex.getTargetException();
@@ -40,6 +40,7 @@ import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcess
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.Ordered;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ReflectionUtils;
@@ -199,8 +200,15 @@ public class InitDestroyAnnotationBeanPostProcessor
 		LinkedList<LifecycleElement> initMethods = new LinkedList<>();
 		LinkedList<LifecycleElement> destroyMethods = new LinkedList<>();
 		Class<?> targetClass = clazz;
+		ClassMetadataIndex index = ClassMetadataIndex.loadIndex(clazz.getClassLoader());
 
 		do {
+			if (index != null && !index.hasAnnotatedMembers(targetClass.getName())) {
+				// No annotated members according to the build-time index -> no lifecycle methods
+				targetClass = targetClass.getSuperclass();
+				continue;
+			}
+
 			final LinkedList<LifecycleElement> currInitMethods = new LinkedList<>();
 			final LinkedList<LifecycleElement> currDestroyMethods = new LinkedList<>();
 
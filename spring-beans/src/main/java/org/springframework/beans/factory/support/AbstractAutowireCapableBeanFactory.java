@@ -168,6 +168,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	private final ConcurrentMap<Class<?>, PropertyDescriptor[]> filteredPropertyDescriptorsCache =
 			new ConcurrentHashMap<>(256);
 
+	/** Whether to collect creation metrics per bean */
+	private boolean collectBeanCreationMetrics = false;
+
+	/** Creation metrics: bean name -> BeanCreationMetrics */
+	private final Map<String, BeanCreationMetrics> beanCreationMetrics = new ConcurrentHashMap<>(256);
+
 
 	/**
 	 * Create a new AbstractAutowireCapableBeanFactory.
@@ -281,6 +287,25 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		this.ignoredDependencyInterfaces.add(ifc);
 	}
 
+	/**
+	 * Set whether to collect creation metrics for every bean created by this
+	 * factory, as exposed through {@link #getBeanCreationMetrics}.
+	 * <p>Default is "false": no metrics are collected, without any timing
+	 * overhead on bean creation. Turn this on to diagnose startup time.
+	 * @since 5.1
+	 */
+	public void setCollectBeanCreationMetrics(boolean collectBeanCreationMetrics) {
+		this.collectBeanCreationMetrics = collectBeanCreationMetrics;
+	}
+
+	/**
+	 * Return whether to collect creation metrics for every bean created by this factory.
+	 * @since 5.1
+	 */
+	public boolean isCollectBeanCreationMetrics() {
+		return this.collectBeanCreationMetrics;
+	}
+
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
 		super.copyConfigurationFrom(otherFactory); // --> AbstractBeanFactory
@@ -296,9 +321,24 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			this.ignoredDependencyTypes.addAll(otherAutowireFactory.ignoredDependencyTypes);
 			// ԶʱҪԵӿڣһĬ£ֻbeanFactoryӿڱԡ
 			this.ignoredDependencyInterfaces.addAll(otherAutowireFactory.ignoredDependencyInterfaces);
+			this.collectBeanCreationMetrics = otherAutowireFactory.collectBeanCreationMetrics;
 		}
 	}
 
+	/**
+	 * Return the creation metrics collected for the specified bean so far,
+	 * covering every instance of the bean that this factory has created.
+	 * @param beanName the name of the bean
+	 * @return the metrics, or {@code null} if no instance of the bean
+	 * has been created by this factory yet, or if metrics are not collected
+	 * @since 5.1
+	 * @see #setCollectBeanCreationMetrics
+	 */
+	@Nullable
+	public BeanCreationMetrics getBeanCreationMetrics(String beanName) {
+		return this.beanCreationMetrics.get(beanName);
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Typical methods for creating and populating external bean instances
@@ -430,8 +470,21 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 	public Object applyBeanPostProcessorsBeforeInitialization(Object existingBean, String beanName)
 			throws BeansException {
 
+		return applyBeanPostProcessorsBeforeInitialization(getBeanPostProcessors(), existingBean, beanName);
+	}
+
+	@Override
+	public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName)
+			throws BeansException {
+
+		return applyBeanPostProcessorsAfterInitialization(getBeanPostProcessors(), existingBean, beanName);
+	}
+
+	private Object applyBeanPostProcessorsBeforeInitialization(
+			List<BeanPostProcessor> beanPostProcessors, Object existingBean, String beanName) throws BeansException {
+
 		Object result = existingBean;
-		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
+		for (BeanPostProcessor beanProcessor : beanPostProcessors) {
 			Object current = beanProcessor.postProcessBeforeInitialization(result, beanName);
 			if (current == null) {
 				return result;
@@ -441,13 +494,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return result;
 	}
 
-	@Override
-	public Object applyBeanPostProcessorsAfterInitialization(Object existingBean, String beanName)
-			throws BeansException {
+	private Object applyBeanPostProcessorsAfterInitialization(
+			List<BeanPostProcessor> beanPostProcessors, Object existingBean, String beanName) throws BeansException {
 
 		Object result = existingBean;
 		// beanPostProcessors
-		for (BeanPostProcessor beanProcessor : getBeanPostProcessors()) {
+		for (BeanPostProcessor beanProcessor : beanPostProcessors) {
 			// ִгʼ
 			Object current = beanProcessor.postProcessAfterInitialization(result, beanName);
 			if (current == null) {
@@ -506,11 +558,18 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					beanName, "Validation of method overrides failed", ex);
 		}
 
+		if (mbdToUse != mbd) {
+			// Share the creation plan cached on the merged bean definition with the copy
+			mbdToUse.creationPlan = getCreationPlan(mbd);
+		}
+
+		long startTime = (this.collectBeanCreationMetrics ? System.nanoTime() : 0);
 		try {
 			// Give BeanPostProcessors a chance to return a proxy instead of the target bean instance.
 			/* ʼǰBeanPostProcessorsдصһĿ */
 			Object bean = resolveBeforeInstantiation(beanName, mbdToUse);
 			if (bean != null) {
+				recordBeanCreation(beanName, startTime);
 				return bean;
 			}
 		}
@@ -523,6 +582,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		try {
 			// Bean
 			Object beanInstance = doCreateBean(beanName, mbdToUse, args);
+			recordBeanCreation(beanName, startTime);
 			if (logger.isDebugEnabled()) {
 				logger.debug("Finished creating instance of bean '" + beanName + "'");
 			}
@@ -540,6 +600,21 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 	}
 
+	/**
+	 * Record the creation of an instance of the specified bean in its metrics,
+	 * if metrics are collected and unless it is an inner bean without a bean
+	 * definition of its own.
+	 * @param beanName the name of the bean
+	 * @param startTime the {@link System#nanoTime()} at which creation started
+	 * @see #getBeanCreationMetrics
+	 */
+	private void recordBeanCreation(String beanName, long startTime) {
+		if (this.collectBeanCreationMetrics && containsBeanDefinition(beanName)) {
+			this.beanCreationMetrics.computeIfAbsent(beanName, BeanCreationMetrics::new)
+					.recordCreation(System.nanoTime() - startTime);
+		}
+	}
+
 	/**
 	 * Actually create the specified bean. Pre-creation processing has already happened
 	 * at this point, e.g. checking {@code postProcessBeforeInstantiation} callbacks.
@@ -1056,6 +1131,23 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 	}
 
+	/**
+	 * Return the creation plan for the given bean definition, building it from
+	 * the currently registered BeanPostProcessors if not cached yet or stale.
+	 * @param mbd the merged bean definition for the bean
+	 * @return the creation plan (never {@code null})
+	 * @since 5.1
+	 */
+	private BeanCreationPlan getCreationPlan(RootBeanDefinition mbd) {
+		BeanCreationPlan plan = mbd.creationPlan;
+		int version = getBeanPostProcessorsVersion();
+		if (plan == null || plan.getPostProcessorsVersion() != version) {
+			plan = new BeanCreationPlan(getBeanPostProcessors(), version, mbd.isSynthetic());
+			mbd.creationPlan = plan;
+		}
+		return plan;
+	}
+
 	/**
 	 * Apply before-instantiation post-processors, resolving whether there is a
 	 * before-instantiation shortcut for the specified bean.
@@ -1070,10 +1162,16 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		if (!Boolean.FALSE.equals(mbd.beforeInstantiationResolved)) {
 			// Make sure bean class is actually resolved at this point.
 			// InstantiationAwareBeanPostProcessorsΪtrue
-			if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
+			List<InstantiationAwareBeanPostProcessor> processors = getCreationPlan(mbd).getBeforeInstantiationProcessors();
+			if (!processors.isEmpty()) {
 				Class<?> targetType = determineTargetType(beanName, mbd);
 				if (targetType != null) {
-					bean = applyBeanPostProcessorsBeforeInstantiation(targetType, beanName);
+					for (InstantiationAwareBeanPostProcessor ibp : processors) {
+						bean = ibp.postProcessBeforeInstantiation(targetType, beanName);
+						if (bean != null) {
+							break;
+						}
+					}
 					if (bean != null) {
 						bean = applyBeanPostProcessorsAfterInitialization(bean, beanName);
 					}
@@ -1172,7 +1270,11 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 		// Need to determine the constructor...
 		// жǷвι캯
-		Constructor<?>[] ctors = determineConstructorsFromBeanPostProcessors(beanClass, beanName);
+		BeanCreationPlan plan = getCreationPlan(mbd);
+		if (!plan.isCandidateConstructorsResolved()) {
+			plan.setCandidateConstructors(determineConstructorsFromBeanPostProcessors(beanClass, beanName));
+		}
+		Constructor<?>[] ctors = plan.getCandidateConstructors();
 		if (ctors != null ||
 				mbd.getResolvedAutowireMode() == RootBeanDefinition.AUTOWIRE_CONSTRUCTOR ||
 				mbd.hasConstructorArgumentValues() || !ObjectUtils.isEmpty(args))  {
@@ -1262,6 +1364,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		return null;
 	}
 
+	/**
+	 * Initialize the given BeanWrapper, in addition enabling generated accessors
+	 * for it if this factory uses a {@link GeneratedAccessorInstantiationStrategy}.
+	 * @param bw the BeanWrapper to initialize
+	 */
+	@Override
+	protected void initBeanWrapper(BeanWrapper bw) {
+		super.initBeanWrapper(bw);
+		if (bw instanceof BeanWrapperImpl && getInstantiationStrategy() instanceof GeneratedAccessorInstantiationStrategy) {
+			((BeanWrapperImpl) bw).setUseGeneratedAccessors(true);
+		}
+	}
+
 	/**
 	 * Instantiate the given bean using its default constructor.
 	 * @param beanName the name of the bean
@@ -1359,20 +1474,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// to support styles of field injection.
 		boolean continueWithPropertyPopulation = true;
 
-		// hasInstantiationAwareBeanPostProcessorsֵ
-		if (!mbd.isSynthetic() && hasInstantiationAwareBeanPostProcessors()) {
-			// beanPostProcessors
-			for (BeanPostProcessor bp : getBeanPostProcessors()) {
-				// bpΪInstantiationAwareBeanPostProcessorʱ
-				if (bp instanceof InstantiationAwareBeanPostProcessor) {
-					InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-					// falseʱ,ѭ
-					//  falseҪкֵҲҪپ BeanPostProcessor Ĵ
-					if (!ibp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
-						continueWithPropertyPopulation = false;
-						break;
-					}
-				}
+		BeanCreationPlan plan = getCreationPlan(mbd);
+		for (InstantiationAwareBeanPostProcessor ibp : plan.getAfterInstantiationProcessors()) {
+			//  falseҪкֵҲҪپ BeanPostProcessor Ĵ
+			if (!ibp.postProcessAfterInstantiation(bw.getWrappedInstance(), beanName)) {
+				continueWithPropertyPopulation = false;
+				break;
 			}
 		}
 
@@ -1406,7 +1513,7 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 
 		// ǷעInstantiationAwareBeanPostProcessor
-		boolean hasInstAwareBpps = hasInstantiationAwareBeanPostProcessors();
+		boolean hasInstAwareBpps = !plan.getPropertyValuesProcessors().isEmpty();
 		// Ƿ
 		boolean needsDepCheck = (mbd.getDependencyCheck() != RootBeanDefinition.DEPENDENCY_CHECK_NONE);
 
@@ -1418,15 +1525,12 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 			PropertyDescriptor[] filteredPds = filterPropertyDescriptorsForDependencyCheck(bw, mbd.allowCaching);
 			if (hasInstAwareBpps) {
 				// صĺôкô
-				for (BeanPostProcessor bp : getBeanPostProcessors()) {
-					if (bp instanceof InstantiationAwareBeanPostProcessor) {
-						InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
-						// иǳõBeanPostProcessor:AutowiredAnnotationBeanPostProcessor
-			            // Բ @Autowired@Value עֵ
-						pvs = ibp.postProcessPropertyValues(pvs, filteredPds, bw.getWrappedInstance(), beanName);
-						if (pvs == null) {
-							return;
-						}
+				for (InstantiationAwareBeanPostProcessor ibp : plan.getPropertyValuesProcessors()) {
+					// иǳõBeanPostProcessor:AutowiredAnnotationBeanPostProcessor
+					// Բ @Autowired@Value עֵ
+					pvs = ibp.postProcessPropertyValues(pvs, filteredPds, bw.getWrappedInstance(), beanName);
+					if (pvs == null) {
+						return;
 					}
 				}
 			}
@@ -1800,10 +1904,10 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		}
 
 		Object wrappedBean = bean;
-		if (mbd == null || !mbd.isSynthetic()) {
-			// BeanPostProcessor postProcessBeforeInitializationص
-			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
-		}
+		BeanCreationPlan plan = (mbd != null ? getCreationPlan(mbd) : null);
+		// BeanPostProcessor postProcessBeforeInitializationص
+		wrappedBean = applyBeanPostProcessorsBeforeInitialization(
+				(plan != null ? plan.getBeforeInitializationProcessors() : getBeanPostProcessors()), wrappedBean, beanName);
 
 		try {
 			//  beanж init-method
@@ -1815,10 +1919,9 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					(mbd != null ? mbd.getResourceDescription() : null),
 					beanName, "Invocation of init method failed", ex);
 		}
-		if (mbd == null || !mbd.isSynthetic()) {
-			// BeanPostProcessorpostProcessAfterInitializationص
-			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
-		}
+		// BeanPostProcessorpostProcessAfterInitializationص
+		wrappedBean = applyBeanPostProcessorsAfterInitialization(
+				(plan != null ? plan.getAfterInitializationProcessors() : getBeanPostProcessors()), wrappedBean, beanName);
 
 		return wrappedBean;
 	}
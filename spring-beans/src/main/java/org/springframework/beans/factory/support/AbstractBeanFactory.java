@@ -163,6 +163,9 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	// ǷעκεDestructionAwareBeanPostProcessors
 	private boolean hasDestructionAwareBeanPostProcessors;
 
+	/** Changed whenever BeanPostProcessors get registered */
+	private volatile int beanPostProcessorsVersion;
+
 	/** Map from scope identifier String to corresponding Scope */
 	// ʶͶӦļֵԼϡ /*Scopeӳ*/
 	private final Map<String, Scope> scopes = new LinkedHashMap<>(8);
@@ -900,6 +903,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		if (beanPostProcessor instanceof DestructionAwareBeanPostProcessor) {
 			this.hasDestructionAwareBeanPostProcessors = true;
 		}
+		this.beanPostProcessorsVersion++;
 	}
 
 	@Override
@@ -935,6 +939,16 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return this.hasDestructionAwareBeanPostProcessors;
 	}
 
+	/**
+	 * Return a version number for the BeanPostProcessors registered with this
+	 * factory, changing whenever further BeanPostProcessors get registered.
+	 * @since 5.1
+	 * @see #addBeanPostProcessor
+	 */
+	int getBeanPostProcessorsVersion() {
+		return this.beanPostProcessorsVersion;
+	}
+
 	@Override
 	public void registerScope(String scopeName, Scope scope) {
 		Assert.notNull(scopeName, "Scope identifier must not be null");
@@ -1012,6 +1026,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 			// ǷעκεDestructionAwareBeanPostProcessors
 			this.hasDestructionAwareBeanPostProcessors = this.hasDestructionAwareBeanPostProcessors ||
 					otherAbstractFactory.hasDestructionAwareBeanPostProcessors;
+			this.beanPostProcessorsVersion++;
 			// ʶͶӦļֵԼϡ
 			this.scopes.putAll(otherAbstractFactory.scopes);
 			// SecurityManagerʱʹõsecurity context
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creation statistics for a specific bean, as collected by an
+ * {@link AbstractAutowireCapableBeanFactory} for every instance that it
+ * creates for the bean: typically once for a singleton, and once per
+ * request for a prototype or otherwise scoped bean.
+ *
+ * <p>Creation times cover instantiation, population and initialization of
+ * the bean, including any dependencies that have to be created along the way.
+ *
+ * @since 5.1
+ * @see AbstractAutowireCapableBeanFactory#getBeanCreationMetrics(String)
+ */
+public final class BeanCreationMetrics {
+
+	private final String beanName;
+
+	private final LongAdder creationCount = new LongAdder();
+
+	private final LongAdder totalCreationTime = new LongAdder();
+
+	private final AtomicLong maxCreationTime = new AtomicLong();
+
+
+	BeanCreationMetrics(String beanName) {
+		this.beanName = beanName;
+	}
+
+
+	/**
+	 * Return the name of the bean that these metrics apply to.
+	 */
+	public String getBeanName() {
+		return this.beanName;
+	}
+
+	/**
+	 * Return the number of bean instances created so far.
+	 */
+	public long getCreationCount() {
+		return this.creationCount.sum();
+	}
+
+	/**
+	 * Return the total time spent creating bean instances, in nanoseconds.
+	 */
+	public long getTotalCreationTime() {
+		return this.totalCreationTime.sum();
+	}
+
+	/**
+	 * Return the maximum time spent creating a single bean instance, in nanoseconds.
+	 */
+	public long getMaxCreationTime() {
+		return this.maxCreationTime.get();
+	}
+
+	/**
+	 * Return the average time spent creating a single bean instance, in nanoseconds.
+	 */
+	public long getAverageCreationTime() {
+		long count = getCreationCount();
+		return (count > 0 ? getTotalCreationTime() / count : 0);
+	}
+
+	/**
+	 * Record the creation of a bean instance.
+	 * @param creationTime the time spent creating the instance, in nanoseconds
+	 */
+	void recordCreation(long creationTime) {
+		this.creationCount.increment();
+		this.totalCreationTime.add(creationTime);
+		this.maxCreationTime.accumulateAndGet(creationTime, Math::max);
+	}
+
+
+	@Override
+	public String toString() {
+		return "BeanCreationMetrics for bean '" + this.beanName + "': " + getCreationCount() +
+				" instances created, average creation time " + getAverageCreationTime() + " ns";
+	}
+
+}
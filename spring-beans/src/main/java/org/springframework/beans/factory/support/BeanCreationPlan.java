@@ -0,0 +1,248 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.PropertyValues;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Plan for repeatedly creating instances of a specific bean, as cached on its
+ * merged {@link RootBeanDefinition}: records the post-processors which actually
+ * apply to the bean in each phase of the creation process, as well as the
+ * candidate constructors determined for it, so that the creation of prototype
+ * and scoped beans does not have to go through all registered post-processors
+ * every time.
+ *
+ * <p>A post-processor is considered to apply to a phase if it overrides the
+ * corresponding callback method, as opposed to inheriting the no-op default
+ * implementation of the {@link BeanPostProcessor} and
+ * {@link InstantiationAwareBeanPostProcessor} interfaces or of the
+ * {@link InstantiationAwareBeanPostProcessorAdapter} class.
+ *
+ * <p>Since merged bean definitions get recreated whenever their original bean
+ * definition changes, a plan is implicitly discarded along with it. A plan also
+ * becomes stale once further post-processors get registered with the factory.
+ *
+ * @since 5.1
+ * @see AbstractAutowireCapableBeanFactory#createBean
+ */
+final class BeanCreationPlan {
+
+	private static final int BEFORE_INSTANTIATION = 1;
+
+	private static final int AFTER_INSTANTIATION = 2;
+
+	private static final int PROPERTY_VALUES = 4;
+
+	private static final int BEFORE_INITIALIZATION = 8;
+
+	private static final int AFTER_INITIALIZATION = 16;
+
+	private static final Map<Class<?>, Integer> callbacksCache = new ConcurrentReferenceHashMap<>(64);
+
+
+	private final int postProcessorsVersion;
+
+	private final List<InstantiationAwareBeanPostProcessor> beforeInstantiationProcessors;
+
+	private final List<InstantiationAwareBeanPostProcessor> afterInstantiationProcessors;
+
+	private final List<InstantiationAwareBeanPostProcessor> propertyValuesProcessors;
+
+	private final List<BeanPostProcessor> beforeInitializationProcessors;
+
+	private final List<BeanPostProcessor> afterInitializationProcessors;
+
+	@Nullable
+	private volatile Constructor<?>[] candidateConstructors;
+
+	private volatile boolean candidateConstructorsResolved;
+
+
+	/**
+	 * Create a new plan for the given post-processors.
+	 * @param beanPostProcessors the post-processors registered with the factory
+	 * @param postProcessorsVersion the version of the factory's post-processor
+	 * registrations that the given post-processors correspond to
+	 * @param synthetic whether the bean definition is synthetic, i.e. not
+	 * subject to instantiation and initialization callbacks
+	 */
+	BeanCreationPlan(List<BeanPostProcessor> beanPostProcessors, int postProcessorsVersion, boolean synthetic) {
+		this.postProcessorsVersion = postProcessorsVersion;
+		List<InstantiationAwareBeanPostProcessor> beforeInstantiation = new ArrayList<>();
+		List<InstantiationAwareBeanPostProcessor> afterInstantiation = new ArrayList<>();
+		List<InstantiationAwareBeanPostProcessor> propertyValues = new ArrayList<>();
+		List<BeanPostProcessor> beforeInitialization = new ArrayList<>();
+		List<BeanPostProcessor> afterInitialization = new ArrayList<>();
+		for (BeanPostProcessor bp : beanPostProcessors) {
+			int callbacks = getOverriddenCallbacks(bp.getClass());
+			if (bp instanceof InstantiationAwareBeanPostProcessor) {
+				InstantiationAwareBeanPostProcessor ibp = (InstantiationAwareBeanPostProcessor) bp;
+				if (!synthetic && (callbacks & BEFORE_INSTANTIATION) != 0) {
+					beforeInstantiation.add(ibp);
+				}
+				if (!synthetic && (callbacks & AFTER_INSTANTIATION) != 0) {
+					afterInstantiation.add(ibp);
+				}
+				if ((callbacks & PROPERTY_VALUES) != 0) {
+					propertyValues.add(ibp);
+				}
+			}
+			if (!synthetic && (callbacks & BEFORE_INITIALIZATION) != 0) {
+				beforeInitialization.add(bp);
+			}
+			if (!synthetic && (callbacks & AFTER_INITIALIZATION) != 0) {
+				afterInitialization.add(bp);
+			}
+		}
+		this.beforeInstantiationProcessors = compact(beforeInstantiation);
+		this.afterInstantiationProcessors = compact(afterInstantiation);
+		this.propertyValuesProcessors = compact(propertyValues);
+		this.beforeInitializationProcessors = compact(beforeInitialization);
+		this.afterInitializationProcessors = compact(afterInitialization);
+	}
+
+
+	/**
+	 * Return the version of the factory's post-processor registrations
+	 * that this plan has been built for.
+	 */
+	public int getPostProcessorsVersion() {
+		return this.postProcessorsVersion;
+	}
+
+	/**
+	 * Return the post-processors to apply before instantiation.
+	 * @see InstantiationAwareBeanPostProcessor#postProcessBeforeInstantiation
+	 */
+	public List<InstantiationAwareBeanPostProcessor> getBeforeInstantiationProcessors() {
+		return this.beforeInstantiationProcessors;
+	}
+
+	/**
+	 * Return the post-processors to apply after instantiation.
+	 * @see InstantiationAwareBeanPostProcessor#postProcessAfterInstantiation
+	 */
+	public List<InstantiationAwareBeanPostProcessor> getAfterInstantiationProcessors() {
+		return this.afterInstantiationProcessors;
+	}
+
+	/**
+	 * Return the post-processors to apply to the bean's property values.
+	 * @see InstantiationAwareBeanPostProcessor#postProcessPropertyValues
+	 */
+	public List<InstantiationAwareBeanPostProcessor> getPropertyValuesProcessors() {
+		return this.propertyValuesProcessors;
+	}
+
+	/**
+	 * Return the post-processors to apply before initialization.
+	 * @see BeanPostProcessor#postProcessBeforeInitialization
+	 */
+	public List<BeanPostProcessor> getBeforeInitializationProcessors() {
+		return this.beforeInitializationProcessors;
+	}
+
+	/**
+	 * Return the post-processors to apply after initialization.
+	 * @see BeanPostProcessor#postProcessAfterInitialization
+	 */
+	public List<BeanPostProcessor> getAfterInitializationProcessors() {
+		return this.afterInitializationProcessors;
+	}
+
+	/**
+	 * Return whether the candidate constructors have been determined already.
+	 */
+	public boolean isCandidateConstructorsResolved() {
+		return this.candidateConstructorsResolved;
+	}
+
+	/**
+	 * Return the candidate constructors determined for the bean,
+	 * or {@code null} if none (or not resolved yet).
+	 */
+	@Nullable
+	public Constructor<?>[] getCandidateConstructors() {
+		return this.candidateConstructors;
+	}
+
+	/**
+	 * Record the candidate constructors determined for the bean.
+	 * @param candidateConstructors the candidate constructors, or {@code null} if none
+	 */
+	public void setCandidateConstructors(@Nullable Constructor<?>[] candidateConstructors) {
+		this.candidateConstructors = candidateConstructors;
+		this.candidateConstructorsResolved = true;
+	}
+
+
+	private static <T> List<T> compact(List<T> processors) {
+		return (processors.isEmpty() ? Collections.emptyList() : processors);
+	}
+
+	private static int getOverriddenCallbacks(Class<?> processorClass) {
+		Integer callbacks = callbacksCache.get(processorClass);
+		if (callbacks == null) {
+			int result = 0;
+			if (isOverridden(processorClass, "postProcessBeforeInstantiation", Class.class, String.class)) {
+				result |= BEFORE_INSTANTIATION;
+			}
+			if (isOverridden(processorClass, "postProcessAfterInstantiation", Object.class, String.class)) {
+				result |= AFTER_INSTANTIATION;
+			}
+			if (isOverridden(processorClass, "postProcessPropertyValues",
+					PropertyValues.class, PropertyDescriptor[].class, Object.class, String.class)) {
+				result |= PROPERTY_VALUES;
+			}
+			if (isOverridden(processorClass, "postProcessBeforeInitialization", Object.class, String.class)) {
+				result |= BEFORE_INITIALIZATION;
+			}
+			if (isOverridden(processorClass, "postProcessAfterInitialization", Object.class, String.class)) {
+				result |= AFTER_INITIALIZATION;
+			}
+			callbacks = result;
+			callbacksCache.put(processorClass, callbacks);
+		}
+		return callbacks;
+	}
+
+	private static boolean isOverridden(Class<?> processorClass, String methodName, Class<?>... paramTypes) {
+		Method method = ClassUtils.getMethodIfAvailable(processorClass, methodName, paramTypes);
+		if (method == null) {
+			return false;
+		}
+		Class<?> declaringClass = method.getDeclaringClass();
+		return (declaringClass != BeanPostProcessor.class &&
+				declaringClass != InstantiationAwareBeanPostProcessor.class &&
+				declaringClass != InstantiationAwareBeanPostProcessorAdapter.class);
+	}
+
+}
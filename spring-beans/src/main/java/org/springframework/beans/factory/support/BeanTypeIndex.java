@@ -0,0 +1,336 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Incrementally maintained index from raw types to the names of the beans
+ * that may match them, narrowing down the candidates that a
+ * {@link DefaultListableBeanFactory} needs to fully check for a by-type lookup.
+ *
+ * <p>Each bean is indexed under its type as well as all of its superclasses
+ * and interfaces once that type has been determined, and gets re-indexed
+ * whenever its bean definition or singleton instance changes. Beans whose type
+ * cannot be reliably determined upfront (e.g. factory methods or FactoryBeans)
+ * remain candidates for every lookup. Candidates are returned in registration
+ * order, with bean definitions ahead of manually registered singletons.
+ *
+ * @since 5.1
+ * @see DefaultListableBeanFactory#getBeanNamesForType
+ */
+final class BeanTypeIndex {
+
+	private static final long MANUAL_SINGLETON_ORDER = 1L << 62;
+
+
+	private final AtomicLong beanDefinitionSequence = new AtomicLong();
+
+	private final AtomicLong manualSingletonSequence = new AtomicLong(MANUAL_SINGLETON_ORDER);
+
+	/** Map from bean name to index entry */
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+	/** Map from raw type to index entries of that type or a subtype */
+	private final ConcurrentMap<Class<?>, NavigableSet<Entry>> entriesByType = new ConcurrentHashMap<>(256);
+
+	/** Index entries without a determined type, matching any type */
+	private final NavigableSet<Entry> unresolvedEntries = new ConcurrentSkipListSet<>();
+
+	private volatile int postProcessorsVersion;
+
+	private volatile boolean typePredicting;
+
+
+	/**
+	 * Add the given bean definition name to the index, with its type
+	 * to be determined on the next lookup.
+	 * @param beanName the name of the newly registered bean definition
+	 */
+	public void registerBeanDefinition(String beanName) {
+		register(beanName, false);
+	}
+
+	/**
+	 * Add the given manually registered singleton to the index, with its type
+	 * to be determined on the next lookup.
+	 * @param beanName the name of the newly registered singleton
+	 */
+	public void registerManualSingleton(String beanName) {
+		register(beanName, true);
+	}
+
+	private void register(String beanName, boolean manualSingleton) {
+		long order = (manualSingleton ? this.manualSingletonSequence : this.beanDefinitionSequence).getAndIncrement();
+		Entry entry = new Entry(beanName, order, manualSingleton);
+		this.unresolvedEntries.add(entry);
+		Entry existing = this.entries.put(beanName, entry);
+		if (existing != null) {
+			discard(existing);
+		}
+	}
+
+	/**
+	 * Remove the given bean from the index.
+	 * @param beanName the name of the bean definition or singleton to remove
+	 */
+	public void remove(String beanName) {
+		Entry entry = this.entries.remove(beanName);
+		if (entry != null) {
+			discard(entry);
+		}
+	}
+
+	/**
+	 * Reset the type of the given bean, to be determined again on the next lookup.
+	 * @param beanName the name of the bean whose definition or instance changed
+	 */
+	public void invalidate(String beanName) {
+		Entry entry = this.entries.get(beanName);
+		if (entry != null) {
+			invalidate(entry);
+		}
+	}
+
+	/**
+	 * Reset the types of all beans, to be determined again on the next lookup.
+	 */
+	public void invalidateAll() {
+		for (Entry entry : this.entries.values()) {
+			invalidate(entry);
+		}
+	}
+
+	/**
+	 * Check the given post-processors for any that may predict bean types
+	 * differing from the bean classes, in which case only the types of
+	 * existing singleton instances can be indexed.
+	 * @param postProcessorsVersion the version of the given post-processors
+	 * @param postProcessors the post-processors registered with the factory
+	 * @see SmartInstantiationAwareBeanPostProcessor#predictBeanType
+	 */
+	public void checkPostProcessors(int postProcessorsVersion, List<BeanPostProcessor> postProcessors) {
+		if (postProcessorsVersion != this.postProcessorsVersion) {
+			boolean typePredicting = false;
+			for (BeanPostProcessor bp : postProcessors) {
+				if (bp instanceof SmartInstantiationAwareBeanPostProcessor && isTypePredicting(bp.getClass())) {
+					typePredicting = true;
+					break;
+				}
+			}
+			if (typePredicting != this.typePredicting) {
+				this.typePredicting = typePredicting;
+				invalidateAll();
+			}
+			this.postProcessorsVersion = postProcessorsVersion;
+		}
+	}
+
+	/**
+	 * Return whether registered post-processors may predict bean types
+	 * differing from the bean classes.
+	 */
+	public boolean isTypePredicting() {
+		return this.typePredicting;
+	}
+
+	/**
+	 * Collect the names of all beans that may match the given raw type,
+	 * in registration order.
+	 * @param type the raw type to look up
+	 * @param typeResolver the callback for determining the type of a bean
+	 * not indexed yet, returning {@code null} if it cannot be determined upfront
+	 * @param beanDefinitionNames the list to add candidate bean definition names to
+	 * @param manualSingletonNames the list to add candidate manual singleton names to
+	 */
+	public void collectCandidates(Class<?> type, Function<String, Class<?>> typeResolver,
+			List<String> beanDefinitionNames, List<String> manualSingletonNames) {
+
+		for (Entry entry : this.unresolvedEntries) {
+			if (entry.state == Entry.PENDING) {
+				resolve(entry, typeResolver);
+			}
+		}
+		Set<Entry> typedEntries = this.entriesByType.get(type);
+		Iterator<Entry> typed = (typedEntries != null ? typedEntries : Collections.<Entry>emptySet()).iterator();
+		Iterator<Entry> unresolved = this.unresolvedEntries.iterator();
+		Entry nextTyped = next(typed);
+		Entry nextUnresolved = next(unresolved);
+		Entry previous = null;
+		while (nextTyped != null || nextUnresolved != null) {
+			Entry entry;
+			if (nextUnresolved == null || (nextTyped != null && nextTyped.order <= nextUnresolved.order)) {
+				entry = nextTyped;
+				nextTyped = next(typed);
+			}
+			else {
+				entry = nextUnresolved;
+				nextUnresolved = next(unresolved);
+			}
+			// An entry getting resolved concurrently may show up on both sides
+			if (entry != previous) {
+				(entry.manualSingleton ? manualSingletonNames : beanDefinitionNames).add(entry.beanName);
+				previous = entry;
+			}
+		}
+	}
+
+
+	private void resolve(Entry entry, Function<String, Class<?>> typeResolver) {
+		int generation = entry.generation;
+		Class<?> type = typeResolver.apply(entry.beanName);
+		synchronized (entry) {
+			if (entry.generation != generation || entry.state != Entry.PENDING) {
+				return;
+			}
+			if (type != null) {
+				entry.type = type;
+				entry.state = Entry.INDEXED;
+				for (Class<?> typeToIndex : getTypeHierarchy(type)) {
+					this.entriesByType.computeIfAbsent(typeToIndex, key -> new ConcurrentSkipListSet<>()).add(entry);
+				}
+				this.unresolvedEntries.remove(entry);
+			}
+			else {
+				entry.state = Entry.UNINDEXABLE;
+			}
+		}
+	}
+
+	private void invalidate(Entry entry) {
+		synchronized (entry) {
+			if (entry.state != Entry.REMOVED) {
+				entry.generation++;
+				this.unresolvedEntries.add(entry);
+				unindex(entry);
+				entry.state = Entry.PENDING;
+			}
+		}
+	}
+
+	private void discard(Entry entry) {
+		synchronized (entry) {
+			entry.generation++;
+			this.unresolvedEntries.remove(entry);
+			unindex(entry);
+			entry.state = Entry.REMOVED;
+		}
+	}
+
+	private void unindex(Entry entry) {
+		Class<?> type = entry.type;
+		if (type != null) {
+			for (Class<?> indexedType : getTypeHierarchy(type)) {
+				Set<Entry> typedEntries = this.entriesByType.get(indexedType);
+				if (typedEntries != null) {
+					typedEntries.remove(entry);
+				}
+			}
+			entry.type = null;
+		}
+	}
+
+	@Nullable
+	private static Entry next(Iterator<Entry> iterator) {
+		return (iterator.hasNext() ? iterator.next() : null);
+	}
+
+	private static Set<Class<?>> getTypeHierarchy(Class<?> type) {
+		Set<Class<?>> hierarchy = new LinkedHashSet<>();
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		queue.add(type);
+		while (!queue.isEmpty()) {
+			Class<?> current = queue.poll();
+			if (hierarchy.add(current)) {
+				Class<?> superclass = current.getSuperclass();
+				if (superclass != null) {
+					queue.add(superclass);
+				}
+				Collections.addAll(queue, current.getInterfaces());
+			}
+		}
+		if (type.isInterface()) {
+			hierarchy.add(Object.class);
+		}
+		return hierarchy;
+	}
+
+	private static boolean isTypePredicting(Class<?> postProcessorClass) {
+		Method method = ClassUtils.getMethodIfAvailable(postProcessorClass, "predictBeanType", Class.class, String.class);
+		return (method != null && method.getDeclaringClass() != SmartInstantiationAwareBeanPostProcessor.class &&
+				method.getDeclaringClass() != InstantiationAwareBeanPostProcessorAdapter.class);
+	}
+
+
+	/**
+	 * Index entry for a specific bean, ordered by registration.
+	 */
+	private static final class Entry implements Comparable<Entry> {
+
+		static final int PENDING = 0;
+
+		static final int INDEXED = 1;
+
+		static final int UNINDEXABLE = 2;
+
+		static final int REMOVED = 3;
+
+		final String beanName;
+
+		final long order;
+
+		final boolean manualSingleton;
+
+		volatile int state = PENDING;
+
+		volatile int generation;
+
+		@Nullable
+		volatile Class<?> type;
+
+		Entry(String beanName, long order, boolean manualSingleton) {
+			this.beanName = beanName;
+			this.order = order;
+			this.manualSingleton = manualSingleton;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return Long.compare(this.order, other.order);
+		}
+	}
+
+}
@@ -30,7 +30,9 @@ import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,10 +42,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.inject.Provider;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -64,8 +71,10 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
 import org.springframework.core.OrderComparator;
@@ -153,6 +162,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	// Ƿeager(lazy)ļ,ӳٳʼbeanļء
 	private boolean allowEagerClassLoading = true;
 
+	/** Number of threads to pre-instantiate singletons with */
+	private int preInstantiationParallelism = 1;
+
 	/** Optional OrderComparator for dependency Lists and arrays */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -174,6 +186,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names, keyed by dependency type */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Index of bean names by raw type, narrowing down the candidates for by-type lookups */
+	private final BeanTypeIndex beanTypeIndex = new BeanTypeIndex();
+
 	/** List of bean definition names, in registration order */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
@@ -271,6 +286,38 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set the number of threads to use for pre-instantiating non-lazy singletons.
+	 * <p>Default is 1, creating singletons one by one on the calling thread.
+	 * With a higher value, singletons that are not connected through declared
+	 * dependencies (depends-on, bean references in constructor arguments and
+	 * properties, factory beans, and dependencies registered so far) are created
+	 * concurrently on a dedicated {@link ForkJoinPool}. Dependencies that are only
+	 * discovered during creation, e.g. through autowiring, are guarded per bean:
+	 * a thread waits for a singleton that another thread is creating. Circular
+	 * references are only resolved within a single thread; any singleton that
+	 * cannot be created in parallel is created in a final sequential pass, with
+	 * the same semantics as without parallelism. If a singleton fails to be
+	 * created, parallel creation stops right away: the singletons created so far
+	 * are destroyed and the original exception is rethrown.
+	 * <p>Only turn this on for bean definitions that do not rely on a specific
+	 * creation order beyond their declared dependencies.
+	 * @since 5.1
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		Assert.isTrue(preInstantiationParallelism > 0, "Pre-instantiation parallelism must be greater than 0");
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating non-lazy singletons.
+	 * @since 5.1
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -330,6 +377,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			// Ƿeager(lazy)ļ,ӳٳʼbeanļء
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
 			
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
@@ -423,8 +471,24 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
+		// Narrow down the candidates through the type index.
+		Collection<String> beanDefinitionNames = this.beanDefinitionNames;
+		Collection<String> manualSingletonNames = this.manualSingletonNames;
+		Class<?> rawType = type.resolve();
+		if (rawType != null) {
+			List<String> candidateDefinitionNames = new ArrayList<>();
+			List<String> candidateSingletonNames = new ArrayList<>();
+			this.beanTypeIndex.checkPostProcessors(getBeanPostProcessorsVersion(), getBeanPostProcessors());
+			// Primitive types match beans of their wrapper type, as indexed for singleton instances.
+			Class<?> indexedType = ClassUtils.resolvePrimitiveIfNecessary(rawType);
+			this.beanTypeIndex.collectCandidates(indexedType, this::determineIndexedType,
+					candidateDefinitionNames, candidateSingletonNames);
+			beanDefinitionNames = candidateDefinitionNames;
+			manualSingletonNames = candidateSingletonNames;
+		}
+
 		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
@@ -477,21 +541,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 
 		// Check manually registered singletons too.
-		for (String beanName : this.manualSingletonNames) {
+		for (String beanName : manualSingletonNames) {
 			try {
-				// In case of FactoryBean, match object created by FactoryBean.
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
-					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					beanName = FACTORY_BEAN_PREFIX + beanName;
-				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
-					result.add(beanName);
+				String matchingName = matchManualSingleton(beanName, type, includeNonSingletons);
+				if (matchingName != null) {
+					result.add(matchingName);
 				}
 			}
 			catch (NoSuchBeanDefinitionException ex) {
@@ -505,6 +559,78 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Match the given manually registered singleton against the given type.
+	 * @param beanName the name of the singleton
+	 * @param type the type to match
+	 * @param includeNonSingletons whether to match non-singleton objects
+	 * created by a FactoryBean as well
+	 * @return the name to expose for the match (the FactoryBean reference if the
+	 * FactoryBean itself matches), or {@code null} if not matching
+	 */
+	@Nullable
+	private String matchManualSingleton(String beanName, ResolvableType type, boolean includeNonSingletons) {
+		// In case of FactoryBean, match object created by FactoryBean.
+		if (isFactoryBean(beanName)) {
+			if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+				// Match found for this bean: do not match FactoryBean itself anymore.
+				return beanName;
+			}
+			// In case of FactoryBean, try to match FactoryBean itself next.
+			beanName = FACTORY_BEAN_PREFIX + beanName;
+		}
+		// Match raw bean instance (might be raw FactoryBean).
+		return (isTypeMatch(beanName, type) ? beanName : null);
+	}
+
+	/**
+	 * Determine the type under which the given bean can be kept in the type index:
+	 * the class of its singleton instance, if available, or otherwise its bean
+	 * class, provided that the type cannot be predicted differently at runtime.
+	 * @param beanName the name of the bean
+	 * @return the type to index, or {@code null} if the bean needs to be
+	 * checked for every type that is being looked up
+	 * @see #doGetBeanNamesForType
+	 */
+	@Nullable
+	private Class<?> determineIndexedType(String beanName) {
+		try {
+			if (isSingletonCurrentlyInCreation(beanName)) {
+				return null;
+			}
+			Class<?> beanType;
+			Object beanInstance = getSingleton(beanName, false);
+			if (beanInstance != null) {
+				if (beanInstance instanceof FactoryBean || beanInstance.getClass() == NullBean.class) {
+					return null;
+				}
+				beanType = beanInstance.getClass();
+			}
+			else {
+				if (!containsBeanDefinition(beanName) || this.beanTypeIndex.isTypePredicting()) {
+					return null;
+				}
+				RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+				if (mbd.isAbstract() || !mbd.hasBeanClass() || mbd.getFactoryMethodName() != null ||
+						mbd.getDecoratedDefinition() != null || mbd.hasMethodOverrides()) {
+					return null;
+				}
+				beanType = mbd.getTargetType();
+				if (beanType == null) {
+					beanType = mbd.getBeanClass();
+				}
+				if (FactoryBean.class.isAssignableFrom(beanType)) {
+					return null;
+				}
+			}
+			return (!beanType.isArray() ? beanType : null);
+		}
+		catch (BeansException ex) {
+			// Probably an unresolvable parent definition: to be handled by the actual type check.
+			return null;
+		}
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -719,6 +845,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
+		this.beanTypeIndex.invalidateAll();
 		clearByTypeCache();
 	}
 
@@ -754,32 +881,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
+		if (this.preInstantiationParallelism > 1) {
+			preInstantiateSingletonsInParallel(beanNames);
+		}
 		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
-				}
-			}
+			preInstantiateSingleton(beanName);
 		}
 
 		// Trigger post-initialization callback for all applicable beans...
@@ -801,6 +907,204 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Pre-instantiate the given bean if it is a non-lazy singleton.
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the non-lazy singletons among the given beans on a
+	 * {@link ForkJoinPool}, one task per group of beans that are connected
+	 * through declared dependencies.
+	 * <p>Singletons that failed because of a circular reference across threads
+	 * are left to the subsequent sequential pass. Any other failure stops all
+	 * groups, destroys the singletons created so far and gets rethrown, so that
+	 * no singleton is attempted to be created twice.
+	 * @see #setPreInstantiationParallelism
+	 */
+	private void preInstantiateSingletonsInParallel(List<String> beanNames) {
+		Collection<List<String>> groups = groupByDeclaredDependencies(beanNames);
+		if (groups.size() < 2) {
+			return;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Pre-instantiating " + groups.size() + " groups of singletons with parallelism " +
+					this.preInstantiationParallelism);
+		}
+
+		ClassLoader classLoader = getBeanClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(this.preInstantiationParallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setContextClassLoader(classLoader);
+			return thread;
+		}, null, false);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		setParallelSingletonCreation(true);
+		try {
+			for (List<String> group : groups) {
+				tasks.add(pool.submit(() -> {
+					for (String beanName : group) {
+						if (isParallelSingletonCreationAborted()) {
+							return;
+						}
+						try {
+							preInstantiateSingleton(beanName);
+						}
+						catch (RuntimeException ex) {
+							if (isParallelCreationCycle(ex)) {
+								if (logger.isDebugEnabled()) {
+									logger.debug("Deferring pre-instantiation of singleton '" + beanName +
+											"' to sequential pass", ex);
+								}
+							}
+							else {
+								// Only keep the original failure, not its consequences in other threads
+								if (!isParallelCreationAborted(ex)) {
+									failure.compareAndSet(null, ex);
+								}
+								abortParallelSingletonCreation();
+								return;
+							}
+						}
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.quietlyJoin();
+			}
+		}
+		finally {
+			setParallelSingletonCreation(false);
+			pool.shutdown();
+		}
+		RuntimeException ex = failure.get();
+		if (ex != null) {
+			destroySingletons();
+			throw ex;
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			// Rethrow errors that escaped a task
+			task.join();
+		}
+	}
+
+	/**
+	 * Partition the given beans into groups that are connected through declared
+	 * dependencies, preserving registration order within each group.
+	 */
+	private Collection<List<String>> groupByDeclaredDependencies(List<String> beanNames) {
+		Map<String, String> parents = new HashMap<>(beanNames.size() * 2);
+		Set<String> dependencies = new LinkedHashSet<>();
+		for (String beanName : beanNames) {
+			dependencies.clear();
+			collectDeclaredDependencies(getMergedLocalBeanDefinition(beanName), dependencies);
+			Collections.addAll(dependencies, getDependenciesForBean(beanName));
+			for (String dependency : dependencies) {
+				String root = findGroup(parents, beanName);
+				String dependencyRoot = findGroup(parents, transformedBeanName(dependency));
+				if (!root.equals(dependencyRoot)) {
+					parents.put(dependencyRoot, root);
+				}
+			}
+		}
+		Map<String, List<String>> groups = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				groups.computeIfAbsent(findGroup(parents, beanName), key -> new ArrayList<>()).add(beanName);
+			}
+		}
+		return groups.values();
+	}
+
+	private static String findGroup(Map<String, String> parents, String beanName) {
+		String root = beanName;
+		String parent;
+		while ((parent = parents.get(root)) != null) {
+			root = parent;
+		}
+		if (!root.equals(beanName)) {
+			parents.put(beanName, root);
+		}
+		return root;
+	}
+
+	private void collectDeclaredDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(dependencies, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : args.getIndexedArgumentValues().values()) {
+			collectReferencedBeanNames(valueHolder.getValue(), dependencies);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : args.getGenericArgumentValues()) {
+			collectReferencedBeanNames(valueHolder.getValue(), dependencies);
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			collectReferencedBeanNames(pv.getValue(), dependencies);
+		}
+	}
+
+	private void collectReferencedBeanNames(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof BeanReference) {
+			dependencies.add(((BeanReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectDeclaredDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDeclaredDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Iterable) {
+			for (Object element : (Iterable<?>) value) {
+				collectReferencedBeanNames(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferencedBeanNames(entry.getKey(), dependencies);
+				collectReferencedBeanNames(entry.getValue(), dependencies);
+			}
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				collectReferencedBeanNames(element, dependencies);
+			}
+		}
+	}
+
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -892,6 +1196,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 				this.manualSingletonNames.remove(beanName);
 			}
 			this.frozenBeanDefinitionNames = null;
+			this.beanTypeIndex.registerBeanDefinition(beanName);
 		}
 
 		if (oldBeanDefinition != null || containsSingleton(beanName)) {
@@ -924,6 +1229,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex.remove(beanName);
 
 		resetBeanDefinition(beanName);
 	}
@@ -936,6 +1242,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void resetBeanDefinition(String beanName) {
 		// Remove the merged bean definition for the given bean, if already created.
 		clearMergedBeanDefinition(beanName);
+		this.beanTypeIndex.invalidate(beanName);
 
 		// Remove corresponding bean from singleton cache, if any. Shouldn't usually
 		// be necessary, rather just meant for overriding a context's default beans
@@ -983,20 +1290,48 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 
-		clearByTypeCache();
+		if (this.beanDefinitionMap.containsKey(beanName)) {
+			this.beanTypeIndex.invalidate(beanName);
+			clearByTypeCache();
+		}
+		else {
+			this.beanTypeIndex.registerManualSingleton(beanName);
+			addToByTypeCache(beanName);
+		}
+	}
+
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		this.beanTypeIndex.invalidate(beanName);
+	}
+
+	@Override
+	protected void addSingletonFactory(String beanName, ObjectFactory<?> singletonFactory) {
+		super.addSingletonFactory(beanName, singletonFactory);
+		this.beanTypeIndex.invalidate(beanName);
 	}
 
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
-		this.manualSingletonNames.remove(beanName);
+		if (this.manualSingletonNames.remove(beanName)) {
+			this.beanTypeIndex.remove(beanName);
+		}
+		else {
+			this.beanTypeIndex.invalidate(beanName);
+		}
 		clearByTypeCache();
 	}
 
 	@Override
 	public void destroySingletons() {
 		super.destroySingletons();
+		for (String beanName : this.manualSingletonNames) {
+			this.beanTypeIndex.remove(beanName);
+		}
 		this.manualSingletonNames.clear();
+		this.beanTypeIndex.invalidateAll();
 		clearByTypeCache();
 	}
 
@@ -1008,6 +1343,34 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		this.singletonBeanNamesByType.clear();
 	}
 
+	/**
+	 * Add the given manually registered singleton to the cached by-type mappings
+	 * that it matches, keeping all other assumptions about by-type mappings.
+	 * @param beanName the name of the singleton
+	 */
+	private void addToByTypeCache(String beanName) {
+		addToByTypeCache(this.allBeanNamesByType, beanName, true);
+		addToByTypeCache(this.singletonBeanNamesByType, beanName, false);
+	}
+
+	private void addToByTypeCache(Map<Class<?>, String[]> cache, String beanName, boolean includeNonSingletons) {
+		for (Map.Entry<Class<?>, String[]> entry : cache.entrySet()) {
+			Class<?> type = entry.getKey();
+			String matchingName;
+			try {
+				matchingName = matchManualSingleton(beanName, ResolvableType.forRawClass(type), includeNonSingletons);
+			}
+			catch (BeansException ex) {
+				cache.remove(type);
+				continue;
+			}
+			String[] beanNames = entry.getValue();
+			if (matchingName != null && !ObjectUtils.containsElement(beanNames, matchingName)) {
+				cache.put(type, StringUtils.addStringToArray(beanNames, matchingName));
+			}
+		}
+	}
+
 
 	//---------------------------------------------------------------------
 	// Dependency resolution functionality
@@ -29,6 +29,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -106,6 +107,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	@Nullable /** 쳣бڹԭ */
 	private Set<Exception> suppressedExceptions;
 
+	/** Creating thread per singleton in parallel creation mode: bean name --> thread */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<>(16);
+
+	/** Singleton awaited per thread in parallel creation mode: thread --> bean name */
+	private final Map<Thread, String> singletonCreationWaits = new HashMap<>(16);
+
+	/** Flag that indicates whether singletons may be created by several threads concurrently */
+	private volatile boolean parallelSingletonCreation = false;
+
+	/** Flag that indicates whether parallel creation has been aborted after a failure */
+	private volatile boolean parallelSingletonCreationAborted = false;
+
 	/** Flag that indicates whether we're currently within destroySingletons */
 	/** Ƿ񲢷beanı־*/
 	private boolean singletonsCurrentlyInDestruction = false;
@@ -209,6 +222,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			// ͬ
 			synchronized (this.singletonObjects) {
+				if (!isSingletonCreatedByCurrentThread(beanName)) {
+					// Never expose an early reference to a singleton that another thread is creating
+					return null;
+				}
 				// ǰ¶ĵ󻺴лȡ
 				singletonObject = this.earlySingletonObjects.get(beanName);
 				if (singletonObject == null && allowEarlyReference) {
@@ -235,6 +252,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.parallelSingletonCreation) {
+			return getSingletonInParallel(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			// ӻлȡʵ
 			Object singletonObject = this.singletonObjects.get(beanName);
@@ -295,6 +315,168 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for parallel creation
+	 * mode: the singleton lock is only held for cache access and bookkeeping, while
+	 * the creation itself is guarded per bean. A thread asking for a singleton that
+	 * another thread is currently creating waits for it, unless that thread is in
+	 * turn waiting for a singleton created by the current thread. Circular
+	 * references are therefore only ever resolved within a single thread.
+	 */
+	private Object getSingletonInParallel(String beanName, ObjectFactory<?> singletonFactory) {
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonObjects) {
+			while (true) {
+				Object singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject != null) {
+					return singletonObject;
+				}
+				if (this.singletonsCurrentlyInDestruction) {
+					throw new BeanCreationNotAllowedException(beanName,
+							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+				}
+				if (this.parallelSingletonCreationAborted) {
+					throw new ParallelCreationAbortedException(beanName);
+				}
+				Thread creatingThread = this.singletonCreationThreads.get(beanName);
+				if (creatingThread == null || creatingThread == currentThread) {
+					break;
+				}
+				if (isAwaitingSingletonOf(creatingThread, currentThread)) {
+					throw new ParallelCreationCycleException(beanName);
+				}
+				this.singletonCreationWaits.put(currentThread, beanName);
+				try {
+					this.singletonObjects.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for singleton creation in another thread", ex);
+				}
+				finally {
+					this.singletonCreationWaits.remove(currentThread);
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, currentThread);
+		}
+
+		Object singletonObject;
+		try {
+			try {
+				singletonObject = singletonFactory.getObject();
+				addSingleton(beanName, singletonObject);
+			}
+			catch (IllegalStateException ex) {
+				// Has the singleton object implicitly appeared in the meantime ->
+				// if yes, proceed with it since the exception indicates that state.
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
+					throw ex;
+				}
+			}
+		}
+		catch (RuntimeException | Error ex) {
+			if (!isParallelCreationCycle(ex)) {
+				// Keep threads waiting for this singleton from creating it once more
+				abortParallelSingletonCreation();
+			}
+			throw ex;
+		}
+		finally {
+			synchronized (this.singletonObjects) {
+				afterSingletonCreation(beanName);
+				this.singletonCreationThreads.remove(beanName);
+				this.singletonObjects.notifyAll();
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Determine whether the given thread is, directly or through other threads,
+	 * waiting for a singleton that the given awaited thread is creating.
+	 * To be called with the singleton lock held.
+	 */
+	private boolean isAwaitingSingletonOf(Thread thread, Thread awaitedThread) {
+		Thread current = thread;
+		for (int i = 0; i <= this.singletonCreationWaits.size(); i++) {
+			String awaitedBeanName = this.singletonCreationWaits.get(current);
+			if (awaitedBeanName == null) {
+				return false;
+			}
+			current = this.singletonCreationThreads.get(awaitedBeanName);
+			if (current == null) {
+				return false;
+			}
+			if (current == awaitedThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether the specified singleton is either not being created in
+	 * parallel creation mode or being created by the current thread.
+	 * To be called with the singleton lock held.
+	 */
+	private boolean isSingletonCreatedByCurrentThread(String beanName) {
+		Thread creatingThread = this.singletonCreationThreads.get(beanName);
+		return (creatingThread == null || creatingThread == Thread.currentThread());
+	}
+
+	/**
+	 * Switch parallel singleton creation on or off. In parallel creation mode,
+	 * several threads may create different singletons concurrently instead of
+	 * serializing all singleton creation on the singleton lock.
+	 * <p>Only to be switched while no singleton creation is in progress.
+	 * @since 5.1
+	 * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+	 */
+	void setParallelSingletonCreation(boolean parallelSingletonCreation) {
+		this.parallelSingletonCreation = parallelSingletonCreation;
+		this.parallelSingletonCreationAborted = false;
+	}
+
+	/**
+	 * Abort parallel singleton creation after a failure: from now on, any thread
+	 * requesting a singleton that does not exist yet fails with an exception
+	 * for which {@link #isParallelCreationAborted} returns {@code true}.
+	 */
+	void abortParallelSingletonCreation() {
+		this.parallelSingletonCreationAborted = true;
+	}
+
+	/**
+	 * Return whether parallel singleton creation has been aborted after a failure.
+	 */
+	boolean isParallelSingletonCreationAborted() {
+		return this.parallelSingletonCreationAborted;
+	}
+
+	/**
+	 * Determine whether the given exception was caused by a circular reference
+	 * across threads in parallel creation mode, to be resolved within a single
+	 * thread instead.
+	 */
+	static boolean isParallelCreationCycle(Throwable ex) {
+		return (ex instanceof BeansException && ((BeansException) ex).contains(ParallelCreationCycleException.class));
+	}
+
+	/**
+	 * Determine whether the given exception was caused by parallel creation
+	 * having been aborted after a failure in another thread.
+	 */
+	static boolean isParallelCreationAborted(Throwable ex) {
+		return (ex instanceof BeansException && ((BeansException) ex).contains(ParallelCreationAbortedException.class));
+	}
+
 	/**
 	 * Register an Exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -670,4 +852,30 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Exception thrown in parallel creation mode when the requested singleton is
+	 * in creation by another thread which is waiting for a singleton in creation
+	 * by the current thread.
+	 */
+	static class ParallelCreationCycleException extends BeanCurrentlyInCreationException {
+
+		public ParallelCreationCycleException(String beanName) {
+			super(beanName, "Requested bean is currently in creation by another thread which is waiting " +
+					"for a bean in creation by this thread: Is there a circular reference?");
+		}
+	}
+
+
+	/**
+	 * Exception thrown in parallel creation mode when a singleton is requested
+	 * after another singleton failed to be created.
+	 */
+	static class ParallelCreationAbortedException extends BeanCreationNotAllowedException {
+
+		public ParallelCreationAbortedException(String beanName) {
+			super(beanName, "Singleton creation aborted since another singleton failed to be created in parallel");
+		}
+	}
+
 }
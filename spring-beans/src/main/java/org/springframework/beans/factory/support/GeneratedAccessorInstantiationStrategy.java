@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+import org.springframework.beans.BeanAccessors;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.lang.Nullable;
+
+/**
+ * Instantiation strategy that invokes bean constructors through accessors
+ * generated by {@link BeanAccessors} rather than through reflection, avoiding
+ * the reflection overhead for frequently created beans such as prototypes.
+ *
+ * <p>Setting this strategy on an {@link AbstractAutowireCapableBeanFactory}
+ * also enables generated accessors for property setters invoked through the
+ * factory's {@link org.springframework.beans.BeanWrapperImpl BeanWrappers} and
+ * for {@link org.springframework.beans.factory.annotation.Autowired @Autowired}
+ * fields and methods; see {@link #isUsedBy(BeanFactory)}.
+ *
+ * <p>Falls back to regular reflection for non-public constructors and classes,
+ * as well as when running with a {@link SecurityManager}. Method injection is
+ * supported through CGLIB, as in {@link CglibSubclassingInstantiationStrategy}.
+ *
+ * @since 5.1
+ * @see AbstractAutowireCapableBeanFactory#setInstantiationStrategy
+ */
+public class GeneratedAccessorInstantiationStrategy extends CglibSubclassingInstantiationStrategy {
+
+	private static final Object[] NO_ARGS = new Object[0];
+
+
+	@Override
+	public Object instantiate(RootBeanDefinition bd, @Nullable String beanName, BeanFactory owner) {
+		if (!bd.hasMethodOverrides() && System.getSecurityManager() == null) {
+			Object constructorToUse;
+			synchronized (bd.constructorArgumentLock) {
+				constructorToUse = bd.resolvedConstructorOrFactoryMethod;
+			}
+			// Resolved by the superclass on first instantiation
+			if (constructorToUse instanceof Constructor) {
+				Constructor<?> ctor = (Constructor<?>) constructorToUse;
+				BeanAccessors.ConstructorAccessor accessor = BeanAccessors.getConstructorAccessor(ctor);
+				if (accessor != null) {
+					return instantiate(accessor, ctor, NO_ARGS);
+				}
+			}
+		}
+		return super.instantiate(bd, beanName, owner);
+	}
+
+	@Override
+	public Object instantiate(RootBeanDefinition bd, @Nullable String beanName, BeanFactory owner,
+			final Constructor<?> ctor, @Nullable Object... args) {
+
+		if (!bd.hasMethodOverrides() && System.getSecurityManager() == null) {
+			BeanAccessors.ConstructorAccessor accessor = BeanAccessors.getConstructorAccessor(ctor);
+			if (accessor != null) {
+				return instantiate(accessor, ctor, (args != null ? args : NO_ARGS));
+			}
+		}
+		return super.instantiate(bd, beanName, owner, ctor, args);
+	}
+
+	private Object instantiate(BeanAccessors.ConstructorAccessor accessor, Constructor<?> ctor, Object[] args) {
+		try {
+			return accessor.newInstance(args);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new BeanInstantiationException(ctor, "Illegal arguments for constructor", ex);
+		}
+		catch (InvocationTargetException ex) {
+			throw new BeanInstantiationException(ctor, "Constructor threw exception", ex.getTargetException());
+		}
+	}
+
+
+	/**
+	 * Determine whether the given bean factory uses a
+	 * {@code GeneratedAccessorInstantiationStrategy}, in which case generated
+	 * accessors should be used for dependency injection as well.
+	 * @param beanFactory the bean factory to check (may be {@code null})
+	 */
+	public static boolean isUsedBy(@Nullable BeanFactory beanFactory) {
+		return (beanFactory instanceof AbstractAutowireCapableBeanFactory &&
+				((AbstractAutowireCapableBeanFactory) beanFactory).getInstantiationStrategy()
+						instanceof GeneratedAccessorInstantiationStrategy);
+	}
+
+}
@@ -102,6 +102,10 @@ public class RootBeanDefinition extends AbstractBeanDefinition {
 	@Nullable
 	volatile Boolean beforeInstantiationResolved;
 
+	/** Package-visible field for caching the plan for creating instances of this bean */
+	@Nullable
+	volatile BeanCreationPlan creationPlan;
+
 	@Nullable
 	private Set<Member> externallyManagedConfigMembers;
 
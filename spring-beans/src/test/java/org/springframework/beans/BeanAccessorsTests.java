@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.Test;
+
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BeanAccessors}.
+ *
+ * @since 5.1
+ */
+public class BeanAccessorsTests {
+
+	@Test
+	public void constructorAccessor() throws Exception {
+		BeanAccessors.ConstructorAccessor accessor =
+				BeanAccessors.getConstructorAccessor(Sample.class.getConstructor(String.class, int.class));
+		assertNotNull(accessor);
+		Sample sample = (Sample) accessor.newInstance("juergen", 42);
+		assertEquals("juergen", sample.name);
+		assertEquals(42, sample.age);
+		assertTrue(sample.createdBy.contains("$$Accessor$$"));
+	}
+
+	@Test
+	public void constructorAccessorWithWideningConversion() throws Exception {
+		BeanAccessors.ConstructorAccessor accessor =
+				BeanAccessors.getConstructorAccessor(Sample.class.getConstructor(String.class, int.class));
+		assertNotNull(accessor);
+		assertEquals(7, ((Sample) accessor.newInstance("juergen", (short) 7)).age);
+	}
+
+	@Test
+	public void constructorAccessorWithExceptionThrown() throws Exception {
+		BeanAccessors.ConstructorAccessor accessor =
+				BeanAccessors.getConstructorAccessor(Sample.class.getConstructor(String.class, int.class));
+		assertNotNull(accessor);
+		try {
+			accessor.newInstance(null, -1);
+			fail("Should have thrown InvocationTargetException");
+		}
+		catch (InvocationTargetException ex) {
+			assertTrue(ex.getTargetException() instanceof IllegalStateException);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorAccessorWithNullForPrimitive() throws Exception {
+		BeanAccessors.ConstructorAccessor accessor =
+				BeanAccessors.getConstructorAccessor(Sample.class.getConstructor(String.class, int.class));
+		assertNotNull(accessor);
+		accessor.newInstance("juergen", null);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void constructorAccessorWithArgumentTypeMismatch() throws Exception {
+		BeanAccessors.ConstructorAccessor accessor =
+				BeanAccessors.getConstructorAccessor(Sample.class.getConstructor(String.class, int.class));
+		assertNotNull(accessor);
+		accessor.newInstance(new Object(), 42);
+	}
+
+	@Test
+	public void methodAccessor() throws Exception {
+		BeanAccessors.MethodAccessor setter = BeanAccessors.getMethodAccessor(TestBean.class.getMethod("setAge", int.class));
+		BeanAccessors.MethodAccessor getter = BeanAccessors.getMethodAccessor(TestBean.class.getMethod("getAge"));
+		assertNotNull(setter);
+		assertNotNull(getter);
+		TestBean tb = new TestBean();
+		assertNull(setter.invoke(tb, 42));
+		assertEquals(42, getter.invoke(tb));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void methodAccessorWithTargetTypeMismatch() throws Exception {
+		BeanAccessors.MethodAccessor accessor = BeanAccessors.getMethodAccessor(TestBean.class.getMethod("getAge"));
+		assertNotNull(accessor);
+		accessor.invoke(Sample.create("juergen"));
+	}
+
+	@Test
+	public void methodAccessorWithArgumentTypeMismatch() throws Exception {
+		BeanAccessors.MethodAccessor accessor =
+				BeanAccessors.getMethodAccessor(TestBean.class.getMethod("setName", String.class));
+		assertNotNull(accessor);
+		try {
+			accessor.invoke(new TestBean(), 42);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			assertTrue(ex.getCause() instanceof ClassCastException);
+		}
+	}
+
+	@Test
+	public void methodAccessorForStaticMethod() throws Exception {
+		BeanAccessors.MethodAccessor accessor =
+				BeanAccessors.getMethodAccessor(Sample.class.getMethod("create", String.class));
+		assertNotNull(accessor);
+		assertEquals("juergen", ((Sample) accessor.invoke(null, "juergen")).name);
+	}
+
+	@Test
+	public void methodAccessorForInterfaceMethod() throws Exception {
+		BeanAccessors.MethodAccessor accessor = BeanAccessors.getMethodAccessor(Named.class.getMethod("getName"));
+		assertNotNull(accessor);
+		assertEquals("juergen", accessor.invoke(Sample.create("juergen")));
+	}
+
+	@Test
+	public void fieldAccessor() throws Exception {
+		BeanAccessors.FieldAccessor nameAccessor = BeanAccessors.getFieldAccessor(Sample.class.getField("name"));
+		BeanAccessors.FieldAccessor ageAccessor = BeanAccessors.getFieldAccessor(Sample.class.getField("age"));
+		assertNotNull(nameAccessor);
+		assertNotNull(ageAccessor);
+		Sample sample = Sample.create("juergen");
+		nameAccessor.set(sample, "rod");
+		ageAccessor.set(sample, 42);
+		assertEquals("rod", sample.name);
+		assertEquals(42, sample.age);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void fieldAccessorWithValueTypeMismatch() throws Exception {
+		BeanAccessors.FieldAccessor accessor = BeanAccessors.getFieldAccessor(Sample.class.getField("name"));
+		assertNotNull(accessor);
+		accessor.set(Sample.create("juergen"), 42);
+	}
+
+	@Test
+	public void accessorsAreCached() throws Exception {
+		assertSame(BeanAccessors.getMethodAccessor(TestBean.class.getMethod("getName")),
+				BeanAccessors.getMethodAccessor(TestBean.class.getMethod("getName")));
+	}
+
+	@Test
+	public void noAccessorForNonPublicMembers() throws Exception {
+		assertNull(BeanAccessors.getConstructorAccessor(Sample.class.getDeclaredConstructor()));
+		assertNull(BeanAccessors.getFieldAccessor(Sample.class.getDeclaredField("createdBy")));
+		assertNull(BeanAccessors.getFieldAccessor(Sample.class.getField("id")));
+		assertNull(BeanAccessors.getConstructorAccessor(NonPublicSample.class.getConstructor()));
+		assertNull(BeanAccessors.getMethodAccessor(Sample.class.getMethod("setNonPublic", NonPublicSample.class)));
+	}
+
+
+	public interface Named {
+
+		String getName();
+	}
+
+
+	public static class Sample implements Named {
+
+		public final long id = 1;
+
+		public String name;
+
+		public int age;
+
+		String createdBy;
+
+		Sample() {
+		}
+
+		public Sample(String name, int age) {
+			if (age < 0) {
+				throw new IllegalStateException("Negative age");
+			}
+			this.name = name;
+			this.age = age;
+			this.createdBy = new Throwable().getStackTrace()[1].getClassName();
+		}
+
+		public static Sample create(String name) {
+			return new Sample(name, 0);
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		public void setNonPublic(NonPublicSample nonPublic) {
+		}
+	}
+
+
+	static class NonPublicSample {
+
+		public NonPublicSample() {
+		}
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.Test;
+
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BeanWrapperImpl} tests with {@link BeanWrapperImpl#setUseGeneratedAccessors
+ * generated accessors} and therefore {@link PropertyPathAccessor} instances in use,
+ * re-running all {@link BeanWrapperTests} in that mode.
+ *
+ * @since 5.1
+ */
+public class BeanWrapperGeneratedAccessorTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setUseGeneratedAccessors(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void nestedPropertyPathIsPreResolved() {
+		Person target = new Person();
+		target.setAddress(new Address());
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("address.street", "Main Street");
+		accessor.setPropertyValue(new PropertyValue("name", "tom"));
+
+		assertEquals("Main Street", target.getAddress().getStreet());
+		assertEquals("Main Street", accessor.getPropertyValue("address.street"));
+		assertEquals("tom", accessor.getPropertyValue("name"));
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(Person.class);
+		assertSame(results.getPropertyPathAccessor("address.street"),
+				results.getPropertyPathAccessor("address.street"));
+	}
+
+	@Test
+	public void nestedPropertyPathWithNullValueIsAutoGrown() {
+		Person target = new Person();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setAutoGrowNestedPaths(true);
+		accessor.setPropertyValue("address.street", "Main Street");
+
+		assertEquals("Main Street", target.getAddress().getStreet());
+	}
+
+	@Test(expected = NullValueInNestedPathException.class)
+	public void nestedPropertyPathWithNullValue() {
+		createAccessor(new Person()).setPropertyValue("address.street", "Main Street");
+	}
+
+	@Test
+	public void nestedPropertyPathWithSubclassValue() {
+		Person target = new Person();
+		target.setAddress(new SpecialAddress());
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("address.street", "Main Street");
+		accessor.setPropertyValue("address.code", "42");
+
+		assertEquals("Main Street", target.getAddress().getStreet());
+		assertEquals(42, ((SpecialAddress) target.getAddress()).getCode());
+	}
+
+	@Test
+	public void unsupportedPropertyPaths() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(Person.class);
+		assertNull(results.getPropertyPathAccessor("address.unknown"));
+		assertNull(results.getPropertyPathAccessor("addresses[0].street"));
+		assertNull(results.getPropertyPathAccessor("address..street"));
+		assertNull(results.getPropertyPathAccessor("age.value"));
+	}
+
+	@Test
+	public void valueOfDifferentTypeIsConverted() {
+		Person target = new Person();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("age", "42");
+
+		assertEquals(42, target.getAge());
+	}
+
+	@Test
+	public void customEditorIsApplied() {
+		Person target = new Person();
+		target.setAddress(new Address());
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.registerCustomEditor(String.class, "address.street", new StringTrimmerEditor(false));
+		accessor.setPropertyValue("address.street", " Main Street ");
+		accessor.setPropertyValue("name", " tom ");
+
+		assertEquals("Main Street", target.getAddress().getStreet());
+		assertEquals(" tom ", target.getName());
+	}
+
+	@Test
+	public void conversionServiceIsAppliedUnlessBypassable() {
+		Person target = new Person();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setConversionService(new DefaultConversionService());
+		accessor.setPropertyValue("name", "tom");
+		assertEquals("tom", target.getName());
+
+		GenericConversionService conversionService = new GenericConversionService();
+		conversionService.addConverter(String.class, String.class, String::toUpperCase);
+		accessor.setConversionService(conversionService);
+		accessor.setPropertyValue("name", "tom");
+		assertEquals("TOM", target.getName());
+	}
+
+	@Test
+	public void setterExceptionIsTranslated() {
+		Person target = new Person();
+		target.setAddress(new Address());
+		BeanWrapperImpl accessor = createAccessor(target);
+		try {
+			accessor.setPropertyValue("address.street", "");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertEquals("address.street", ex.getPropertyName());
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+	}
+
+
+	@SuppressWarnings("unused")
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Address address;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public void setAddress(Address address) {
+			this.address = address;
+		}
+	}
+
+
+	public static class Address {
+
+		private String street;
+
+		public String getStreet() {
+			return this.street;
+		}
+
+		public void setStreet(String street) {
+			if (street.isEmpty()) {
+				throw new IllegalArgumentException("Empty street");
+			}
+			this.street = street;
+		}
+	}
+
+
+	public static class SpecialAddress extends Address {
+
+		private int code;
+
+		public int getCode() {
+			return this.code;
+		}
+
+		public void setCode(int code) {
+			this.code = code;
+		}
+	}
+
+}
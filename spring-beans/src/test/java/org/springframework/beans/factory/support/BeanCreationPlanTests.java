@@ -0,0 +1,189 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanCreationPlan} and {@link BeanCreationMetrics}
+ * as applied by {@link AbstractAutowireCapableBeanFactory}.
+ *
+ * @since 5.1
+ */
+public class BeanCreationPlanTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final List<String> callbacks = new ArrayList<>();
+
+
+	@Before
+	public void setup() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "juergen");
+		this.beanFactory.registerBeanDefinition("prototype", bd);
+	}
+
+
+	@Test
+	public void planContainsOnlyOverriddenCallbacks() {
+		InitializationRecorder recorder = new InitializationRecorder();
+		this.beanFactory.addBeanPostProcessor(recorder);
+		this.beanFactory.getBean("prototype");
+
+		BeanCreationPlan plan = getCreationPlan("prototype");
+		assertTrue(plan.getBeforeInstantiationProcessors().isEmpty());
+		assertTrue(plan.getAfterInstantiationProcessors().isEmpty());
+		assertTrue(plan.getPropertyValuesProcessors().isEmpty());
+		assertEquals(1, plan.getBeforeInitializationProcessors().size());
+		assertSame(recorder, plan.getBeforeInitializationProcessors().get(0));
+		assertTrue(plan.getAfterInitializationProcessors().isEmpty());
+		assertTrue(plan.isCandidateConstructorsResolved());
+		assertNull(plan.getCandidateConstructors());
+	}
+
+	@Test
+	public void planIsReusedForRepeatedCreation() {
+		this.beanFactory.addBeanPostProcessor(new InitializationRecorder());
+		TestBean first = (TestBean) this.beanFactory.getBean("prototype");
+		BeanCreationPlan plan = getCreationPlan("prototype");
+		TestBean second = (TestBean) this.beanFactory.getBean("prototype");
+
+		assertNotSame(first, second);
+		assertEquals("juergen", second.getName());
+		assertSame(plan, getCreationPlan("prototype"));
+		assertEquals(2, this.callbacks.size());
+	}
+
+	@Test
+	public void planIsRebuiltForFurtherPostProcessors() {
+		this.beanFactory.getBean("prototype");
+		BeanCreationPlan plan = getCreationPlan("prototype");
+		assertTrue(plan.getBeforeInitializationProcessors().isEmpty());
+
+		this.beanFactory.addBeanPostProcessor(new InitializationRecorder());
+		this.beanFactory.getBean("prototype");
+		assertNotSame(plan, getCreationPlan("prototype"));
+		assertEquals(1, this.callbacks.size());
+	}
+
+	@Test
+	public void planIsDiscardedForChangedBeanDefinition() {
+		this.beanFactory.getBean("prototype");
+		BeanCreationPlan plan = getCreationPlan("prototype");
+
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "juergen2");
+		this.beanFactory.registerBeanDefinition("prototype", bd);
+		assertEquals("juergen2", ((TestBean) this.beanFactory.getBean("prototype")).getName());
+		assertNotSame(plan, getCreationPlan("prototype"));
+	}
+
+	@Test
+	public void planForSyntheticBeanSkipsInitializationCallbacks() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.setSynthetic(true);
+		this.beanFactory.registerBeanDefinition("synthetic", bd);
+		this.beanFactory.addBeanPostProcessor(new InitializationRecorder());
+		this.beanFactory.getBean("synthetic");
+
+		assertTrue(getCreationPlan("synthetic").getBeforeInitializationProcessors().isEmpty());
+		assertTrue(this.callbacks.isEmpty());
+	}
+
+	@Test
+	public void planForDynamicallyResolvedClassIsCachedOnMergedBeanDefinition() {
+		this.beanFactory.setBeanExpressionResolver((value, evalContext) ->
+				("dynamic".equals(value) ? TestBean.class.getName() : value));
+		RootBeanDefinition bd = new RootBeanDefinition();
+		bd.setBeanClassName("dynamic");
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("dynamic", bd);
+		this.beanFactory.getBean("dynamic");
+
+		BeanCreationPlan plan = getCreationPlan("dynamic");
+		assertFalse(((RootBeanDefinition) this.beanFactory.getMergedBeanDefinition("dynamic")).hasBeanClass());
+		this.beanFactory.getBean("dynamic");
+		assertSame(plan, getCreationPlan("dynamic"));
+	}
+
+	@Test
+	public void metricsNotCollectedByDefault() {
+		assertFalse(this.beanFactory.isCollectBeanCreationMetrics());
+		this.beanFactory.getBean("prototype");
+
+		assertNull(this.beanFactory.getBeanCreationMetrics("prototype"));
+	}
+
+	@Test
+	public void metricsForPrototype() {
+		this.beanFactory.setCollectBeanCreationMetrics(true);
+		assertNull(this.beanFactory.getBeanCreationMetrics("prototype"));
+		this.beanFactory.getBean("prototype");
+		this.beanFactory.getBean("prototype");
+		this.beanFactory.getBean("prototype");
+
+		BeanCreationMetrics metrics = this.beanFactory.getBeanCreationMetrics("prototype");
+		assertNotNull(metrics);
+		assertEquals("prototype", metrics.getBeanName());
+		assertEquals(3, metrics.getCreationCount());
+		assertTrue(metrics.getTotalCreationTime() >= metrics.getMaxCreationTime());
+		assertTrue(metrics.getMaxCreationTime() >= metrics.getAverageCreationTime());
+	}
+
+	@Test
+	public void metricsForSingleton() {
+		this.beanFactory.setCollectBeanCreationMetrics(true);
+		this.beanFactory.registerBeanDefinition("singleton", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.getBean("singleton");
+		this.beanFactory.getBean("singleton");
+
+		assertEquals(1, this.beanFactory.getBeanCreationMetrics("singleton").getCreationCount());
+	}
+
+
+	private BeanCreationPlan getCreationPlan(String beanName) {
+		BeanCreationPlan plan = ((RootBeanDefinition) this.beanFactory.getMergedBeanDefinition(beanName)).creationPlan;
+		assertNotNull(plan);
+		return plan;
+	}
+
+
+	private class InitializationRecorder extends InstantiationAwareBeanPostProcessorAdapter {
+
+		@Override
+		public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+			callbacks.add(beanName);
+			return bean;
+		}
+	}
+
+}
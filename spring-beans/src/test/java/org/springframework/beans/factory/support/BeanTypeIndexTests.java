@@ -0,0 +1,160 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.Serializable;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.tests.sample.beans.DerivedTestBean;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.NestedTestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for by-type lookups narrowed down through a {@link BeanTypeIndex}
+ * in a {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.1
+ */
+public class BeanTypeIndexTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Test
+	public void beanNamesForTypeInRegistrationOrder() {
+		this.beanFactory.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		this.beanFactory.registerSingleton("singleton", new TestBean());
+		this.beanFactory.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+
+		assertArrayEquals(new String[] {"tb1", "tb2", "singleton"}, this.beanFactory.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb1", "tb2", "singleton"}, this.beanFactory.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"tb2"}, this.beanFactory.getBeanNamesForType(DerivedTestBean.class));
+		assertArrayEquals(new String[] {"tb2"}, this.beanFactory.getBeanNamesForType(Serializable.class));
+		assertArrayEquals(new String[] {"tb1", "nested", "tb2", "singleton"}, this.beanFactory.getBeanNamesForType(Object.class));
+	}
+
+	@Test
+	public void beanNamesForTypeAfterRegistrationChanges() {
+		this.beanFactory.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		assertArrayEquals(new String[] {"tb"}, this.beanFactory.getBeanNamesForType(ITestBean.class));
+
+		this.beanFactory.registerBeanDefinition("tb", new RootBeanDefinition(NestedTestBean.class));
+		assertEquals(0, this.beanFactory.getBeanNamesForType(ITestBean.class).length);
+		assertArrayEquals(new String[] {"tb"}, this.beanFactory.getBeanNamesForType(NestedTestBean.class));
+
+		this.beanFactory.removeBeanDefinition("tb");
+		assertEquals(0, this.beanFactory.getBeanNamesForType(NestedTestBean.class).length);
+
+		this.beanFactory.registerSingleton("singleton", new TestBean());
+		assertArrayEquals(new String[] {"singleton"}, this.beanFactory.getBeanNamesForType(ITestBean.class));
+		this.beanFactory.destroySingleton("singleton");
+		assertEquals(0, this.beanFactory.getBeanNamesForType(ITestBean.class).length);
+	}
+
+	@Test
+	public void beanNamesForTypeWithFactoryBeansAndFactoryMethods() {
+		this.beanFactory.registerBeanDefinition("factoryBean", new RootBeanDefinition(TestBeanFactoryBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(BeanTypeIndexTests.class);
+		bd.setFactoryMethodName("createTestBean");
+		this.beanFactory.registerBeanDefinition("factoryMethod", bd);
+
+		assertArrayEquals(new String[] {"factoryBean", "factoryMethod"}, this.beanFactory.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"&factoryBean"}, this.beanFactory.getBeanNamesForType(FactoryBean.class));
+	}
+
+	@Test
+	public void beanNamesForTypeWithWrappedSingleton() {
+		this.beanFactory.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		assertArrayEquals(new String[] {"tb"}, this.beanFactory.getBeanNamesForType(ITestBean.class));
+		assertEquals(0, this.beanFactory.getBeanNamesForType(Runnable.class).length);
+
+		this.beanFactory.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return new WrappedTestBean();
+			}
+		});
+		this.beanFactory.getBean("tb");
+		assertArrayEquals(new String[] {"tb"}, this.beanFactory.getBeanNamesForType(Runnable.class));
+	}
+
+	@Test
+	public void beanNamesForTypeWithTypePredictingPostProcessor() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("tb", bd);
+		assertEquals(0, this.beanFactory.getBeanNamesForType(Runnable.class).length);
+
+		this.beanFactory.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				return WrappedTestBean.class;
+			}
+		});
+		assertArrayEquals(new String[] {"tb"}, this.beanFactory.getBeanNamesForType(Runnable.class));
+	}
+
+	@Test
+	public void beanNamesForTypeWithFrozenConfiguration() {
+		this.beanFactory.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		this.beanFactory.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb"}, this.beanFactory.getBeanNamesForType(ITestBean.class));
+		assertEquals(0, this.beanFactory.getBeanNamesForType(NestedTestBean.class).length);
+
+		this.beanFactory.registerSingleton("singleton", new TestBean());
+		this.beanFactory.registerSingleton("nested", new NestedTestBean());
+		assertArrayEquals(new String[] {"tb", "singleton"}, this.beanFactory.getBeanNamesForType(ITestBean.class));
+		assertArrayEquals(new String[] {"nested"}, this.beanFactory.getBeanNamesForType(NestedTestBean.class));
+	}
+
+
+	public static TestBean createTestBean() {
+		return new TestBean();
+	}
+
+
+	public static class TestBeanFactoryBean implements FactoryBean<TestBean> {
+
+		@Override
+		public TestBean getObject() {
+			return new TestBean();
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return TestBean.class;
+		}
+	}
+
+
+	public static class WrappedTestBean extends TestBean implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+}
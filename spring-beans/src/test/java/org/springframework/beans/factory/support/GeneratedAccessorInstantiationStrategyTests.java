@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link GeneratedAccessorInstantiationStrategy}.
+ *
+ * @since 5.1
+ */
+public class GeneratedAccessorInstantiationStrategyTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+
+	@Before
+	public void setup() {
+		this.beanFactory.setInstantiationStrategy(new GeneratedAccessorInstantiationStrategy());
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.beanFactory);
+		this.beanFactory.addBeanPostProcessor(bpp);
+		this.beanFactory.registerBeanDefinition("otherBean", new RootBeanDefinition(OtherBean.class));
+	}
+
+
+	@Test
+	public void isUsedBy() {
+		assertTrue(GeneratedAccessorInstantiationStrategy.isUsedBy(this.beanFactory));
+		assertFalse(GeneratedAccessorInstantiationStrategy.isUsedBy(new DefaultListableBeanFactory()));
+		assertFalse(GeneratedAccessorInstantiationStrategy.isUsedBy(null));
+	}
+
+	@Test
+	public void prototypeWithDefaultConstructor() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getPropertyValues().add("name", "juergen");
+		bd.getPropertyValues().add("age", "42");
+		this.beanFactory.registerBeanDefinition("sampleBean", bd);
+
+		// First instance resolves the constructor reflectively
+		this.beanFactory.getBean("sampleBean", SampleBean.class);
+		SampleBean bean = this.beanFactory.getBean("sampleBean", SampleBean.class);
+		assertTrue(bean.createdBy.contains("$$Accessor$$"));
+		assertTrue(bean.nameSetBy.contains("$$Accessor$$"));
+		assertEquals("juergen", bean.name);
+		assertEquals(42, bean.age);
+		assertSame(this.beanFactory.getBean("otherBean"), bean.otherField);
+		assertSame(this.beanFactory.getBean("otherBean"), bean.otherFromMethod);
+	}
+
+	@Test
+	public void prototypeWithConstructorArguments() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("juergen");
+		bd.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("otherBean"));
+		this.beanFactory.registerBeanDefinition("sampleBean", bd);
+
+		SampleBean bean = this.beanFactory.getBean("sampleBean", SampleBean.class);
+		assertTrue(bean.createdBy.contains("$$Accessor$$"));
+		assertEquals("juergen", bean.name);
+		assertSame(this.beanFactory.getBean("otherBean"), bean.otherFromConstructor);
+	}
+
+	@Test
+	public void nonPublicBeanClassFallsBackToReflection() {
+		this.beanFactory.registerBeanDefinition("nonPublicBean", new RootBeanDefinition(NonPublicBean.class));
+		NonPublicBean bean = this.beanFactory.getBean("nonPublicBean", NonPublicBean.class);
+		assertSame(this.beanFactory.getBean("otherBean"), bean.other);
+	}
+
+	@Test
+	public void constructorException() {
+		RootBeanDefinition bd = new RootBeanDefinition(SampleBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("juergen");
+		bd.getConstructorArgumentValues().addGenericArgumentValue(new RootBeanDefinition(OtherBean.class));
+		bd.getConstructorArgumentValues().addGenericArgumentValue("-1");
+		this.beanFactory.registerBeanDefinition("sampleBean", bd);
+		try {
+			this.beanFactory.getBean("sampleBean");
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.getMostSpecificCause() instanceof IllegalStateException);
+		}
+	}
+
+
+	public static class SampleBean {
+
+		String name;
+
+		int age;
+
+		OtherBean otherFromConstructor;
+
+		@Autowired
+		public OtherBean otherField;
+
+		OtherBean otherFromMethod;
+
+		final String createdBy = new Throwable().getStackTrace()[1].getClassName();
+
+		String nameSetBy;
+
+		public SampleBean() {
+		}
+
+		public SampleBean(String name, OtherBean other) {
+			this.name = name;
+			this.otherFromConstructor = other;
+		}
+
+		public SampleBean(String name, OtherBean other, int age) {
+			throw new IllegalStateException("Negative age");
+		}
+
+		public void setName(String name) {
+			this.name = name;
+			this.nameSetBy = new Throwable().getStackTrace()[1].getClassName();
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		@Autowired
+		public void setOther(OtherBean other) {
+			this.otherFromMethod = other;
+		}
+	}
+
+
+	public static class OtherBean {
+	}
+
+
+	static class NonPublicBean {
+
+		@Autowired
+		OtherBean other;
+	}
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel singleton pre-instantiation in {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.1
+ */
+public class ParallelPreInstantiationTests {
+
+	@Test
+	public void independentSingletonsAreCreatedConcurrently() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 8; i++) {
+			lbf.registerBeanDefinition("slow" + i, new RootBeanDefinition(SlowBean.class));
+		}
+		SlowBean.threads.clear();
+
+		lbf.preInstantiateSingletons();
+
+		for (int i = 0; i < 8; i++) {
+			assertTrue(lbf.containsSingleton("slow" + i));
+		}
+		assertTrue(SlowBean.threads.size() > 1);
+		assertFalse(SlowBean.threads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void declaredReferences() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		RootBeanDefinition holder = new RootBeanDefinition(Holder.class);
+		holder.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("target"));
+		lbf.registerBeanDefinition("holder", holder);
+		lbf.registerBeanDefinition("target", new RootBeanDefinition(Target.class));
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(Target.class));
+
+		lbf.preInstantiateSingletons();
+
+		assertSame(lbf.getBean("target"), lbf.getBean("holder", Holder.class).target);
+	}
+
+	@Test
+	public void autowiredDependencyIsCreatedOnce() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		for (int i = 0; i < 8; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(Holder.class);
+			bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+			lbf.registerBeanDefinition("holder" + i, bd);
+		}
+		lbf.registerBeanDefinition("target", new RootBeanDefinition(Target.class));
+		Target.instances.set(0);
+
+		lbf.preInstantiateSingletons();
+
+		assertEquals(1, Target.instances.get());
+		Target target = lbf.getBean(Target.class);
+		for (int i = 0; i < 8; i++) {
+			assertSame(target, lbf.getBean("holder" + i, Holder.class).target);
+		}
+	}
+
+	@Test
+	public void autowiredCircularReference() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(2);
+		RootBeanDefinition a = new RootBeanDefinition(CircularA.class);
+		a.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		lbf.registerBeanDefinition("a", a);
+		RootBeanDefinition b = new RootBeanDefinition(CircularB.class);
+		b.setAutowireMode(RootBeanDefinition.AUTOWIRE_BY_TYPE);
+		lbf.registerBeanDefinition("b", b);
+
+		lbf.preInstantiateSingletons();
+
+		CircularA beanA = lbf.getBean(CircularA.class);
+		CircularB beanB = lbf.getBean(CircularB.class);
+		assertSame(beanB, beanA.getB());
+		assertSame(beanA, beanB.getA());
+	}
+
+	@Test
+	public void failureIsReportedAsInSequentialMode() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("target", new RootBeanDefinition(Target.class));
+		lbf.registerBeanDefinition("failing", new RootBeanDefinition(FailingBean.class));
+		FailingBean.instances.set(0);
+
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("failing", ex.getBeanName());
+			assertTrue(ex.getMostSpecificCause() instanceof IllegalStateException);
+		}
+		assertEquals(1, FailingBean.instances.get());
+		assertEquals(0, lbf.getSingletonCount());
+	}
+
+	@Test
+	public void failureIsNotRetriedByWaitingThreads() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("failing", new RootBeanDefinition(FailingBean.class));
+		for (int i = 0; i < 8; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(FailingHolder.class);
+			bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+			lbf.registerBeanDefinition("holder" + i, bd);
+		}
+		FailingBean.instances.set(0);
+
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.getMostSpecificCause() instanceof IllegalStateException);
+			assertEquals("Expected failure", ex.getMostSpecificCause().getMessage());
+		}
+		assertEquals(1, FailingBean.instances.get());
+		assertEquals(0, lbf.getSingletonCount());
+	}
+
+
+	public static class SlowBean {
+
+		static final Set<Thread> threads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+		public SlowBean() throws InterruptedException {
+			threads.add(Thread.currentThread());
+			Thread.sleep(50);
+		}
+	}
+
+
+	public static class Target {
+
+		static final AtomicInteger instances = new AtomicInteger();
+
+		public Target() throws InterruptedException {
+			instances.incrementAndGet();
+			Thread.sleep(20);
+		}
+	}
+
+
+	public static class Holder {
+
+		final Target target;
+
+		public Holder(Target target) {
+			this.target = target;
+		}
+	}
+
+
+	public static class CircularA {
+
+		private CircularB b;
+
+		public CircularB getB() {
+			return this.b;
+		}
+
+		public void setB(CircularB b) {
+			this.b = b;
+		}
+	}
+
+
+	public static class CircularB {
+
+		private CircularA a;
+
+		public CircularA getA() {
+			return this.a;
+		}
+
+		public void setA(CircularA a) {
+			this.a = a;
+		}
+	}
+
+
+	public static class FailingBean {
+
+		static final AtomicInteger instances = new AtomicInteger();
+
+		public FailingBean() throws InterruptedException {
+			instances.incrementAndGet();
+			Thread.sleep(20);
+			throw new IllegalStateException("Expected failure");
+		}
+	}
+
+
+	public static class FailingHolder {
+
+		public FailingHolder(FailingBean failing) {
+		}
+	}
+
+}
@@ -37,7 +37,8 @@ import javax.lang.model.element.TypeElement;
 
 /**
  * Annotation {@link Processor} that writes {@link CandidateComponentsMetadata}
- * file for spring components.
+ * file for spring components, along with a binary class metadata entry for
+ * each of them (see {@link ClassMetadataEncoder}).
  *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
@@ -55,6 +56,8 @@ public class CandidateComponentsIndexer implements Processor {
 
 	private TypeHelper typeHelper;
 
+	private ClassMetadataEncoder classMetadataEncoder;
+
 	private List<StereotypesProvider> stereotypesProviders;
 
 
@@ -77,8 +80,10 @@ public class CandidateComponentsIndexer implements Processor {
 	public synchronized void init(ProcessingEnvironment env) {
 		this.stereotypesProviders = getStereotypesProviders(env);
 		this.typeHelper = new TypeHelper(env);
+		this.classMetadataEncoder = new ClassMetadataEncoder(env);
 		this.metadataStore = new MetadataStore(env);
-		this.metadataCollector = new MetadataCollector(env, this.metadataStore.readMetadata());
+		this.metadataCollector = new MetadataCollector(env,
+				this.metadataStore.readMetadata(), this.metadataStore.readClassMetadata());
 	}
 
 	@Override
@@ -118,6 +123,19 @@ public class CandidateComponentsIndexer implements Processor {
 		this.stereotypesProviders.forEach(p -> stereotypes.addAll(p.getStereotypes(element)));
 		if (!stereotypes.isEmpty()) {
 			this.metadataCollector.add(new ItemMetadata(this.typeHelper.getType(element), stereotypes));
+			if (element instanceof TypeElement) {
+				addClassMetadataFor((TypeElement) element);
+			}
+		}
+	}
+
+	private void addClassMetadataFor(TypeElement type) {
+		try {
+			this.metadataCollector.addClassMetadata(
+					this.classMetadataEncoder.getClassName(type), this.classMetadataEncoder.encode(type));
+		}
+		catch (IOException ex) {
+			// Not representable -> class file is going to be read at runtime instead.
 		}
 	}
 
@@ -126,6 +144,7 @@ public class CandidateComponentsIndexer implements Processor {
 		if (!metadata.getItems().isEmpty()) {
 			try {
 				this.metadataStore.writeMetadata(metadata);
+				this.metadataStore.writeClassMetadata(this.metadataCollector.getClassMetadata());
 			}
 			catch (IOException ex) {
 				throw new IllegalStateException("Failed to write metadata", ex);
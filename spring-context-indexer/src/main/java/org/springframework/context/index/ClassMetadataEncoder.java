@@ -0,0 +1,527 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Encode the class-level and annotation metadata of a type into the binary entry
+ * format read by {@code org.springframework.core.type.classreading.ClassMetadataIndex}.
+ *
+ * <p>An entry records the events an ASM class visitor would receive for the
+ * compiled class: its access flags, super types, nesting, class-retained
+ * annotations and annotated methods. Only explicitly declared annotation values
+ * are recorded, just like in the class file, with defaults being applied when
+ * the entry is read.
+ *
+ * @since 5.1
+ */
+class ClassMetadataEncoder {
+
+	private static final int ACC_PUBLIC = 0x0001;
+
+	private static final int ACC_PRIVATE = 0x0002;
+
+	private static final int ACC_PROTECTED = 0x0004;
+
+	private static final int ACC_STATIC = 0x0008;
+
+	private static final int ACC_FINAL = 0x0010;
+
+	private static final int ACC_SYNCHRONIZED = 0x0020;
+
+	private static final int ACC_NATIVE = 0x0100;
+
+	private static final int ACC_INTERFACE = 0x0200;
+
+	private static final int ACC_ABSTRACT = 0x0400;
+
+	private static final int ACC_STRICT = 0x0800;
+
+	private static final int ACC_ANNOTATION = 0x2000;
+
+	private static final int ACC_ENUM = 0x4000;
+
+	private static final byte BOOLEAN = 0;
+
+	private static final byte BYTE = 1;
+
+	private static final byte CHAR = 2;
+
+	private static final byte SHORT = 3;
+
+	private static final byte INT = 4;
+
+	private static final byte LONG = 5;
+
+	private static final byte FLOAT = 6;
+
+	private static final byte DOUBLE = 7;
+
+	private static final byte STRING = 8;
+
+	private static final byte CLASS = 9;
+
+	private static final byte ENUM = 10;
+
+	private static final byte ANNOTATION = 11;
+
+	private static final byte ARRAY = 12;
+
+	private static final byte BOOLEAN_ARRAY = 13;
+
+	private static final byte BYTE_ARRAY = 14;
+
+	private static final byte CHAR_ARRAY = 15;
+
+	private static final byte SHORT_ARRAY = 16;
+
+	private static final byte INT_ARRAY = 17;
+
+	private static final byte LONG_ARRAY = 18;
+
+	private static final byte FLOAT_ARRAY = 19;
+
+	private static final byte DOUBLE_ARRAY = 20;
+
+
+	private final Elements elements;
+
+	private final Types types;
+
+
+	public ClassMetadataEncoder(ProcessingEnvironment env) {
+		this.elements = env.getElementUtils();
+		this.types = env.getTypeUtils();
+	}
+
+
+	/**
+	 * Return the binary name of the specified type, used as key of its entry.
+	 */
+	public String getClassName(TypeElement type) {
+		return this.elements.getBinaryName(type).toString();
+	}
+
+	/**
+	 * Encode the metadata of the specified type.
+	 * @param type the type to encode
+	 * @return the encoded entry
+	 * @throws IOException if the type cannot be represented, e.g. because of
+	 * a string value exceeding the supported length
+	 */
+	public byte[] encode(TypeElement type) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeBoolean(hasAnnotatedMembers(type));
+		out.writeInt(getClassAccess(type));
+		out.writeUTF(getInternalName(type));
+		TypeMirror superclass = type.getSuperclass();
+		out.writeBoolean(superclass.getKind() == TypeKind.DECLARED);
+		if (superclass.getKind() == TypeKind.DECLARED) {
+			out.writeUTF(getInternalName(superclass));
+		}
+		out.writeInt(type.getInterfaces().size());
+		for (TypeMirror ifc : type.getInterfaces()) {
+			out.writeUTF(getInternalName(ifc));
+		}
+		writeAnnotations(out, type);
+		out.writeBoolean(type.getNestingKind() == NestingKind.MEMBER);
+		if (type.getNestingKind() == NestingKind.MEMBER) {
+			out.writeUTF(getInternalName((TypeElement) type.getEnclosingElement()));
+			out.writeUTF(type.getSimpleName().toString());
+			out.writeInt(getInnerClassAccess(type));
+		}
+		List<TypeElement> memberTypes = new ArrayList<>();
+		List<ExecutableElement> annotatedMethods = new ArrayList<>();
+		for (Element member : type.getEnclosedElements()) {
+			if (member instanceof TypeElement) {
+				memberTypes.add((TypeElement) member);
+			}
+			else if (member instanceof ExecutableElement && !getAnnotationMirrors(member).isEmpty()) {
+				annotatedMethods.add((ExecutableElement) member);
+			}
+		}
+		out.writeInt(memberTypes.size());
+		for (TypeElement memberType : memberTypes) {
+			out.writeUTF(getInternalName(memberType));
+			out.writeUTF(memberType.getSimpleName().toString());
+			out.writeInt(getInnerClassAccess(memberType));
+		}
+		out.writeInt(annotatedMethods.size());
+		for (ExecutableElement method : annotatedMethods) {
+			out.writeInt(getMethodAccess(method));
+			out.writeUTF(method.getKind() == ElementKind.CONSTRUCTOR ? "<init>" : method.getSimpleName().toString());
+			out.writeUTF(getMethodDescriptor(method));
+			writeAnnotations(out, method);
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Determine whether reflective introspection of the members of the specified
+	 * type may find annotations, also considering methods that are inherited
+	 * from interfaces.
+	 */
+	private boolean hasAnnotatedMembers(TypeElement type) {
+		for (Element member : type.getEnclosedElements()) {
+			if ((member.getKind().isField() || member instanceof ExecutableElement) &&
+					!getAnnotationMirrors(member).isEmpty()) {
+				return true;
+			}
+		}
+		for (TypeMirror ifc : type.getInterfaces()) {
+			TypeElement ifcElement = (TypeElement) this.types.asElement(ifc);
+			if (ifcElement != null && hasAnnotatedMembers(ifcElement)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Write the annotations of the specified element that are retained in the
+	 * class file, runtime-visible ones first like in the class file.
+	 */
+	private void writeAnnotations(DataOutputStream out, Element element) throws IOException {
+		List<AnnotationMirror> annotations = getAnnotationMirrors(element);
+		out.writeInt(annotations.size());
+		for (AnnotationMirror annotation : annotations) {
+			out.writeUTF(getDescriptor(annotation.getAnnotationType()));
+			writeAnnotationValues(out, annotation);
+		}
+	}
+
+	private void writeAnnotationValues(DataOutputStream out, AnnotationMirror annotation) throws IOException {
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values = annotation.getElementValues();
+		out.writeInt(values.size());
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			out.writeUTF(entry.getKey().getSimpleName().toString());
+			writeAnnotationValue(out, entry.getKey().getReturnType(), entry.getValue().getValue());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void writeAnnotationValue(DataOutputStream out, TypeMirror type, Object value) throws IOException {
+		if (value instanceof List) {
+			List<? extends AnnotationValue> elements = (List<? extends AnnotationValue>) value;
+			TypeMirror componentType = ((ArrayType) type).getComponentType();
+			if (componentType.getKind().isPrimitive() && !elements.isEmpty()) {
+				// ASM reports non-empty primitive arrays as a single value
+				writePrimitiveArray(out, componentType.getKind(), elements);
+			}
+			else {
+				out.writeByte(ARRAY);
+				out.writeInt(elements.size());
+				for (AnnotationValue element : elements) {
+					writeAnnotationValue(out, componentType, element.getValue());
+				}
+			}
+		}
+		else if (value instanceof AnnotationMirror) {
+			AnnotationMirror annotation = (AnnotationMirror) value;
+			out.writeByte(ANNOTATION);
+			out.writeUTF(getDescriptor(annotation.getAnnotationType()));
+			writeAnnotationValues(out, annotation);
+		}
+		else if (value instanceof VariableElement) {
+			out.writeByte(ENUM);
+			out.writeUTF(getDescriptor(((VariableElement) value).asType()));
+			out.writeUTF(((VariableElement) value).getSimpleName().toString());
+		}
+		else if (value instanceof TypeMirror) {
+			out.writeByte(CLASS);
+			out.writeUTF(getDescriptor((TypeMirror) value));
+		}
+		else if (value instanceof String) {
+			out.writeByte(STRING);
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte(CHAR);
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(INT);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		}
+		else {
+			throw new IOException("Unsupported annotation value: " + value);
+		}
+	}
+
+	private void writePrimitiveArray(DataOutputStream out, TypeKind kind, List<? extends AnnotationValue> elements)
+			throws IOException {
+
+		switch (kind) {
+			case BOOLEAN:
+				out.writeByte(BOOLEAN_ARRAY);
+				break;
+			case BYTE:
+				out.writeByte(BYTE_ARRAY);
+				break;
+			case CHAR:
+				out.writeByte(CHAR_ARRAY);
+				break;
+			case SHORT:
+				out.writeByte(SHORT_ARRAY);
+				break;
+			case INT:
+				out.writeByte(INT_ARRAY);
+				break;
+			case LONG:
+				out.writeByte(LONG_ARRAY);
+				break;
+			case FLOAT:
+				out.writeByte(FLOAT_ARRAY);
+				break;
+			case DOUBLE:
+				out.writeByte(DOUBLE_ARRAY);
+				break;
+			default:
+				throw new IOException("Unsupported primitive type: " + kind);
+		}
+		out.writeInt(elements.size());
+		for (AnnotationValue element : elements) {
+			Object value = element.getValue();
+			switch (kind) {
+				case BOOLEAN:
+					out.writeBoolean((Boolean) value);
+					break;
+				case BYTE:
+					out.writeByte((Byte) value);
+					break;
+				case CHAR:
+					out.writeChar((Character) value);
+					break;
+				case SHORT:
+					out.writeShort((Short) value);
+					break;
+				case INT:
+					out.writeInt((Integer) value);
+					break;
+				case LONG:
+					out.writeLong((Long) value);
+					break;
+				case FLOAT:
+					out.writeFloat((Float) value);
+					break;
+				default:
+					out.writeDouble((Double) value);
+			}
+		}
+	}
+
+	/**
+	 * Return the annotations of the specified element that are retained
+	 * in the class file, runtime-visible ones first.
+	 */
+	private List<AnnotationMirror> getAnnotationMirrors(Element element) {
+		List<AnnotationMirror> visible = new ArrayList<>();
+		List<AnnotationMirror> invisible = new ArrayList<>();
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			Retention retention = annotation.getAnnotationType().asElement().getAnnotation(Retention.class);
+			RetentionPolicy policy = (retention != null ? retention.value() : RetentionPolicy.CLASS);
+			if (policy == RetentionPolicy.RUNTIME) {
+				visible.add(annotation);
+			}
+			else if (policy == RetentionPolicy.CLASS) {
+				invisible.add(annotation);
+			}
+		}
+		visible.addAll(invisible);
+		return visible;
+	}
+
+	private int getClassAccess(TypeElement type) {
+		int access = getAccess(type.getModifiers()) & ~(ACC_PRIVATE | ACC_PROTECTED | ACC_STATIC);
+		if (type.getModifiers().contains(Modifier.PROTECTED)) {
+			access |= ACC_PUBLIC;
+		}
+		return access | getKindAccess(type);
+	}
+
+	private int getInnerClassAccess(TypeElement type) {
+		int access = getAccess(type.getModifiers()) | getKindAccess(type);
+		if (type.getKind() != ElementKind.CLASS) {
+			// nested interfaces, enums and annotations are implicitly static
+			access |= ACC_STATIC;
+		}
+		return access;
+	}
+
+	private int getKindAccess(TypeElement type) {
+		switch (type.getKind()) {
+			case INTERFACE:
+				return ACC_INTERFACE | ACC_ABSTRACT;
+			case ANNOTATION_TYPE:
+				return ACC_ANNOTATION | ACC_INTERFACE | ACC_ABSTRACT;
+			case ENUM:
+				return ACC_ENUM;
+			default:
+				return 0;
+		}
+	}
+
+	private int getMethodAccess(ExecutableElement method) {
+		int access = getAccess(method.getModifiers());
+		ElementKind enclosingKind = method.getEnclosingElement().getKind();
+		if (enclosingKind == ElementKind.INTERFACE || enclosingKind == ElementKind.ANNOTATION_TYPE) {
+			access |= ACC_PUBLIC;
+			if (!method.getModifiers().contains(Modifier.DEFAULT) &&
+					!method.getModifiers().contains(Modifier.STATIC)) {
+				access |= ACC_ABSTRACT;
+			}
+		}
+		return access;
+	}
+
+	private int getAccess(Set<Modifier> modifiers) {
+		int access = 0;
+		for (Modifier modifier : modifiers) {
+			switch (modifier) {
+				case PUBLIC:
+					access |= ACC_PUBLIC;
+					break;
+				case PRIVATE:
+					access |= ACC_PRIVATE;
+					break;
+				case PROTECTED:
+					access |= ACC_PROTECTED;
+					break;
+				case STATIC:
+					access |= ACC_STATIC;
+					break;
+				case FINAL:
+					access |= ACC_FINAL;
+					break;
+				case SYNCHRONIZED:
+					access |= ACC_SYNCHRONIZED;
+					break;
+				case NATIVE:
+					access |= ACC_NATIVE;
+					break;
+				case ABSTRACT:
+					access |= ACC_ABSTRACT;
+					break;
+				case STRICTFP:
+					access |= ACC_STRICT;
+					break;
+				default:
+					break;
+			}
+		}
+		return access;
+	}
+
+	private String getMethodDescriptor(ExecutableElement method) throws IOException {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (VariableElement parameter : method.getParameters()) {
+			descriptor.append(getDescriptor(parameter.asType()));
+		}
+		descriptor.append(')').append(getDescriptor(method.getReturnType()));
+		return descriptor.toString();
+	}
+
+	private String getDescriptor(TypeMirror type) throws IOException {
+		TypeMirror erasure = this.types.erasure(type);
+		switch (erasure.getKind()) {
+			case BOOLEAN:
+				return "Z";
+			case BYTE:
+				return "B";
+			case CHAR:
+				return "C";
+			case SHORT:
+				return "S";
+			case INT:
+				return "I";
+			case LONG:
+				return "J";
+			case FLOAT:
+				return "F";
+			case DOUBLE:
+				return "D";
+			case VOID:
+				return "V";
+			case ARRAY:
+				return "[" + getDescriptor(((ArrayType) erasure).getComponentType());
+			case DECLARED:
+				return "L" + getInternalName(erasure) + ";";
+			default:
+				throw new IOException("Unsupported type: " + type);
+		}
+	}
+
+	private String getInternalName(TypeMirror type) {
+		return getInternalName((TypeElement) ((DeclaredType) type).asElement());
+	}
+
+	private String getInternalName(TypeElement type) {
+		return getClassName(type).replace('.', '/');
+	}
+
+}
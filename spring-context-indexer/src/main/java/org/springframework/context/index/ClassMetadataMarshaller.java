@@ -0,0 +1,68 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Marshaller to write the class metadata entries created by {@link ClassMetadataEncoder}
+ * in the binary format read by {@code org.springframework.core.type.classreading.ClassMetadataIndex}.
+ *
+ * @since 5.1
+ */
+abstract class ClassMetadataMarshaller {
+
+	static final int MAGIC = 0x53434d49;
+
+	static final int VERSION = 1;
+
+
+	public static void write(Map<String, byte[]> entries, OutputStream out) throws IOException {
+		DataOutputStream dataOut = new DataOutputStream(out);
+		dataOut.writeInt(MAGIC);
+		dataOut.writeInt(VERSION);
+		dataOut.writeInt(entries.size());
+		for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+			dataOut.writeUTF(entry.getKey());
+			dataOut.writeInt(entry.getValue().length);
+			dataOut.write(entry.getValue());
+		}
+		dataOut.flush();
+	}
+
+	public static Map<String, byte[]> read(InputStream in) throws IOException {
+		DataInputStream dataIn = new DataInputStream(in);
+		if (dataIn.readInt() != MAGIC || dataIn.readInt() != VERSION) {
+			throw new IOException("Unsupported class metadata format");
+		}
+		Map<String, byte[]> result = new LinkedHashMap<>();
+		for (int i = dataIn.readInt(); i > 0; i--) {
+			String type = dataIn.readUTF();
+			byte[] entry = new byte[dataIn.readInt()];
+			dataIn.readFully(entry);
+			result.put(type, entry);
+		}
+		return result;
+	}
+
+}
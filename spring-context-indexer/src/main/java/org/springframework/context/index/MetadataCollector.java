@@ -18,7 +18,9 @@ package org.springframework.context.index;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
@@ -35,10 +37,14 @@ class MetadataCollector {
 
 	private final List<ItemMetadata> metadataItems = new ArrayList<>();
 
+	private final Map<String, byte[]> classMetadata = new LinkedHashMap<>();
+
 	private final ProcessingEnvironment processingEnvironment;
 
 	private final CandidateComponentsMetadata previousMetadata;
 
+	private final Map<String, byte[]> previousClassMetadata;
+
 	private final TypeHelper typeHelper;
 
 	private final Set<String> processedSourceTypes = new HashSet<>();
@@ -48,12 +54,14 @@ class MetadataCollector {
 	 * Create a new {@code MetadataProcessor} instance.
 	 * @param processingEnvironment The processing environment of the build
 	 * @param previousMetadata Any previous metadata or {@code null}
+	 * @param previousClassMetadata Any previous class metadata entries or {@code null}
 	 */
 	public MetadataCollector(ProcessingEnvironment processingEnvironment,
-			CandidateComponentsMetadata previousMetadata) {
+			CandidateComponentsMetadata previousMetadata, Map<String, byte[]> previousClassMetadata) {
 
 		this.processingEnvironment = processingEnvironment;
 		this.previousMetadata = previousMetadata;
+		this.previousClassMetadata = previousClassMetadata;
 		this.typeHelper = new TypeHelper(processingEnvironment);
 	}
 
@@ -74,6 +82,10 @@ class MetadataCollector {
 		this.metadataItems.add(metadata);
 	}
 
+	public void addClassMetadata(String type, byte[] entry) {
+		this.classMetadata.put(type, entry);
+	}
+
 	public CandidateComponentsMetadata getMetadata() {
 		CandidateComponentsMetadata metadata = new CandidateComponentsMetadata();
 		for (ItemMetadata item : this.metadataItems) {
@@ -90,8 +102,24 @@ class MetadataCollector {
 		return metadata;
 	}
 
+	public Map<String, byte[]> getClassMetadata() {
+		Map<String, byte[]> classMetadata = new LinkedHashMap<>(this.classMetadata);
+		if (this.previousClassMetadata != null) {
+			this.previousClassMetadata.forEach((type, entry) -> {
+				// Entries are keyed by binary name
+				if (shouldBeMerged(type.replace('$', '.'))) {
+					classMetadata.putIfAbsent(type, entry);
+				}
+			});
+		}
+		return classMetadata;
+	}
+
 	private boolean shouldBeMerged(ItemMetadata itemMetadata) {
-		String sourceType = itemMetadata.getType();
+		return shouldBeMerged(itemMetadata.getType());
+	}
+
+	private boolean shouldBeMerged(String sourceType) {
 		return (sourceType != null && !deletedInCurrentBuild(sourceType)
 				&& !processedInCurrentBuild(sourceType));
 	}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleConfiguration;
+import org.springframework.context.index.sample.SampleNone;
+import org.springframework.context.index.test.TestCompiler;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ClassMetadataEncoder}, checking that the metadata read from
+ * a {@link ClassMetadataIndex} is equivalent to the one read from class files.
+ *
+ * @since 5.1
+ */
+public class ClassMetadataEncoderTests {
+
+	private TestCompiler compiler;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Before
+	public void createCompiler() throws IOException {
+		this.compiler = new TestCompiler(this.temporaryFolder);
+	}
+
+
+	@Test
+	public void noCandidate() throws IOException {
+		this.compiler.getTask(SampleNone.class).call(new CandidateComponentsIndexer());
+		assertFalse(new File(this.compiler.getOutputLocation(), MetadataStore.CLASS_METADATA_PATH).exists());
+		assertNull(ClassMetadataIndex.loadIndex(createClassLoader()));
+	}
+
+	@Test
+	public void configurationClass() throws IOException {
+		ClassMetadataIndex index = compile(SampleConfiguration.class);
+		assertEquivalentMetadata(index, SampleConfiguration.class.getName());
+		assertTrue(index.hasAnnotatedMembers(SampleConfiguration.class.getName()));
+	}
+
+	@Test
+	public void nestedComponent() throws IOException {
+		ClassMetadataIndex index = compile(SampleConfiguration.class);
+		assertEquivalentMetadata(index, SampleConfiguration.NestedComponent.class.getName());
+		assertFalse(index.hasAnnotatedMembers(SampleConfiguration.NestedComponent.class.getName()));
+	}
+
+	@Test
+	public void componentWithoutAnnotatedMembers() throws IOException {
+		ClassMetadataIndex index = compile(SampleComponent.class);
+		assertEquivalentMetadata(index, SampleComponent.class.getName());
+		assertFalse(index.hasAnnotatedMembers(SampleComponent.class.getName()));
+	}
+
+	@Test
+	public void typesNotIndexed() throws IOException {
+		ClassMetadataIndex index = compile(SampleConfiguration.class);
+		assertFalse(index.contains(SampleNone.class.getName()));
+		assertTrue(index.hasAnnotatedMembers(SampleNone.class.getName()));
+		assertNull(index.getMetadataReader(SampleNone.class.getName(),
+				new FileSystemResource("SampleNone.class"), getClass().getClassLoader()));
+	}
+
+
+	private ClassMetadataIndex compile(Class<?>... types) throws IOException {
+		this.compiler.getTask(types).call(new CandidateComponentsIndexer());
+		ClassMetadataIndex index = ClassMetadataIndex.loadIndex(createClassLoader());
+		assertNotNull(index);
+		return index;
+	}
+
+	private ClassLoader createClassLoader() throws IOException {
+		URL outputLocation = this.compiler.getOutputLocation().toURI().toURL();
+		return new URLClassLoader(new URL[] {outputLocation}, getClass().getClassLoader());
+	}
+
+	private void assertEquivalentMetadata(ClassMetadataIndex index, String className) throws IOException {
+		ClassLoader classLoader = getClass().getClassLoader();
+		FileSystemResource classFile = new FileSystemResource(new File(this.compiler.getOutputLocation(),
+				ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX));
+		MetadataReader indexed = index.getMetadataReader(className, classFile, classLoader);
+		assertNotNull(indexed);
+		assertSame(classFile, indexed.getResource());
+		AnnotationMetadata expected =
+				new SimpleMetadataReaderFactory(classLoader).getMetadataReader(classFile).getAnnotationMetadata();
+		AnnotationMetadata actual = indexed.getAnnotationMetadata();
+
+		assertEquals(expected.getClassName(), actual.getClassName());
+		assertEquals(expected.isInterface(), actual.isInterface());
+		assertEquals(expected.isAbstract(), actual.isAbstract());
+		assertEquals(expected.isFinal(), actual.isFinal());
+		assertEquals(expected.isIndependent(), actual.isIndependent());
+		assertEquals(expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertEquals(expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertArrayEquals(expected.getMemberClassNames(), actual.getMemberClassNames());
+		assertEquals(expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(expected.getMetaAnnotationTypes(annotationType),
+					actual.getMetaAnnotationTypes(annotationType));
+			assertEquivalentValue(expected.getAnnotationAttributes(annotationType),
+					actual.getAnnotationAttributes(annotationType));
+		}
+		Set<MethodMetadata> expectedMethods = expected.getAnnotatedMethods(Bean.class.getName());
+		Set<MethodMetadata> actualMethods = actual.getAnnotatedMethods(Bean.class.getName());
+		assertEquals(expectedMethods.size(), actualMethods.size());
+		Iterator<MethodMetadata> actualIterator = actualMethods.iterator();
+		for (MethodMetadata expectedMethod : expectedMethods) {
+			MethodMetadata actualMethod = actualIterator.next();
+			assertEquals(expectedMethod.getMethodName(), actualMethod.getMethodName());
+			assertEquals(expectedMethod.getReturnTypeName(), actualMethod.getReturnTypeName());
+			assertEquals(expectedMethod.isStatic(), actualMethod.isStatic());
+			assertEquals(expectedMethod.isOverridable(), actualMethod.isOverridable());
+			for (Class<?> annotationClass : Arrays.asList(Bean.class, Lazy.class, Scope.class, Order.class)) {
+				String annotationType = annotationClass.getName();
+				assertEquals(expectedMethod.isAnnotated(annotationType), actualMethod.isAnnotated(annotationType));
+				assertEquivalentValue(expectedMethod.getAnnotationAttributes(annotationType),
+						actualMethod.getAnnotationAttributes(annotationType));
+			}
+		}
+	}
+
+	private void assertEquivalentValue(Object expected, Object actual) {
+		if (expected instanceof Map) {
+			assertTrue(actual instanceof Map);
+			assertEquals(((Map<?, ?>) expected).keySet(), ((Map<?, ?>) actual).keySet());
+			((Map<?, ?>) expected).forEach((key, value) -> assertEquivalentValue(value, ((Map<?, ?>) actual).get(key)));
+		}
+		else if (expected instanceof Object[]) {
+			assertEquals(expected.getClass(), actual.getClass());
+			assertEquals(((Object[]) expected).length, ((Object[]) actual).length);
+			for (int i = 0; i < ((Object[]) expected).length; i++) {
+				assertEquivalentValue(((Object[]) expected)[i], ((Object[]) actual)[i]);
+			}
+		}
+		else {
+			assertTrue(expected + " != " + actual, ObjectUtils.nullSafeEquals(expected, actual));
+		}
+	}
+
+}
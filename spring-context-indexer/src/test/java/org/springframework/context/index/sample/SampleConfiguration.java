@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+/**
+ * Test candidate for the class metadata of a {@link Configuration} class.
+ */
+@Configuration
+@Profile({"dev", "test"})
+@ComponentScan(basePackageClasses = SampleComponent.class, lazyInit = true,
+		excludeFilters = @Filter(type = FilterType.ANNOTATION, classes = Service.class))
+@SampleAttributes(numbers = {1, 2}, letter = 'x', count = 42L, types = {int.class, String[].class})
+public class SampleConfiguration extends AbstractController implements Comparable<SampleConfiguration> {
+
+	@Autowired
+	private SampleComponent component;
+
+	@Value("${sample.name}")
+	private String name;
+
+	@Bean
+	@Lazy
+	@Order(1)
+	@Scope(proxyMode = ScopedProxyMode.TARGET_CLASS)
+	public SampleService sampleService(List<SampleRepository> repositories) {
+		return new SampleService();
+	}
+
+	@Bean(name = {"controller", "sampleController"}, initMethod = "init")
+	@SampleAttributes(names = {})
+	static SampleController sampleController() {
+		return new SampleController();
+	}
+
+	@Override
+	public int compareTo(SampleConfiguration other) {
+		return 0;
+	}
+
+
+	@Component
+	public static class NestedComponent {
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.core.ResolvableType;
+
+/**
+ * Benchmark for the generic type matching of {@link ApplicationListener}s
+ * against published events, both per listener and through a multicaster.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ApplicationListenerBenchmark {
+
+	@Benchmark
+	public void supportsEventType(BenchmarkState state, Blackhole bh) {
+		for (ApplicationEvent event : state.events) {
+			ResolvableType eventType = ResolvableType.forInstance(event);
+			for (GenericApplicationListenerAdapter adapter : state.adapters) {
+				bh.consume(adapter.supportsEventType(eventType));
+			}
+		}
+	}
+
+	@Benchmark
+	public void multicastEvent(BenchmarkState state) {
+		for (ApplicationEvent event : state.events) {
+			state.multicaster.multicastEvent(event);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public List<GenericApplicationListenerAdapter> adapters;
+
+		public SimpleApplicationEventMulticaster multicaster;
+
+		public List<ApplicationEvent> events;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			List<ApplicationListener<?>> listeners = Arrays.asList(new FooListener(), new BarListener(),
+					new AnyEventListener(), new StringPayloadListener(), new FooListener(), new BarListener());
+			this.adapters = new ArrayList<>();
+			this.multicaster = new SimpleApplicationEventMulticaster();
+			for (ApplicationListener<?> listener : listeners) {
+				this.adapters.add(new GenericApplicationListenerAdapter(listener));
+				this.multicaster.addApplicationListener(listener);
+			}
+			this.events = Arrays.asList(new FooEvent(this), new BarEvent(this),
+					new PayloadApplicationEvent<>(this, "payload"));
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class FooEvent extends ApplicationEvent {
+
+		public FooEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class BarEvent extends ApplicationEvent {
+
+		public BarEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	public static class FooListener implements ApplicationListener<FooEvent> {
+
+		@Override
+		public void onApplicationEvent(FooEvent event) {
+		}
+	}
+
+
+	public static class BarListener implements ApplicationListener<BarEvent> {
+
+		@Override
+		public void onApplicationEvent(BarEvent event) {
+		}
+	}
+
+
+	public static class AnyEventListener implements ApplicationListener<ApplicationEvent> {
+
+		@Override
+		public void onApplicationEvent(ApplicationEvent event) {
+		}
+	}
+
+
+	public static class StringPayloadListener implements ApplicationListener<PayloadApplicationEvent<String>> {
+
+		@Override
+		public void onApplicationEvent(PayloadApplicationEvent<String> event) {
+		}
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+/**
+ * Standalone application context for annotated component classes which registers
+ * their bean definitions from a pre-computed {@link BeanDefinitionSnapshot}, if
+ * available and up to date, rather than parsing the configuration classes and
+ * scanning the class path on every startup. Falls back to regular processing
+ * of the component classes, just like {@link AnnotationConfigApplicationContext},
+ * if the snapshot is missing, unreadable or outdated.
+ *
+ * <p>A snapshot for this context is usually captured at build time:
+ *
+ * <pre class="code">
+ * BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(new StandardEnvironment(), AppConfig.class);
+ * try (OutputStream out = new FileOutputStream("target/classes/app.snapshot")) {
+ *     snapshot.writeTo(out);
+ * }</pre>
+ *
+ * and then picked up at runtime:
+ *
+ * <pre class="code">
+ * new AnnotationConfigSnapshotApplicationContext(new ClassPathResource("app.snapshot"), AppConfig.class);</pre>
+ *
+ * @since 5.1
+ * @see #load
+ * @see BeanDefinitionSnapshot
+ * @see AnnotationConfigApplicationContext
+ */
+public class AnnotationConfigSnapshotApplicationContext extends GenericApplicationContext {
+
+	private boolean loadedFromSnapshot;
+
+
+	/**
+	 * Create a new AnnotationConfigSnapshotApplicationContext that needs to be
+	 * {@link #load loaded} and then manually {@link #refresh refreshed}.
+	 */
+	public AnnotationConfigSnapshotApplicationContext() {
+	}
+
+	/**
+	 * Create a new AnnotationConfigSnapshotApplicationContext, deriving bean
+	 * definitions from the given snapshot or, if not applicable, from the given
+	 * component classes, and automatically refreshing the context.
+	 * @param snapshot the resource to read the snapshot from
+	 * @param componentClasses the component classes that the snapshot has been
+	 * captured for, e.g. {@link Configuration @Configuration} classes
+	 */
+	public AnnotationConfigSnapshotApplicationContext(Resource snapshot, Class<?>... componentClasses) {
+		load(snapshot, componentClasses);
+		refresh();
+	}
+
+
+	/**
+	 * Register the bean definitions contained in the given snapshot if it is
+	 * up to date for the given component classes and this context's active
+	 * profiles, or register the component classes for regular processing otherwise.
+	 * @param snapshot the resource to read the snapshot from
+	 * @param componentClasses the component classes that the snapshot has been
+	 * captured for, e.g. {@link Configuration @Configuration} classes
+	 * @see BeanDefinitionSnapshot#isUpToDate
+	 */
+	public void load(Resource snapshot, Class<?>... componentClasses) {
+		BeanDefinitionSnapshot beanDefinitionSnapshot = readSnapshot(snapshot);
+		if (beanDefinitionSnapshot != null &&
+				beanDefinitionSnapshot.isUpToDate(getEnvironment(), this, componentClasses)) {
+			beanDefinitionSnapshot.registerBeanDefinitions(getDefaultListableBeanFactory());
+			try {
+				beanDefinitionSnapshot.applyPropertySources(getEnvironment(), this);
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException("Failed to load property sources declared in snapshot", ex);
+			}
+			this.loadedFromSnapshot = true;
+		}
+		else {
+			if (logger.isInfoEnabled()) {
+				logger.info("Bean definition snapshot " + snapshot + " not applicable - " +
+						"processing component classes instead");
+			}
+			new AnnotatedBeanDefinitionReader(this, getEnvironment()).register(componentClasses);
+		}
+	}
+
+	/**
+	 * Return whether the bean definitions of this context have been registered
+	 * from a snapshot, as opposed to processing the component classes.
+	 */
+	public boolean isLoadedFromSnapshot() {
+		return this.loadedFromSnapshot;
+	}
+
+	@Nullable
+	private BeanDefinitionSnapshot readSnapshot(Resource snapshot) {
+		if (!snapshot.exists()) {
+			return null;
+		}
+		try (InputStream inputStream = snapshot.getInputStream()) {
+			return BeanDefinitionSnapshot.readFrom(inputStream);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to read bean definition snapshot from " + snapshot, ex);
+			}
+			return null;
+		}
+	}
+
+}
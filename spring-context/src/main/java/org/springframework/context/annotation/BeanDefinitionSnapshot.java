@@ -0,0 +1,1034 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.MethodOverride;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.StandardAnnotationMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Compact binary snapshot of the bean definitions derived from a set of annotated
+ * component classes, taken after {@link ConfigurationClassPostProcessor} has parsed
+ * all {@link Configuration @Configuration} classes, evaluated their conditions and
+ * scanned their {@link ComponentScan @ComponentScan} packages. Typically captured
+ * at build time and loaded through {@link AnnotationConfigSnapshotApplicationContext}
+ * at runtime, registering the bean definitions without any parsing or scanning.
+ *
+ * <p>A snapshot records a checksum of the class files in every package that
+ * contributed a component class, a bean class or an importing class, as well as
+ * the active profiles it was captured with. {@link #isUpToDate} recomputes those
+ * (reading the class files without parsing them) and rejects the snapshot if
+ * anything changed. Classes added to packages that did not contribute any bean
+ * are not detected. Since the outcome of any other {@link Conditional @Conditional}
+ * may depend on input that a snapshot does not record (e.g. environment
+ * properties), only configuration whose conditions are all {@link Profile @Profile}
+ * declarations can be captured.
+ *
+ * <p>Only declarative bean definition content can be captured. Instance suppliers,
+ * method overrides other than lookup methods, and property values or attributes
+ * of arbitrary types cause a {@link BeanDefinitionStoreException} on capture.
+ *
+ * @since 5.1
+ * @see #capture
+ * @see #readFrom
+ * @see AnnotationConfigSnapshotApplicationContext
+ */
+public final class BeanDefinitionSnapshot {
+
+	private static final int MAGIC = 0x53424453;
+
+	private static final int VERSION = 1;
+
+	private static final int NULL = 0;
+
+	private static final int STRING = 1;
+
+	private static final int TYPED_STRING = 2;
+
+	private static final int BEAN_REFERENCE = 3;
+
+	private static final int BEAN_NAME_REFERENCE = 4;
+
+	private static final int BEAN_DEFINITION_HOLDER = 5;
+
+	private static final int BEAN_DEFINITION = 6;
+
+	private static final int LIST = 7;
+
+	private static final int ARRAY = 8;
+
+	private static final int SET = 9;
+
+	private static final int MAP = 10;
+
+	private static final int PROPERTIES = 11;
+
+	private static final int BOOLEAN = 12;
+
+	private static final int INTEGER = 13;
+
+	private static final int LONG = 14;
+
+	private static final int CLASS = 15;
+
+	private static final String CLASS_FILE_PATTERN = "*" + ClassUtils.CLASS_FILE_SUFFIX;
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshot.class);
+
+
+	private final String[] componentClassNames;
+
+	private final String[] activeProfiles;
+
+	private final Map<String, Long> fingerprints;
+
+	private final Map<String, BeanDefinition> beanDefinitions;
+
+	private final Map<String, String> aliases;
+
+	private final Map<String, String> importingClasses;
+
+
+	private BeanDefinitionSnapshot(String[] componentClassNames, String[] activeProfiles,
+			Map<String, Long> fingerprints, Map<String, BeanDefinition> beanDefinitions,
+			Map<String, String> aliases, Map<String, String> importingClasses) {
+
+		this.componentClassNames = componentClassNames;
+		this.activeProfiles = activeProfiles;
+		this.fingerprints = fingerprints;
+		this.beanDefinitions = beanDefinitions;
+		this.aliases = aliases;
+		this.importingClasses = importingClasses;
+	}
+
+
+	/**
+	 * Return the names of the bean definitions contained in this snapshot,
+	 * in registration order.
+	 */
+	public String[] getBeanDefinitionNames() {
+		return this.beanDefinitions.keySet().toArray(new String[0]);
+	}
+
+	/**
+	 * Determine whether this snapshot still reflects the given component classes:
+	 * that is, whether it has been captured for the same component classes and
+	 * active profiles, and whether none of the tracked class files have changed.
+	 * @param environment the environment to check the active profiles against
+	 * @param resourcePatternResolver the resolver to locate class files with
+	 * @param componentClasses the component classes that the snapshot stands for
+	 */
+	public boolean isUpToDate(Environment environment, ResourcePatternResolver resourcePatternResolver,
+			Class<?>... componentClasses) {
+
+		if (!Arrays.equals(this.componentClassNames, getClassNames(componentClasses))) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Bean definition snapshot has been captured for different component classes: " +
+						Arrays.toString(this.componentClassNames));
+			}
+			return false;
+		}
+		if (!Arrays.equals(this.activeProfiles, environment.getActiveProfiles())) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Bean definition snapshot has been captured for different active profiles: " +
+						Arrays.toString(this.activeProfiles));
+			}
+			return false;
+		}
+		try {
+			for (Map.Entry<String, Long> entry : this.fingerprints.entrySet()) {
+				if (fingerprint(entry.getKey(), resourcePatternResolver) != entry.getValue()) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Bean definition snapshot is outdated: classes in [" + entry.getKey() +
+								"] have changed");
+					}
+					return false;
+				}
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to verify bean definition snapshot against class files", ex);
+			}
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Register the bean definitions and aliases contained in this snapshot
+	 * with the given bean factory, along with the import metadata that
+	 * {@link ImportAware} configuration classes expect.
+	 * @param beanFactory the bean factory to register with
+	 */
+	public void registerBeanDefinitions(DefaultListableBeanFactory beanFactory) {
+		ClassLoader classLoader = beanFactory.getBeanClassLoader();
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			BeanDefinition beanDefinition = entry.getValue();
+			if (beanDefinition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE) {
+				// Let the infrastructure post-processors be introspected via reflection
+				// rather than by reading their class files again
+				resolveBeanClass(entry.getKey(), (AbstractBeanDefinition) beanDefinition, classLoader);
+			}
+			beanFactory.registerBeanDefinition(entry.getKey(), beanDefinition);
+		}
+		for (Map.Entry<String, String> entry : this.aliases.entrySet()) {
+			beanFactory.registerAlias(entry.getValue(), entry.getKey());
+		}
+		if (!this.importingClasses.isEmpty()) {
+			ConfigurationClassUtils.registerImportRegistry(beanFactory,
+					new SnapshotImportRegistry(this.importingClasses, classLoader));
+		}
+	}
+
+	/**
+	 * Re-apply the {@link PropertySource @PropertySource} declarations of the
+	 * configuration classes in this snapshot to the given environment, in
+	 * registration order of their bean definitions.
+	 * @param environment the environment to add property sources to
+	 * @param resourcePatternResolver the resolver to load property files with
+	 * @throws IOException if loading a property source failed
+	 */
+	public void applyPropertySources(ConfigurableEnvironment environment,
+			ResourcePatternResolver resourcePatternResolver) throws IOException {
+
+		PropertySourceProcessor processor = null;
+		for (BeanDefinition beanDefinition : this.beanDefinitions.values()) {
+			if (!(beanDefinition instanceof AbstractBeanDefinition) || beanDefinition.getBeanClassName() == null ||
+					(!ConfigurationClassUtils.isFullConfigurationClass(beanDefinition) &&
+					!ConfigurationClassUtils.isLiteConfigurationClass(beanDefinition))) {
+				continue;
+			}
+			Class<?> configClass = resolveBeanClass(beanDefinition.getBeanClassName(),
+					(AbstractBeanDefinition) beanDefinition, resourcePatternResolver.getClassLoader());
+			if (configClass == null) {
+				continue;
+			}
+			Set<AnnotationAttributes> propertySources = AnnotationConfigUtils.attributesForRepeatable(
+					new StandardAnnotationMetadata(configClass, true), PropertySources.class, PropertySource.class);
+			for (AnnotationAttributes propertySource : propertySources) {
+				if (processor == null) {
+					processor = new PropertySourceProcessor(environment, resourcePatternResolver);
+				}
+				processor.processPropertySource(propertySource);
+			}
+		}
+	}
+
+	/**
+	 * Write this snapshot to the given stream, leaving the stream open.
+	 * @param outputStream the stream to write to
+	 * @throws IOException in case of I/O errors
+	 * @throws BeanDefinitionStoreException if a bean definition contains content
+	 * that cannot be represented in a snapshot
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeStrings(out, this.componentClassNames);
+		writeStrings(out, this.activeProfiles);
+		out.writeInt(this.fingerprints.size());
+		for (Map.Entry<String, Long> entry : this.fingerprints.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeLong(entry.getValue());
+		}
+		out.writeInt(this.beanDefinitions.size());
+		for (Map.Entry<String, BeanDefinition> entry : this.beanDefinitions.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeBeanDefinition(out, entry.getKey(), entry.getValue());
+		}
+		writeStringMap(out, this.aliases);
+		writeStringMap(out, this.importingClasses);
+		out.flush();
+	}
+
+
+	/**
+	 * Capture a snapshot of the bean definitions derived from the given component
+	 * classes, processing their configuration the same way an
+	 * {@link AnnotationConfigApplicationContext} would during refresh, but without
+	 * enhancing configuration classes or instantiating any beans.
+	 * @param environment the environment to evaluate profiles and conditions against
+	 * @param componentClasses one or more component classes,
+	 * e.g. {@link Configuration @Configuration} classes
+	 * @return the captured snapshot
+	 * @throws IOException if the class files to fingerprint could not be read
+	 * @throws IllegalStateException if the bean definitions depend on a condition
+	 * other than a {@link Profile @Profile} declaration
+	 */
+	public static BeanDefinitionSnapshot capture(ConfigurableEnvironment environment, Class<?>... componentClasses)
+			throws IOException {
+
+		// Determine the active profiles the same way a snapshot is checked against
+		// them, that is, before any @PropertySource is added to the environment
+		String[] activeProfiles = environment.getActiveProfiles();
+
+		CapturingBeanFactory beanFactory = new CapturingBeanFactory();
+		GenericApplicationContext context = new GenericApplicationContext(beanFactory);
+		context.setEnvironment(environment);
+		new AnnotatedBeanDefinitionReader(beanFactory, environment).register(componentClasses);
+
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(environment);
+		postProcessor.setResourceLoader(context);
+		postProcessor.setBeanClassLoader(context.getClassLoader());
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+
+		if (!beanFactory.conditions.isEmpty()) {
+			throw new IllegalStateException("Cannot capture bean definitions that depend on conditions " +
+					"other than @Profile: " + beanFactory.conditions);
+		}
+
+		ImportRegistry importRegistry = ConfigurationClassUtils.getImportRegistry(beanFactory);
+
+		Set<String> classNames = new LinkedHashSet<>(Arrays.asList(getClassNames(componentClasses)));
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+		Map<String, String> aliases = new LinkedHashMap<>();
+		Map<String, String> importingClasses = new LinkedHashMap<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+			beanDefinitions.put(beanName, beanDefinition);
+			for (String alias : beanFactory.getAliases(beanName)) {
+				aliases.put(alias, beanName);
+			}
+			String className = beanDefinition.getBeanClassName();
+			if (className != null) {
+				classNames.add(className);
+				if (importRegistry != null && (ConfigurationClassUtils.isFullConfigurationClass(beanDefinition) ||
+						ConfigurationClassUtils.isLiteConfigurationClass(beanDefinition))) {
+					AnnotationMetadata importingClass = importRegistry.getImportingClassFor(className);
+					if (importingClass != null) {
+						importingClasses.put(className, importingClass.getClassName());
+						classNames.add(importingClass.getClassName());
+					}
+				}
+			}
+		}
+
+		Map<String, Long> fingerprints = new TreeMap<>();
+		for (String className : classNames) {
+			String packagePath = ClassUtils.convertClassNameToResourcePath(ClassUtils.getPackageName(className));
+			String location = (packagePath.isEmpty() ? CLASS_FILE_PATTERN : packagePath + "/" + CLASS_FILE_PATTERN);
+			if (!fingerprints.containsKey(location)) {
+				fingerprints.put(location, fingerprint(location, context));
+			}
+		}
+
+		return new BeanDefinitionSnapshot(getClassNames(componentClasses), activeProfiles,
+				fingerprints, beanDefinitions, aliases, importingClasses);
+	}
+
+	/**
+	 * Read a snapshot from the given stream, leaving the stream open.
+	 * @param inputStream the stream to read from
+	 * @return the snapshot
+	 * @throws IOException in case of I/O errors, or if the stream does not
+	 * contain a snapshot in a supported format
+	 */
+	public static BeanDefinitionSnapshot readFrom(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a bean definition snapshot");
+		}
+		int version = in.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported bean definition snapshot version: " + version);
+		}
+		String[] componentClassNames = readStrings(in);
+		String[] activeProfiles = readStrings(in);
+		int fingerprintCount = in.readInt();
+		Map<String, Long> fingerprints = new TreeMap<>();
+		for (int i = 0; i < fingerprintCount; i++) {
+			fingerprints.put(in.readUTF(), in.readLong());
+		}
+		int beanDefinitionCount = in.readInt();
+		Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>(beanDefinitionCount);
+		for (int i = 0; i < beanDefinitionCount; i++) {
+			beanDefinitions.put(in.readUTF(), readBeanDefinition(in));
+		}
+		Map<String, String> aliases = readStringMap(in);
+		Map<String, String> importingClasses = readStringMap(in);
+		return new BeanDefinitionSnapshot(componentClassNames, activeProfiles,
+				fingerprints, beanDefinitions, aliases, importingClasses);
+	}
+
+
+	private static String[] getClassNames(Class<?>... classes) {
+		String[] classNames = new String[classes.length];
+		for (int i = 0; i < classes.length; i++) {
+			classNames[i] = classes[i].getName();
+		}
+		return classNames;
+	}
+
+	@Nullable
+	private static Class<?> resolveBeanClass(String beanName, AbstractBeanDefinition beanDefinition,
+			@Nullable ClassLoader classLoader) {
+
+		try {
+			return beanDefinition.resolveBeanClass(classLoader);
+		}
+		catch (ClassNotFoundException | LinkageError ex) {
+			// Leave it to the bean factory to report the failure for this bean
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not resolve bean class for bean '" + beanName + "' from snapshot", ex);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Compute a checksum over the names and contents of all class files
+	 * matching the given location pattern, across the entire class path.
+	 */
+	private static long fingerprint(String location, ResourcePatternResolver resourcePatternResolver)
+			throws IOException {
+
+		Resource[] resources = resourcePatternResolver.getResources(
+				ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + location);
+		Map<String, Resource> sortedResources = new TreeMap<>();
+		for (Resource resource : resources) {
+			sortedResources.put(resource.getURL().toString(), resource);
+		}
+		CRC32 checksum = new CRC32();
+		for (Resource resource : sortedResources.values()) {
+			String filename = resource.getFilename();
+			if (filename != null) {
+				checksum.update(filename.getBytes(StandardCharsets.UTF_8));
+			}
+			try (InputStream inputStream = resource.getInputStream()) {
+				checksum.update(StreamUtils.copyToByteArray(inputStream));
+			}
+		}
+		return checksum.getValue();
+	}
+
+
+	private static void writeBeanDefinition(DataOutputStream out, String beanName, BeanDefinition beanDefinition)
+			throws IOException {
+
+		if (!(beanDefinition instanceof AbstractBeanDefinition)) {
+			throw new BeanDefinitionStoreException(beanDefinition.getResourceDescription(), beanName,
+					"Cannot capture bean definition of type [" + beanDefinition.getClass().getName() + "]");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) beanDefinition;
+		if (abd.getInstanceSupplier() != null) {
+			throw new BeanDefinitionStoreException(abd.getResourceDescription(), beanName,
+					"Cannot capture bean definition with an instance supplier");
+		}
+
+		writeNullableString(out, abd.getBeanClassName());
+		writeNullableString(out, abd.getParentName());
+		writeNullableString(out, abd.getFactoryBeanName());
+		writeNullableString(out, abd.getFactoryMethodName());
+		writeNullableString(out, abd.getScope());
+		out.writeBoolean(abd.isAbstract());
+		out.writeBoolean(abd.isLazyInit());
+		out.writeInt(abd.getAutowireMode());
+		out.writeInt(abd.getDependencyCheck());
+		writeStrings(out, abd.getDependsOn());
+		out.writeBoolean(abd.isAutowireCandidate());
+		out.writeBoolean(abd.isPrimary());
+		out.writeBoolean(abd.isNonPublicAccessAllowed());
+		out.writeBoolean(abd.isLenientConstructorResolution());
+		writeNullableString(out, abd.getInitMethodName());
+		out.writeBoolean(abd.isEnforceInitMethod());
+		writeNullableString(out, abd.getDestroyMethodName());
+		out.writeBoolean(abd.isEnforceDestroyMethod());
+		out.writeBoolean(abd.isSynthetic());
+		out.writeInt(abd.getRole());
+		writeNullableString(out, abd.getDescription());
+		writeNullableString(out, abd.getResourceDescription());
+
+		ConstructorArgumentValues cargs = abd.getConstructorArgumentValues();
+		out.writeInt(cargs.getIndexedArgumentValues().size());
+		for (Map.Entry<Integer, ValueHolder> entry : cargs.getIndexedArgumentValues().entrySet()) {
+			out.writeInt(entry.getKey());
+			writeValueHolder(out, beanName, entry.getValue());
+		}
+		out.writeInt(cargs.getGenericArgumentValues().size());
+		for (ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+			writeValueHolder(out, beanName, valueHolder);
+		}
+
+		List<PropertyValue> pvs = abd.getPropertyValues().getPropertyValueList();
+		out.writeInt(pvs.size());
+		for (PropertyValue pv : pvs) {
+			out.writeUTF(pv.getName());
+			writeValue(out, beanName, pv.getValue());
+		}
+
+		Set<MethodOverride> overrides = abd.getMethodOverrides().getOverrides();
+		out.writeInt(overrides.size());
+		for (MethodOverride override : overrides) {
+			if (!(override instanceof LookupOverride)) {
+				throw new BeanDefinitionStoreException(abd.getResourceDescription(), beanName,
+						"Cannot capture method override of type [" + override.getClass().getName() + "]");
+			}
+			out.writeUTF(override.getMethodName());
+			writeNullableString(out, ((LookupOverride) override).getBeanName());
+		}
+
+		Set<AutowireCandidateQualifier> qualifiers = abd.getQualifiers();
+		out.writeInt(qualifiers.size());
+		for (AutowireCandidateQualifier qualifier : qualifiers) {
+			out.writeUTF(qualifier.getTypeName());
+			writeAttributes(out, beanName, qualifier.attributeNames(), qualifier::getAttribute);
+		}
+
+		writeAttributes(out, beanName, abd.attributeNames(), abd::getAttribute);
+
+		BeanDefinitionHolder decoratedDefinition =
+				(abd instanceof RootBeanDefinition ? ((RootBeanDefinition) abd).getDecoratedDefinition() : null);
+		writeValue(out, beanName, decoratedDefinition);
+		Class<?> targetType = (abd instanceof RootBeanDefinition ? ((RootBeanDefinition) abd).getTargetType() : null);
+		writeNullableString(out, (targetType != null ? targetType.getName() : null));
+	}
+
+	private static BeanDefinition readBeanDefinition(DataInputStream in) throws IOException {
+		String beanClassName = readNullableString(in);
+		String parentName = readNullableString(in);
+		// A RootBeanDefinition may carry a decorated definition and a target type,
+		// as needed for scoped proxies; child definitions are kept generic.
+		AbstractBeanDefinition abd = (parentName != null ? new GenericBeanDefinition() : new RootBeanDefinition());
+		abd.setBeanClassName(beanClassName);
+		if (parentName != null) {
+			abd.setParentName(parentName);
+		}
+		abd.setFactoryBeanName(readNullableString(in));
+		abd.setFactoryMethodName(readNullableString(in));
+		abd.setScope(readNullableString(in));
+		abd.setAbstract(in.readBoolean());
+		abd.setLazyInit(in.readBoolean());
+		abd.setAutowireMode(in.readInt());
+		abd.setDependencyCheck(in.readInt());
+		abd.setDependsOn(readStrings(in));
+		abd.setAutowireCandidate(in.readBoolean());
+		abd.setPrimary(in.readBoolean());
+		abd.setNonPublicAccessAllowed(in.readBoolean());
+		abd.setLenientConstructorResolution(in.readBoolean());
+		abd.setInitMethodName(readNullableString(in));
+		abd.setEnforceInitMethod(in.readBoolean());
+		abd.setDestroyMethodName(readNullableString(in));
+		abd.setEnforceDestroyMethod(in.readBoolean());
+		abd.setSynthetic(in.readBoolean());
+		abd.setRole(in.readInt());
+		abd.setDescription(readNullableString(in));
+		abd.setResourceDescription(readNullableString(in));
+
+		ConstructorArgumentValues cargs = abd.getConstructorArgumentValues();
+		int indexedCount = in.readInt();
+		for (int i = 0; i < indexedCount; i++) {
+			int index = in.readInt();
+			cargs.addIndexedArgumentValue(index, readValueHolder(in));
+		}
+		int genericCount = in.readInt();
+		for (int i = 0; i < genericCount; i++) {
+			cargs.addGenericArgumentValue(readValueHolder(in));
+		}
+
+		int propertyCount = in.readInt();
+		for (int i = 0; i < propertyCount; i++) {
+			abd.getPropertyValues().add(in.readUTF(), readValue(in));
+		}
+
+		int overrideCount = in.readInt();
+		for (int i = 0; i < overrideCount; i++) {
+			abd.getMethodOverrides().addOverride(new LookupOverride(in.readUTF(), readNullableString(in)));
+		}
+
+		int qualifierCount = in.readInt();
+		for (int i = 0; i < qualifierCount; i++) {
+			AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(in.readUTF());
+			readAttributes(in, qualifier::setAttribute);
+			abd.addQualifier(qualifier);
+		}
+
+		readAttributes(in, abd::setAttribute);
+
+		Object decoratedDefinition = readValue(in);
+		String targetTypeName = readNullableString(in);
+		if (abd instanceof RootBeanDefinition) {
+			RootBeanDefinition rbd = (RootBeanDefinition) abd;
+			if (decoratedDefinition instanceof BeanDefinitionHolder) {
+				rbd.setDecoratedDefinition((BeanDefinitionHolder) decoratedDefinition);
+			}
+			if (targetTypeName != null) {
+				try {
+					rbd.setTargetType(ClassUtils.forName(targetTypeName, null));
+				}
+				catch (ClassNotFoundException | LinkageError ex) {
+					// Target type is just a hint - leave it to type prediction
+				}
+			}
+		}
+		return abd;
+	}
+
+	private static void writeValueHolder(DataOutputStream out, String beanName, ValueHolder valueHolder)
+			throws IOException {
+
+		writeValue(out, beanName, valueHolder.getValue());
+		writeNullableString(out, valueHolder.getType());
+		writeNullableString(out, valueHolder.getName());
+	}
+
+	private static ValueHolder readValueHolder(DataInputStream in) throws IOException {
+		Object value = readValue(in);
+		return new ValueHolder(value, readNullableString(in), readNullableString(in));
+	}
+
+	private static void writeValue(DataOutputStream out, String beanName, @Nullable Object value)
+			throws IOException {
+
+		if (value == null) {
+			out.writeByte(NULL);
+		}
+		else if (value instanceof String) {
+			out.writeByte(STRING);
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof TypedStringValue) {
+			TypedStringValue typedStringValue = (TypedStringValue) value;
+			out.writeByte(TYPED_STRING);
+			writeNullableString(out, typedStringValue.getValue());
+			writeNullableString(out, typedStringValue.getTargetTypeName());
+		}
+		else if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference reference = (RuntimeBeanReference) value;
+			out.writeByte(BEAN_REFERENCE);
+			out.writeUTF(reference.getBeanName());
+			out.writeBoolean(reference.isToParent());
+		}
+		else if (value instanceof RuntimeBeanNameReference) {
+			out.writeByte(BEAN_NAME_REFERENCE);
+			out.writeUTF(((RuntimeBeanNameReference) value).getBeanName());
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+			out.writeByte(BEAN_DEFINITION_HOLDER);
+			out.writeUTF(holder.getBeanName());
+			writeStrings(out, holder.getAliases());
+			writeBeanDefinition(out, holder.getBeanName(), holder.getBeanDefinition());
+		}
+		else if (value instanceof BeanDefinition) {
+			out.writeByte(BEAN_DEFINITION);
+			writeBeanDefinition(out, beanName, (BeanDefinition) value);
+		}
+		else if (value instanceof ManagedArray) {
+			ManagedArray array = (ManagedArray) value;
+			out.writeByte(ARRAY);
+			writeNullableString(out, array.getElementTypeName());
+			out.writeBoolean(array.isMergeEnabled());
+			writeElements(out, beanName, array);
+		}
+		else if (value instanceof List) {
+			out.writeByte(LIST);
+			writeCollection(out, beanName, (List<?>) value);
+		}
+		else if (value instanceof Set) {
+			out.writeByte(SET);
+			writeCollection(out, beanName, (Set<?>) value);
+		}
+		else if (value instanceof Properties) {
+			Properties properties = (Properties) value;
+			out.writeByte(PROPERTIES);
+			boolean managed = (value instanceof ManagedProperties);
+			out.writeBoolean(managed);
+			out.writeBoolean(managed && ((ManagedProperties) value).isMergeEnabled());
+			writeEntries(out, beanName, properties);
+		}
+		else if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			out.writeByte(MAP);
+			boolean managed = (value instanceof ManagedMap);
+			out.writeBoolean(managed);
+			if (managed) {
+				ManagedMap<?, ?> managedMap = (ManagedMap<?, ?>) value;
+				writeNullableString(out, managedMap.getKeyTypeName());
+				writeNullableString(out, managedMap.getValueTypeName());
+				out.writeBoolean(managedMap.isMergeEnabled());
+			}
+			writeEntries(out, beanName, map);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Class) {
+			out.writeByte(CLASS);
+			out.writeUTF(((Class<?>) value).getName());
+		}
+		else {
+			throw new BeanDefinitionStoreException(null, beanName,
+					"Cannot capture value of type [" + value.getClass().getName() + "]");
+		}
+	}
+
+	@Nullable
+	private static Object readValue(DataInputStream in) throws IOException {
+		int tag = in.readByte();
+		switch (tag) {
+			case NULL:
+				return null;
+			case STRING:
+				return in.readUTF();
+			case TYPED_STRING:
+				String value = readNullableString(in);
+				String targetTypeName = readNullableString(in);
+				return (targetTypeName != null ? new TypedStringValue(value, targetTypeName) :
+						new TypedStringValue(value));
+			case BEAN_REFERENCE:
+				return new RuntimeBeanReference(in.readUTF(), in.readBoolean());
+			case BEAN_NAME_REFERENCE:
+				return new RuntimeBeanNameReference(in.readUTF());
+			case BEAN_DEFINITION_HOLDER:
+				String beanName = in.readUTF();
+				String[] aliases = readStrings(in);
+				return new BeanDefinitionHolder(readBeanDefinition(in), beanName, aliases);
+			case BEAN_DEFINITION:
+				return readBeanDefinition(in);
+			case ARRAY:
+				String elementTypeName = readNullableString(in);
+				boolean arrayMergeEnabled = in.readBoolean();
+				int arraySize = in.readInt();
+				ManagedArray array = new ManagedArray(elementTypeName != null ? elementTypeName : "", arraySize);
+				array.setElementTypeName(elementTypeName);
+				array.setMergeEnabled(arrayMergeEnabled);
+				readElements(in, array, arraySize);
+				return array;
+			case LIST:
+				if (in.readBoolean()) {
+					String listElementTypeName = readNullableString(in);
+					boolean mergeEnabled = in.readBoolean();
+					int size = in.readInt();
+					ManagedList<Object> list = new ManagedList<>(size);
+					list.setElementTypeName(listElementTypeName);
+					list.setMergeEnabled(mergeEnabled);
+					readElements(in, list, size);
+					return list;
+				}
+				int listSize = in.readInt();
+				List<Object> list = new ArrayList<>(listSize);
+				readElements(in, list, listSize);
+				return list;
+			case SET:
+				if (in.readBoolean()) {
+					String setElementTypeName = readNullableString(in);
+					boolean mergeEnabled = in.readBoolean();
+					int size = in.readInt();
+					ManagedSet<Object> set = new ManagedSet<>(size);
+					set.setElementTypeName(setElementTypeName);
+					set.setMergeEnabled(mergeEnabled);
+					readElements(in, set, size);
+					return set;
+				}
+				int setSize = in.readInt();
+				Set<Object> set = new LinkedHashSet<>(setSize);
+				readElements(in, set, setSize);
+				return set;
+			case PROPERTIES:
+				boolean managedProperties = in.readBoolean();
+				boolean propertiesMergeEnabled = in.readBoolean();
+				Properties properties;
+				if (managedProperties) {
+					ManagedProperties mp = new ManagedProperties();
+					mp.setMergeEnabled(propertiesMergeEnabled);
+					properties = mp;
+				}
+				else {
+					properties = new Properties();
+				}
+				readEntries(in, properties);
+				return properties;
+			case MAP:
+				if (in.readBoolean()) {
+					String keyTypeName = readNullableString(in);
+					String valueTypeName = readNullableString(in);
+					boolean mergeEnabled = in.readBoolean();
+					ManagedMap<Object, Object> map = new ManagedMap<>();
+					map.setKeyTypeName(keyTypeName);
+					map.setValueTypeName(valueTypeName);
+					map.setMergeEnabled(mergeEnabled);
+					readEntries(in, map);
+					return map;
+				}
+				Map<Object, Object> map = new LinkedHashMap<>();
+				readEntries(in, map);
+				return map;
+			case BOOLEAN:
+				return in.readBoolean();
+			case INTEGER:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case CLASS:
+				String className = in.readUTF();
+				try {
+					return ClassUtils.forName(className, null);
+				}
+				catch (ClassNotFoundException | LinkageError ex) {
+					throw new IOException("Class [" + className + "] referenced in snapshot not found", ex);
+				}
+			default:
+				throw new IOException("Corrupt bean definition snapshot: unknown value tag " + tag);
+		}
+	}
+
+	private static void writeCollection(DataOutputStream out, String beanName, Collection<?> collection)
+			throws IOException {
+
+		boolean managed = (collection instanceof ManagedList || collection instanceof ManagedSet);
+		out.writeBoolean(managed);
+		if (collection instanceof ManagedList) {
+			writeNullableString(out, ((ManagedList<?>) collection).getElementTypeName());
+			out.writeBoolean(((ManagedList<?>) collection).isMergeEnabled());
+		}
+		else if (collection instanceof ManagedSet) {
+			writeNullableString(out, ((ManagedSet<?>) collection).getElementTypeName());
+			out.writeBoolean(((ManagedSet<?>) collection).isMergeEnabled());
+		}
+		writeElements(out, beanName, collection);
+	}
+
+	private static void writeElements(DataOutputStream out, String beanName, Collection<?> collection)
+			throws IOException {
+
+		out.writeInt(collection.size());
+		for (Object element : collection) {
+			writeValue(out, beanName, element);
+		}
+	}
+
+	private static void readElements(DataInputStream in, Collection<Object> collection, int size)
+			throws IOException {
+
+		for (int i = 0; i < size; i++) {
+			collection.add(readValue(in));
+		}
+	}
+
+	private static void writeEntries(DataOutputStream out, String beanName, Map<?, ?> map) throws IOException {
+		out.writeInt(map.size());
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			writeValue(out, beanName, entry.getKey());
+			writeValue(out, beanName, entry.getValue());
+		}
+	}
+
+	private static void readEntries(DataInputStream in, Map<Object, Object> map) throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			Object key = readValue(in);
+			map.put(key, readValue(in));
+		}
+	}
+
+	private static void writeAttributes(DataOutputStream out, String beanName, String[] names,
+			Function<String, Object> accessor) throws IOException {
+
+		out.writeInt(names.length);
+		for (String name : names) {
+			out.writeUTF(name);
+			writeValue(out, beanName, accessor.apply(name));
+		}
+	}
+
+	private static void readAttributes(DataInputStream in, BiConsumer<String, Object> accessor)
+			throws IOException {
+
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String name = in.readUTF();
+			accessor.accept(name, readValue(in));
+		}
+	}
+
+	private static void writeStringMap(DataOutputStream out, Map<String, String> map) throws IOException {
+		out.writeInt(map.size());
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeUTF(entry.getValue());
+		}
+	}
+
+	private static Map<String, String> readStringMap(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Map<String, String> map = new LinkedHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			map.put(in.readUTF(), in.readUTF());
+		}
+		return map;
+	}
+
+	private static void writeStrings(DataOutputStream out, @Nullable String[] strings) throws IOException {
+		if (strings == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(strings.length);
+		for (String string : strings) {
+			out.writeUTF(string);
+		}
+	}
+
+	@Nullable
+	private static String[] readStrings(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		String[] strings = new String[length];
+		for (int i = 0; i < length; i++) {
+			strings[i] = in.readUTF();
+		}
+		return strings;
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String string) throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null) {
+			out.writeUTF(string);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+
+	/**
+	 * Bean factory used for capturing a snapshot, recording the conditions
+	 * evaluated for its bean definitions that a snapshot cannot reproduce.
+	 */
+	@SuppressWarnings("serial")
+	private static class CapturingBeanFactory extends DefaultListableBeanFactory
+			implements ConditionEvaluator.Listener {
+
+		final Set<String> conditions = new LinkedHashSet<>();
+
+		@Override
+		public void conditionEvaluated(Condition condition, AnnotatedTypeMetadata metadata) {
+			if (!(condition instanceof ProfileCondition)) {
+				this.conditions.add(condition.getClass().getName());
+			}
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the importing class names recorded in a
+	 * snapshot, introspecting the importing classes via reflection on demand.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> importingClasses;
+
+		@Nullable
+		private final ClassLoader classLoader;
+
+		public SnapshotImportRegistry(Map<String, String> importingClasses, @Nullable ClassLoader classLoader) {
+			this.importingClasses = new ConcurrentHashMap<>(importingClasses);
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.importingClasses.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return new StandardAnnotationMetadata(ClassUtils.forName(importingClass, this.classLoader), true);
+			}
+			catch (ClassNotFoundException ex) {
+				throw new IllegalStateException("Importing class [" + importingClass + "] not found", ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.importingClasses.values().removeIf(importingClass::equals);
+		}
+	}
+
+}
@@ -64,6 +64,7 @@ import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.core.BridgeMethodResolver;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.Ordered;
+import org.springframework.core.type.classreading.ClassMetadataIndex;
 import org.springframework.jndi.support.SimpleJndiBeanFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -347,8 +348,15 @@ public class CommonAnnotationBeanPostProcessor extends InitDestroyAnnotationBean
 	private InjectionMetadata buildResourceMetadata(final Class<?> clazz) {
 		LinkedList<InjectionMetadata.InjectedElement> elements = new LinkedList<>();
 		Class<?> targetClass = clazz;
+		ClassMetadataIndex index = ClassMetadataIndex.loadIndex(clazz.getClassLoader());
 
 		do {
+			if (index != null && !index.hasAnnotatedMembers(targetClass.getName())) {
+				// No annotated members according to the build-time index -> no injection points
+				targetClass = targetClass.getSuperclass();
+				continue;
+			}
+
 			final LinkedList<InjectionMetadata.InjectedElement> currElements =
 					new LinkedList<>();
 
@@ -49,14 +49,20 @@ class ConditionEvaluator {
 
 	private final ConditionContextImpl context;
 
+	@Nullable
+	private final Listener listener;
+
 
 	/**
 	 * Create a new {@link ConditionEvaluator} instance.
+	 * <p>If the given registry is a {@link Listener}, it is notified of every
+	 * condition that is evaluated.
 	 */
 	public ConditionEvaluator(@Nullable BeanDefinitionRegistry registry,
 			@Nullable Environment environment, @Nullable ResourceLoader resourceLoader) {
 
 		this.context = new ConditionContextImpl(registry, environment, resourceLoader);
+		this.listener = (registry instanceof Listener ? (Listener) registry : null);
 	}
 
 
@@ -105,8 +111,13 @@ class ConditionEvaluator {
 			if (condition instanceof ConfigurationCondition) {
 				requiredPhase = ((ConfigurationCondition) condition).getConfigurationPhase();
 			}
-			if ((requiredPhase == null || requiredPhase == phase) && !condition.matches(this.context, metadata)) {
-				return true;
+			if (requiredPhase == null || requiredPhase == phase) {
+				if (this.listener != null) {
+					this.listener.conditionEvaluated(condition, metadata);
+				}
+				if (!condition.matches(this.context, metadata)) {
+					return true;
+				}
 			}
 		}
 
@@ -126,6 +137,23 @@ class ConditionEvaluator {
 	}
 
 
+	/**
+	 * Callback interface for a {@link BeanDefinitionRegistry} that is to be
+	 * notified of the conditions evaluated for the bean definitions that are
+	 * about to be registered with it.
+	 * @since 5.1
+	 */
+	interface Listener {
+
+		/**
+		 * Called before the given condition is evaluated.
+		 * @param condition the condition
+		 * @param metadata the metadata of the class or method being checked
+		 */
+		void conditionEvaluated(Condition condition, AnnotatedTypeMetadata metadata);
+	}
+
+
 	/**
 	 * Implementation of a {@link ConditionContext}.
 	 */
@@ -24,8 +24,10 @@ import java.util.Set;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.core.Conventions;
 import org.springframework.core.Ordered;
@@ -57,6 +59,9 @@ abstract class ConfigurationClassUtils {
 	private static final String ORDER_ATTRIBUTE =
 			Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "order");
 
+	private static final String IMPORT_REGISTRY_BEAN_NAME =
+			ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
+
 
 	private static final Log logger = LogFactory.getLog(ConfigurationClassUtils.class);
 
@@ -225,4 +230,30 @@ abstract class ConfigurationClassUtils {
 		return (order != null ? order : Ordered.LOWEST_PRECEDENCE);
 	}
 
+	/**
+	 * Register the given {@link ImportRegistry} as a singleton in order to support
+	 * {@link ImportAware} configuration classes, unless one has been registered already.
+	 * @param registry the registry to register the import registry with
+	 * @param importRegistry the import registry
+	 * @since 5.1
+	 */
+	public static void registerImportRegistry(SingletonBeanRegistry registry, ImportRegistry importRegistry) {
+		if (!registry.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+			registry.registerSingleton(IMPORT_REGISTRY_BEAN_NAME, importRegistry);
+		}
+	}
+
+	/**
+	 * Return the {@link ImportRegistry} registered with the given bean factory,
+	 * as registered by {@link #registerImportRegistry}.
+	 * @param beanFactory the bean factory to get the import registry from
+	 * @return the import registry, or {@code null} if none has been registered
+	 * @since 5.1
+	 */
+	@Nullable
+	public static ImportRegistry getImportRegistry(BeanFactory beanFactory) {
+		return (beanFactory.containsBean(IMPORT_REGISTRY_BEAN_NAME) ?
+				beanFactory.getBean(IMPORT_REGISTRY_BEAN_NAME, ImportRegistry.class) : null);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 
 package org.springframework.context.event;
 
+import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.Map;
@@ -37,6 +39,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Abstract implementation of the {@link ApplicationEventMulticaster} interface,
@@ -52,6 +55,12 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>Listener instances are indexed by their declared event types and payload
+ * types, narrowing the listeners to check when determining the listeners for a
+ * specific event type for the first time. Registering or removing a listener
+ * instance updates the cached per-event-type listener lists in place rather
+ * than discarding them (unlike registering or removing a listener bean name).
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -65,6 +74,10 @@ public abstract class AbstractApplicationEventMulticaster
 
 	final Map<ListenerCacheKey, ListenerRetriever> retrieverCache = new ConcurrentHashMap<>(64);
 
+	private final ListenerRoutingTable routingTable = new ListenerRoutingTable();
+
+	private final boolean routingEnabled = !overridesSupportsEvent(getClass());
+
 	@Nullable
 	private ClassLoader beanClassLoader;
 
@@ -108,9 +121,13 @@ public abstract class AbstractApplicationEventMulticaster
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
 			if (singletonTarget instanceof ApplicationListener) {
 				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+				this.routingTable.removeListener(singletonTarget);
+				removeFromRetrieverCache(singletonTarget);
+			}
+			if (this.defaultRetriever.applicationListeners.add(listener)) {
+				this.routingTable.addListener(listener);
+				addToRetrieverCache(listener);
 			}
-			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
 		}
 	}
 
@@ -125,8 +142,10 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.retrievalMutex) {
-			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			if (this.defaultRetriever.applicationListeners.remove(listener)) {
+				this.routingTable.removeListener(listener);
+				removeFromRetrieverCache(listener);
+			}
 		}
 	}
 
@@ -143,10 +162,62 @@ public abstract class AbstractApplicationEventMulticaster
 		synchronized (this.retrievalMutex) {
 			this.defaultRetriever.applicationListeners.clear();
 			this.defaultRetriever.applicationListenerBeans.clear();
+			this.routingTable.clear();
 			this.retrieverCache.clear();
 		}
 	}
 
+	/**
+	 * Apply the registration of the given listener to all cached retrievers whose
+	 * event type and source type it supports. Retrievers are replaced rather than
+	 * modified since they may be iterated concurrently.
+	 * <p>Retrievers which include listener beans get discarded instead, since the
+	 * given listener might be the very instance behind one of those beans.
+	 */
+	private void addToRetrieverCache(ApplicationListener<?> listener) {
+		for (Iterator<Map.Entry<ListenerCacheKey, ListenerRetriever>> it =
+				this.retrieverCache.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<ListenerCacheKey, ListenerRetriever> entry = it.next();
+			ListenerCacheKey cacheKey = entry.getKey();
+			if (supportsEvent(listener, cacheKey.eventType, cacheKey.sourceType)) {
+				ListenerRetriever retriever = entry.getValue();
+				if (retriever.applicationListenerBeans.isEmpty()) {
+					ListenerRetriever newRetriever = new ListenerRetriever(retriever);
+					newRetriever.applicationListeners.add(listener);
+					entry.setValue(newRetriever);
+				}
+				else {
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove the given listener from all cached retrievers that contain it.
+	 * <p>If listener beans are registered, affected retrievers get discarded
+	 * instead, since one of those beans might have been skipped as a duplicate
+	 * of the given listener.
+	 */
+	private void removeFromRetrieverCache(Object listener) {
+		boolean hasListenerBeans = !this.defaultRetriever.applicationListenerBeans.isEmpty();
+		for (Iterator<Map.Entry<ListenerCacheKey, ListenerRetriever>> it =
+				this.retrieverCache.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<ListenerCacheKey, ListenerRetriever> entry = it.next();
+			ListenerRetriever retriever = entry.getValue();
+			if (retriever.applicationListeners.contains(listener)) {
+				if (hasListenerBeans) {
+					it.remove();
+				}
+				else {
+					ListenerRetriever newRetriever = new ListenerRetriever(retriever);
+					newRetriever.applicationListeners.remove(listener);
+					entry.setValue(newRetriever);
+				}
+			}
+		}
+	}
+
 
 	/**
 	 * Return a Collection containing all ApplicationListeners.
@@ -216,12 +287,15 @@ public abstract class AbstractApplicationEventMulticaster
 		LinkedList<ApplicationListener<?>> allListeners = new LinkedList<>();
 		Set<ApplicationListener<?>> listeners;
 		Set<String> listenerBeans;
+		Set<ApplicationListener<?>> candidates;
 		synchronized (this.retrievalMutex) {
 			listeners = new LinkedHashSet<>(this.defaultRetriever.applicationListeners);
 			listenerBeans = new LinkedHashSet<>(this.defaultRetriever.applicationListenerBeans);
+			candidates = (this.routingEnabled ? this.routingTable.getCandidates(eventType) : null);
 		}
 		for (ApplicationListener<?> listener : listeners) {
-			if (supportsEvent(listener, eventType, sourceType)) {
+			if ((candidates == null || candidates.contains(listener)) &&
+					supportsEvent(listener, eventType, sourceType)) {
 				if (retriever != null) {
 					retriever.applicationListeners.add(listener);
 				}
@@ -294,6 +368,17 @@ public abstract class AbstractApplicationEventMulticaster
 		return (smartListener.supportsEventType(eventType) && smartListener.supportsSourceType(sourceType));
 	}
 
+	/**
+	 * Determine whether the given multicaster class customizes the matching of
+	 * listener instances, in which case listeners cannot be routed by their
+	 * declared event types.
+	 */
+	private static boolean overridesSupportsEvent(Class<?> multicasterClass) {
+		Method method = ReflectionUtils.findMethod(multicasterClass, "supportsEvent",
+				ApplicationListener.class, ResolvableType.class, Class.class);
+		return (method != null && method.getDeclaringClass() != AbstractApplicationEventMulticaster.class);
+	}
+
 
 	/**
 	 * Cache key for ListenerRetrievers, based on event type and source type.
@@ -367,6 +452,12 @@ public abstract class AbstractApplicationEventMulticaster
 			this.preFiltered = preFiltered;
 		}
 
+		public ListenerRetriever(ListenerRetriever original) {
+			this.applicationListeners = new LinkedHashSet<>(original.applicationListeners);
+			this.applicationListenerBeans = new LinkedHashSet<>(original.applicationListenerBeans);
+			this.preFiltered = original.preFiltered;
+		}
+
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
 			LinkedList<ApplicationListener<?>> allListeners = new LinkedList<>();
 			for (ApplicationListener<?> listener : this.applicationListeners) {
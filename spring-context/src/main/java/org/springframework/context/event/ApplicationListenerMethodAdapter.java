@@ -159,6 +159,15 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		return eventType.hasUnresolvableGenerics();
 	}
 
+	/**
+	 * Return the event types that this listener has been declared for,
+	 * either through {@link EventListener#classes} or its method parameter.
+	 * @since 5.1
+	 */
+	List<ResolvableType> getDeclaredEventTypes() {
+		return this.declaredEventTypes;
+	}
+
 	@Override
 	public boolean supportsSourceType(@Nullable Class<?> sourceType) {
 		return true;
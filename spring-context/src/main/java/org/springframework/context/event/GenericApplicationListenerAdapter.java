@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -93,7 +93,7 @@ public class GenericApplicationListenerAdapter implements GenericApplicationList
 	}
 
 	@Nullable
-	private static ResolvableType resolveDeclaredEventType(ApplicationListener<ApplicationEvent> listener) {
+	static ResolvableType resolveDeclaredEventType(ApplicationListener<ApplicationEvent> listener) {
 		ResolvableType declaredEventType = resolveDeclaredEventType(listener.getClass());
 		if (declaredEventType == null || declaredEventType.isAssignableFrom(
 				ResolvableType.forClass(ApplicationEvent.class))) {
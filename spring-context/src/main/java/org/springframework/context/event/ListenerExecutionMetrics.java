@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Execution statistics for a specific listener, as collected by a
+ * {@link SimpleApplicationEventMulticaster} for every event that it hands
+ * off to an {@link java.util.concurrent.Executor} for the listener.
+ * Listeners which are invoked in the calling thread right away are not tracked.
+ *
+ * <p>The pending count reflects invocations which have been submitted but not
+ * completed yet. Once it reaches the configured
+ * {@linkplain SimpleApplicationEventMulticaster#setMaxPendingInvocationsPerListener
+ * maximum}, further invocations are throttled, i.e. performed in the calling thread.
+ *
+ * @since 5.1
+ * @see SimpleApplicationEventMulticaster#getListenerExecutionMetrics(org.springframework.context.ApplicationListener)
+ */
+public final class ListenerExecutionMetrics {
+
+	private final LongAdder submittedCount = new LongAdder();
+
+	private final LongAdder completedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private final LongAdder throttledCount = new LongAdder();
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private final AtomicInteger maxPendingCount = new AtomicInteger();
+
+
+	ListenerExecutionMetrics() {
+	}
+
+
+	/**
+	 * Return the number of invocations submitted to an executor so far.
+	 */
+	public long getSubmittedCount() {
+		return this.submittedCount.sum();
+	}
+
+	/**
+	 * Return the number of submitted invocations that have completed so far,
+	 * successfully or not.
+	 */
+	public long getCompletedCount() {
+		return this.completedCount.sum();
+	}
+
+	/**
+	 * Return the number of submitted invocations that the executor rejected.
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	/**
+	 * Return the number of invocations performed in the calling thread
+	 * because the maximum number of pending invocations had been reached.
+	 */
+	public long getThrottledCount() {
+		return this.throttledCount.sum();
+	}
+
+	/**
+	 * Return the number of submitted invocations that have not completed yet.
+	 */
+	public int getPendingCount() {
+		return this.pendingCount.get();
+	}
+
+	/**
+	 * Return the highest number of pending invocations observed so far.
+	 */
+	public int getMaxPendingCount() {
+		return this.maxPendingCount.get();
+	}
+
+	/**
+	 * Register an invocation to be submitted, unless the given maximum number
+	 * of pending invocations has been reached (in which case the invocation
+	 * gets recorded as throttled).
+	 * @param maxPending the maximum number of pending invocations, or -1 for no limit
+	 * @return {@code true} if the invocation may be submitted,
+	 * {@code false} if it should be performed in the calling thread
+	 */
+	boolean tryBeginInvocation(int maxPending) {
+		int pending;
+		do {
+			pending = this.pendingCount.get();
+			if (maxPending >= 0 && pending >= maxPending) {
+				this.throttledCount.increment();
+				return false;
+			}
+		}
+		while (!this.pendingCount.compareAndSet(pending, pending + 1));
+		this.submittedCount.increment();
+		this.maxPendingCount.accumulateAndGet(pending + 1, Math::max);
+		return true;
+	}
+
+	/**
+	 * Record the completion of a submitted invocation.
+	 */
+	void recordCompletion() {
+		this.pendingCount.decrementAndGet();
+		this.completedCount.increment();
+	}
+
+	/**
+	 * Record the rejection of a submitted invocation by the executor.
+	 */
+	void recordRejection() {
+		this.pendingCount.decrementAndGet();
+		this.rejectedCount.increment();
+	}
+
+
+	@Override
+	public String toString() {
+		return "ListenerExecutionMetrics: " + getSubmittedCount() + " invocations submitted, " +
+				getPendingCount() + " pending, " + getThrottledCount() + " throttled";
+	}
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Index of registered {@link ApplicationListener} instances by the raw classes
+ * of the event types and payload types that they declare, allowing an
+ * {@link AbstractApplicationEventMulticaster} to narrow the listeners to check
+ * for a given event type to those which may possibly support it.
+ *
+ * <p>A listener gets routed by event type if it is a plain {@code ApplicationListener}
+ * with a resolvable generic event type: e.g. {@code ApplicationListener<MyEvent>},
+ * or {@code ApplicationListener<PayloadApplicationEvent<String>>} which gets routed
+ * by its payload type instead. {@link ApplicationListenerMethodAdapter} instances
+ * get routed by each of their declared event types, both as event type and as
+ * payload type. Any other listener, in particular custom {@link SmartApplicationListener}
+ * and {@link GenericApplicationListener} implementations, remains unrouted and
+ * is therefore considered as a candidate for every event.
+ *
+ * <p>The candidates returned by this index are a superset of the matching listeners:
+ * they still need to be checked individually. This class is not thread-safe;
+ * it is expected to be guarded by the multicaster's retrieval mutex.
+ *
+ * @since 5.1
+ * @see AbstractApplicationEventMulticaster#retrieveApplicationListeners
+ */
+final class ListenerRoutingTable {
+
+	private final Map<ApplicationListener<?>, Route> routes = new HashMap<>();
+
+	private final Map<Class<?>, Set<ApplicationListener<?>>> listenersByEventType = new HashMap<>();
+
+	private final Map<Class<?>, Set<ApplicationListener<?>>> listenersByPayloadType = new HashMap<>();
+
+	private final Set<ApplicationListener<?>> unroutedListeners = new LinkedHashSet<>();
+
+
+	/**
+	 * Add the given listener to this index.
+	 */
+	public void addListener(ApplicationListener<?> listener) {
+		if (this.routes.containsKey(listener)) {
+			return;
+		}
+		Route route = Route.forListener(listener);
+		this.routes.put(listener, route);
+		if (route.isUnrouted()) {
+			this.unroutedListeners.add(listener);
+		}
+		else {
+			for (Class<?> eventType : route.eventTypes) {
+				this.listenersByEventType.computeIfAbsent(eventType, key -> new HashSet<>()).add(listener);
+			}
+			for (Class<?> payloadType : route.payloadTypes) {
+				this.listenersByPayloadType.computeIfAbsent(payloadType, key -> new HashSet<>()).add(listener);
+			}
+		}
+	}
+
+	/**
+	 * Remove the given listener from this index, if registered.
+	 */
+	public void removeListener(Object listener) {
+		Route route = this.routes.remove(listener);
+		if (route == null) {
+			return;
+		}
+		if (route.isUnrouted()) {
+			this.unroutedListeners.remove(listener);
+		}
+		else {
+			for (Class<?> eventType : route.eventTypes) {
+				removeListener(this.listenersByEventType, eventType, listener);
+			}
+			for (Class<?> payloadType : route.payloadTypes) {
+				removeListener(this.listenersByPayloadType, payloadType, listener);
+			}
+		}
+	}
+
+	private static void removeListener(
+			Map<Class<?>, Set<ApplicationListener<?>>> listenersByType, Class<?> type, Object listener) {
+
+		Set<ApplicationListener<?>> listeners = listenersByType.get(type);
+		if (listeners != null && listeners.remove(listener) && listeners.isEmpty()) {
+			listenersByType.remove(type);
+		}
+	}
+
+	/**
+	 * Remove all listeners from this index.
+	 */
+	public void clear() {
+		this.routes.clear();
+		this.listenersByEventType.clear();
+		this.listenersByPayloadType.clear();
+		this.unroutedListeners.clear();
+	}
+
+	/**
+	 * Determine the listeners which may possibly support the given event type.
+	 * @param eventType the event type to route
+	 * @return the candidate listeners (to be checked individually), or {@code null}
+	 * if the given event type cannot be routed, with all listeners to be checked
+	 */
+	@Nullable
+	public Set<ApplicationListener<?>> getCandidates(ResolvableType eventType) {
+		Class<?> eventClass = eventType.resolve();
+		if (eventClass == null || eventType.hasUnresolvableGenerics()) {
+			return null;
+		}
+		Set<ApplicationListener<?>> candidates = new HashSet<>(this.unroutedListeners);
+		addCandidates(this.listenersByEventType, eventClass, candidates);
+		if (!this.listenersByPayloadType.isEmpty() && PayloadApplicationEvent.class.isAssignableFrom(eventClass)) {
+			Class<?> payloadClass = eventType.as(PayloadApplicationEvent.class).resolveGeneric();
+			if (payloadClass != null) {
+				addCandidates(this.listenersByPayloadType, payloadClass, candidates);
+			}
+			else {
+				for (Set<ApplicationListener<?>> listeners : this.listenersByPayloadType.values()) {
+					candidates.addAll(listeners);
+				}
+			}
+		}
+		return candidates;
+	}
+
+	private static void addCandidates(Map<Class<?>, Set<ApplicationListener<?>>> listenersByType,
+			Class<?> type, Set<ApplicationListener<?>> candidates) {
+
+		if (listenersByType.isEmpty()) {
+			return;
+		}
+		Class<?> current = type;
+		while (current != null) {
+			addCandidates(listenersByType.get(current), candidates);
+			current = current.getSuperclass();
+		}
+		if (type.isInterface() || type.isPrimitive()) {
+			addCandidates(listenersByType.get(Object.class), candidates);
+		}
+		for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+			addCandidates(listenersByType.get(ifc), candidates);
+		}
+	}
+
+	private static void addCandidates(
+			@Nullable Set<ApplicationListener<?>> listeners, Set<ApplicationListener<?>> candidates) {
+
+		if (listeners != null) {
+			candidates.addAll(listeners);
+		}
+	}
+
+
+	/**
+	 * The raw event types and payload types that a specific listener is indexed by.
+	 */
+	private static final class Route {
+
+		private static final Route UNROUTED = new Route();
+
+		final List<Class<?>> eventTypes = new ArrayList<>(1);
+
+		final List<Class<?>> payloadTypes = new ArrayList<>(1);
+
+		boolean isUnrouted() {
+			return (this.eventTypes.isEmpty() && this.payloadTypes.isEmpty());
+		}
+
+		@SuppressWarnings("unchecked")
+		static Route forListener(ApplicationListener<?> listener) {
+			Route route = new Route();
+			if (listener instanceof ApplicationListenerMethodAdapter && isStandardMethodAdapter(listener)) {
+				for (ResolvableType declaredEventType : ((ApplicationListenerMethodAdapter) listener).getDeclaredEventTypes()) {
+					Class<?> declaredClass = resolveRoutableClass(declaredEventType);
+					if (declaredClass == null) {
+						return UNROUTED;
+					}
+					// The declared type may match the event itself or its payload
+					route.eventTypes.add(declaredClass);
+					route.payloadTypes.add(declaredClass);
+				}
+				return route;
+			}
+			if (listener instanceof GenericApplicationListener || listener instanceof SmartApplicationListener) {
+				return UNROUTED;
+			}
+			ResolvableType declaredEventType = GenericApplicationListenerAdapter.resolveDeclaredEventType(
+					(ApplicationListener<ApplicationEvent>) listener);
+			Class<?> declaredClass = (declaredEventType != null ? resolveRoutableClass(declaredEventType) : null);
+			if (declaredClass == null) {
+				return UNROUTED;
+			}
+			if (declaredClass == PayloadApplicationEvent.class) {
+				Class<?> payloadClass = resolveRoutableClass(declaredEventType.getGeneric());
+				if (payloadClass != null) {
+					route.payloadTypes.add(payloadClass);
+					return route;
+				}
+			}
+			route.eventTypes.add(declaredClass);
+			return route;
+		}
+
+		private static boolean isStandardMethodAdapter(ApplicationListener<?> listener) {
+			Method method = ClassUtils.getMethodIfAvailable(
+					listener.getClass(), "supportsEventType", ResolvableType.class);
+			return (method != null && method.getDeclaringClass() == ApplicationListenerMethodAdapter.class);
+		}
+
+		/**
+		 * Resolve the raw class to route the given declared type by, accepting plain
+		 * classes and parameterized types only (no arrays, type variables or wildcards
+		 * which are subject to specific assignability rules).
+		 */
+		@Nullable
+		private static Class<?> resolveRoutableClass(ResolvableType declaredType) {
+			if (!(declaredType.getType() instanceof Class || declaredType.getType() instanceof ParameterizedType)) {
+				return null;
+			}
+			Class<?> declaredClass = declaredType.resolve();
+			return (declaredClass != null && !declaredClass.isArray() && !declaredClass.isPrimitive() ?
+					declaredClass : null);
+		}
+	}
+
+}
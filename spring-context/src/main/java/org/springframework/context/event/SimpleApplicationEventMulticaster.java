@@ -16,7 +16,12 @@
 
 package org.springframework.context.event;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -26,6 +31,7 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -40,6 +46,13 @@ import org.springframework.util.ErrorHandler;
  * This allows the danger of a rogue listener blocking the entire application,
  * but adds minimal overhead. Specify an alternative task executor to have
  * listeners executed in different threads, for example from a thread pool.
+ * Alternatively, specify a {@linkplain #setListenerExecutorResolver resolver}
+ * for executors per listener, e.g. to isolate slow listeners from others, and
+ * a {@linkplain #setMaxPendingInvocationsPerListener maximum number of pending
+ * invocations} per listener in order to apply backpressure to the publisher.
+ * Once either of those is specified, {@linkplain #getListenerExecutionMetrics
+ * execution metrics} are collected for every listener which is invoked through
+ * an executor.
  *
  * @author Rod Johnson
  * @author Juergen Hoeller
@@ -51,9 +64,18 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Nullable
 	private Executor taskExecutor;
 
+	@Nullable
+	private Function<ApplicationListener<?>, Executor> listenerExecutorResolver;
+
+	private int maxPendingInvocationsPerListener = -1;
+
 	@Nullable
 	private ErrorHandler errorHandler;
 
+	// Weakly keyed, not retaining non-singleton listener instances
+	private final Map<ApplicationListener<?>, ListenerExecutionMetrics> listenerExecutionMetrics =
+			Collections.synchronizedMap(new WeakHashMap<>(16));
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -93,6 +115,51 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.taskExecutor;
 	}
 
+	/**
+	 * Set a function which determines the executor to invoke a specific listener with,
+	 * allowing for executing different listeners with different executors.
+	 * <p>The function may return {@code null} for a listener, in which case the
+	 * {@linkplain #setTaskExecutor task executor} of this multicaster applies
+	 * (if any). Note that the function gets called for every listener invocation,
+	 * so it should return quickly, e.g. through looking up a pre-built executor.
+	 * @since 5.1
+	 * @see #setMaxPendingInvocationsPerListener
+	 */
+	public void setListenerExecutorResolver(
+			@Nullable Function<ApplicationListener<?>, Executor> listenerExecutorResolver) {
+		this.listenerExecutorResolver = listenerExecutorResolver;
+	}
+
+	/**
+	 * Set the maximum number of invocations per listener which may be pending in
+	 * an executor at any point of time. Once that maximum has been reached for a
+	 * listener, further events get delivered to it in the calling thread, slowing
+	 * down the publisher until the executor catches up.
+	 * <p>Default is -1, not imposing any limit.
+	 * @since 5.1
+	 * @see #getListenerExecutionMetrics
+	 */
+	public void setMaxPendingInvocationsPerListener(int maxPendingInvocationsPerListener) {
+		Assert.isTrue(maxPendingInvocationsPerListener == -1 || maxPendingInvocationsPerListener > 0,
+				"'maxPendingInvocationsPerListener' must be -1 or a positive number");
+		this.maxPendingInvocationsPerListener = maxPendingInvocationsPerListener;
+	}
+
+	/**
+	 * Return the execution metrics for the given listener, if it has been invoked
+	 * through an executor so far. Metrics are only collected if a
+	 * {@linkplain #setListenerExecutorResolver listener executor resolver} or a
+	 * {@linkplain #setMaxPendingInvocationsPerListener maximum number of pending
+	 * invocations} has been specified.
+	 * @param listener the listener to introspect
+	 * @return the corresponding metrics, or {@code null} if none available
+	 * @since 5.1
+	 */
+	@Nullable
+	public ListenerExecutionMetrics getListenerExecutionMetrics(ApplicationListener<?> listener) {
+		return this.listenerExecutionMetrics.get(listener);
+	}
+
 	/**
 	 * Set the {@link ErrorHandler} to invoke in case an exception is thrown
 	 * from a listener.
@@ -122,6 +189,18 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 
+	@Override
+	public void removeApplicationListener(ApplicationListener<?> listener) {
+		super.removeApplicationListener(listener);
+		this.listenerExecutionMetrics.remove(listener);
+	}
+
+	@Override
+	public void removeAllListeners() {
+		super.removeAllListeners();
+		this.listenerExecutionMetrics.clear();
+	}
+
 	@Override
 	public void multicastEvent(ApplicationEvent event) {
 		multicastEvent(event, resolveDefaultEventType(event));
@@ -131,9 +210,9 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	public void multicastEvent(final ApplicationEvent event, @Nullable ResolvableType eventType) {
 		ResolvableType type = (eventType != null ? eventType : resolveDefaultEventType(event));
 		for (final ApplicationListener<?> listener : getApplicationListeners(event, type)) {
-			Executor executor = getTaskExecutor();
+			Executor executor = determineExecutor(listener);
 			if (executor != null) {
-				executor.execute(() -> invokeListener(listener, event));
+				executeListener(executor, listener, event);
 			}
 			else {
 				invokeListener(listener, event);
@@ -141,6 +220,40 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		}
 	}
 
+	@Nullable
+	private Executor determineExecutor(ApplicationListener<?> listener) {
+		Function<ApplicationListener<?>, Executor> resolver = this.listenerExecutorResolver;
+		Executor executor = (resolver != null ? resolver.apply(listener) : null);
+		return (executor != null ? executor : getTaskExecutor());
+	}
+
+	private void executeListener(Executor executor, ApplicationListener<?> listener, ApplicationEvent event) {
+		if (this.listenerExecutorResolver == null && this.maxPendingInvocationsPerListener == -1) {
+			executor.execute(() -> invokeListener(listener, event));
+			return;
+		}
+		ListenerExecutionMetrics metrics =
+				this.listenerExecutionMetrics.computeIfAbsent(listener, key -> new ListenerExecutionMetrics());
+		if (!metrics.tryBeginInvocation(this.maxPendingInvocationsPerListener)) {
+			invokeListener(listener, event);
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					invokeListener(listener, event);
+				}
+				finally {
+					metrics.recordCompletion();
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			metrics.recordRejection();
+			throw ex;
+		}
+	}
+
 	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
 		return ResolvableType.forInstance(event);
 	}
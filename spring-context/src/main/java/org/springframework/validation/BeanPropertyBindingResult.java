@@ -19,6 +19,7 @@ package org.springframework.validation;
 import java.io.Serializable;
 
 import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.ConfigurablePropertyAccessor;
 import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.lang.Nullable;
@@ -50,6 +51,8 @@ public class BeanPropertyBindingResult extends AbstractPropertyBindingResult imp
 
 	private final int autoGrowCollectionLimit;
 
+	private boolean useGeneratedAccessors = false;
+
 	@Nullable
 	private transient BeanWrapper beanWrapper;
 
@@ -86,6 +89,17 @@ public class BeanPropertyBindingResult extends AbstractPropertyBindingResult imp
 		return this.target;
 	}
 
+	/**
+	 * Set whether the underlying {@link BeanWrapper} should access properties
+	 * through generated accessors and pre-resolved property paths.
+	 * <p>Default is "false". Needs to be set before the BeanWrapper gets created.
+	 * @since 5.1
+	 * @see BeanWrapperImpl#setUseGeneratedAccessors
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
 	/**
 	 * Returns the {@link BeanWrapper} that this instance uses.
 	 * Creates a new one if none existed before.
@@ -98,6 +112,9 @@ public class BeanPropertyBindingResult extends AbstractPropertyBindingResult imp
 			this.beanWrapper.setExtractOldValueForEditor(true);
 			this.beanWrapper.setAutoGrowNestedPaths(this.autoGrowNestedPaths);
 			this.beanWrapper.setAutoGrowCollectionLimit(this.autoGrowCollectionLimit);
+			if (this.useGeneratedAccessors && this.beanWrapper instanceof BeanWrapperImpl) {
+				((BeanWrapperImpl) this.beanWrapper).setUseGeneratedAccessors(true);
+			}
 		}
 		return this.beanWrapper;
 	}
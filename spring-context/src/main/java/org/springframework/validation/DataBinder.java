@@ -139,6 +139,8 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 
 	private int autoGrowCollectionLimit = DEFAULT_AUTO_GROW_COLLECTION_LIMIT;
 
+	private boolean useGeneratedAccessors = false;
+
 	@Nullable
 	private String[] allowedFields;
 
@@ -239,6 +241,29 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 		return this.autoGrowCollectionLimit;
 	}
 
+	/**
+	 * Set whether bean property access should go through generated accessors
+	 * and pre-resolved property paths, rather than through reflection and
+	 * property path parsing for every bound field.
+	 * <p>Default is "false". Only applies to standard JavaBean property access.
+	 * @since 5.1
+	 * @see #initBeanPropertyAccess()
+	 * @see org.springframework.beans.BeanWrapperImpl#setUseGeneratedAccessors
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		Assert.state(this.bindingResult == null,
+				"DataBinder is already initialized - call setUseGeneratedAccessors before other configuration methods");
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether bean property access goes through generated accessors.
+	 * @since 5.1
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
 	/**
 	 * Initialize standard JavaBean property access for this DataBinder.
 	 * <p>This is the default; an explicit call just leads to eager initialization.
@@ -260,6 +285,9 @@ public class DataBinder implements PropertyEditorRegistry, TypeConverter {
 		BeanPropertyBindingResult result = new BeanPropertyBindingResult(getTarget(),
 				getObjectName(), isAutoGrowNestedPaths(), getAutoGrowCollectionLimit());
 
+		if (this.useGeneratedAccessors) {
+			result.setUseGeneratedAccessors(true);
+		}
 		if (this.conversionService != null) {
 			result.initConversion(this.conversionService);
 		}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshot} and
+ * {@link AnnotationConfigSnapshotApplicationContext}.
+ *
+ * @since 5.1
+ */
+public class BeanDefinitionSnapshotTests {
+
+	@Test
+	public void snapshotIsLoadedWhenUpToDate() throws IOException {
+		Resource snapshot = capture(new StandardEnvironment(), SnapshotConfig.class);
+		AnnotationConfigSnapshotApplicationContext ctx =
+				new AnnotationConfigSnapshotApplicationContext(snapshot, SnapshotConfig.class);
+
+		assertTrue(ctx.isLoadedFromSnapshot());
+		assertEquals("p1TestBean", ctx.getBean("testBean", TestBean.class).getName());
+		assertSame(ctx.getBean("testBean"), ctx.getBean("aliasedTestBean"));
+		assertSame(ctx.getBean("testBean"), ctx.getBean(ImportedConfig.class).testBean);
+		assertEquals(SnapshotConfig.class.getName(), ctx.getBean(ImportedConfig.class).importMetadata.getClassName());
+		ctx.close();
+	}
+
+	@Test
+	public void snapshotMatchesRegularProcessing() throws IOException {
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(new StandardEnvironment(), SnapshotConfig.class);
+		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(SnapshotConfig.class);
+		AnnotationConfigSnapshotApplicationContext snapshotCtx =
+				new AnnotationConfigSnapshotApplicationContext(write(snapshot), SnapshotConfig.class);
+
+		assertArrayEquals(ctx.getBeanDefinitionNames(), snapshotCtx.getBeanDefinitionNames());
+		for (String beanName : snapshot.getBeanDefinitionNames()) {
+			assertEquals(ctx.getBeanDefinition(beanName).getBeanClassName(),
+					snapshotCtx.getBeanDefinition(beanName).getBeanClassName());
+			assertEquals(ctx.getBeanDefinition(beanName).getFactoryMethodName(),
+					snapshotCtx.getBeanDefinition(beanName).getFactoryMethodName());
+			assertEquals(ctx.getBeanDefinition(beanName).getRole(),
+					snapshotCtx.getBeanDefinition(beanName).getRole());
+		}
+		ctx.close();
+		snapshotCtx.close();
+	}
+
+	@Test
+	public void snapshotIsIgnoredForDifferentComponentClasses() throws IOException {
+		Resource snapshot = capture(new StandardEnvironment(), SnapshotConfig.class);
+		AnnotationConfigSnapshotApplicationContext ctx =
+				new AnnotationConfigSnapshotApplicationContext(snapshot, ImportedConfig.class);
+
+		assertFalse(ctx.isLoadedFromSnapshot());
+		assertFalse(ctx.containsBean("testBean"));
+		ctx.close();
+	}
+
+	@Test
+	public void snapshotIsIgnoredForDifferentProfiles() throws IOException {
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.setActiveProfiles("other");
+		Resource snapshot = capture(environment, SnapshotConfig.class);
+		AnnotationConfigSnapshotApplicationContext ctx =
+				new AnnotationConfigSnapshotApplicationContext(snapshot, SnapshotConfig.class);
+
+		assertFalse(ctx.isLoadedFromSnapshot());
+		assertEquals("p1TestBean", ctx.getBean("testBean", TestBean.class).getName());
+		ctx.close();
+	}
+
+	@Test
+	public void snapshotIsCapturedWithProfileConditions() throws IOException {
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(new StandardEnvironment(),
+				SnapshotConfig.class, ProfileConfig.class);
+
+		assertTrue(Arrays.asList(snapshot.getBeanDefinitionNames()).contains("testBean"));
+		assertFalse(Arrays.asList(snapshot.getBeanDefinitionNames()).contains("profileTestBean"));
+	}
+
+	@Test
+	public void snapshotIsNotCapturedWithOtherConditions() throws IOException {
+		try {
+			BeanDefinitionSnapshot.capture(new StandardEnvironment(), SnapshotConfig.class, ConditionalConfig.class);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains(NeverCondition.class.getName()));
+		}
+	}
+
+	@Test
+	public void unreadableSnapshotIsIgnored() {
+		Resource snapshot = new ByteArrayResource(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		AnnotationConfigSnapshotApplicationContext ctx =
+				new AnnotationConfigSnapshotApplicationContext(snapshot, SnapshotConfig.class);
+
+		assertFalse(ctx.isLoadedFromSnapshot());
+		assertEquals("p1TestBean", ctx.getBean("testBean", TestBean.class).getName());
+		ctx.close();
+	}
+
+
+	private static Resource capture(StandardEnvironment environment, Class<?>... componentClasses)
+			throws IOException {
+
+		return write(BeanDefinitionSnapshot.capture(environment, componentClasses));
+	}
+
+	private static Resource write(BeanDefinitionSnapshot snapshot) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out);
+		return new ByteArrayResource(out.toByteArray());
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class SnapshotConfig {
+
+		@Autowired
+		Environment environment;
+
+		@Bean(name = {"testBean", "aliasedTestBean"})
+		public TestBean testBean() {
+			return new TestBean(this.environment.getProperty("testbean.name"));
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Autowired(required = false)
+		TestBean testBean;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+	}
+
+
+	@Configuration
+	@Profile("other")
+	static class ProfileConfig {
+
+		@Bean
+		public TestBean profileTestBean() {
+			return new TestBean();
+		}
+	}
+
+
+	@Configuration
+	static class ConditionalConfig {
+
+		@Bean
+		@Conditional(NeverCondition.class)
+		public TestBean conditionalTestBean() {
+			return new TestBean();
+		}
+	}
+
+
+	static class NeverCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return false;
+		}
+	}
+
+}
@@ -21,6 +21,7 @@ import javax.annotation.Resource;
 import org.junit.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.ApplicationContext;
 
 import static org.hamcrest.CoreMatchers.*;
@@ -61,6 +62,17 @@ public class PrimitiveBeanLookupAndAutowiringTests {
 		assertThat(i, equalTo(42));
 	}
 
+	@Test
+	public void primitiveLookupByTypeWithRegisteredSingletons() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerSingleton("b", true);
+		bf.registerSingleton("i", 42);
+		assertThat(bf.getBean(Boolean.class), equalTo(true));
+		assertThat(bf.getBean(boolean.class), equalTo(true));
+		assertThat(bf.getBean(int.class), equalTo(42));
+		assertThat(bf.getBeanNamesForType(int.class), equalTo(new String[] {"i"}));
+	}
+
 	@Test
 	public void primitiveAutowiredInjection() {
 		ApplicationContext ctx =
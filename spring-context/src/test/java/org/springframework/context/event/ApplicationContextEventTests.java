@@ -16,11 +16,14 @@
 
 package org.springframework.context.event;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.Test;
@@ -294,7 +297,9 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertTrue(listener1.seenEvents.contains(event4));
 
 		AbstractApplicationEventMulticaster multicaster = context.getBean(AbstractApplicationEventMulticaster.class);
-		assertEquals(2, multicaster.retrieverCache.size());
+		// ContextRefreshedEvent, MyOtherEvent and MyEvent: the lazy registration
+		// of listener2 does not discard previously cached listener retrievers
+		assertEquals(3, multicaster.retrieverCache.size());
 
 		context.close();
 	}
@@ -496,6 +501,180 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		context.close();
 	}
 
+	@Test
+	public void payloadListenersReceiveMatchingPayloadsOnly() {
+		MyStringPayloadListener stringListener = new MyStringPayloadListener();
+		MyIntegerPayloadListener integerListener = new MyIntegerPayloadListener();
+		MyOrderedListener1 anyListener = new MyOrderedListener1();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(stringListener);
+		smc.addApplicationListener(integerListener);
+		smc.addApplicationListener(anyListener);
+
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event1"));
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, 2));
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event3"));
+
+		assertEquals(2, stringListener.seenPayloads.size());
+		assertTrue(stringListener.seenPayloads.contains("event1"));
+		assertTrue(stringListener.seenPayloads.contains("event3"));
+		assertEquals(1, integerListener.seenPayloads.size());
+		assertTrue(integerListener.seenPayloads.contains(2));
+		assertEquals(4, anyListener.seenEvents.size());
+	}
+
+	@Test
+	public void listenerRegistrationUpdatesCachedListeners() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener1 listener2 = new MyOrderedListener1();
+		MyStringPayloadListener payloadListener = new MyStringPayloadListener();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener1);
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event"));
+		assertEquals(2, smc.retrieverCache.size());
+
+		smc.addApplicationListener(listener2);
+		smc.addApplicationListener(payloadListener);
+		assertEquals(2, smc.retrieverCache.size());
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new PayloadApplicationEvent<>(this, "event"));
+		assertEquals(4, listener1.seenEvents.size());
+		assertEquals(2, listener2.seenEvents.size());
+		assertEquals(1, payloadListener.seenPayloads.size());
+
+		smc.removeApplicationListener(listener1);
+		assertEquals(2, smc.retrieverCache.size());
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(4, listener1.seenEvents.size());
+		assertEquals(3, listener2.seenEvents.size());
+	}
+
+	@Test
+	public void proxiedListenerReplacesCachedTargetListener() {
+		MyOrderedListener3 listener = new MyOrderedListener3();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener);
+		smc.multicastEvent(new MyEvent(this));
+
+		smc.addApplicationListener((ApplicationListener<?>) new ProxyFactory(listener).getProxy());
+		smc.multicastEvent(new MyOtherEvent(this));
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(3, listener.seenEvents.size());
+	}
+
+	@Test
+	public void simpleApplicationEventMulticasterWithListenerExecutors() {
+		List<Runnable> tasks = new LinkedList<>();
+		MyOrderedListener1 asyncListener = new MyOrderedListener1();
+		MyOrderedListener3 syncListener = new MyOrderedListener3();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerExecutorResolver(listener -> (listener == asyncListener ? tasks::add : null));
+		smc.setMaxPendingInvocationsPerListener(2);
+		smc.addApplicationListener(asyncListener);
+		smc.addApplicationListener(syncListener);
+
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(3, syncListener.seenEvents.size());
+		assertEquals(1, asyncListener.seenEvents.size());
+		assertEquals(2, tasks.size());
+		assertNull(smc.getListenerExecutionMetrics(syncListener));
+
+		ListenerExecutionMetrics metrics = smc.getListenerExecutionMetrics(asyncListener);
+		assertNotNull(metrics);
+		assertEquals(2, metrics.getSubmittedCount());
+		assertEquals(0, metrics.getCompletedCount());
+		assertEquals(1, metrics.getThrottledCount());
+		assertEquals(2, metrics.getPendingCount());
+		assertEquals(2, metrics.getMaxPendingCount());
+
+		tasks.forEach(Runnable::run);
+		assertEquals(3, asyncListener.seenEvents.size());
+		assertEquals(2, metrics.getCompletedCount());
+		assertEquals(0, metrics.getPendingCount());
+		assertEquals(2, metrics.getMaxPendingCount());
+
+		smc.removeApplicationListener(asyncListener);
+		assertNull(smc.getListenerExecutionMetrics(asyncListener));
+	}
+
+	@Test
+	public void simpleApplicationEventMulticasterWithRejectingListenerExecutor() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setListenerExecutorResolver(l -> task -> {
+			throw new RejectedExecutionException();
+		});
+		smc.addApplicationListener(listener);
+
+		try {
+			smc.multicastEvent(new MyEvent(this));
+			fail("Should have thrown RejectedExecutionException");
+		}
+		catch (RejectedExecutionException ex) {
+			// expected
+		}
+		ListenerExecutionMetrics metrics = smc.getListenerExecutionMetrics(listener);
+		assertNotNull(metrics);
+		assertEquals(1, metrics.getRejectedCount());
+		assertEquals(0, metrics.getPendingCount());
+		assertTrue(listener.seenEvents.isEmpty());
+	}
+
+	@Test
+	public void nonSingletonListenerWithTaskExecutor() {
+		StaticApplicationContext context = new StaticApplicationContext();
+		SimpleApplicationEventMulticaster multicaster = new SimpleApplicationEventMulticaster(context.getBeanFactory());
+		multicaster.setTaskExecutor(Runnable::run);
+		context.getBeanFactory().registerSingleton(
+				StaticApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME, multicaster);
+		RootBeanDefinition listener = new RootBeanDefinition(MyTrackedNonSingletonListener.class);
+		listener.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		context.registerBeanDefinition("listener", listener);
+		context.refresh();
+		MyTrackedNonSingletonListener.instances.clear();
+
+		context.publishEvent(new MyEvent(context));
+		context.publishEvent(new MyEvent(context));
+		assertEquals(2, MyTrackedNonSingletonListener.instances.size());
+		for (WeakReference<MyTrackedNonSingletonListener> instance : MyTrackedNonSingletonListener.instances) {
+			assertNull(multicaster.getListenerExecutionMetrics(instance.get()));
+		}
+		MyTrackedNonSingletonListener.instances.clear();
+		context.close();
+	}
+
+	@Test
+	public void nonSingletonListenerWithListenerExecutorResolver() throws InterruptedException {
+		StaticApplicationContext context = new StaticApplicationContext();
+		SimpleApplicationEventMulticaster multicaster = new SimpleApplicationEventMulticaster(context.getBeanFactory());
+		multicaster.setListenerExecutorResolver(l -> Runnable::run);
+		multicaster.setMaxPendingInvocationsPerListener(1);
+		context.getBeanFactory().registerSingleton(
+				StaticApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME, multicaster);
+		RootBeanDefinition listener = new RootBeanDefinition(MyTrackedNonSingletonListener.class);
+		listener.setScope(RootBeanDefinition.SCOPE_PROTOTYPE);
+		context.registerBeanDefinition("listener", listener);
+		context.refresh();
+		MyTrackedNonSingletonListener.instances.clear();
+
+		context.publishEvent(new MyEvent(context));
+		context.publishEvent(new MyEvent(context));
+		List<WeakReference<MyTrackedNonSingletonListener>> instances =
+				new ArrayList<>(MyTrackedNonSingletonListener.instances);
+		MyTrackedNonSingletonListener.instances.clear();
+		assertEquals(2, instances.size());
+		for (int i = 0; i < 50 && instances.stream().anyMatch(ref -> ref.get() != null); i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertTrue(instances.stream().allMatch(ref -> ref.get() == null));
+		context.close();
+	}
+
 	@Test
 	public void beanPostProcessorPublishesEvents() {
 		GenericApplicationContext context = new GenericApplicationContext();
@@ -585,6 +764,28 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 	}
 
 
+	public static class MyStringPayloadListener implements ApplicationListener<PayloadApplicationEvent<String>> {
+
+		public final Set<String> seenPayloads = new HashSet<>();
+
+		@Override
+		public void onApplicationEvent(PayloadApplicationEvent<String> event) {
+			this.seenPayloads.add(event.getPayload());
+		}
+	}
+
+
+	public static class MyIntegerPayloadListener implements ApplicationListener<PayloadApplicationEvent<Integer>> {
+
+		public final Set<Integer> seenPayloads = new HashSet<>();
+
+		@Override
+		public void onApplicationEvent(PayloadApplicationEvent<Integer> event) {
+			this.seenPayloads.add(event.getPayload());
+		}
+	}
+
+
 	public static class MyNonSingletonListener implements ApplicationListener<ApplicationEvent> {
 
 		public static final Set<ApplicationEvent> seenEvents = new HashSet<>();
@@ -596,6 +797,20 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 	}
 
 
+	public static class MyTrackedNonSingletonListener implements ApplicationListener<MyEvent> {
+
+		public static final List<WeakReference<MyTrackedNonSingletonListener>> instances = new ArrayList<>();
+
+		public MyTrackedNonSingletonListener() {
+			instances.add(new WeakReference<>(this));
+		}
+
+		@Override
+		public void onApplicationEvent(MyEvent event) {
+		}
+	}
+
+
 	@Order(5)
 	public static class MyOrderedListener3 implements ApplicationListener<ApplicationEvent> {
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationContextEventTests.MyEvent;
+import org.springframework.context.event.ApplicationContextEventTests.MyOtherEvent;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ReflectionUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ListenerRoutingTable}.
+ *
+ * @since 5.1
+ */
+public class ListenerRoutingTableTests {
+
+	private final ListenerRoutingTable routingTable = new ListenerRoutingTable();
+
+
+	@Test
+	public void listenerRoutedByDeclaredEventType() {
+		MyEventListener listener = new MyEventListener();
+		this.routingTable.addListener(listener);
+
+		assertTrue(getCandidates(MyEvent.class).contains(listener));
+		assertTrue(getCandidates(MySubEvent.class).contains(listener));
+		assertFalse(getCandidates(MyOtherEvent.class).contains(listener));
+	}
+
+	@Test
+	public void listenerForBaseEventTypeIsAlwaysCandidate() {
+		AnyEventListener listener = new AnyEventListener();
+		this.routingTable.addListener(listener);
+
+		assertTrue(getCandidates(MyEvent.class).contains(listener));
+		assertTrue(getCandidates(ResolvableType.forClassWithGenerics(
+				PayloadApplicationEvent.class, String.class)).contains(listener));
+	}
+
+	@Test
+	public void listenerRoutedByDeclaredPayloadType() {
+		StringPayloadListener listener = new StringPayloadListener();
+		this.routingTable.addListener(listener);
+
+		assertTrue(getCandidates(ResolvableType.forClassWithGenerics(
+				PayloadApplicationEvent.class, String.class)).contains(listener));
+		assertFalse(getCandidates(ResolvableType.forClassWithGenerics(
+				PayloadApplicationEvent.class, Integer.class)).contains(listener));
+		assertFalse(getCandidates(MyEvent.class).contains(listener));
+	}
+
+	@Test
+	public void methodAdapterRoutedByDeclaredTypes() {
+		ApplicationListenerMethodAdapter eventListener = createMethodAdapter("handleMyEvent", MyEvent.class);
+		ApplicationListenerMethodAdapter payloadListener = createMethodAdapter("handleCharSequence", CharSequence.class);
+		this.routingTable.addListener(eventListener);
+		this.routingTable.addListener(payloadListener);
+
+		Set<ApplicationListener<?>> candidates = getCandidates(MySubEvent.class);
+		assertTrue(candidates.contains(eventListener));
+		assertFalse(candidates.contains(payloadListener));
+
+		candidates = getCandidates(ResolvableType.forClassWithGenerics(PayloadApplicationEvent.class, String.class));
+		assertFalse(candidates.contains(eventListener));
+		assertTrue(candidates.contains(payloadListener));
+
+		candidates = getCandidates(ResolvableType.forClassWithGenerics(PayloadApplicationEvent.class, Integer.class));
+		assertFalse(candidates.contains(eventListener));
+		assertFalse(candidates.contains(payloadListener));
+	}
+
+	@Test
+	public void smartListenerIsNotRouted() {
+		SmartApplicationListener listener = new SmartApplicationListener() {
+			@Override
+			public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+				return false;
+			}
+			@Override
+			public boolean supportsSourceType(Class<?> sourceType) {
+				return true;
+			}
+			@Override
+			public int getOrder() {
+				return 0;
+			}
+			@Override
+			public void onApplicationEvent(ApplicationEvent event) {
+			}
+		};
+		this.routingTable.addListener(listener);
+
+		assertTrue(getCandidates(MyEvent.class).contains(listener));
+		assertTrue(getCandidates(MyOtherEvent.class).contains(listener));
+	}
+
+	@Test
+	public void unresolvableEventTypeIsNotRouted() {
+		this.routingTable.addListener(new MyEventListener());
+
+		assertNull(this.routingTable.getCandidates(ResolvableType.forClass(PayloadApplicationEvent.class)));
+	}
+
+	@Test
+	public void removedListenerIsNoCandidate() {
+		MyEventListener listener = new MyEventListener();
+		StringPayloadListener payloadListener = new StringPayloadListener();
+		this.routingTable.addListener(listener);
+		this.routingTable.addListener(payloadListener);
+		this.routingTable.removeListener(listener);
+
+		assertFalse(getCandidates(MyEvent.class).contains(listener));
+		assertTrue(getCandidates(ResolvableType.forClassWithGenerics(
+				PayloadApplicationEvent.class, String.class)).contains(payloadListener));
+
+		this.routingTable.clear();
+		assertTrue(getCandidates(ResolvableType.forClassWithGenerics(
+				PayloadApplicationEvent.class, String.class)).isEmpty());
+	}
+
+
+	private Set<ApplicationListener<?>> getCandidates(Class<?> eventType) {
+		return getCandidates(ResolvableType.forClass(eventType));
+	}
+
+	private Set<ApplicationListener<?>> getCandidates(ResolvableType eventType) {
+		Set<ApplicationListener<?>> candidates = this.routingTable.getCandidates(eventType);
+		assertNotNull(candidates);
+		return candidates;
+	}
+
+	private static ApplicationListenerMethodAdapter createMethodAdapter(String methodName, Class<?> eventType) {
+		Method method = ReflectionUtils.findMethod(AnnotatedListener.class, methodName, eventType);
+		assertNotNull(method);
+		return new ApplicationListenerMethodAdapter("annotatedListener", AnnotatedListener.class, method);
+	}
+
+
+	@SuppressWarnings("serial")
+	static class MySubEvent extends MyEvent {
+
+		public MySubEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	static class MyEventListener implements ApplicationListener<MyEvent> {
+
+		@Override
+		public void onApplicationEvent(MyEvent event) {
+		}
+	}
+
+
+	static class AnyEventListener implements ApplicationListener<ApplicationEvent> {
+
+		@Override
+		public void onApplicationEvent(ApplicationEvent event) {
+		}
+	}
+
+
+	static class StringPayloadListener implements ApplicationListener<PayloadApplicationEvent<String>> {
+
+		@Override
+		public void onApplicationEvent(PayloadApplicationEvent<String> event) {
+		}
+	}
+
+
+	static class AnnotatedListener {
+
+		@EventListener
+		public void handleMyEvent(MyEvent event) {
+		}
+
+		@EventListener
+		public void handleCharSequence(CharSequence payload) {
+		}
+	}
+
+}
@@ -895,6 +895,30 @@ public class DataBinderTests {
 		assertEquals("test", tb.getSpouse().getName());
 	}
 
+	@Test
+	public void testBindingWithGeneratedAccessors() {
+		TestBean rod = new TestBean();
+		rod.setSpouse(new TestBean());
+		DataBinder binder = new DataBinder(rod, "person");
+		binder.setUseGeneratedAccessors(true);
+		binder.setConversionService(new DefaultFormattingConversionService());
+
+		MutablePropertyValues pvs = new MutablePropertyValues();
+		pvs.add("name", "Rod");
+		pvs.add("age", "32");
+		pvs.add("spouse.name", "Kerry");
+		pvs.add("touchy", "m.y");
+		binder.bind(pvs);
+
+		assertEquals("Rod", rod.getName());
+		assertEquals(32, rod.getAge());
+		assertEquals("Kerry", rod.getSpouse().getName());
+		BindingResult bindingResult = binder.getBindingResult();
+		assertEquals("Rod", bindingResult.getFieldValue("name"));
+		assertEquals(1, bindingResult.getErrorCount());
+		assertEquals("methodInvocation", bindingResult.getFieldError("touchy").getCode());
+	}
+
 	@Test
 	public void testCustomEditorWithOldValueAccess() {
 		TestBean tb = new TestBean();
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.codec.ByteArrayDecoder;
+import org.springframework.core.codec.ByteArrayEncoder;
+import org.springframework.core.codec.ByteBufferDecoder;
+import org.springframework.core.codec.ByteBufferEncoder;
+import org.springframework.core.codec.CharSequenceEncoder;
+import org.springframework.core.codec.DataBufferDecoder;
+import org.springframework.core.codec.DataBufferEncoder;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.codec.ResourceDecoder;
+import org.springframework.core.codec.ResourceEncoder;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * Benchmark for {@link ResolvableType} creation and generic assignability checks,
+ * as well as for the {@link Encoder}/{@link Decoder} selection built on top of them.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forClass(Blackhole bh) {
+		bh.consume(ResolvableType.forClass(StringList.class));
+	}
+
+	@Benchmark
+	public void forClassWithGenerics(Blackhole bh) {
+		bh.consume(ResolvableType.forClassWithGenerics(Map.class, String.class, Integer.class));
+	}
+
+	@Benchmark
+	public void forClassAndResolveGeneric(Blackhole bh) {
+		bh.consume(ResolvableType.forClass(StringList.class).as(List.class).resolveGeneric(0));
+	}
+
+	@Benchmark
+	public void isAssignableFrom(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.listOfString.isAssignableFrom(state.stringList));
+	}
+
+	@Benchmark
+	public void isAssignableFromClass(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.listOfString.isAssignableFrom(StringList.class));
+	}
+
+	@Benchmark
+	public void encoderSelection(CodecState state, Blackhole bh) {
+		for (Object value : state.values) {
+			ResolvableType elementType = ResolvableType.forInstance(value);
+			for (Encoder<?> encoder : state.encoders) {
+				if (encoder.canEncode(elementType, MimeTypeUtils.APPLICATION_OCTET_STREAM)) {
+					bh.consume(encoder);
+					break;
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void decoderSelection(CodecState state, Blackhole bh) {
+		for (Class<?> targetClass : state.targetClasses) {
+			ResolvableType elementType = ResolvableType.forClass(targetClass);
+			for (Decoder<?> decoder : state.decoders) {
+				if (decoder.canDecode(elementType, MimeTypeUtils.APPLICATION_OCTET_STREAM)) {
+					bh.consume(decoder);
+					break;
+				}
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public ResolvableType listOfString;
+
+		public ResolvableType stringList;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.listOfString = ResolvableType.forClassWithGenerics(List.class, String.class);
+			this.stringList = ResolvableType.forClass(StringList.class);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class CodecState {
+
+		public List<Encoder<?>> encoders;
+
+		public List<Decoder<?>> decoders;
+
+		public List<Object> values;
+
+		public List<Class<?>> targetClasses;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.encoders = Arrays.asList(new ByteArrayEncoder(), new ByteBufferEncoder(), new DataBufferEncoder(),
+					new ResourceEncoder(), CharSequenceEncoder.allMimeTypes());
+			this.decoders = Arrays.asList(new ByteArrayDecoder(), new ByteBufferDecoder(), new DataBufferDecoder(),
+					new ResourceDecoder(), StringDecoder.allMimeTypes());
+			this.values = Arrays.asList(new byte[0], ByteBuffer.allocate(0), new ByteArrayResource(new byte[0]), "text");
+			this.targetClasses = Arrays.asList(byte[].class, ByteBuffer.class, Resource.class, String.class);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class StringList extends ArrayList<String> {
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for {@link AnnotationUtils#findAnnotation} lookups on classes and methods,
+ * for direct, meta-present, inherited and absent annotations.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotationUtilsBenchmark {
+
+	@Benchmark
+	public void findDirectAnnotationOnClass(Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(AnnotatedClass.class, Meta.class));
+	}
+
+	@Benchmark
+	public void findMetaAnnotationOnClass(Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(MetaAnnotatedClass.class, Meta.class));
+	}
+
+	@Benchmark
+	public void findInheritedAnnotationOnClass(Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(SubClass.class, Meta.class));
+	}
+
+	@Benchmark
+	public void findAbsentAnnotationOnClass(Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(PlainClass.class, Meta.class));
+	}
+
+	@Benchmark
+	public void findAnnotationOnOverriddenMethod(BenchmarkState state, Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(state.overriddenMethod, Meta.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Method overriddenMethod;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.overriddenMethod = SubClass.class.getMethod("handle");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Meta {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Meta
+	@interface Composed {
+	}
+
+	@Meta
+	static class AnnotatedClass {
+
+		@Meta
+		public void handle() {
+		}
+	}
+
+	@Composed
+	static class MetaAnnotatedClass {
+	}
+
+	static class SubClass extends AnnotatedClass {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+	static class PlainClass {
+	}
+
+}
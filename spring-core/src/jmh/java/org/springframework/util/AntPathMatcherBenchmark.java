@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for {@link AntPathMatcher#match} with literal, wildcard,
+ * double-wildcard and URI template variable patterns.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void match(BenchmarkState state, Blackhole bh) {
+		for (String path : state.paths) {
+			bh.consume(state.pathMatcher.match(state.pattern, path));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"/api/v1/orders/list", "/api/v1/orders/*", "/api/**/items/**",
+				"/api/{version}/orders/{id}", "/static/**/*.{extension:[a-z]+}"})
+		public String pattern;
+
+		@Param({"true", "false"})
+		public boolean cachePatterns;
+
+		public AntPathMatcher pathMatcher;
+
+		public String[] paths;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.pathMatcher = new AntPathMatcher();
+			this.pathMatcher.setCachePatterns(this.cachePatterns);
+			this.paths = new String[] {"/api/v1/orders/list", "/api/v1/orders/42",
+					"/api/v2/catalog/items/7/details", "/static/css/theme/main.css", "/login"};
+		}
+	}
+
+}
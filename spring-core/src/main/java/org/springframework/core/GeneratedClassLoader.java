@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Child ClassLoader for defining classes generated at runtime, e.g. bean
+ * property accessors or synthesized annotations, next to the classes they
+ * have been generated for.
+ *
+ * <p>A single instance is shared per parent ClassLoader, see
+ * {@link #forParent}. Along with the generated classes, it may hold on to
+ * objects derived from them for as long as it is in use, so that a class
+ * does not get generated again once a cache entry for it has been cleared.
+ *
+ * @since 5.1
+ */
+public final class GeneratedClassLoader extends ClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+
+	private static final Map<ClassLoader, GeneratedClassLoader> classLoaders = new ConcurrentReferenceHashMap<>(16);
+
+
+	private final Map<Object, Object> generated = new ConcurrentHashMap<>(64);
+
+
+	private GeneratedClassLoader(ClassLoader parent) {
+		super(parent);
+	}
+
+
+	/**
+	 * Define a class with the given name from the given class file bytes.
+	 * @param name the fully-qualified name of the class
+	 * @param bytes the class file content
+	 * @return the defined class
+	 * @throws LinkageError if the class cannot be defined, e.g. because of
+	 * a duplicate class name or invalid class file content
+	 */
+	public Class<?> defineClass(String name, byte[] bytes) {
+		return defineClass(name, bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Return the object generated for the given key, generating it on first use
+	 * and holding on to it for as long as this ClassLoader is in use.
+	 * @param key the key for the generated object, e.g. the member or type
+	 * that it has been generated for
+	 * @param generator the function to generate the object with, typically
+	 * {@link #defineClass defining} a class in this ClassLoader
+	 * @return the generated object
+	 */
+	@SuppressWarnings("unchecked")
+	public <K, V> V getGenerated(K key, Function<? super K, ? extends V> generator) {
+		return (V) this.generated.computeIfAbsent(key, k -> generator.apply((K) k));
+	}
+
+
+	/**
+	 * Return the shared GeneratedClassLoader for the given parent ClassLoader.
+	 * @param parent the ClassLoader of the classes that generated classes
+	 * refer to
+	 * @return the GeneratedClassLoader (never {@code null})
+	 */
+	public static GeneratedClassLoader forParent(ClassLoader parent) {
+		Assert.notNull(parent, "Parent ClassLoader must not be null");
+		return classLoaders.computeIfAbsent(parent, GeneratedClassLoader::new);
+	}
+
+}
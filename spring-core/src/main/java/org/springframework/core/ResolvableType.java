@@ -93,6 +93,12 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final ConcurrentReferenceHashMap<Class<?>, ResolvableType> classCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	private static final ConcurrentReferenceHashMap<AssignabilityKey, Boolean> assignabilityCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -132,6 +138,13 @@ public class ResolvableType implements Serializable {
 	@Nullable
 	private volatile ResolvableType[] generics;
 
+	/**
+	 * Whether this instance is shared through one of the static caches,
+	 * with its supertypes, interfaces, generics and assignability results
+	 * memoized for all callers.
+	 */
+	private transient boolean interned;
+
 
 	/**
 	 * Private constructor used to create a new {@link ResolvableType} for cache key purposes,
@@ -247,7 +260,7 @@ public class ResolvableType implements Serializable {
 	 * @see #isAssignableFrom(ResolvableType)
 	 */
 	public boolean isAssignableFrom(Class<?> other) {
-		return isAssignableFrom(forClass(other), null);
+		return isAssignableFrom(forClass(other));
 	}
 
 	/**
@@ -262,6 +275,17 @@ public class ResolvableType implements Serializable {
 	 * {@code ResolvableType}; {@code false} otherwise
 	 */
 	public boolean isAssignableFrom(ResolvableType other) {
+		Assert.notNull(other, "ResolvableType must not be null");
+		if (this.interned && other.interned) {
+			// Both types are canonical instances -> memoize result per type pair
+			AssignabilityKey key = new AssignabilityKey(this, other);
+			Boolean assignable = assignabilityCache.get(key);
+			if (assignable == null) {
+				assignable = isAssignableFrom(other, null);
+				assignabilityCache.put(key, assignable);
+			}
+			return assignable;
+		}
 		return isAssignableFrom(other, null);
 	}
 
@@ -343,6 +367,9 @@ public class ResolvableType implements Serializable {
 			if (ourGenerics.length != typeGenerics.length) {
 				return false;
 			}
+			if (ourGenerics.length == 0) {
+				return true;
+			}
 			if (matchedBefore == null) {
 				matchedBefore = new IdentityHashMap<>(1);
 			}
@@ -963,7 +990,17 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		Class<?> key = (clazz != null ? clazz : Object.class);
+		ResolvableType resolvableType = classCache.get(key);
+		if (resolvableType == null) {
+			resolvableType = new ResolvableType(key);
+			resolvableType.interned = true;
+			ResolvableType existing = classCache.putIfAbsent(key, resolvableType);
+			if (existing != null) {
+				resolvableType = existing;
+			}
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1389,6 +1426,9 @@ public class ResolvableType implements Serializable {
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
+			if (typeProvider == null && variableResolver == null) {
+				return forClass((Class<?>) type);
+			}
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
@@ -1400,18 +1440,30 @@ public class ResolvableType implements Serializable {
 		ResolvableType cachedType = cache.get(resultType);
 		if (cachedType == null) {
 			cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
+			cachedType.interned = isInternable(typeProvider, variableResolver);
 			cache.put(cachedType, cachedType);
 		}
+		if (cachedType.interned) {
+			// No type provider to expose as source, and a variable resolver backed by an
+			// (immutable) owner type -> share the cached instance along with its type graph.
+			return cachedType;
+		}
 		resultType.resolved = cachedType.resolved;
 		return resultType;
 	}
 
+	private static boolean isInternable(@Nullable TypeProvider typeProvider, @Nullable VariableResolver variableResolver) {
+		return (typeProvider == null && (variableResolver == null || variableResolver instanceof DefaultVariableResolver));
+	}
+
 	/**
 	 * Clear the internal {@code ResolvableType}/{@code SerializableTypeWrapper} cache.
 	 * @since 4.2
 	 */
 	public static void clearCache() {
 		cache.clear();
+		classCache.clear();
+		assignabilityCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
@@ -1484,6 +1536,40 @@ public class ResolvableType implements Serializable {
 	}
 
 
+	/**
+	 * Cache key for memoized assignability checks between two interned types,
+	 * based on the identity of both types.
+	 */
+	private static final class AssignabilityKey {
+
+		private final ResolvableType type;
+
+		private final ResolvableType otherType;
+
+		public AssignabilityKey(ResolvableType type, ResolvableType otherType) {
+			this.type = type;
+			this.otherType = otherType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof AssignabilityKey)) {
+				return false;
+			}
+			AssignabilityKey otherKey = (AssignabilityKey) other;
+			return (this.type == otherKey.type && this.otherType == otherKey.otherType);
+		}
+
+		@Override
+		public int hashCode() {
+			return (31 * System.identityHashCode(this.type) + System.identityHashCode(this.otherType));
+		}
+	}
+
+
 	private static final class SyntheticParameterizedType implements ParameterizedType, Serializable {
 
 		private final Type rawType;
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Base class for an {@link Annotation} that Spring has <em>synthesized</em>
+ * (i.e., implemented by a class generated for the annotation type) with
+ * additional functionality, holding the attribute values in a flat array
+ * indexed by the position of the corresponding attribute method.
+ *
+ * <p>Also serves as delegate for annotations synthesized into JDK dynamic
+ * proxies, if no class can be generated for the annotation type.
+ *
+ * <p>Not intended to be used directly by applications: only public in order
+ * to be accessible for generated subclasses in other class loaders.
+ *
+ * @since 5.1
+ * @see AnnotationUtils#synthesizeAnnotation(Annotation, java.lang.reflect.AnnotatedElement)
+ * @see SynthesizedAnnotationInvocationHandler
+ */
+public abstract class AbstractSynthesizedAnnotation implements Annotation, SynthesizedAnnotation {
+
+	private final AnnotationAttributeExtractor<?> attributeExtractor;
+
+	private final Method[] attributeMethods;
+
+	private final Object[] attributeValues;
+
+
+	/**
+	 * Construct a new {@code AbstractSynthesizedAnnotation} for the supplied
+	 * attribute extractor.
+	 * @param attributeExtractor the {@link AnnotationAttributeExtractor} to delegate
+	 * to (declared as {@code Object} since that type is not publicly accessible)
+	 */
+	protected AbstractSynthesizedAnnotation(Object attributeExtractor) {
+		Assert.isInstanceOf(AnnotationAttributeExtractor.class, attributeExtractor);
+		this.attributeExtractor = (AnnotationAttributeExtractor<?>) attributeExtractor;
+		List<Method> methods = AnnotationUtils.getAttributeMethods(this.attributeExtractor.getAnnotationType());
+		this.attributeMethods = methods.toArray(new Method[0]);
+		this.attributeValues = new Object[this.attributeMethods.length];
+	}
+
+
+	/**
+	 * Return the value of the attribute at the given index, in the order
+	 * of {@link AnnotationUtils#getAttributeMethods}.
+	 * @param attributeIndex the index of the attribute
+	 * @return the attribute value, with arrays cloned so that users cannot
+	 * alter the contents of values in our cache
+	 */
+	protected final Object getAttributeValue(int attributeIndex) {
+		Object value = this.attributeValues[attributeIndex];
+		if (value == null) {
+			Method attributeMethod = this.attributeMethods[attributeIndex];
+			value = this.attributeExtractor.getAttributeValue(attributeMethod);
+			if (value == null) {
+				String msg = String.format("%s returned null for attribute name [%s] from attribute source [%s]",
+						this.attributeExtractor.getClass().getName(), attributeMethod.getName(),
+						this.attributeExtractor.getSource());
+				throw new IllegalStateException(msg);
+			}
+
+			// Synthesize nested annotations before returning them.
+			if (value instanceof Annotation) {
+				value = AnnotationUtils.synthesizeAnnotation((Annotation) value, this.attributeExtractor.getAnnotatedElement());
+			}
+			else if (value instanceof Annotation[]) {
+				value = AnnotationUtils.synthesizeAnnotationArray((Annotation[]) value, this.attributeExtractor.getAnnotatedElement());
+			}
+
+			this.attributeValues[attributeIndex] = value;
+		}
+
+		if (value.getClass().isArray()) {
+			value = cloneArray(value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Return the value of the given attribute.
+	 * @param attributeMethod the attribute method
+	 * @return the attribute value, or {@code null} if not an attribute
+	 * method of this annotation's type
+	 */
+	Object getAttributeValue(Method attributeMethod) {
+		for (int i = 0; i < this.attributeMethods.length; i++) {
+			if (this.attributeMethods[i].getName().equals(attributeMethod.getName())) {
+				return getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public final Class<? extends Annotation> annotationType() {
+		return this.attributeExtractor.getAnnotationType();
+	}
+
+	/**
+	 * See {@link Annotation#equals(Object)} for a definition of the required algorithm.
+	 * @param other the other object to compare against
+	 */
+	@Override
+	public final boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!annotationType().isInstance(other)) {
+			return false;
+		}
+
+		for (int i = 0; i < this.attributeMethods.length; i++) {
+			Object thisValue = getAttributeValue(i);
+			Object otherValue = ReflectionUtils.invokeMethod(this.attributeMethods[i], other);
+			if (!ObjectUtils.nullSafeEquals(thisValue, otherValue)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * See {@link Annotation#hashCode()} for a definition of the required algorithm.
+	 */
+	@Override
+	public final int hashCode() {
+		int result = 0;
+
+		for (int i = 0; i < this.attributeMethods.length; i++) {
+			Object value = getAttributeValue(i);
+			int hashCode;
+			if (value.getClass().isArray()) {
+				hashCode = hashCodeForArray(value);
+			}
+			else {
+				hashCode = value.hashCode();
+			}
+			result += (127 * this.attributeMethods[i].getName().hashCode()) ^ hashCode;
+		}
+
+		return result;
+	}
+
+	/**
+	 * See {@link Annotation#toString()} for guidelines on the recommended format.
+	 */
+	@Override
+	public final String toString() {
+		StringBuilder sb = new StringBuilder("@").append(annotationType().getName()).append("(");
+
+		for (int i = 0; i < this.attributeMethods.length; i++) {
+			sb.append(this.attributeMethods[i].getName());
+			sb.append('=');
+			sb.append(attributeValueToString(getAttributeValue(i)));
+			sb.append(i < this.attributeMethods.length - 1 ? ", " : "");
+		}
+
+		return sb.append(")").toString();
+	}
+
+
+	/**
+	 * Clone the provided array, ensuring that original component type is
+	 * retained.
+	 * @param array the array to clone
+	 */
+	private static Object cloneArray(Object array) {
+		if (array instanceof boolean[]) {
+			return ((boolean[]) array).clone();
+		}
+		if (array instanceof byte[]) {
+			return ((byte[]) array).clone();
+		}
+		if (array instanceof char[]) {
+			return ((char[]) array).clone();
+		}
+		if (array instanceof double[]) {
+			return ((double[]) array).clone();
+		}
+		if (array instanceof float[]) {
+			return ((float[]) array).clone();
+		}
+		if (array instanceof int[]) {
+			return ((int[]) array).clone();
+		}
+		if (array instanceof long[]) {
+			return ((long[]) array).clone();
+		}
+		if (array instanceof short[]) {
+			return ((short[]) array).clone();
+		}
+
+		// else
+		return ((Object[]) array).clone();
+	}
+
+	/**
+	 * WARNING: we can NOT use any of the {@code nullSafeHashCode()} methods
+	 * in Spring's {@link ObjectUtils} because those hash code generation
+	 * algorithms do not comply with the requirements specified in
+	 * {@link Annotation#hashCode()}.
+	 * @param array the array to compute the hash code for
+	 */
+	private static int hashCodeForArray(Object array) {
+		if (array instanceof boolean[]) {
+			return Arrays.hashCode((boolean[]) array);
+		}
+		if (array instanceof byte[]) {
+			return Arrays.hashCode((byte[]) array);
+		}
+		if (array instanceof char[]) {
+			return Arrays.hashCode((char[]) array);
+		}
+		if (array instanceof double[]) {
+			return Arrays.hashCode((double[]) array);
+		}
+		if (array instanceof float[]) {
+			return Arrays.hashCode((float[]) array);
+		}
+		if (array instanceof int[]) {
+			return Arrays.hashCode((int[]) array);
+		}
+		if (array instanceof long[]) {
+			return Arrays.hashCode((long[]) array);
+		}
+		if (array instanceof short[]) {
+			return Arrays.hashCode((short[]) array);
+		}
+
+		// else
+		return Arrays.hashCode((Object[]) array);
+	}
+
+	private static String attributeValueToString(Object value) {
+		if (value instanceof Object[]) {
+			return "[" + StringUtils.arrayToDelimitedString((Object[]) value, ", ") + "]";
+		}
+		return String.valueOf(value);
+	}
+
+}
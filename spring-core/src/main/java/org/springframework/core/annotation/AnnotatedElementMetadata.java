@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Member;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Per-{@link AnnotatedElement} holder for the results of merged annotation
+ * lookups in {@link AnnotatedElementUtils}: presence checks, merged
+ * {@link AnnotationAttributes} and merged, synthesized annotations, each
+ * resolved once per annotation type (or name) and lookup mode.
+ *
+ * <p>Entries are kept in a flat copy-on-write array, so that reads (the
+ * common case once an application is up and running) are lock-free.
+ *
+ * <p>Only {@link Class classes}, {@link Member members} and
+ * {@link Parameter parameters} are cached, since their annotations are fixed;
+ * the results for any other kind of element are resolved on every call.
+ *
+ * @since 5.1
+ * @see AnnotatedElementUtils
+ */
+final class AnnotatedElementMetadata {
+
+	/** Lookup mode flag for <em>find semantics</em>, as opposed to <em>get semantics</em>. */
+	static final int FIND = 1;
+
+	/** Lookup mode flag for {@code classValuesAsString}. */
+	static final int CLASS_VALUES_AS_STRING = 2;
+
+	/** Lookup mode flag for {@code nestedAnnotationsAsMap}. */
+	static final int NESTED_ANNOTATIONS_AS_MAP = 4;
+
+	/** Lookup mode for a presence check, resolved to a {@code Boolean}. */
+	static final int PRESENT = 8;
+
+	/** Lookup mode for merged {@link AnnotationAttributes}. */
+	static final int ATTRIBUTES = 16;
+
+	/** Lookup mode for a merged, synthesized annotation. */
+	static final int ANNOTATION = 32;
+
+
+	private static final Entry[] NO_ENTRIES = new Entry[0];
+
+	private static final Object NULL_VALUE = new Object();
+
+	private static final Map<AnnotatedElement, AnnotatedElementMetadata> metadataCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
+	private volatile Entry[] entries = NO_ENTRIES;
+
+
+	private AnnotatedElementMetadata() {
+	}
+
+
+	/**
+	 * Return the cached result for the given annotation type or name and lookup
+	 * mode on the given element, resolving and caching it if necessary.
+	 * @param element the annotated element
+	 * @param annotationKey the annotation type or fully qualified annotation name
+	 * (may be {@code null}, in which case the result is never cached)
+	 * @param mode the lookup mode, combined from the flags in this class
+	 * @param resolver the callback for resolving the result if not cached yet
+	 * @return the (potentially cached) result
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	static <T> T resolve(AnnotatedElement element, @Nullable Object annotationKey, int mode, Supplier<T> resolver) {
+		if (annotationKey == null || !isCacheable(element)) {
+			return resolver.get();
+		}
+		AnnotatedElementMetadata metadata = metadataCache.get(element);
+		if (metadata == null) {
+			metadata = new AnnotatedElementMetadata();
+			AnnotatedElementMetadata existing = metadataCache.putIfAbsent(element, metadata);
+			if (existing != null) {
+				metadata = existing;
+			}
+		}
+		Object value = metadata.get(annotationKey, mode);
+		if (value == null) {
+			value = resolver.get();
+			metadata.put(annotationKey, mode, (value != null ? value : NULL_VALUE));
+		}
+		return (value != NULL_VALUE ? (T) value : null);
+	}
+
+	/**
+	 * Create a deep copy of the given attributes, so that callers cannot alter
+	 * the contents of cached attributes.
+	 * @param attributes the attributes to copy (may be {@code null})
+	 * @return the copy, or {@code null} if the given attributes are {@code null}
+	 */
+	@Nullable
+	static AnnotationAttributes copy(@Nullable AnnotationAttributes attributes) {
+		if (attributes == null) {
+			return null;
+		}
+		AnnotationAttributes copy = new AnnotationAttributes(attributes);
+		for (Map.Entry<String, Object> entry : copy.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof AnnotationAttributes) {
+				entry.setValue(copy((AnnotationAttributes) value));
+			}
+			else if (value instanceof AnnotationAttributes[]) {
+				AnnotationAttributes[] nested = ((AnnotationAttributes[]) value).clone();
+				for (int i = 0; i < nested.length; i++) {
+					nested[i] = copy(nested[i]);
+				}
+				entry.setValue(nested);
+			}
+			else if (value != null && value.getClass().isArray()) {
+				int length = Array.getLength(value);
+				Object array = Array.newInstance(value.getClass().getComponentType(), length);
+				System.arraycopy(value, 0, array, 0, length);
+				entry.setValue(array);
+			}
+		}
+		return copy;
+	}
+
+	/**
+	 * Clear the cache of annotation metadata.
+	 * @see AnnotationUtils#clearCache()
+	 */
+	static void clearCache() {
+		metadataCache.clear();
+	}
+
+	private static boolean isCacheable(AnnotatedElement element) {
+		return (element instanceof Class || element instanceof Member || element instanceof Parameter);
+	}
+
+
+	@Nullable
+	private Object get(Object annotationKey, int mode) {
+		for (Entry entry : this.entries) {
+			if (entry.mode == mode && entry.annotationKey.equals(annotationKey)) {
+				return entry.value;
+			}
+		}
+		return null;
+	}
+
+	private synchronized void put(Object annotationKey, int mode, Object value) {
+		Entry[] existing = this.entries;
+		for (Entry entry : existing) {
+			if (entry.mode == mode && entry.annotationKey.equals(annotationKey)) {
+				return;
+			}
+		}
+		Entry[] updated = Arrays.copyOf(existing, existing.length + 1);
+		updated[existing.length] = new Entry(annotationKey, mode, value);
+		this.entries = updated;
+	}
+
+
+	private static final class Entry {
+
+		final Object annotationKey;
+
+		final int mode;
+
+		final Object value;
+
+		Entry(Object annotationKey, int mode, Object value) {
+			this.annotationKey = annotationKey;
+			this.mode = mode;
+			this.value = value;
+		}
+	}
+
+}
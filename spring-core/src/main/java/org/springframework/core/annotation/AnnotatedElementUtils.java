@@ -260,7 +260,7 @@ public class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return isPresent(element, annotationType, null, false);
 	}
 
 	/**
@@ -276,7 +276,7 @@ public class AnnotatedElementUtils {
 	 * @return {@code true} if a matching annotation is present
 	 */
 	public static boolean isAnnotated(AnnotatedElement element, String annotationName) {
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, null, annotationName, alwaysTrueAnnotationProcessor));
+		return isPresent(element, null, annotationName, false);
 	}
 
 	/**
@@ -300,10 +300,7 @@ public class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(
 			AnnotatedElement element, Class<? extends Annotation> annotationType) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor());
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
-		return attributes;
+		return getMergedAnnotationAttributes(element, annotationType, null, false, false, false);
 	}
 
 	/**
@@ -359,10 +356,8 @@ public class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		return getMergedAnnotationAttributes(element, null, annotationName, false,
+				classValuesAsString, nestedAnnotationsAsMap);
 	}
 
 	/**
@@ -385,19 +380,8 @@ public class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A getMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
-		// Shortcut: directly present on the element, with no merging needed?
-		if (!(element instanceof Class)) {
-			// Do not use this shortcut against a Class: Inherited annotations
-			// would get preferred over locally declared composed annotations.
-			A annotation = element.getAnnotation(annotationType);
-			if (annotation != null) {
-				return AnnotationUtils.synthesizeAnnotation(annotation, element);
-			}
-		}
-
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = getMergedAnnotationAttributes(element, annotationType);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		return AnnotatedElementMetadata.resolve(element, annotationType, AnnotatedElementMetadata.ANNOTATION,
+				() -> doGetMergedAnnotation(element, annotationType, false));
 	}
 
 	/**
@@ -573,7 +557,7 @@ public class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithFindSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return isPresent(element, annotationType, null, true);
 	}
 
 	/**
@@ -609,10 +593,8 @@ public class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			Class<? extends Annotation> annotationType, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		return getMergedAnnotationAttributes(element, annotationType, null, true,
+				classValuesAsString, nestedAnnotationsAsMap);
 	}
 
 	/**
@@ -646,10 +628,8 @@ public class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		return getMergedAnnotationAttributes(element, null, annotationName, true,
+				classValuesAsString, nestedAnnotationsAsMap);
 	}
 
 	/**
@@ -672,19 +652,9 @@ public class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A findMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
-		// Shortcut: directly present on the element, with no merging needed?
-		if (!(element instanceof Class)) {
-			// Do not use this shortcut against a Class: Inherited annotations
-			// would get preferred over locally declared composed annotations.
-			A annotation = element.getAnnotation(annotationType);
-			if (annotation != null) {
-				return AnnotationUtils.synthesizeAnnotation(annotation, element);
-			}
-		}
-
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = findMergedAnnotationAttributes(element, annotationType, false, false);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		return AnnotatedElementMetadata.resolve(element, annotationType,
+				AnnotatedElementMetadata.ANNOTATION | AnnotatedElementMetadata.FIND,
+				() -> doGetMergedAnnotation(element, annotationType, true));
 	}
 
 	/**
@@ -783,6 +753,72 @@ public class AnnotatedElementUtils {
 		return postProcessAndSynthesizeAggregatedResults(element, annotationType, processor.getAggregatedResults());
 	}
 
+	/**
+	 * Determine if an annotation of the specified {@code annotationType} or
+	 * {@code annotationName} is present on the specified {@code element},
+	 * caching the result per element.
+	 * @see AnnotatedElementMetadata
+	 */
+	private static boolean isPresent(AnnotatedElement element, @Nullable Class<? extends Annotation> annotationType,
+			@Nullable String annotationName, boolean find) {
+
+		Object annotationKey = (annotationType != null ? annotationType : annotationName);
+		int mode = AnnotatedElementMetadata.PRESENT | (find ? AnnotatedElementMetadata.FIND : 0);
+		return Boolean.TRUE.equals(AnnotatedElementMetadata.resolve(element, annotationKey, mode, () -> find ?
+				searchWithFindSemantics(element, annotationType, annotationName, alwaysTrueAnnotationProcessor) :
+				searchWithGetSemantics(element, annotationType, annotationName, alwaysTrueAnnotationProcessor)));
+	}
+
+	/**
+	 * Retrieve the merged attributes of the first annotation of the specified
+	 * {@code annotationType} or {@code annotationName} on the specified
+	 * {@code element}, caching the result per element and returning a copy.
+	 * @see AnnotatedElementMetadata
+	 */
+	@Nullable
+	private static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
+			@Nullable Class<? extends Annotation> annotationType, @Nullable String annotationName,
+			boolean find, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		Object annotationKey = (annotationType != null ? annotationType : annotationName);
+		int mode = AnnotatedElementMetadata.ATTRIBUTES | (find ? AnnotatedElementMetadata.FIND : 0) |
+				(classValuesAsString ? AnnotatedElementMetadata.CLASS_VALUES_AS_STRING : 0) |
+				(nestedAnnotationsAsMap ? AnnotatedElementMetadata.NESTED_ANNOTATIONS_AS_MAP : 0);
+		AnnotationAttributes attributes = AnnotatedElementMetadata.resolve(element, annotationKey, mode, () -> {
+			MergedAnnotationAttributesProcessor processor =
+					new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap);
+			AnnotationAttributes result = (find ?
+					searchWithFindSemantics(element, annotationType, annotationName, processor) :
+					searchWithGetSemantics(element, annotationType, annotationName, processor));
+			AnnotationUtils.postProcessAnnotationAttributes(element, result, classValuesAsString, nestedAnnotationsAsMap);
+			return result;
+		});
+		return AnnotatedElementMetadata.copy(attributes);
+	}
+
+	/**
+	 * Retrieve the first annotation of the specified {@code annotationType} on
+	 * the specified {@code element}, merged and synthesized.
+	 */
+	@Nullable
+	private static <A extends Annotation> A doGetMergedAnnotation(
+			AnnotatedElement element, Class<A> annotationType, boolean find) {
+
+		// Shortcut: directly present on the element, with no merging needed?
+		if (!(element instanceof Class)) {
+			// Do not use this shortcut against a Class: Inherited annotations
+			// would get preferred over locally declared composed annotations.
+			A annotation = element.getAnnotation(annotationType);
+			if (annotation != null) {
+				return AnnotationUtils.synthesizeAnnotation(annotation, element);
+			}
+		}
+
+		// Exhaustive retrieval of merged annotation attributes...
+		AnnotationAttributes attributes = getMergedAnnotationAttributes(element, annotationType, null, find, false, false);
+		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+	}
+
 	/**
 	 * Search for annotations of the specified {@code annotationName} or
 	 * {@code annotationType} on the specified {@code element}, following
@@ -1471,6 +1471,8 @@ public abstract class AnnotationUtils {
 	 * by wrapping it in a dynamic proxy that transparently enforces
 	 * <em>attribute alias</em> semantics for annotation attributes that are
 	 * annotated with {@link AliasFor @AliasFor}.
+	 * <p>As of 5.1, the proxy is replaced by an instance of a class generated
+	 * for the annotation type if the annotation type is public.
 	 * @param annotation the annotation to synthesize
 	 * @param annotatedElement the element that is annotated with the supplied
 	 * annotation; may be {@code null} if unknown
@@ -1502,6 +1504,10 @@ public abstract class AnnotationUtils {
 
 		DefaultAnnotationAttributeExtractor attributeExtractor =
 				new DefaultAnnotationAttributeExtractor(annotation, annotatedElement);
+		Annotation synthesized = SynthesizedAnnotationClassGenerator.synthesize(annotationType, attributeExtractor);
+		if (synthesized != null) {
+			return (A) synthesized;
+		}
 		InvocationHandler handler = new SynthesizedAnnotationInvocationHandler(attributeExtractor);
 
 		// Can always expose Spring's SynthesizedAnnotation marker since we explicitly check for a
@@ -1516,6 +1522,8 @@ public abstract class AnnotationUtils {
 	 * annotation of the specified {@code annotationType} and transparently
 	 * enforces <em>attribute alias</em> semantics for annotation attributes
 	 * that are annotated with {@link AliasFor @AliasFor}.
+	 * <p>As of 5.1, the proxy is replaced by an instance of a class generated
+	 * for the annotation type if the annotation type is public.
 	 * <p>The supplied map must contain a key-value pair for every attribute
 	 * defined in the supplied {@code annotationType} that is not aliased or
 	 * does not have a default value. Nested maps and nested arrays of maps
@@ -1545,6 +1553,10 @@ public abstract class AnnotationUtils {
 
 		MapAnnotationAttributeExtractor attributeExtractor =
 				new MapAnnotationAttributeExtractor(attributes, annotationType, annotatedElement);
+		A synthesized = SynthesizedAnnotationClassGenerator.synthesize(annotationType, attributeExtractor);
+		if (synthesized != null) {
+			return synthesized;
+		}
 		InvocationHandler handler = new SynthesizedAnnotationInvocationHandler(attributeExtractor);
 		Class<?>[] exposedInterfaces = (canExposeSynthesizedMarker(annotationType) ?
 				new Class<?>[] {annotationType, SynthesizedAnnotation.class} : new Class<?>[] {annotationType});
@@ -1916,6 +1928,7 @@ public abstract class AnnotationUtils {
 		attributeAliasesCache.clear();
 		attributeMethodsCache.clear();
 		aliasDescriptorCache.clear();
+		AnnotatedElementMetadata.clearCache();
 	}
 
 
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.GeneratedClassLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Generates a subclass of {@link AbstractSynthesizedAnnotation} per annotation
+ * type, implementing each attribute method through an indexed lookup of the
+ * attribute value instead of dispatching through a JDK dynamic proxy.
+ *
+ * <p>Classes are only generated for public annotation types with public
+ * attribute types, defined in a child class loader of the annotation type's
+ * class loader. For any other annotation type, {@link #synthesize} returns
+ * {@code null}, indicating that the caller should fall back to a proxy.
+ *
+ * @since 5.1
+ * @see AnnotationUtils#synthesizeAnnotation(Annotation, java.lang.reflect.AnnotatedElement)
+ */
+abstract class SynthesizedAnnotationClassGenerator implements Opcodes {
+
+	private static final Log logger = LogFactory.getLog(SynthesizedAnnotationClassGenerator.class);
+
+	private static final String SUPERCLASS_NAME = Type.getInternalName(AbstractSynthesizedAnnotation.class);
+
+	private static final String CLASS_SEPARATOR = "$$SynthesizedAnnotation$$";
+
+	private static final Object NO_CLASS = new Object();
+
+	private static final Map<Class<?>, Object> constructorCache = new ConcurrentReferenceHashMap<>(64);
+
+	private static final AtomicInteger classCounter = new AtomicInteger();
+
+
+	/**
+	 * Synthesize an annotation of the given type into an instance of a
+	 * generated class, delegating to the given attribute extractor.
+	 * @param annotationType the type of annotation to synthesize
+	 * @param attributeExtractor the extractor for the attribute values
+	 * @return the synthesized annotation, or {@code null} if no class can be
+	 * generated for the given annotation type
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	static <A extends Annotation> A synthesize(Class<A> annotationType, AnnotationAttributeExtractor<?> attributeExtractor) {
+		Object constructor = constructorCache.get(annotationType);
+		if (constructor == null) {
+			constructor = generateClass(annotationType);
+			constructorCache.put(annotationType, constructor);
+		}
+		if (constructor == NO_CLASS) {
+			return null;
+		}
+		try {
+			return (A) ((Constructor<?>) constructor).newInstance(attributeExtractor);
+		}
+		catch (Exception ex) {
+			ReflectionUtils.handleReflectionException(ex);
+			throw new IllegalStateException("Should never get here");
+		}
+	}
+
+	private static Object generateClass(Class<? extends Annotation> annotationType) {
+		ClassLoader classLoader = annotationType.getClassLoader();
+		if (!isSupported(annotationType) || classLoader == null ||
+				!ClassUtils.isVisible(AbstractSynthesizedAnnotation.class, classLoader)) {
+			return NO_CLASS;
+		}
+		GeneratedClassLoader synthesizedClassLoader = GeneratedClassLoader.forParent(classLoader);
+		String className = annotationType.getName() + CLASS_SEPARATOR + classCounter.incrementAndGet();
+		try {
+			byte[] bytes = generateClass(className, annotationType);
+			Class<?> synthesizedClass = synthesizedClassLoader.defineClass(className, bytes);
+			return synthesizedClass.getConstructor(Object.class);
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate synthesized annotation class for [" + annotationType.getName() +
+						"] - falling back to JDK dynamic proxy", ex);
+			}
+			return NO_CLASS;
+		}
+	}
+
+	private static boolean isSupported(Class<? extends Annotation> annotationType) {
+		if (!Modifier.isPublic(annotationType.getModifiers()) || annotationType.getName().startsWith("java.")) {
+			return false;
+		}
+		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(annotationType)) {
+			Class<?> typeToCheck = attributeMethod.getReturnType();
+			while (typeToCheck.isArray()) {
+				typeToCheck = typeToCheck.getComponentType();
+			}
+			if (!typeToCheck.isPrimitive() && !Modifier.isPublic(typeToCheck.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] generateClass(String className, Class<? extends Annotation> annotationType) {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SYNTHETIC, className.replace('.', '/'), null,
+				SUPERCLASS_NAME, new String[] {Type.getInternalName(annotationType)});
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(Ljava/lang/Object;)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPERCLASS_NAME, "<init>", "(Ljava/lang/Object;)V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);  // computed by the ClassWriter
+		mv.visitEnd();
+
+		List<Method> attributeMethods = AnnotationUtils.getAttributeMethods(annotationType);
+		for (int i = 0; i < attributeMethods.size(); i++) {
+			Method attributeMethod = attributeMethods.get(i);
+			Class<?> returnType = attributeMethod.getReturnType();
+			mv = cw.visitMethod(ACC_PUBLIC, attributeMethod.getName(),
+					Type.getMethodDescriptor(attributeMethod), null, null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitLdcInsn(i);
+			mv.visitMethodInsn(INVOKEVIRTUAL, SUPERCLASS_NAME, "getAttributeValue", "(I)Ljava/lang/Object;", false);
+			if (returnType.isPrimitive()) {
+				String wrapperName = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(returnType));
+				mv.visitTypeInsn(CHECKCAST, wrapperName);
+				mv.visitMethodInsn(INVOKEVIRTUAL, wrapperName, returnType.getName() + "Value",
+						Type.getMethodDescriptor(Type.getType(returnType)), false);
+			}
+			else {
+				mv.visitTypeInsn(CHECKCAST, Type.getInternalName(returnType));
+			}
+			mv.visitInsn(Type.getType(returnType).getOpcode(IRETURN));
+			mv.visitMaxs(0, 0);  // computed by the ClassWriter
+			mv.visitEnd();
+		}
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+}
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.io.buffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Implementation of the {@link DataBuffer} interface that presents a number
+ * of component buffers as a single buffer, without copying their content.
+ * Returned from {@link DataBufferUtils#join} for buffers of a
+ * {@link DefaultDataBufferFactory}, and from {@link DefaultDataBufferFactory#join(List)}
+ * if {@link DefaultDataBufferFactory#setCompositeJoinEnabled composite joins}
+ * are enabled.
+ *
+ * <p>Reading, searching and {@link #asInputStream() streaming} work across
+ * component boundaries. {@link #asByteBuffer(int, int)} returns a view if the
+ * requested range lies within a single component, and a copy otherwise.
+ * Writing beyond the current capacity appends a component allocated from the
+ * {@link #factory() factory}.
+ *
+ * <p>A composite buffer owns its components: it is reference counted, and
+ * releases all components once released itself. Like other pooled buffers,
+ * it cannot be retained or released any further once released. Slices share
+ * the reference count of the buffer they were created from.
+ *
+ * @since 5.1
+ * @see DefaultDataBufferFactory#join(List)
+ */
+public class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final int MIN_COMPONENT_CAPACITY = 64;
+
+	private static final int MAX_COMPONENT_CAPACITY = 1024 * 1024 * 4;
+
+
+	private final DataBufferFactory dataBufferFactory;
+
+	/** The buffer this buffer was sliced from, or {@code null} if not a slice */
+	@Nullable
+	private final CompositeDataBuffer root;
+
+	private final AtomicInteger refCount = new AtomicInteger(1);
+
+	private DataBuffer[] components;
+
+	/** Index in each component at which its content starts */
+	private int[] starts;
+
+	/** Index in this buffer at which each component starts, followed by the capacity */
+	private int[] offsets;
+
+	private int componentCount;
+
+	/** Components dropped by decreasing the capacity, released along with this buffer */
+	@Nullable
+	private List<DataBuffer> droppedComponents;
+
+	private int readPosition;
+
+	private int writePosition;
+
+
+	CompositeDataBuffer(DataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "'dataBufferFactory' must not be null");
+		Assert.notNull(dataBuffers, "'dataBuffers' must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.root = null;
+		int size = Math.max(dataBuffers.size(), 1);
+		this.components = new DataBuffer[size];
+		this.starts = new int[size];
+		this.offsets = new int[size + 1];
+		for (DataBuffer dataBuffer : dataBuffers) {
+			if (dataBuffer.readableByteCount() > 0) {
+				addComponent(dataBuffer, dataBuffer.readPosition(), dataBuffer.readableByteCount());
+			}
+			else {
+				DataBufferUtils.release(dataBuffer);
+			}
+		}
+		this.writePosition = capacity();
+	}
+
+	private CompositeDataBuffer(CompositeDataBuffer root, DataBuffer[] components, int length) {
+		this.dataBufferFactory = root.dataBufferFactory;
+		this.root = root;
+		int size = Math.max(components.length, 1);
+		this.components = new DataBuffer[size];
+		this.starts = new int[size];
+		this.offsets = new int[size + 1];
+		for (DataBuffer component : components) {
+			addComponent(component, 0, component.readableByteCount());
+		}
+		this.writePosition = length;
+	}
+
+
+	@Override
+	public DataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	/**
+	 * Return the number of component buffers.
+	 */
+	public int getComponentCount() {
+		return this.componentCount;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		for (int c = componentIndex(fromIndex); c < this.componentCount; c++) {
+			if (this.offsets[c] >= this.writePosition) {
+				break;
+			}
+			int start = this.starts[c];
+			int localEnd = start + Math.min(this.offsets[c + 1], this.writePosition) - this.offsets[c];
+			int localIndex = this.components[c].indexOf(predicate,
+					start + Math.max(fromIndex - this.offsets[c], 0));
+			if (localIndex != -1 && localIndex < localEnd) {
+				return this.offsets[c] + localIndex - start;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "'predicate' must not be null");
+
+		int i = Math.min(fromIndex, this.writePosition - 1);
+		if (i < 0) {
+			return -1;
+		}
+		for (int c = componentIndex(i); c >= 0; c--) {
+			int start = this.starts[c];
+			int localIndex = this.components[c].lastIndexOf(predicate, start + i - this.offsets[c]);
+			if (localIndex >= start) {
+				return this.offsets[c] + localIndex - start;
+			}
+			i = this.offsets[c] - 1;
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return capacity() - this.writePosition;
+	}
+
+	@Override
+	public int capacity() {
+		return this.offsets[this.componentCount];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>Increasing the capacity appends a new component. Decreasing it drops
+	 * the components beyond the new capacity, which are released along with
+	 * this buffer.
+	 */
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		Assert.isTrue(newCapacity > 0,
+				String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		if (this.root != null) {
+			throw new UnsupportedOperationException(
+					"Changing the capacity of a sliced buffer is not supported");
+		}
+		int oldCapacity = capacity();
+		if (newCapacity > oldCapacity) {
+			int length = newCapacity - oldCapacity;
+			DataBuffer component = this.dataBufferFactory.allocateBuffer(length);
+			addComponent(component, component.writePosition(), length);
+		}
+		else if (newCapacity < oldCapacity) {
+			int count = componentIndex(newCapacity - 1) + 1;
+			if (count < this.componentCount) {
+				if (this.droppedComponents == null) {
+					this.droppedComponents = new ArrayList<>(this.componentCount - count);
+				}
+				for (int c = count; c < this.componentCount; c++) {
+					this.droppedComponents.add(this.components[c]);
+					this.components[c] = null;
+				}
+				this.componentCount = count;
+			}
+			this.offsets[count] = newCapacity;
+			if (this.readPosition < newCapacity) {
+				this.writePosition = Math.min(this.writePosition, newCapacity);
+			}
+			else {
+				this.readPosition = newCapacity;
+				this.writePosition = newCapacity;
+			}
+		}
+		return this;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= capacity(), "'writePosition' %d must be <= %d",
+				writePosition, capacity());
+
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d",
+				index, this.writePosition - 1);
+
+		int c = componentIndex(index);
+		return this.components[c].getByte(this.starts[c] + index - this.offsets[c]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "'destination' must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "'destination' must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+
+		copy(this.readPosition, destination, offset, length);
+		this.readPosition += length;
+		return this;
+	}
+
+	private void copy(int index, byte[] destination, int offset, int length) {
+		while (length > 0) {
+			int c = componentIndex(index);
+			int chunk = Math.min(length, this.offsets[c + 1] - index);
+			ByteBuffer source = this.components[c].asByteBuffer(this.starts[c] + index - this.offsets[c], chunk);
+			source.get(destination, offset, chunk);
+			index += chunk;
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		int c = componentIndex(this.writePosition);
+		DataBuffer component = this.components[c];
+		int componentWritePosition = component.writePosition();
+		int localIndex = this.starts[c] + this.writePosition - this.offsets[c];
+		component.writePosition(localIndex);
+		component.write(b);
+		component.writePosition(Math.max(componentWritePosition, localIndex + 1));
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "'source' must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "'source' must not be null");
+		ensureCapacity(length);
+		write(ByteBuffer.wrap(source, offset, length));
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			ByteBuffer[] byteBuffers =
+					Arrays.stream(buffers).map(DataBuffer::asByteBuffer)
+							.toArray(ByteBuffer[]::new);
+			write(byteBuffers);
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... byteBuffers) {
+		Assert.notEmpty(byteBuffers, "'byteBuffers' must not be empty");
+		int capacity = Arrays.stream(byteBuffers).mapToInt(ByteBuffer::remaining).sum();
+		ensureCapacity(capacity);
+		Arrays.stream(byteBuffers).forEach(this::write);
+		return this;
+	}
+
+	private void write(ByteBuffer source) {
+		while (source.hasRemaining()) {
+			int c = componentIndex(this.writePosition);
+			DataBuffer component = this.components[c];
+			int chunk = Math.min(source.remaining(), this.offsets[c + 1] - this.writePosition);
+			ByteBuffer part = source.duplicate();
+			// Explicit access via Buffer base type for compatibility
+			// with covariant return type on JDK 9's ByteBuffer...
+			((Buffer) part).limit(source.position() + chunk);
+			int componentWritePosition = component.writePosition();
+			int localIndex = this.starts[c] + this.writePosition - this.offsets[c];
+			component.writePosition(localIndex);
+			component.write(part);
+			component.writePosition(Math.max(componentWritePosition, localIndex + chunk));
+			((Buffer) source).position(source.position() + chunk);
+			this.writePosition += chunk;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>The returned buffer is itself a composite of slices of the components.
+	 */
+	@Override
+	public CompositeDataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		int count = 0;
+		DataBuffer[] slices = new DataBuffer[this.componentCount];
+		int position = index;
+		int remaining = length;
+		while (remaining > 0) {
+			int c = componentIndex(position);
+			int chunk = Math.min(remaining, this.offsets[c + 1] - position);
+			slices[count++] = this.components[c].slice(this.starts[c] + position - this.offsets[c], chunk);
+			position += chunk;
+			remaining -= chunk;
+		}
+		CompositeDataBuffer root = (this.root != null ? this.root : this);
+		return new CompositeDataBuffer(root, Arrays.copyOf(slices, count), length);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>If the given range spans more than one component, the returned
+	 * {@code ByteBuffer} holds a copy of the data.
+	 */
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		if (length == 0) {
+			return ByteBuffer.allocate(0);
+		}
+		int c = componentIndex(index);
+		if (index + length <= this.offsets[c + 1]) {
+			return this.components[c].asByteBuffer(this.starts[c] + index - this.offsets[c], length);
+		}
+		byte[] bytes = new byte[length];
+		copy(index, bytes, 0, length);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream(false);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		return new CompositeDataBufferInputStream(releaseOnClose);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		if (this.root != null) {
+			this.root.retain();
+			return this;
+		}
+		int refCount;
+		do {
+			refCount = this.refCount.get();
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+		}
+		while (!this.refCount.compareAndSet(refCount, refCount + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		if (this.root != null) {
+			return this.root.release();
+		}
+		int refCount;
+		do {
+			refCount = this.refCount.get();
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released");
+			}
+		}
+		while (!this.refCount.compareAndSet(refCount, refCount - 1));
+		if (refCount > 1) {
+			return false;
+		}
+		for (int c = 0; c < this.componentCount; c++) {
+			DataBufferUtils.release(this.components[c]);
+		}
+		if (this.droppedComponents != null) {
+			this.droppedComponents.forEach(DataBufferUtils::release);
+		}
+		return true;
+	}
+
+
+	private void addComponent(DataBuffer component, int start, int length) {
+		if (this.componentCount == this.components.length) {
+			int size = this.components.length * 2;
+			this.components = Arrays.copyOf(this.components, size);
+			this.starts = Arrays.copyOf(this.starts, size);
+			this.offsets = Arrays.copyOf(this.offsets, size + 1);
+		}
+		this.components[this.componentCount] = component;
+		this.starts[this.componentCount] = start;
+		this.offsets[this.componentCount + 1] = this.offsets[this.componentCount] + length;
+		this.componentCount++;
+	}
+
+	/**
+	 * Return the index of the component that holds the given index.
+	 */
+	private int componentIndex(int index) {
+		int low = 0;
+		int high = this.componentCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private void ensureCapacity(int length) {
+		int writable = writableByteCount();
+		if (length <= writable) {
+			return;
+		}
+		int needed = length - writable;
+		int growth = Math.max(MIN_COMPONENT_CAPACITY, Math.min(capacity(), MAX_COMPONENT_CAPACITY));
+		capacity(capacity() + Math.max(needed, growth));
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= capacity(), "index %d and length %d must be <= %d",
+				index, length, capacity());
+	}
+
+	private static void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w %d, c %d, components %d)",
+				this.readPosition, this.writePosition, capacity(), this.componentCount);
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		CompositeDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) throws IOException {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				release();
+			}
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) throws IOException {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) throws IOException {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
@@ -487,6 +487,10 @@ public abstract class DataBufferUtils {
 	 * Depending on the {@link DataBuffer} implementation, the returned buffer may be a single
 	 * buffer containing all data of the provided buffers, or it may be a true composite that
 	 * contains references to the buffers.
+	 * <p>Buffers of a {@link DefaultDataBufferFactory} are not copied: a single
+	 * buffer is returned as-is, and several buffers are wrapped into a
+	 * {@link CompositeDataBuffer}. Either way, the returned buffer is to be
+	 * {@link #release released} once no longer used.
 	 * @param dataBuffers the data buffers that are to be composed
 	 * @return a buffer that is composed from the {@code dataBuffers} argument
 	 * @since 5.0.3
@@ -499,6 +503,9 @@ public abstract class DataBufferUtils {
 				.filter(list -> !list.isEmpty())
 				.map(list -> {
 					DataBufferFactory bufferFactory = list.get(0).factory();
+					if (bufferFactory instanceof DefaultDataBufferFactory) {
+						return (list.size() == 1 ? list.get(0) : new CompositeDataBuffer(bufferFactory, list));
+					}
 					return bufferFactory.join(list);
 				});
 	}
@@ -43,6 +43,8 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 
 	private final int defaultInitialCapacity;
 
+	private boolean compositeJoinEnabled;
+
 
 	/**
 	 * Creates a new {@code DefaultDataBufferFactory} with default settings.
@@ -77,6 +79,29 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 	}
 
 
+	/**
+	 * Whether {@link #join(List)} should return a {@link CompositeDataBuffer}
+	 * that refers to the given buffers, rather than copying their content into
+	 * a newly allocated buffer.
+	 * <p>By default this is {@code false}. Note that a composite buffer is a
+	 * {@link PooledDataBuffer}, and needs to be released once no longer used.
+	 * {@link DataBufferUtils#join}, as used by decoders, always refers to the
+	 * given buffers, independent of this setting.
+	 * @since 5.1
+	 */
+	public void setCompositeJoinEnabled(boolean compositeJoinEnabled) {
+		this.compositeJoinEnabled = compositeJoinEnabled;
+	}
+
+	/**
+	 * Whether {@link #join(List)} returns a {@link CompositeDataBuffer}.
+	 * @since 5.1
+	 */
+	public boolean isCompositeJoinEnabled() {
+		return this.compositeJoinEnabled;
+	}
+
+
 	@Override
 	public DefaultDataBuffer allocateBuffer() {
 		return allocateBuffer(this.defaultInitialCapacity);
@@ -106,12 +131,17 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 	/**
 	 * {@inheritDoc}
 	 * <p>This implementation creates a single {@link DefaultDataBuffer} to contain the data
-	 * in {@code dataBuffers}.
+	 * in {@code dataBuffers}, or, if {@link #setCompositeJoinEnabled composite joins}
+	 * are enabled, a {@link CompositeDataBuffer} that refers to {@code dataBuffers}
+	 * without copying their content.
 	 */
 	@Override
 	public DataBuffer join(List<? extends DataBuffer> dataBuffers) {
 		Assert.notEmpty(dataBuffers, "'dataBuffers' must not be empty");
 
+		if (this.compositeJoinEnabled) {
+			return new CompositeDataBuffer(this, dataBuffers);
+		}
 		int capacity = dataBuffers.stream()
 				.mapToInt(DataBuffer::readableByteCount)
 				.sum();
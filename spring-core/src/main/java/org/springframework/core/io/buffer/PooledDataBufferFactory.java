@@ -0,0 +1,508 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link DefaultDataBufferFactory} that recycles the {@link ByteBuffer}s
+ * of released buffers, for non-Netty runtimes (i.e. Servlet, Undertow) that
+ * would otherwise allocate a new {@code ByteBuffer} for every chunk of data.
+ *
+ * <p>Allocated buffers implement {@link PooledDataBuffer} and are reference
+ * counted: their memory is returned to the pool once
+ * {@link DataBufferUtils#release(DataBuffer) released}, after which they must
+ * no longer be used. Requested capacities are rounded up to power-of-two size
+ * classes, from {@value #MIN_POOLED_CAPACITY} bytes up to a configurable
+ * maximum, each served by its own arena of idle buffers; larger buffers are
+ * not pooled. The total size of idle buffers is capped as well.
+ *
+ * <p>If leak detection is enabled, which is the default when debug logging is
+ * enabled for this class, the allocation site of every buffer is recorded and
+ * reported when the buffer is garbage collected without having been released.
+ *
+ * @since 5.1
+ * @see PooledDataBuffer
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The capacity of the smallest size class.
+	 */
+	public static final int MIN_POOLED_CAPACITY = 256;
+
+	/**
+	 * The default capacity of the largest size class.
+	 * @see #PooledDataBufferFactory(boolean, int, long)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * The default maximum total size of idle buffers held by the pool.
+	 * @see #PooledDataBufferFactory(boolean, int, long)
+	 */
+	public static final long DEFAULT_MAX_RETAINED_BYTES = 32 * 1024 * 1024;
+
+	private static final int MAX_BUFFERS_PER_ARENA = 1024;
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final long maxRetainedBytes;
+
+	private final Arena[] arenas;
+
+	private volatile boolean leakDetectionEnabled = logger.isDebugEnabled();
+
+	private final ReferenceQueue<PooledDefaultDataBuffer> leakQueue = new ReferenceQueue<>();
+
+	private final Map<LeakTracker, Boolean> leakTrackers = new ConcurrentHashMap<>();
+
+	private final AtomicLong allocationCount = new AtomicLong();
+
+	private final AtomicLong poolHitCount = new AtomicLong();
+
+	private final AtomicLong retainedBytes = new AtomicLong();
+
+	private final AtomicLong activeBytes = new AtomicLong();
+
+	private final AtomicLong leakCount = new AtomicLong();
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings,
+	 * allocating heap buffers.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be allocated.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_MAX_POOLED_CAPACITY, DEFAULT_MAX_RETAINED_BYTES);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param maxPooledCapacity the capacity of the largest size class, rounded
+	 * up to a power of two; larger buffers are allocated without pooling
+	 * @param maxRetainedBytes the maximum total size of idle buffers to hold
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int maxPooledCapacity, long maxRetainedBytes) {
+		super(preferDirect);
+		Assert.isTrue(maxPooledCapacity >= MIN_POOLED_CAPACITY,
+				"'maxPooledCapacity' must be at least " + MIN_POOLED_CAPACITY);
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' must not exceed 2^30");
+		Assert.isTrue(maxRetainedBytes >= 0, "'maxRetainedBytes' must not be negative");
+		this.preferDirect = preferDirect;
+		this.arenas = new Arena[sizeClassIndex(maxPooledCapacity) + 1];
+		for (int i = 0; i < this.arenas.length; i++) {
+			int capacity = MIN_POOLED_CAPACITY << i;
+			int maxBuffers = (int) Math.max(1, Math.min(MAX_BUFFERS_PER_ARENA, maxRetainedBytes / capacity));
+			this.arenas[i] = new Arena(capacity, maxBuffers);
+		}
+		this.maxPooledCapacity = this.arenas[this.arenas.length - 1].capacity;
+		this.maxRetainedBytes = maxRetainedBytes;
+	}
+
+
+	/**
+	 * Enable or disable recording the allocation site of buffers, in order to
+	 * report buffers that are garbage collected without having been released.
+	 * <p>By default this is enabled if debug logging is enabled for this class.
+	 */
+	public void setLeakDetectionEnabled(boolean leakDetectionEnabled) {
+		this.leakDetectionEnabled = leakDetectionEnabled;
+	}
+
+	/**
+	 * Return whether leak detection is enabled.
+	 */
+	public boolean isLeakDetectionEnabled() {
+		return this.leakDetectionEnabled;
+	}
+
+	/**
+	 * Return the capacity of the largest size class.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Return the maximum total size of idle buffers held by the pool.
+	 */
+	public long getMaxRetainedBytes() {
+		return this.maxRetainedBytes;
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		if (this.leakDetectionEnabled) {
+			reportLeaks();
+		}
+		ByteBuffer memory = acquire(initialCapacity);
+		PooledDefaultDataBuffer dataBuffer = new PooledDefaultDataBuffer(this, memory, initialCapacity);
+		if (this.leakDetectionEnabled) {
+			dataBuffer.leakTracker = new LeakTracker(dataBuffer, this.leakQueue);
+			this.leakTrackers.put(dataBuffer.leakTracker, Boolean.TRUE);
+		}
+		return dataBuffer;
+	}
+
+
+	/**
+	 * Return the number of buffers allocated through this factory so far,
+	 * including those served from the pool.
+	 */
+	public long getAllocationCount() {
+		return this.allocationCount.get();
+	}
+
+	/**
+	 * Return the number of buffer allocations served from the pool so far.
+	 */
+	public long getPoolHitCount() {
+		return this.poolHitCount.get();
+	}
+
+	/**
+	 * Return the total size of the idle buffers currently held by the pool.
+	 */
+	public long getRetainedBytes() {
+		return this.retainedBytes.get();
+	}
+
+	/**
+	 * Return the total size of the buffers currently in use, i.e. allocated
+	 * and not yet released.
+	 */
+	public long getActiveBytes() {
+		return this.activeBytes.get();
+	}
+
+	/**
+	 * Return the number of buffers reported as leaked so far.
+	 * @see #setLeakDetectionEnabled(boolean)
+	 */
+	public long getLeakCount() {
+		return this.leakCount.get();
+	}
+
+
+	/**
+	 * Obtain a cleared {@code ByteBuffer} of at least the given capacity,
+	 * from the pool if possible.
+	 */
+	private ByteBuffer acquire(int capacity) {
+		this.allocationCount.incrementAndGet();
+		ByteBuffer memory;
+		if (capacity > this.maxPooledCapacity) {
+			memory = allocate(capacity);
+		}
+		else {
+			Arena arena = this.arenas[sizeClassIndex(capacity)];
+			memory = arena.buffers.poll();
+			if (memory != null) {
+				this.poolHitCount.incrementAndGet();
+				this.retainedBytes.addAndGet(-arena.capacity);
+			}
+			else {
+				memory = allocate(arena.capacity);
+			}
+		}
+		this.activeBytes.addAndGet(memory.capacity());
+		return memory;
+	}
+
+	/**
+	 * Return the given {@code ByteBuffer} to the pool, or drop it if it is
+	 * too large, or if the arena or the pool as a whole is full.
+	 */
+	private void recycle(ByteBuffer memory) {
+		int capacity = memory.capacity();
+		this.activeBytes.addAndGet(-capacity);
+		if (capacity > this.maxPooledCapacity ||
+				this.retainedBytes.addAndGet(capacity) > this.maxRetainedBytes) {
+			if (capacity <= this.maxPooledCapacity) {
+				this.retainedBytes.addAndGet(-capacity);
+			}
+			return;
+		}
+		((Buffer) memory).clear();
+		if (!this.arenas[sizeClassIndex(capacity)].buffers.offer(memory)) {
+			this.retainedBytes.addAndGet(-capacity);
+		}
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private void reportLeaks() {
+		LeakTracker leakTracker;
+		while ((leakTracker = (LeakTracker) this.leakQueue.poll()) != null) {
+			if (this.leakTrackers.remove(leakTracker) != null) {
+				this.leakCount.incrementAndGet();
+				this.activeBytes.addAndGet(-leakTracker.capacity);
+				logger.error("DataBuffer was garbage collected without having been released; " +
+						"see the stack trace for where it was allocated", leakTracker.allocationSite);
+			}
+		}
+	}
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= MIN_POOLED_CAPACITY) {
+			return 0;
+		}
+		return (32 - Integer.numberOfLeadingZeros(capacity - 1)) -
+				(32 - Integer.numberOfLeadingZeros(MIN_POOLED_CAPACITY - 1));
+	}
+
+	private static ByteBuffer view(ByteBuffer memory, int capacity) {
+		ByteBuffer duplicate = memory.duplicate();
+		// Explicit access via Buffer base type for compatibility
+		// with covariant return type on JDK 9's ByteBuffer...
+		((Buffer) duplicate).clear().limit(capacity);
+		return duplicate.slice();
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ", retainedBytes=" + getRetainedBytes() +
+				", activeBytes=" + getActiveBytes() + ")";
+	}
+
+
+	/**
+	 * Idle buffers of a single size class.
+	 */
+	private static class Arena {
+
+		final int capacity;
+
+		final ArrayBlockingQueue<ByteBuffer> buffers;
+
+		Arena(int capacity, int maxBuffers) {
+			this.capacity = capacity;
+			this.buffers = new ArrayBlockingQueue<>(maxBuffers);
+		}
+	}
+
+
+	/**
+	 * {@link DefaultDataBuffer} backed by pooled memory, which is returned to
+	 * the pool when the reference count drops to zero.
+	 */
+	private static class PooledDefaultDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDataBufferFactory factory;
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		private ByteBuffer memory;
+
+		@Nullable
+		private ByteBuffer replacedMemory;
+
+		// Memory replaced while slices may still refer to it, recycled on final release
+		@Nullable
+		private List<ByteBuffer> retiredMemory;
+
+		private boolean sliced;
+
+		@Nullable
+		LeakTracker leakTracker;
+
+		PooledDefaultDataBuffer(PooledDataBufferFactory factory, ByteBuffer memory, int capacity) {
+			super(factory, view(memory, capacity));
+			this.factory = factory;
+			this.memory = memory;
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int refCount;
+			do {
+				refCount = this.refCount.get();
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released");
+				}
+			}
+			while (!this.refCount.compareAndSet(refCount, refCount + 1));
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int refCount;
+			do {
+				refCount = this.refCount.get();
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released");
+				}
+			}
+			while (!this.refCount.compareAndSet(refCount, refCount - 1));
+			if (refCount > 1) {
+				return false;
+			}
+			LeakTracker leakTracker = this.leakTracker;
+			if (leakTracker != null) {
+				this.factory.leakTrackers.remove(leakTracker);
+				leakTracker.clear();
+			}
+			this.factory.recycle(this.memory);
+			List<ByteBuffer> retiredMemory = this.retiredMemory;
+			if (retiredMemory != null) {
+				this.retiredMemory = null;
+				retiredMemory.forEach(this.factory::recycle);
+			}
+			return true;
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			if (capacity <= this.memory.capacity()) {
+				// Size class of the current memory is large enough
+				return view(this.memory, capacity);
+			}
+			this.replacedMemory = this.memory;
+			this.memory = this.factory.acquire(capacity);
+			LeakTracker leakTracker = this.leakTracker;
+			if (leakTracker != null) {
+				leakTracker.capacity += this.memory.capacity();
+			}
+			return view(this.memory, capacity);
+		}
+
+		@Override
+		void releaseNativeBuffer(ByteBuffer byteBuffer) {
+			ByteBuffer replacedMemory = this.replacedMemory;
+			if (replacedMemory != null) {
+				this.replacedMemory = null;
+				if (this.sliced) {
+					// Slices share the replaced memory: keep it until the final release
+					if (this.retiredMemory == null) {
+						this.retiredMemory = new ArrayList<>(2);
+					}
+					this.retiredMemory.add(replacedMemory);
+					return;
+				}
+				LeakTracker leakTracker = this.leakTracker;
+				if (leakTracker != null) {
+					leakTracker.capacity -= replacedMemory.capacity();
+				}
+				this.factory.recycle(replacedMemory);
+			}
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			this.sliced = true;
+			return new PooledSlicedDataBuffer(this, slice, length);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PooledDataBuffer (r: %d, w %d, c %d)",
+					readPosition(), writePosition(), capacity());
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing its reference count.
+	 */
+	private static class PooledSlicedDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		PooledSlicedDataBuffer(PooledDefaultDataBuffer parent, ByteBuffer slice, int length) {
+			super(parent.factory, slice);
+			this.parent = parent;
+			writePosition(length);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException(
+					"Changing the capacity of a sliced buffer is not supported");
+		}
+	}
+
+
+	/**
+	 * Weak reference to an allocated buffer, enqueued if the buffer is garbage
+	 * collected without having been released.
+	 */
+	private static class LeakTracker extends WeakReference<PooledDefaultDataBuffer> {
+
+		final Throwable allocationSite = new Throwable("DataBuffer allocation site");
+
+		volatile int capacity;
+
+		LeakTracker(PooledDefaultDataBuffer dataBuffer, ReferenceQueue<PooledDefaultDataBuffer> queue) {
+			super(dataBuffer, queue);
+			this.capacity = dataBuffer.memory.capacity();
+		}
+	}
+
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Index of class-level and annotation metadata that has been recorded at build
+ * time by the {@code spring-context-indexer} annotation processor, allowing for
+ * {@link MetadataReader} instances to be created without reading class files.
+ *
+ * <p>Each index entry replays the events that an ASM-based visitor would receive
+ * for the class in question, so the resulting {@link AnnotationMetadata} is
+ * equivalent to the one built by {@link SimpleMetadataReaderFactory} from the
+ * class file, including {@code @Bean} methods and other annotated methods. Each
+ * entry also records whether the class declares any annotated fields, methods or
+ * constructors, letting injection post-processors skip reflective introspection
+ * of classes without any injection points.
+ *
+ * @since 5.1
+ * @see #loadIndex(ClassLoader)
+ * @see SimpleMetadataReaderFactory#getMetadataReader(String)
+ */
+public final class ClassMetadataIndex {
+
+	/**
+	 * The location to look for class metadata entries.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String METADATA_RESOURCE_LOCATION = "META-INF/spring.components.metadata";
+
+	/**
+	 * System property that instructs Spring to ignore the index, i.e.
+	 * to always return {@code null} from {@link #loadIndex(ClassLoader)}.
+	 * <p>This is the same flag that disables the candidate components index.
+	 */
+	public static final String IGNORE_INDEX = "spring.index.ignore";
+
+	static final int MAGIC = 0x53434d49;
+
+	static final int VERSION = 1;
+
+	// Annotation value tags, to be kept in sync with the spring-context-indexer
+
+	static final byte BOOLEAN = 0;
+
+	static final byte BYTE = 1;
+
+	static final byte CHAR = 2;
+
+	static final byte SHORT = 3;
+
+	static final byte INT = 4;
+
+	static final byte LONG = 5;
+
+	static final byte FLOAT = 6;
+
+	static final byte DOUBLE = 7;
+
+	static final byte STRING = 8;
+
+	static final byte CLASS = 9;
+
+	static final byte ENUM = 10;
+
+	static final byte ANNOTATION = 11;
+
+	static final byte ARRAY = 12;
+
+	static final byte BOOLEAN_ARRAY = 13;
+
+	static final byte BYTE_ARRAY = 14;
+
+	static final byte CHAR_ARRAY = 15;
+
+	static final byte SHORT_ARRAY = 16;
+
+	static final byte INT_ARRAY = 17;
+
+	static final byte LONG_ARRAY = 18;
+
+	static final byte FLOAT_ARRAY = 19;
+
+	static final byte DOUBLE_ARRAY = 20;
+
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(ClassMetadataIndex.class);
+
+	private static final ClassMetadataIndex EMPTY = new ClassMetadataIndex(new HashMap<>());
+
+	private static final Map<ClassLoader, ClassMetadataIndex> cache = new ConcurrentReferenceHashMap<>();
+
+
+	private final Map<String, byte[]> entries;
+
+
+	private ClassMetadataIndex(Map<String, byte[]> entries) {
+		this.entries = entries;
+	}
+
+
+	/**
+	 * Determine whether this index contains metadata for the given class.
+	 * @param className the fully qualified (binary) name of the class
+	 */
+	public boolean contains(String className) {
+		return this.entries.containsKey(className);
+	}
+
+	/**
+	 * Determine whether the given class declares any annotated fields, methods
+	 * or constructors, or implements an interface that declares annotated methods.
+	 * @param className the fully qualified (binary) name of the class
+	 * @return {@code true} if the class may contain injection points or lifecycle
+	 * methods, or if it is not covered by this index; {@code false} if reflective
+	 * introspection of its members can be skipped
+	 */
+	public boolean hasAnnotatedMembers(String className) {
+		byte[] entry = this.entries.get(className);
+		return (entry == null || entry[0] != 0);
+	}
+
+	/**
+	 * Create a {@link MetadataReader} for the given class from this index.
+	 * @param className the fully qualified (binary) name of the class
+	 * @param resource the class file resource to expose from the reader
+	 * (not going to be read)
+	 * @param classLoader the ClassLoader to use for resolving annotation types
+	 * @return the metadata reader, or {@code null} if this index does not
+	 * contain the given class
+	 * @throws IOException if the index entry is corrupt
+	 */
+	@Nullable
+	public MetadataReader getMetadataReader(String className, Resource resource, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		byte[] entry = this.entries.get(className);
+		if (entry == null) {
+			return null;
+		}
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		replay(new DataInputStream(new ByteArrayInputStream(entry)), visitor);
+		return new SimpleMetadataReader(resource, visitor);
+	}
+
+
+	/**
+	 * Replay the visitor events recorded in the given entry,
+	 * in the order that an ASM {@code ClassReader} would trigger them.
+	 */
+	private static void replay(DataInputStream in, AnnotationMetadataReadingVisitor visitor) throws IOException {
+		in.readBoolean();  // annotated members flag
+		int access = in.readInt();
+		String name = in.readUTF();
+		String superName = (in.readBoolean() ? in.readUTF() : null);
+		String[] interfaces = new String[in.readInt()];
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = in.readUTF();
+		}
+		visitor.visit(0, access, name, null, superName, interfaces);
+		for (int i = in.readInt(); i > 0; i--) {
+			AnnotationVisitor annotationVisitor = visitor.visitAnnotation(in.readUTF(), true);
+			replayAnnotationValues(in, annotationVisitor);
+		}
+		if (in.readBoolean()) {
+			visitor.visitInnerClass(name, in.readUTF(), in.readUTF(), in.readInt());
+		}
+		for (int i = in.readInt(); i > 0; i--) {
+			visitor.visitInnerClass(in.readUTF(), name, in.readUTF(), in.readInt());
+		}
+		for (int i = in.readInt(); i > 0; i--) {
+			MethodVisitor methodVisitor = visitor.visitMethod(in.readInt(), in.readUTF(), in.readUTF(), null, null);
+			for (int j = in.readInt(); j > 0; j--) {
+				AnnotationVisitor annotationVisitor = methodVisitor.visitAnnotation(in.readUTF(), true);
+				replayAnnotationValues(in, annotationVisitor);
+			}
+			methodVisitor.visitEnd();
+		}
+		visitor.visitEnd();
+	}
+
+	private static void replayAnnotationValues(DataInputStream in, @Nullable AnnotationVisitor visitor)
+			throws IOException {
+
+		for (int i = in.readInt(); i > 0; i--) {
+			replayAnnotationValue(in, visitor, in.readUTF());
+		}
+		if (visitor != null) {
+			visitor.visitEnd();
+		}
+	}
+
+	private static void replayAnnotationValue(DataInputStream in, @Nullable AnnotationVisitor visitor,
+			@Nullable String name) throws IOException {
+
+		byte tag = in.readByte();
+		switch (tag) {
+			case ENUM:
+				String enumDesc = in.readUTF();
+				String enumValue = in.readUTF();
+				if (visitor != null) {
+					visitor.visitEnum(name, enumDesc, enumValue);
+				}
+				return;
+			case ANNOTATION:
+				String annotationDesc = in.readUTF();
+				replayAnnotationValues(in, (visitor != null ? visitor.visitAnnotation(name, annotationDesc) : null));
+				return;
+			case ARRAY:
+				AnnotationVisitor arrayVisitor = (visitor != null ? visitor.visitArray(name) : null);
+				for (int i = in.readInt(); i > 0; i--) {
+					replayAnnotationValue(in, arrayVisitor, null);
+				}
+				if (arrayVisitor != null) {
+					arrayVisitor.visitEnd();
+				}
+				return;
+			default:
+				Object value = readValue(in, tag);
+				if (visitor != null) {
+					visitor.visit(name, value);
+				}
+		}
+	}
+
+	private static Object readValue(DataInputStream in, byte tag) throws IOException {
+		switch (tag) {
+			case BOOLEAN:
+				return in.readBoolean();
+			case BYTE:
+				return in.readByte();
+			case CHAR:
+				return in.readChar();
+			case SHORT:
+				return in.readShort();
+			case INT:
+				return in.readInt();
+			case LONG:
+				return in.readLong();
+			case FLOAT:
+				return in.readFloat();
+			case DOUBLE:
+				return in.readDouble();
+			case STRING:
+				return in.readUTF();
+			case CLASS:
+				return Type.getType(in.readUTF());
+			case BOOLEAN_ARRAY:
+				boolean[] booleans = new boolean[in.readInt()];
+				for (int i = 0; i < booleans.length; i++) {
+					booleans[i] = in.readBoolean();
+				}
+				return booleans;
+			case BYTE_ARRAY:
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				return bytes;
+			case CHAR_ARRAY:
+				char[] chars = new char[in.readInt()];
+				for (int i = 0; i < chars.length; i++) {
+					chars[i] = in.readChar();
+				}
+				return chars;
+			case SHORT_ARRAY:
+				short[] shorts = new short[in.readInt()];
+				for (int i = 0; i < shorts.length; i++) {
+					shorts[i] = in.readShort();
+				}
+				return shorts;
+			case INT_ARRAY:
+				int[] ints = new int[in.readInt()];
+				for (int i = 0; i < ints.length; i++) {
+					ints[i] = in.readInt();
+				}
+				return ints;
+			case LONG_ARRAY:
+				long[] longs = new long[in.readInt()];
+				for (int i = 0; i < longs.length; i++) {
+					longs[i] = in.readLong();
+				}
+				return longs;
+			case FLOAT_ARRAY:
+				float[] floats = new float[in.readInt()];
+				for (int i = 0; i < floats.length; i++) {
+					floats[i] = in.readFloat();
+				}
+				return floats;
+			case DOUBLE_ARRAY:
+				double[] doubles = new double[in.readInt()];
+				for (int i = 0; i < doubles.length; i++) {
+					doubles[i] = in.readDouble();
+				}
+				return doubles;
+			default:
+				throw new IOException("Unknown annotation value tag: " + tag);
+		}
+	}
+
+
+	/**
+	 * Load the {@link ClassMetadataIndex} from {@value #METADATA_RESOURCE_LOCATION},
+	 * using the given class loader. If no index is available, return {@code null}.
+	 * @param classLoader the ClassLoader to use for loading
+	 * (can be {@code null} to use the default)
+	 * @return the index to use or {@code null} if no index was found
+	 * @throws IllegalStateException if any index file cannot be read
+	 */
+	@Nullable
+	public static ClassMetadataIndex loadIndex(@Nullable ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ClassMetadataIndex.class.getClassLoader();
+		}
+		// Cache empty results as well: this is consulted for every metadata reader
+		ClassMetadataIndex index = cache.computeIfAbsent(classLoaderToUse, ClassMetadataIndex::doLoadIndex);
+		return (index != EMPTY ? index : null);
+	}
+
+	private static ClassMetadataIndex doLoadIndex(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(METADATA_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return EMPTY;
+			}
+			Map<String, byte[]> entries = new HashMap<>();
+			int count = 0;
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				try (InputStream is = url.openStream()) {
+					readEntries(new DataInputStream(is), entries, url);
+				}
+				count++;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + count + " class metadata index(es) with " + entries.size() + " entries");
+			}
+			return (!entries.isEmpty() ? new ClassMetadataIndex(entries) : EMPTY);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load indexes from location [" +
+					METADATA_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+	private static void readEntries(DataInputStream in, Map<String, byte[]> entries, URL url) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			throw new IOException("Unsupported class metadata index format in " + url);
+		}
+		for (int i = in.readInt(); i > 0; i--) {
+			String className = in.readUTF();
+			byte[] entry = new byte[in.readInt()];
+			in.readFully(entry);
+			// First one wins, in line with class loading
+			entries.putIfAbsent(className, entry);
+		}
+	}
+
+}
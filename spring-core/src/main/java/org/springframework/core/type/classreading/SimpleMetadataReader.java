@@ -29,7 +29,8 @@ import org.springframework.lang.Nullable;
 
 /**
  * {@link MetadataReader} implementation based on an ASM
- * {@link org.springframework.asm.ClassReader}.
+ * {@link org.springframework.asm.ClassReader}, or on visitor events
+ * replayed from a {@link ClassMetadataIndex}.
  *
  * <p>Package-visible in order to allow for repackaging the ASM library
  * without effect on users of the {@code core.type} package.
@@ -70,6 +71,12 @@ final class SimpleMetadataReader implements MetadataReader {
 		this.resource = resource;
 	}
 
+	SimpleMetadataReader(Resource resource, AnnotationMetadataReadingVisitor visitor) {
+		this.annotationMetadata = visitor;
+		this.classMetadata = visitor;
+		this.resource = resource;
+	}
+
 
 	@Override
 	public Resource getResource() {
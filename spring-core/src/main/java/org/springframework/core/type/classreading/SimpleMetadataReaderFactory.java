@@ -29,6 +29,9 @@ import org.springframework.util.ClassUtils;
  * Simple implementation of the {@link MetadataReaderFactory} interface,
  * creating a new ASM {@link org.springframework.asm.ClassReader} for every request.
  *
+ * <p>As of 5.1, class names covered by a build-time {@link ClassMetadataIndex}
+ * are resolved from the index instead of reading their class files.
+ *
  * @author Juergen Hoeller
  * @since 2.5
  */
@@ -78,6 +81,14 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 			String resourcePath = ResourceLoader.CLASSPATH_URL_PREFIX +
 					ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX;
 			Resource resource = this.resourceLoader.getResource(resourcePath);
+			ClassLoader classLoader = this.resourceLoader.getClassLoader();
+			ClassMetadataIndex index = ClassMetadataIndex.loadIndex(classLoader);
+			if (index != null) {
+				MetadataReader metadataReader = index.getMetadataReader(className, resource, classLoader);
+				if (metadataReader != null) {
+					return metadataReader;
+				}
+			}
 			return getMetadataReader(resource);
 		}
 		catch (FileNotFoundException ex) {
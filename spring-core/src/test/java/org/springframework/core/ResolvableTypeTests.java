@@ -117,6 +117,30 @@ public class ResolvableTypeTests {
 		assertTrue(type.isAssignableFrom(String.class));
 	}
 
+	@Test
+	public void forClassIsShared() throws Exception {
+		ResolvableType type = ResolvableType.forClass(ExtendsList.class);
+		assertSame(type, ResolvableType.forClass(ExtendsList.class));
+		assertSame(ResolvableType.forClass(Object.class), ResolvableType.forClass(null));
+		assertSame(type.getSuperType(), ResolvableType.forClass(ExtendsList.class).getSuperType());
+		assertSame(type.as(List.class).getGeneric(), ResolvableType.forClass(ExtendsList.class).as(List.class).getGeneric());
+	}
+
+	@Test
+	public void isAssignableFromForSharedTypesIsConsistent() throws Exception {
+		ResolvableType listOfCharSequence = ResolvableType.forClass(ExtendsList.class).as(List.class);
+		ResolvableType mapOfString = ResolvableType.forClass(ExtendsMap.class).as(Map.class);
+		for (int i = 0; i < 2; i++) {
+			assertTrue(listOfCharSequence.isAssignableFrom(ExtendsList.class));
+			assertFalse(listOfCharSequence.isAssignableFrom(ExtendsMap.class));
+			assertTrue(mapOfString.isAssignableFrom(ExtendsMap.class));
+			assertFalse(mapOfString.isAssignableFrom(ArrayList.class));
+		}
+		ResolvableType.clearCache();
+		assertTrue(listOfCharSequence.isAssignableFrom(ExtendsList.class));
+		assertNotSame(listOfCharSequence, ResolvableType.forClass(ExtendsList.class).as(List.class));
+	}
+
 	@Test
 	public void forRawClass() throws Exception {
 		ResolvableType type = ResolvableType.forRawClass(ExtendsList.class);
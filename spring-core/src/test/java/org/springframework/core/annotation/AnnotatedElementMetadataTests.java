@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+
+import org.junit.Test;
+
+import org.springframework.util.ReflectionUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per-element caching of merged annotation lookups
+ * in {@link AnnotatedElementUtils}.
+ *
+ * @since 5.1
+ * @see AnnotatedElementMetadata
+ */
+public class AnnotatedElementMetadataTests {
+
+	@Test
+	public void mergedAnnotationIsCachedPerElement() {
+		Method method = ReflectionUtils.findMethod(Annotated.class, "handle");
+		Mapping first = AnnotatedElementUtils.getMergedAnnotation(method, Mapping.class);
+		Mapping second = AnnotatedElementUtils.getMergedAnnotation(
+				ReflectionUtils.findMethod(Annotated.class, "handle"), Mapping.class);
+
+		assertNotNull(first);
+		assertEquals("/get", first.path());
+		assertSame(first, second);
+		assertEquals(first, AnnotatedElementUtils.findMergedAnnotation(method, Mapping.class));
+	}
+
+	@Test
+	public void mergedAnnotationAttributesAreCopied() {
+		AnnotationAttributes first = AnnotatedElementUtils.getMergedAnnotationAttributes(Annotated.class, Mapping.class);
+		assertNotNull(first);
+		assertArrayEquals(new String[] {"text/plain"}, first.getStringArray("produces"));
+		first.put("path", "/changed");
+		first.getStringArray("produces")[0] = "changed";
+
+		AnnotationAttributes second = AnnotatedElementUtils.getMergedAnnotationAttributes(Annotated.class, Mapping.class);
+		assertNotSame(first, second);
+		assertEquals("/get", second.getString("path"));
+		assertArrayEquals(new String[] {"text/plain"}, second.getStringArray("produces"));
+	}
+
+	@Test
+	public void lookupModesAreCachedSeparately() {
+		AnnotationAttributes attributes = AnnotatedElementUtils.findMergedAnnotationAttributes(
+				Annotated.class, Mapping.class, false, false);
+		AnnotationAttributes stringAttributes = AnnotatedElementUtils.findMergedAnnotationAttributes(
+				Annotated.class, Mapping.class.getName(), true, false);
+
+		assertEquals(String.class, attributes.get("type"));
+		assertEquals(String.class.getName(), stringAttributes.get("type"));
+		assertTrue(AnnotatedElementUtils.isAnnotated(Annotated.class, Mapping.class));
+		assertTrue(AnnotatedElementUtils.hasAnnotation(Annotated.class, Mapping.class));
+		assertFalse(AnnotatedElementUtils.isAnnotated(Annotated.class, Retention.class));
+	}
+
+	@Test
+	public void cacheIsClearedWithAnnotationUtils() {
+		Mapping first = AnnotatedElementUtils.getMergedAnnotation(Annotated.class, Mapping.class);
+		AnnotationUtils.clearCache();
+		Mapping second = AnnotatedElementUtils.getMergedAnnotation(Annotated.class, Mapping.class);
+
+		assertNotSame(first, second);
+		assertEquals(first, second);
+	}
+
+	@Test
+	public void nonCacheableElementIsResolvedOnEveryCall() {
+		AnnotatedElement element = AnnotatedElementUtils.forAnnotations(Annotated.class.getAnnotations());
+		Mapping first = AnnotatedElementUtils.getMergedAnnotation(element, Mapping.class);
+		Mapping second = AnnotatedElementUtils.getMergedAnnotation(element, Mapping.class);
+
+		assertNotNull(first);
+		assertNotSame(first, second);
+		assertEquals(first, second);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String value() default "";
+
+		@AliasFor("value")
+		String path() default "";
+
+		String[] produces() default {};
+
+		Class<?> type() default Object.class;
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Mapping(produces = "text/plain", type = String.class)
+	public @interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String path() default "";
+	}
+
+
+	@GetMapping(path = "/get")
+	static class Annotated {
+
+		@GetMapping(path = "/get")
+		public void handle() {
+		}
+	}
+
+}
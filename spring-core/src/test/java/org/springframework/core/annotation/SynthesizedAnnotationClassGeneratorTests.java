@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SynthesizedAnnotationClassGenerator} and
+ * {@link AbstractSynthesizedAnnotation}.
+ *
+ * @since 5.1
+ */
+public class SynthesizedAnnotationClassGeneratorTests {
+
+	@Test
+	public void publicAnnotationIsSynthesizedIntoGeneratedClass() {
+		Aliased annotation = AnnotatedWithValue.class.getAnnotation(Aliased.class);
+		Aliased synthesized = AnnotationUtils.synthesizeAnnotation(annotation, AnnotatedWithValue.class);
+
+		assertTrue(synthesized instanceof AbstractSynthesizedAnnotation);
+		assertFalse(Proxy.isProxyClass(synthesized.getClass()));
+		assertEquals(Aliased.class, synthesized.annotationType());
+		assertEquals("/test", synthesized.value());
+		assertEquals("/test", synthesized.path());
+	}
+
+	@Test
+	public void attributeValuesOfAllKinds() {
+		Attributes synthesized = AnnotationUtils.synthesizeAnnotation(
+				AnnotatedWithAttributes.class.getAnnotation(Attributes.class), AnnotatedWithAttributes.class);
+
+		assertTrue(synthesized instanceof AbstractSynthesizedAnnotation);
+		assertEquals(42, synthesized.number());
+		assertTrue(synthesized.flag());
+		assertEquals('x', synthesized.character());
+		assertEquals(TimeUnit.SECONDS, synthesized.unit());
+		assertEquals(String.class, synthesized.type());
+		assertArrayEquals(new String[] {"a", "b"}, synthesized.names());
+		assertArrayEquals(new int[] {1, 2}, synthesized.numbers());
+		assertEquals("/nested", synthesized.nested().path());
+		assertTrue(synthesized.nested() instanceof SynthesizedAnnotation);
+	}
+
+	@Test
+	public void arrayValuesAreCloned() {
+		Attributes synthesized = AnnotationUtils.synthesizeAnnotation(
+				AnnotatedWithAttributes.class.getAnnotation(Attributes.class), AnnotatedWithAttributes.class);
+
+		synthesized.names()[0] = "changed";
+		synthesized.numbers()[0] = 0;
+		assertArrayEquals(new String[] {"a", "b"}, synthesized.names());
+		assertArrayEquals(new int[] {1, 2}, synthesized.numbers());
+	}
+
+	@Test
+	public void equalsHashCodeAndToStringAreConsistentWithJdkAnnotation() {
+		Values annotation = AnnotatedWithValues.class.getAnnotation(Values.class);
+		Values synthesized = AnnotationUtils.synthesizeAnnotation(
+				AnnotationUtils.getAnnotationAttributes(annotation), Values.class, AnnotatedWithValues.class);
+
+		assertTrue(synthesized instanceof AbstractSynthesizedAnnotation);
+		assertEquals(annotation, synthesized);
+		assertEquals(synthesized, annotation);
+		assertEquals(annotation.hashCode(), synthesized.hashCode());
+		assertTrue(synthesized.toString().startsWith("@" + Values.class.getName() + "("));
+		assertTrue(synthesized.toString().contains("names=[a, b]"));
+	}
+
+	@Test
+	public void synthesizedFromDefaults() {
+		Aliased synthesized = AnnotationUtils.synthesizeAnnotation(Aliased.class);
+
+		assertTrue(synthesized instanceof AbstractSynthesizedAnnotation);
+		assertEquals("", synthesized.value());
+		assertEquals(synthesized, AnnotationUtils.synthesizeAnnotation(
+				Collections.emptyMap(), Aliased.class, null));
+	}
+
+	@Test
+	public void nonPublicAnnotationIsSynthesizedIntoProxy() {
+		NonPublicAliased annotation = AnnotatedWithNonPublic.class.getAnnotation(NonPublicAliased.class);
+		NonPublicAliased synthesized = AnnotationUtils.synthesizeAnnotation(annotation, AnnotatedWithNonPublic.class);
+
+		assertTrue(Proxy.isProxyClass(synthesized.getClass()));
+		assertTrue(synthesized instanceof SynthesizedAnnotation);
+		assertEquals("/test", synthesized.path());
+	}
+
+	@Test
+	public void generatedClassIsReusedPerAnnotationType() {
+		Annotation first = AnnotationUtils.synthesizeAnnotation(Aliased.class);
+		Annotation second = AnnotationUtils.synthesizeAnnotation(
+				AnnotatedWithValue.class.getAnnotation(Aliased.class), AnnotatedWithValue.class);
+
+		assertSame(first.getClass(), second.getClass());
+		assertNotEquals(first, second);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Aliased {
+
+		@AliasFor("path")
+		String value() default "";
+
+		@AliasFor("value")
+		String path() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Attributes {
+
+		int number();
+
+		boolean flag();
+
+		char character();
+
+		TimeUnit unit();
+
+		Class<?> type();
+
+		String[] names();
+
+		int[] numbers();
+
+		Aliased nested();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Values {
+
+		long number();
+
+		String[] names();
+
+		TimeUnit[] units();
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface NonPublicAliased {
+
+		@AliasFor("path")
+		String value() default "";
+
+		@AliasFor("value")
+		String path() default "";
+	}
+
+
+	@Aliased("/test")
+	static class AnnotatedWithValue {
+	}
+
+
+	@Attributes(number = 42, flag = true, character = 'x', unit = TimeUnit.SECONDS, type = String.class,
+			names = {"a", "b"}, numbers = {1, 2}, nested = @Aliased(path = "/nested"))
+	static class AnnotatedWithAttributes {
+	}
+
+
+	@Values(number = 42L, names = {"a", "b"}, units = {TimeUnit.SECONDS, TimeUnit.DAYS})
+	static class AnnotatedWithValues {
+	}
+
+
+	@NonPublicAliased("/test")
+	static class AnnotatedWithNonPublic {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,7 +53,9 @@ public abstract class AbstractDataBufferAllocatingTestCase {
 				{new NettyDataBufferFactory(new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0, true))},
 				{new NettyDataBufferFactory(new PooledByteBufAllocator(false, 1, 1, 8192, 11, 0, 0, 0, true))},
 				{new DefaultDataBufferFactory(true)},
-				{new DefaultDataBufferFactory(false)}
+				{new DefaultDataBufferFactory(false)},
+				{new PooledDataBufferFactory(true)},
+				{new PooledDataBufferFactory(false)}
 
 		};
 	}
@@ -103,6 +105,11 @@ public abstract class AbstractDataBufferAllocatingTestCase {
 							" allocations were not released", allocations == 0);
 				}
 			}
+			else if (bufferFactory instanceof PooledDataBufferFactory) {
+				long activeBytes = ((PooledDataBufferFactory) bufferFactory).getActiveBytes();
+				assertTrue("DataBuffer leak detected: " + activeBytes +
+						" bytes were not released", activeBytes == 0);
+			}
 		}
 
 		private long calculateAllocations(List<PoolArenaMetric> metrics) {
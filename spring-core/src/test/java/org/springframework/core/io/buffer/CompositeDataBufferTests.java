@@ -0,0 +1,231 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @since 5.1
+ */
+public class CompositeDataBufferTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@Before
+	public void setup() {
+		this.bufferFactory.setCompositeJoinEnabled(true);
+	}
+
+
+	@Test
+	public void joinCopiesByDefault() {
+		DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+		DataBuffer composite = bufferFactory.join(Arrays.asList(stringBuffer("foo"), stringBuffer("bar")));
+
+		assertTrue(composite instanceof DefaultDataBuffer);
+		assertEquals("foobar", readString(composite));
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void joinSingleBuffer() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer composite = this.bufferFactory.join(Collections.singletonList(foo));
+
+		assertTrue(composite instanceof CompositeDataBuffer);
+		assertEquals("foo", readString(composite));
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void joinWithoutCopying() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		DataBuffer composite = this.bufferFactory.join(Arrays.asList(foo, bar));
+
+		assertTrue(composite instanceof CompositeDataBuffer);
+		assertEquals(2, ((CompositeDataBuffer) composite).getComponentCount());
+		assertEquals(6, composite.readableByteCount());
+		assertEquals("foobar", readString(composite));
+
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void partiallyReadAndEmptyComponents() {
+		DataBuffer foo = stringBuffer("xfoo");
+		foo.read();
+		DataBuffer composite = this.bufferFactory.join(
+				Arrays.asList(foo, this.bufferFactory.allocateBuffer(8), stringBuffer("bar")));
+
+		assertEquals(2, ((CompositeDataBuffer) composite).getComponentCount());
+		assertEquals("foobar", readString(composite));
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void getByteAndIndexOfAcrossComponents() {
+		DataBuffer composite = join("ab", "c", "de");
+
+		assertEquals('c', composite.getByte(2));
+		assertEquals('d', composite.getByte(3));
+		assertEquals(3, composite.indexOf(b -> b == 'd', 0));
+		assertEquals(3, composite.indexOf(b -> b == 'd', 3));
+		assertEquals(-1, composite.indexOf(b -> b == 'a', 1));
+		assertEquals(1, composite.lastIndexOf(b -> b == 'b', 4));
+		assertEquals(4, composite.lastIndexOf(b -> b == 'e', 10));
+		assertEquals(-1, composite.lastIndexOf(b -> b == 'e', 3));
+
+		DataBufferUtils.release(composite);
+	}
+
+	@Test
+	public void asByteBuffer() {
+		DataBuffer composite = join("abc", "def");
+
+		ByteBuffer view = composite.asByteBuffer(3, 3);
+		assertEquals(3, view.remaining());
+		assertEquals('d', view.get());
+
+		ByteBuffer copy = composite.asByteBuffer(1, 4);
+		byte[] bytes = new byte[4];
+		copy.get(bytes);
+		assertEquals("bcde", new String(bytes, StandardCharsets.UTF_8));
+		assertEquals(0, composite.readPosition());
+
+		DataBufferUtils.release(composite);
+	}
+
+	@Test
+	public void asInputStream() throws Exception {
+		DataBuffer composite = join("Hello ", "World", "!");
+		InputStream inputStream = composite.asInputStream(true);
+		assertEquals("Hello World!", StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8));
+		inputStream.close();
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void writeAppendsComponent() {
+		CompositeDataBuffer composite = (CompositeDataBuffer) join("ab", "cd");
+		composite.write((byte) 'e');
+		composite.write("fgh".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(3, composite.getComponentCount());
+		assertEquals("abcdefgh", readString(composite));
+
+		composite.readPosition(0).writePosition(2);
+		composite.write(ByteBuffer.wrap("XY".getBytes(StandardCharsets.UTF_8)));
+		composite.writePosition(8);
+		assertEquals("abXYefgh", readString(composite));
+
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DataBuffer composite = join("abc", "def");
+		DataBuffer slice = composite.slice(2, 3);
+
+		assertEquals("cde", readString(slice));
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(composite));
+		assertTrue(DataBufferUtils.release(slice));
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void decreaseCapacity() {
+		CompositeDataBuffer composite = (CompositeDataBuffer) join("abc", "def", "ghi");
+		composite.read();
+		composite.capacity(4);
+
+		assertEquals(4, composite.capacity());
+		assertEquals(2, composite.getComponentCount());
+		assertEquals("bcd", readString(composite));
+
+		composite.write("XY".getBytes(StandardCharsets.UTF_8));
+		composite.readPosition(0);
+		assertEquals("abcdXY", readString(composite));
+
+		composite.capacity(2);
+		assertEquals(2, composite.readPosition());
+		assertEquals(2, composite.writePosition());
+
+		DataBufferUtils.release(composite);
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+	}
+
+	@Test
+	public void releaseAfterRelease() {
+		DataBuffer composite = join("a", "b");
+		assertTrue(DataBufferUtils.release(composite));
+		assertEquals(0, this.bufferFactory.getActiveBytes());
+		try {
+			DataBufferUtils.release(composite);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void retainAfterRelease() {
+		DataBuffer composite = join("a", "b");
+		DataBufferUtils.release(composite);
+		DataBufferUtils.retain(composite);
+	}
+
+
+	private DataBuffer join(String... values) {
+		return this.bufferFactory.join(Arrays.stream(values).map(this::stringBuffer).collect(
+				Collectors.toList()));
+	}
+
+	private DataBuffer stringBuffer(String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		return this.bufferFactory.allocateBuffer(bytes.length).write(bytes);
+	}
+
+	private static String readString(DataBuffer dataBuffer) {
+		byte[] bytes = new byte[dataBuffer.readableByteCount()];
+		dataBuffer.read(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
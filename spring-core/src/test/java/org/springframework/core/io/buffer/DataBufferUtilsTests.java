@@ -333,4 +333,20 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 		release(result);
 	}
 
+	@Test
+	public void joinWithoutCopying() {
+		DataBuffer foo = stringBuffer("foo");
+		DataBuffer bar = stringBuffer("bar");
+		Flux<DataBuffer> flux = Flux.just(foo, bar);
+
+		DataBuffer result = DataBufferUtils.join(flux).block(Duration.ofSeconds(5));
+
+		if (this.bufferFactory instanceof DefaultDataBufferFactory) {
+			assertTrue(result instanceof CompositeDataBuffer);
+		}
+		assertEquals("foobar", DataBufferTestUtils.dumpString(result, StandardCharsets.UTF_8));
+
+		release(result);
+	}
+
 }
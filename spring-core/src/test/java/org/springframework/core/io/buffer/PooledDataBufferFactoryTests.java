@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @since 5.1
+ */
+public class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory factory = new PooledDataBufferFactory(false, 4096, 16 * 1024);
+
+
+	@Test
+	public void releasedMemoryIsReused() {
+		DataBuffer buffer = this.factory.allocateBuffer(100);
+		assertEquals(100, buffer.capacity());
+		assertEquals(256, this.factory.getActiveBytes());
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.factory.getActiveBytes());
+		assertEquals(256, this.factory.getRetainedBytes());
+
+		buffer = this.factory.allocateBuffer(200);
+		assertEquals(200, buffer.capacity());
+		assertEquals(2, this.factory.getAllocationCount());
+		assertEquals(1, this.factory.getPoolHitCount());
+		assertEquals(0, this.factory.getRetainedBytes());
+		DataBufferUtils.release(buffer);
+	}
+
+	@Test
+	public void sizeClasses() {
+		DataBuffer buffer = this.factory.allocateBuffer(257);
+		assertEquals(512, this.factory.getActiveBytes());
+		DataBufferUtils.release(buffer);
+
+		buffer = this.factory.allocateBuffer(300);
+		assertEquals(1, this.factory.getPoolHitCount());
+		DataBufferUtils.release(buffer);
+
+		buffer = this.factory.allocateBuffer(100);
+		assertEquals(1, this.factory.getPoolHitCount());
+		DataBufferUtils.release(buffer);
+		assertEquals(768, this.factory.getRetainedBytes());
+	}
+
+	@Test
+	public void largeBuffersAreNotPooled() {
+		DataBuffer buffer = this.factory.allocateBuffer(5000);
+		assertEquals(5000, this.factory.getActiveBytes());
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.factory.getActiveBytes());
+		assertEquals(0, this.factory.getRetainedBytes());
+	}
+
+	@Test
+	public void maxRetainedBytes() {
+		DataBuffer[] buffers = new DataBuffer[5];
+		for (int i = 0; i < buffers.length; i++) {
+			buffers[i] = this.factory.allocateBuffer(4096);
+		}
+		for (DataBuffer buffer : buffers) {
+			DataBufferUtils.release(buffer);
+		}
+		assertEquals(0, this.factory.getActiveBytes());
+		assertEquals(16 * 1024, this.factory.getRetainedBytes());
+	}
+
+	@Test
+	public void growingBufferRecyclesPreviousMemory() {
+		DataBuffer buffer = this.factory.allocateBuffer(4);
+		buffer.write("Hello".getBytes(StandardCharsets.UTF_8));
+		buffer.write(new byte[300]);
+		assertEquals(305, buffer.readableByteCount());
+		assertEquals(512, this.factory.getActiveBytes());
+		assertEquals(256, this.factory.getRetainedBytes());
+
+		byte[] bytes = new byte[5];
+		buffer.read(bytes);
+		assertEquals("Hello", new String(bytes, StandardCharsets.UTF_8));
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.factory.getActiveBytes());
+	}
+
+	@Test
+	public void growingBufferKeepsMemoryOfLiveSlice() {
+		DataBuffer buffer = this.factory.allocateBuffer(4);
+		buffer.write("abc".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(0, 3);
+		buffer.write(new byte[300]);
+		assertEquals(768, this.factory.getActiveBytes());
+		assertEquals(0, this.factory.getRetainedBytes());
+
+		DataBuffer other = this.factory.allocateBuffer(4);
+		other.write("xyz".getBytes(StandardCharsets.UTF_8));
+		byte[] bytes = new byte[3];
+		slice.read(bytes);
+		assertEquals("abc", new String(bytes, StandardCharsets.UTF_8));
+
+		DataBufferUtils.release(other);
+		DataBufferUtils.release(buffer);
+		assertEquals(0, this.factory.getActiveBytes());
+		assertEquals(1024, this.factory.getRetainedBytes());
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.factory.allocateBuffer(8);
+		buffer.write("abcdef".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(1, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+		assertEquals('b', slice.read());
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(DataBufferUtils.release(slice));
+		assertEquals(0, this.factory.getActiveBytes());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void retainAfterRelease() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.factory.allocateBuffer(8);
+		buffer.release();
+		buffer.retain();
+	}
+
+	@Test
+	public void joinReleasesPooledBuffers() {
+		DataBuffer first = this.factory.allocateBuffer(8).write("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer second = this.factory.allocateBuffer(8).write("bar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer result = this.factory.join(Arrays.asList(first, second));
+		assertEquals(6, result.readableByteCount());
+		DataBufferUtils.release(result);
+		assertEquals(0, this.factory.getActiveBytes());
+	}
+
+	@Test
+	public void leakDetection() throws InterruptedException {
+		this.factory.setLeakDetectionEnabled(true);
+		this.factory.allocateBuffer(8);
+		for (int i = 0; i < 50 && this.factory.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+			DataBufferUtils.release(this.factory.allocateBuffer(8));
+		}
+		assertEquals(1, this.factory.getLeakCount());
+		assertEquals(0, this.factory.getActiveBytes());
+	}
+
+}
@@ -0,0 +1,524 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToIntFunction;
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Writer for batch updates which accepts rows one at a time and sends them
+ * to the database in batches, as an alternative to materializing all batch
+ * arguments up front for {@link JdbcTemplate#batchUpdate}.
+ *
+ * <p>A batch is flushed once it reaches the configured {@link #setBatchSize
+ * number of rows} or, if a {@link #setRowSizeEstimator row size estimator} is
+ * available, the configured {@link #setMaxBatchBytes number of bytes}. Remaining
+ * rows are flushed on {@link #flush()} and {@link #close()}.
+ *
+ * <p>With a {@link #setFlushExecutor flush executor}, batches are flushed on a
+ * background thread while the caller keeps writing rows, with at most
+ * {@link #setMaxPendingBatches maxPendingBatches} batches buffered before
+ * {@link #write} blocks. A failed background flush discards subsequent batches
+ * and is rethrown on the next {@link #write}, {@link #flush} or {@link #close}.
+ *
+ * <p>Within a transaction, as indicated by {@link TransactionSynchronizationManager},
+ * batches are always flushed on the calling thread so that they participate in the
+ * transaction. Rows still buffered get flushed before the transaction commits or
+ * gets suspended, and discarded if it rolls back.
+ *
+ * <pre class="code">
+ * try (BatchWriter&lt;Object[]&gt; writer = BatchWriter.forArguments(jdbcTemplate, "INSERT INTO t VALUES (?, ?)")) {
+ *     for (Item item : items) {
+ *         writer.write(new Object[] {item.getId(), item.getName()});
+ *     }
+ * }</pre>
+ *
+ * <p><b>NOTE: A BatchWriter is not thread-safe and is meant to be used by a
+ * single producer thread, analogous to a {@link java.io.Writer}.</b>
+ *
+ * @since 5.1
+ * @param <T> the type of rows to write
+ * @see JdbcTemplate#batchUpdate(String, java.util.Collection, int, ParameterizedPreparedStatementSetter)
+ * @see BatchWriterMetrics
+ */
+public class BatchWriter<T> implements AutoCloseable {
+
+	/** Default maximum number of rows per batch: 1000 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/** Default maximum number of batches buffered for a background flush: 2 */
+	public static final int DEFAULT_MAX_PENDING_BATCHES = 2;
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String sql;
+
+	private final ParameterizedPreparedStatementSetter<T> pss;
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private long maxBatchBytes = -1;
+
+	@Nullable
+	private ToIntFunction<? super T> rowSizeEstimator;
+
+	@Nullable
+	private Executor flushExecutor;
+
+	private int maxPendingBatches = DEFAULT_MAX_PENDING_BATCHES;
+
+	private final BatchWriterMetrics metrics = new BatchWriterMetrics();
+
+	private List<T> rows = new ArrayList<>();
+
+	private long rowBytes;
+
+	@Nullable
+	private BlockingQueue<PendingBatch<T>> pendingBatches;
+
+	@Nullable
+	private PendingBatch<T> lastPendingBatch;
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	@Nullable
+	private volatile Throwable flushFailure;
+
+	private boolean synchronizationRegistered;
+
+	private boolean closed;
+
+
+	/**
+	 * Create a new BatchWriter for the given SQL statement.
+	 * @param jdbcTemplate the JdbcTemplate to execute batches with
+	 * @param sql the SQL statement to execute for each row
+	 * @param pss the callback setting the statement parameters for each row
+	 */
+	public BatchWriter(JdbcTemplate jdbcTemplate, String sql, ParameterizedPreparedStatementSetter<T> pss) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.hasText(sql, "SQL must not be empty");
+		Assert.notNull(pss, "ParameterizedPreparedStatementSetter must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+		this.sql = sql;
+		this.pss = pss;
+	}
+
+
+	/**
+	 * Create a new BatchWriter for rows given as argument arrays, binding
+	 * the arguments like {@link JdbcTemplate#batchUpdate(String, List)} and
+	 * estimating the size of each row for the {@link #setMaxBatchBytes} limit.
+	 * @param jdbcTemplate the JdbcTemplate to execute batches with
+	 * @param sql the SQL statement to execute for each row
+	 * @return the new BatchWriter
+	 */
+	public static BatchWriter<Object[]> forArguments(JdbcTemplate jdbcTemplate, String sql) {
+		BatchWriter<Object[]> writer = new BatchWriter<>(jdbcTemplate, sql,
+				(ps, args) -> BatchUpdateUtils.setStatementParameters(args, ps, null));
+		writer.setRowSizeEstimator(BatchWriter::estimateArgumentsSize);
+		return writer;
+	}
+
+
+	/**
+	 * Set the maximum number of rows per batch. Default is 1000.
+	 */
+	public void setBatchSize(int batchSize) {
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Return the maximum number of rows per batch.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Set the maximum number of bytes per batch, as determined through the
+	 * {@link #setRowSizeEstimator row size estimator}. Default is -1 (no limit).
+	 * <p>A batch is flushed as soon as the estimated size of its rows reaches
+	 * this limit, even if it contains fewer rows than the batch size.
+	 */
+	public void setMaxBatchBytes(long maxBatchBytes) {
+		this.maxBatchBytes = maxBatchBytes;
+	}
+
+	/**
+	 * Return the maximum number of bytes per batch.
+	 */
+	public long getMaxBatchBytes() {
+		return this.maxBatchBytes;
+	}
+
+	/**
+	 * Set a function estimating the size of a row in bytes, for enforcing
+	 * the {@link #setMaxBatchBytes maxBatchBytes} limit.
+	 */
+	public void setRowSizeEstimator(@Nullable ToIntFunction<? super T> rowSizeEstimator) {
+		this.rowSizeEstimator = rowSizeEstimator;
+	}
+
+	/**
+	 * Return the function estimating the size of a row in bytes, if any.
+	 */
+	@Nullable
+	public ToIntFunction<? super T> getRowSizeEstimator() {
+		return this.rowSizeEstimator;
+	}
+
+	/**
+	 * Set an executor for flushing batches on a background thread.
+	 * Default is none, flushing batches on the thread that writes the rows.
+	 * <p>Batches are flushed one after the other, in the order of writing.
+	 * Within a transaction, batches are flushed on the calling thread either way.
+	 * @see #setMaxPendingBatches
+	 */
+	public void setFlushExecutor(@Nullable Executor flushExecutor) {
+		Assert.state(this.pendingBatches == null, "BatchWriter already flushed batches in the background");
+		this.flushExecutor = flushExecutor;
+	}
+
+	/**
+	 * Return the executor for flushing batches on a background thread, if any.
+	 */
+	@Nullable
+	public Executor getFlushExecutor() {
+		return this.flushExecutor;
+	}
+
+	/**
+	 * Set the maximum number of batches buffered for a background flush,
+	 * including the batch being flushed. Default is 2.
+	 * <p>Writing a row that completes a batch blocks until a buffered batch
+	 * has been flushed once this limit is reached.
+	 * @see #setFlushExecutor
+	 */
+	public void setMaxPendingBatches(int maxPendingBatches) {
+		Assert.isTrue(maxPendingBatches > 0, "Max pending batches must be greater than 0");
+		Assert.state(this.pendingBatches == null, "BatchWriter already flushed batches in the background");
+		this.maxPendingBatches = maxPendingBatches;
+	}
+
+	/**
+	 * Return the maximum number of batches buffered for a background flush.
+	 */
+	public int getMaxPendingBatches() {
+		return this.maxPendingBatches;
+	}
+
+	/**
+	 * Return the flush statistics of this BatchWriter.
+	 */
+	public BatchWriterMetrics getMetrics() {
+		return this.metrics;
+	}
+
+
+	/**
+	 * Write the given row, flushing the current batch if it reaches
+	 * the batch size or the maximum number of bytes.
+	 * @param row the row to write
+	 * @throws org.springframework.dao.DataAccessException if flushing failed,
+	 * either for this row's batch or for a previous batch flushed in the background
+	 */
+	public void write(T row) {
+		Assert.state(!this.closed, "BatchWriter already closed");
+		checkFlushFailure();
+		registerSynchronizationIfNecessary();
+		this.rows.add(row);
+		if (this.maxBatchBytes >= 0 && this.rowSizeEstimator != null) {
+			this.rowBytes += this.rowSizeEstimator.applyAsInt(row);
+		}
+		if (this.rows.size() >= this.batchSize ||
+				(this.maxBatchBytes >= 0 && this.rowSizeEstimator != null && this.rowBytes >= this.maxBatchBytes)) {
+			flushRows();
+		}
+	}
+
+	/**
+	 * Flush all rows written so far, waiting for any background flush to complete.
+	 * @throws org.springframework.dao.DataAccessException if flushing failed
+	 */
+	public void flush() {
+		checkFlushFailure();
+		flushRows();
+		awaitPendingBatches();
+	}
+
+	/**
+	 * Flush all rows written so far and close this BatchWriter.
+	 * An executor given for background flushes is not shut down.
+	 * @throws org.springframework.dao.DataAccessException if flushing failed
+	 */
+	@Override
+	public void close() {
+		if (!this.closed) {
+			try {
+				flush();
+			}
+			finally {
+				this.closed = true;
+			}
+		}
+	}
+
+
+	private void flushRows() {
+		if (this.rows.isEmpty()) {
+			return;
+		}
+		List<T> batch = this.rows;
+		this.rows = new ArrayList<>(Math.min(batch.size(), this.batchSize));
+		this.rowBytes = 0;
+		if (this.flushExecutor == null || isTransactionBound()) {
+			awaitPendingBatches();
+			executeBatch(batch);
+		}
+		else {
+			submitBatch(this.flushExecutor, batch);
+		}
+	}
+
+	/**
+	 * Determine whether batches need to be flushed on the calling thread,
+	 * in order to use a thread-bound Connection or to participate in
+	 * transaction synchronization.
+	 */
+	private boolean isTransactionBound() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			return true;
+		}
+		DataSource dataSource = this.jdbcTemplate.getDataSource();
+		return (dataSource != null && TransactionSynchronizationManager.hasResource(dataSource));
+	}
+
+	private void submitBatch(Executor flushExecutor, List<T> batch) {
+		BlockingQueue<PendingBatch<T>> pendingBatches = obtainPendingBatches();
+		PendingBatch<T> pendingBatch = new PendingBatch<>(batch);
+		try {
+			pendingBatches.put(pendingBatch);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DataAccessResourceFailureException("Interrupted while waiting for batch flush", ex);
+		}
+		this.lastPendingBatch = pendingBatch;
+		if (this.draining.compareAndSet(false, true)) {
+			try {
+				flushExecutor.execute(() -> drainPendingBatches(pendingBatches));
+			}
+			catch (RejectedExecutionException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Batch flush rejected by executor - flushing on calling thread instead", ex);
+				}
+				drainPendingBatches(pendingBatches);
+			}
+		}
+	}
+
+	private BlockingQueue<PendingBatch<T>> obtainPendingBatches() {
+		BlockingQueue<PendingBatch<T>> pendingBatches = this.pendingBatches;
+		if (pendingBatches == null) {
+			pendingBatches = new ArrayBlockingQueue<>(this.maxPendingBatches);
+			this.pendingBatches = pendingBatches;
+		}
+		return pendingBatches;
+	}
+
+	private void drainPendingBatches(BlockingQueue<PendingBatch<T>> pendingBatches) {
+		do {
+			PendingBatch<T> pendingBatch;
+			while ((pendingBatch = pendingBatches.peek()) != null) {
+				if (this.flushFailure == null) {
+					try {
+						executeBatch(pendingBatch.rows);
+					}
+					catch (Throwable ex) {
+						this.flushFailure = ex;
+					}
+				}
+				// Keep the batch counting towards the limit until done
+				pendingBatches.poll();
+				pendingBatch.done.countDown();
+			}
+			this.draining.set(false);
+		}
+		while (!pendingBatches.isEmpty() && this.draining.compareAndSet(false, true));
+	}
+
+	private void awaitPendingBatches() {
+		PendingBatch<T> lastPendingBatch = this.lastPendingBatch;
+		if (lastPendingBatch != null) {
+			try {
+				lastPendingBatch.done.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new DataAccessResourceFailureException("Interrupted while waiting for batch flush", ex);
+			}
+			this.lastPendingBatch = null;
+		}
+		checkFlushFailure();
+	}
+
+	private void checkFlushFailure() {
+		Throwable flushFailure = this.flushFailure;
+		if (flushFailure != null) {
+			ReflectionUtils.rethrowRuntimeException(flushFailure);
+		}
+	}
+
+	/**
+	 * Execute the given batch through the JdbcTemplate and record its metrics.
+	 * @param batch the rows to send to the database
+	 */
+	protected void executeBatch(List<T> batch) {
+		long startTime = System.nanoTime();
+		this.jdbcTemplate.batchUpdate(this.sql, batch, batch.size(), this.pss);
+		long flushTime = System.nanoTime() - startTime;
+		this.metrics.recordFlush(batch.size(), flushTime);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Flushed batch of " + batch.size() + " rows in " +
+					TimeUnit.NANOSECONDS.toMillis(flushTime) + " ms (" +
+					Math.round(BatchWriterMetrics.rowsPerSecond(batch.size(), flushTime)) + " rows/s)");
+		}
+	}
+
+	private void registerSynchronizationIfNecessary() {
+		if (!this.synchronizationRegistered && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new BatchWriterSynchronization());
+			this.synchronizationRegistered = true;
+		}
+	}
+
+	private void discardRows() {
+		if (!this.rows.isEmpty()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Discarding " + this.rows.size() + " unflushed rows after transaction rollback");
+			}
+			this.rows = new ArrayList<>();
+			this.rowBytes = 0;
+		}
+	}
+
+
+	/**
+	 * Estimate the size of a row given as argument array, counting the length
+	 * of character and binary values and 8 bytes for any other value.
+	 */
+	private static int estimateArgumentsSize(Object[] args) {
+		int size = 0;
+		for (Object arg : args) {
+			Object value = (arg instanceof SqlParameterValue ? ((SqlParameterValue) arg).getValue() : arg);
+			if (value instanceof CharSequence) {
+				size += ((CharSequence) value).length();
+			}
+			else if (value instanceof byte[]) {
+				size += ((byte[]) value).length;
+			}
+			else {
+				size += 8;
+			}
+		}
+		return size;
+	}
+
+
+	/**
+	 * A batch handed off to a background flush.
+	 */
+	private static final class PendingBatch<T> {
+
+		final List<T> rows;
+
+		final CountDownLatch done = new CountDownLatch(1);
+
+		PendingBatch(List<T> rows) {
+			this.rows = rows;
+		}
+	}
+
+
+	/**
+	 * Synchronization flushing the buffered rows along with the transaction
+	 * that they have been written in.
+	 */
+	private class BatchWriterSynchronization implements TransactionSynchronization, Ordered {
+
+		@Override
+		public int getOrder() {
+			// Flush while the transactional Connection is still bound
+			return Ordered.HIGHEST_PRECEDENCE;
+		}
+
+		@Override
+		public void suspend() {
+			flushRows();
+			synchronizationRegistered = false;
+		}
+
+		@Override
+		public void resume() {
+			synchronizationRegistered = true;
+		}
+
+		@Override
+		public void flush() {
+			BatchWriter.this.flush();
+		}
+
+		@Override
+		public void beforeCommit(boolean readOnly) {
+			BatchWriter.this.flush();
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			synchronizationRegistered = false;
+			if (status != STATUS_COMMITTED) {
+				discardRows();
+			}
+		}
+	}
+
+}
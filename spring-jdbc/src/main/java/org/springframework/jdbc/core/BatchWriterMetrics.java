@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flush statistics of a {@link BatchWriter}, covering every batch that
+ * it has sent to the database so far.
+ *
+ * <p>Flush times cover the execution of a batch through the underlying
+ * {@link JdbcTemplate}, including obtaining and releasing the Connection,
+ * but not the time that a batch spent waiting for a background flush.
+ *
+ * @since 5.1
+ * @see BatchWriter#getMetrics()
+ */
+public final class BatchWriterMetrics {
+
+	private final LongAdder flushCount = new LongAdder();
+
+	private final LongAdder rowCount = new LongAdder();
+
+	private final LongAdder totalFlushTime = new LongAdder();
+
+	private final AtomicLong maxFlushTime = new AtomicLong();
+
+	private volatile long lastFlushTime;
+
+	private volatile int lastFlushRowCount;
+
+
+	BatchWriterMetrics() {
+	}
+
+
+	/**
+	 * Return the number of batches flushed so far.
+	 */
+	public long getFlushCount() {
+		return this.flushCount.sum();
+	}
+
+	/**
+	 * Return the number of rows flushed so far.
+	 */
+	public long getRowCount() {
+		return this.rowCount.sum();
+	}
+
+	/**
+	 * Return the total time spent flushing batches, in nanoseconds.
+	 */
+	public long getTotalFlushTime() {
+		return this.totalFlushTime.sum();
+	}
+
+	/**
+	 * Return the maximum time spent flushing a single batch, in nanoseconds.
+	 */
+	public long getMaxFlushTime() {
+		return this.maxFlushTime.get();
+	}
+
+	/**
+	 * Return the average time spent flushing a single batch, in nanoseconds.
+	 */
+	public long getAverageFlushTime() {
+		long count = getFlushCount();
+		return (count > 0 ? getTotalFlushTime() / count : 0);
+	}
+
+	/**
+	 * Return the time spent flushing the most recent batch, in nanoseconds.
+	 */
+	public long getLastFlushTime() {
+		return this.lastFlushTime;
+	}
+
+	/**
+	 * Return the number of rows in the most recent batch.
+	 */
+	public int getLastFlushRowCount() {
+		return this.lastFlushRowCount;
+	}
+
+	/**
+	 * Return the number of rows flushed per second of flush time.
+	 */
+	public double getRowsPerSecond() {
+		return rowsPerSecond(getRowCount(), getTotalFlushTime());
+	}
+
+	/**
+	 * Record the flush of a batch.
+	 * @param rowCount the number of rows in the batch
+	 * @param flushTime the time spent flushing the batch, in nanoseconds
+	 */
+	void recordFlush(int rowCount, long flushTime) {
+		this.flushCount.increment();
+		this.rowCount.add(rowCount);
+		this.totalFlushTime.add(flushTime);
+		this.maxFlushTime.accumulateAndGet(flushTime, Math::max);
+		this.lastFlushTime = flushTime;
+		this.lastFlushRowCount = rowCount;
+	}
+
+
+	@Override
+	public String toString() {
+		return "BatchWriterMetrics: " + getRowCount() + " rows in " + getFlushCount() + " batches, average flush time " +
+				getAverageFlushTime() + " ns, " + Math.round(getRowsPerSecond()) + " rows/s";
+	}
+
+
+	static double rowsPerSecond(long rowCount, long flushTime) {
+		return (flushTime > 0 ? (double) rowCount * TimeUnit.SECONDS.toNanos(1) / flushTime : 0);
+	}
+
+}
@@ -0,0 +1,879 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.ConstructorProperties;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.MethodInvocationException;
+import org.springframework.beans.TypeConverter;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.GeneratedClassLoader;
+import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link BeanPropertyRowMapper} variant which resolves the mapping of columns to
+ * bean properties once per column layout, as determined from the result set
+ * meta-data, and compiles it into a dedicated {@link RowMapper} class generated
+ * with ASM. The generated mapper instantiates the mapped class and populates it
+ * through typed {@code ResultSet.getXxx} calls and direct setter invocations,
+ * without creating a {@link BeanWrapper} or looking up properties by column name
+ * for every row.
+ *
+ * <p>In addition to setter-based population, this mapper supports constructor
+ * binding for immutable classes: If the mapped class does not declare a default
+ * constructor, its primary or single public constructor is used, with constructor
+ * parameters matched against column names just like bean properties, based on
+ * {@link ConstructorProperties @ConstructorProperties} or on the parameter names
+ * as discovered by a {@link DefaultParameterNameDiscoverer}.
+ *
+ * <p>Column values for properties of common JDBC types (primitives and their
+ * wrappers, {@code String}, {@code BigDecimal}, {@code byte[]}, {@code java.util.Date}
+ * and the {@code java.sql} date/time types) are retrieved through the corresponding
+ * typed getter, just like {@link JdbcUtils#getResultSetValue(ResultSet, int, Class)}
+ * does, and passed on as-is. Values for all other properties are retrieved through
+ * {@link #getColumnValue} and converted through the {@link #setConversionService
+ * ConversionService} and default property editors, as with a regular
+ * {@code BeanPropertyRowMapper}.
+ *
+ * <p>Mapping classes can only be generated for public classes with public
+ * constructors and setters, visible to the class loader of the mapped class, and
+ * only if {@link #initBeanWrapper} is not overridden. Otherwise, as well as beyond
+ * a limited number of distinct column layouts per mapper, rows get mapped through
+ * a {@link BeanWrapper} as usual.
+ *
+ * @since 5.1
+ * @param <T> the result type
+ * @see BeanPropertyRowMapper
+ */
+public class GeneratedBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final int MAX_COLUMN_MAPPINGS = 32;
+
+	private static final String MAPPER_CLASS_SEPARATOR = "$$RowMapper$$";
+
+	private static final String RESULT_SET_NAME = Type.getInternalName(ResultSet.class);
+
+	private static final String MAPPING_CALLBACK_NAME = Type.getInternalName(MappingCallback.class);
+
+	private static final Map<Class<?>, String> resultSetGetters = new HashMap<>(32);
+
+	private static final Map<Class<?>, Object> primitiveDefaults = new HashMap<>(16);
+
+	private static final AtomicInteger mapperCounter = new AtomicInteger();
+
+	private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+	static {
+		resultSetGetters.put(String.class, "getString");
+		resultSetGetters.put(boolean.class, "getBoolean");
+		resultSetGetters.put(Boolean.class, "getBoolean");
+		resultSetGetters.put(byte.class, "getByte");
+		resultSetGetters.put(Byte.class, "getByte");
+		resultSetGetters.put(short.class, "getShort");
+		resultSetGetters.put(Short.class, "getShort");
+		resultSetGetters.put(int.class, "getInt");
+		resultSetGetters.put(Integer.class, "getInt");
+		resultSetGetters.put(long.class, "getLong");
+		resultSetGetters.put(Long.class, "getLong");
+		resultSetGetters.put(float.class, "getFloat");
+		resultSetGetters.put(Float.class, "getFloat");
+		resultSetGetters.put(double.class, "getDouble");
+		resultSetGetters.put(Double.class, "getDouble");
+		resultSetGetters.put(BigDecimal.class, "getBigDecimal");
+		resultSetGetters.put(java.sql.Date.class, "getDate");
+		resultSetGetters.put(java.sql.Time.class, "getTime");
+		resultSetGetters.put(java.sql.Timestamp.class, "getTimestamp");
+		resultSetGetters.put(java.util.Date.class, "getTimestamp");
+		resultSetGetters.put(byte[].class, "getBytes");
+
+		primitiveDefaults.put(boolean.class, false);
+		primitiveDefaults.put(byte.class, (byte) 0);
+		primitiveDefaults.put(char.class, '\0');
+		primitiveDefaults.put(short.class, (short) 0);
+		primitiveDefaults.put(int.class, 0);
+		primitiveDefaults.put(long.class, 0L);
+		primitiveDefaults.put(float.class, 0F);
+		primitiveDefaults.put(double.class, 0D);
+	}
+
+
+	/** Column mappings per column layout */
+	private final Map<List<String>, ColumnMapping> columnMappings = new ConcurrentHashMap<>(16);
+
+	/** Column mapping per ResultSet being mapped, weakly held and resolved again once cleared */
+	private final Map<ResultSet, ColumnMapping> resultSetMappings =
+			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+	/** Constructor to bind column values to, if the mapped class has no default constructor */
+	@Nullable
+	private Constructor<T> mappedConstructor;
+
+	/** Lower-cased constructor parameter names */
+	@Nullable
+	private String[] constructorParameterNames;
+
+	/** Underscored constructor parameter names */
+	@Nullable
+	private String[] underscoredParameterNames;
+
+
+	/**
+	 * Create a new {@code GeneratedBeanPropertyRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public GeneratedBeanPropertyRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code GeneratedBeanPropertyRowMapper}, accepting unpopulated
+	 * properties in the target bean.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public GeneratedBeanPropertyRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+
+	@Override
+	protected void initialize(Class<T> mappedClass) {
+		super.initialize(mappedClass);
+		Constructor<T> ctor = determineMappedConstructor(mappedClass);
+		if (ctor.getParameterCount() > 0) {
+			ConstructorProperties cp = ctor.getAnnotation(ConstructorProperties.class);
+			String[] paramNames = (cp != null ? cp.value() : parameterNameDiscoverer.getParameterNames(ctor));
+			if (paramNames == null || paramNames.length != ctor.getParameterCount()) {
+				throw new InvalidDataAccessApiUsageException("Cannot resolve parameter names for " + ctor);
+			}
+			this.mappedConstructor = ctor;
+			this.constructorParameterNames = new String[paramNames.length];
+			this.underscoredParameterNames = new String[paramNames.length];
+			for (int i = 0; i < paramNames.length; i++) {
+				this.constructorParameterNames[i] = lowerCaseName(paramNames[i]);
+				this.underscoredParameterNames[i] = underscoreName(paramNames[i]);
+			}
+		}
+	}
+
+	/**
+	 * Determine the constructor to use for the given mapped class: its primary
+	 * constructor, if any, otherwise its default constructor, otherwise its single
+	 * public constructor.
+	 * @param mappedClass the mapped class
+	 * @return the constructor to use
+	 * @throws InvalidDataAccessApiUsageException if no unique constructor found
+	 */
+	@SuppressWarnings("unchecked")
+	protected Constructor<T> determineMappedConstructor(Class<T> mappedClass) {
+		Constructor<T> ctor = BeanUtils.findPrimaryConstructor(mappedClass);
+		if (ctor != null) {
+			return ctor;
+		}
+		try {
+			return mappedClass.getDeclaredConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			Constructor<?>[] ctors = mappedClass.getConstructors();
+			if (ctors.length == 1) {
+				return (Constructor<T>) ctors[0];
+			}
+			throw new InvalidDataAccessApiUsageException("No default constructor and no unique public " +
+					"constructor found for " + mappedClass);
+		}
+	}
+
+
+	/**
+	 * Map the current row through the mapping compiled for the column layout
+	 * of the given ResultSet, falling back to regular bean property population
+	 * if no such mapping could be generated.
+	 */
+	@Override
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		ColumnMapping mapping = getColumnMapping(rs, rowNumber == 0);
+		RowMapper<T> mapper = mapping.mapper;
+		if (mapper == null) {
+			return super.mapRow(rs, rowNumber);
+		}
+		if (!mapping.fullyPopulated && isCheckFullyPopulated()) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of class [" + mapping.mappedClass.getName() + "]: " +
+					getMappedProperties());
+		}
+		return mapper.mapRow(rs, rowNumber);
+	}
+
+	/**
+	 * Bind constructor arguments from the current row if the mapped class
+	 * has no default constructor, or use the default constructor otherwise.
+	 */
+	@Override
+	protected T constructMappedInstance(ResultSet rs, TypeConverter tc) throws SQLException {
+		Constructor<T> ctor = this.mappedConstructor;
+		if (ctor == null) {
+			return super.constructMappedInstance(rs, tc);
+		}
+		int[] columnIndexes = getColumnMapping(rs, false).constructorColumns;
+		Assert.state(columnIndexes != null, "No constructor columns resolved");
+		Class<?>[] paramTypes = ctor.getParameterTypes();
+		Object[] args = new Object[paramTypes.length];
+		for (int i = 0; i < paramTypes.length; i++) {
+			Object value = null;
+			if (columnIndexes[i] > 0) {
+				value = tc.convertIfNecessary(getColumnValue(rs, columnIndexes[i], paramTypes[i]),
+						paramTypes[i], new MethodParameter(ctor, i));
+			}
+			if (value == null && paramTypes[i].isPrimitive()) {
+				if (columnIndexes[i] > 0 && !isPrimitivesDefaultedForNullValue()) {
+					throw new TypeMismatchException((Object) null, paramTypes[i]);
+				}
+				value = primitiveDefaults.get(paramTypes[i]);
+			}
+			args[i] = value;
+		}
+		return BeanUtils.instantiateClass(ctor, args);
+	}
+
+
+	/**
+	 * Return the column mapping for the given ResultSet, resolving it from the
+	 * ResultSet meta-data only once per ResultSet.
+	 * @param rs the ResultSet to map
+	 * @param resolve whether to resolve the mapping even if there is one for
+	 * the given ResultSet already, i.e. when mapping its first row
+	 */
+	private ColumnMapping getColumnMapping(ResultSet rs, boolean resolve) throws SQLException {
+		ColumnMapping mapping = (!resolve ? this.resultSetMappings.get(rs) : null);
+		if (mapping == null) {
+			mapping = resolveColumnMapping(rs);
+			this.resultSetMappings.put(rs, mapping);
+		}
+		return mapping;
+	}
+
+	private ColumnMapping resolveColumnMapping(ResultSet rs) throws SQLException {
+		List<String> columns = lookupColumnNames(rs);
+		ColumnMapping mapping = this.columnMappings.get(columns);
+		if (mapping == null) {
+			Class<T> mappedClass = getMappedClass();
+			Assert.state(mappedClass != null, "Mapped class was not specified");
+			if (this.columnMappings.size() >= MAX_COLUMN_MAPPINGS) {
+				return new ColumnMapping(mappedClass,
+						(this.mappedConstructor != null ? resolveConstructorColumns(columns) : null));
+			}
+			mapping = new ColumnMapping(mappedClass, columns);
+			ColumnMapping existing = this.columnMappings.putIfAbsent(columns, mapping);
+			if (existing != null) {
+				mapping = existing;
+			}
+		}
+		return mapping;
+	}
+
+	private static List<String> lookupColumnNames(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		List<String> columns = new ArrayList<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			columns.add(JdbcUtils.lookupColumnName(rsmd, index));
+		}
+		return columns;
+	}
+
+	/**
+	 * Determine the column index for each constructor parameter.
+	 * @return the column indexes, with 0 indicating no matching column
+	 */
+	private int[] resolveConstructorColumns(List<String> columns) {
+		Assert.state(this.constructorParameterNames != null && this.underscoredParameterNames != null,
+				"No constructor parameter names");
+		int[] columnIndexes = new int[this.constructorParameterNames.length];
+		for (int index = columns.size(); index > 0; index--) {
+			String field = lowerCaseName(columns.get(index - 1).replaceAll(" ", ""));
+			for (int i = 0; i < columnIndexes.length; i++) {
+				if (field.equals(this.constructorParameterNames[i]) || field.equals(this.underscoredParameterNames[i])) {
+					columnIndexes[i] = index;
+				}
+			}
+		}
+		return columnIndexes;
+	}
+
+	private boolean isMappingCompilable() {
+		return (!overrides("initBeanWrapper", BeanWrapper.class) && !isColumnValueCustomized());
+	}
+
+	private boolean isColumnValueCustomized() {
+		return (overrides("getColumnValue", ResultSet.class, int.class, PropertyDescriptor.class) ||
+				overrides("getColumnValue", ResultSet.class, int.class, Class.class));
+	}
+
+	private boolean overrides(String methodName, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != BeanPropertyRowMapper.class);
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code GeneratedBeanPropertyRowMapper}
+	 * (with the mapped class specified only once).
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> GeneratedBeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new GeneratedBeanPropertyRowMapper<>(mappedClass);
+	}
+
+
+	/**
+	 * Callback interface for generated row mappers.
+	 * For use by generated code only.
+	 */
+	public interface MappingCallback {
+
+		/**
+		 * Retrieve and convert the column value for the given binding.
+		 * @param rs the ResultSet to map (pre-initialized for the current row)
+		 * @param binding the index of the binding
+		 * @return the converted value
+		 */
+		@Nullable
+		Object getConvertedValue(ResultSet rs, int binding) throws SQLException;
+
+		/**
+		 * Handle a {@code null} column value for the given binding of primitive type,
+		 * either throwing an exception or returning normally to accept a default value.
+		 * @param target the mapped object, or {@code null} for a constructor binding
+		 * @param binding the index of the binding
+		 */
+		void handleNullValueForPrimitive(@Nullable Object target, int binding);
+
+		/**
+		 * Create an exception for the failed invocation of a setter or constructor.
+		 * @param target the mapped object, or {@code null} for a constructor invocation
+		 * @param binding the index of the binding, or -1 for a constructor invocation
+		 * @param ex the exception thrown by the invocation
+		 * @return the exception to throw
+		 */
+		RuntimeException invocationFailure(@Nullable Object target, int binding, Throwable ex);
+	}
+
+
+	/**
+	 * Binding of a column to a constructor parameter or bean property.
+	 */
+	private static final class Binding {
+
+		final int columnIndex;
+
+		final String column;
+
+		final Class<?> type;
+
+		final MethodParameter methodParameter;
+
+		@Nullable
+		final PropertyDescriptor propertyDescriptor;
+
+		Binding(int columnIndex, String column, MethodParameter methodParameter,
+				@Nullable PropertyDescriptor propertyDescriptor) {
+
+			this.columnIndex = columnIndex;
+			this.column = column;
+			this.type = methodParameter.getParameterType();
+			this.methodParameter = methodParameter;
+			this.propertyDescriptor = propertyDescriptor;
+		}
+	}
+
+
+	/**
+	 * Mapping of a specific column layout, with the generated mapper for it.
+	 */
+	private final class ColumnMapping implements MappingCallback {
+
+		final Class<T> mappedClass;
+
+		/** Column index for each constructor parameter, with 0 indicating no matching column */
+		@Nullable
+		final int[] constructorColumns;
+
+		final Binding[] bindings;
+
+		final boolean fullyPopulated;
+
+		@Nullable
+		final RowMapper<T> mapper;
+
+		ColumnMapping(Class<T> mappedClass, @Nullable int[] constructorColumns) {
+			this.mappedClass = mappedClass;
+			this.constructorColumns = constructorColumns;
+			this.bindings = new Binding[0];
+			this.fullyPopulated = true;
+			this.mapper = null;
+		}
+
+		ColumnMapping(Class<T> mappedClass, List<String> columns) {
+			this.mappedClass = mappedClass;
+			List<Binding> bindings = new ArrayList<>(columns.size());
+			Constructor<T> ctor = mappedConstructor;
+			int[] constructorBindings = null;
+			int[] columnIndexes = null;
+			if (ctor != null) {
+				columnIndexes = resolveConstructorColumns(columns);
+				constructorBindings = new int[columnIndexes.length];
+				for (int i = 0; i < columnIndexes.length; i++) {
+					if (columnIndexes[i] > 0) {
+						constructorBindings[i] = bindings.size();
+						bindings.add(new Binding(columnIndexes[i], columns.get(columnIndexes[i] - 1),
+								new MethodParameter(ctor, i), null));
+					}
+					else {
+						constructorBindings[i] = -1;
+					}
+				}
+			}
+			Set<String> populatedProperties = new HashSet<>();
+			for (int index = 1; index <= columns.size(); index++) {
+				String column = columns.get(index - 1);
+				PropertyDescriptor pd = getMappedProperty(column);
+				if (pd != null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+					}
+					bindings.add(new Binding(index, column, BeanUtils.getWriteMethodParameter(pd), pd));
+					populatedProperties.add(pd.getName());
+				}
+				else if (logger.isDebugEnabled()) {
+					logger.debug("No property found for column '" + column + "'");
+				}
+			}
+			this.constructorColumns = columnIndexes;
+			this.bindings = bindings.toArray(new Binding[0]);
+			this.fullyPopulated = populatedProperties.equals(getMappedProperties());
+			this.mapper = (isMappingCompilable() ? generateMapper(constructorBindings) : null);
+		}
+
+		@Nullable
+		@SuppressWarnings("unchecked")
+		private RowMapper<T> generateMapper(@Nullable int[] constructorBindings) {
+			Constructor<?> ctor = mappedConstructor;
+			ClassLoader classLoader = this.mappedClass.getClassLoader();
+			try {
+				if (ctor == null) {
+					ctor = this.mappedClass.getDeclaredConstructor();
+				}
+				if (classLoader == null || !isSupported(ctor) ||
+						!ClassUtils.isVisible(GeneratedBeanPropertyRowMapper.class, classLoader)) {
+					return null;
+				}
+				GeneratedClassLoader mapperClassLoader = GeneratedClassLoader.forParent(classLoader);
+				String className = this.mappedClass.getName() + MAPPER_CLASS_SEPARATOR + mapperCounter.incrementAndGet();
+				byte[] bytes = new MapperGenerator(className, ctor, constructorBindings, this.bindings, mapperClassLoader)
+						.generate();
+				Class<?> mapperClass = mapperClassLoader.defineClass(className, bytes);
+				return (RowMapper<T>) mapperClass.getConstructor(MappingCallback.class).newInstance(this);
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to generate row mapper for " + this.mappedClass +
+							" - falling back to bean property population", ex);
+				}
+				return null;
+			}
+		}
+
+		private boolean isSupported(Constructor<?> ctor) {
+			if (!Modifier.isPublic(this.mappedClass.getModifiers()) || Modifier.isAbstract(this.mappedClass.getModifiers()) ||
+					!Modifier.isPublic(ctor.getModifiers()) || KotlinDetector.isKotlinType(this.mappedClass)) {
+				return false;
+			}
+			for (Binding binding : this.bindings) {
+				Class<?> type = binding.type;
+				if (type.isPrimitive() ? !resultSetGetters.containsKey(type) :
+						!Modifier.isPublic((type.isArray() ? type.getComponentType() : type).getModifiers())) {
+					return false;
+				}
+				if (binding.propertyDescriptor != null) {
+					Method writeMethod = binding.propertyDescriptor.getWriteMethod();
+					if (writeMethod == null || !Modifier.isPublic(writeMethod.getModifiers()) ||
+							Modifier.isStatic(writeMethod.getModifiers())) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		@Override
+		@Nullable
+		public Object getConvertedValue(ResultSet rs, int binding) throws SQLException {
+			Binding b = this.bindings[binding];
+			Object value = (b.propertyDescriptor != null ?
+					getColumnValue(rs, b.columnIndex, b.propertyDescriptor) : getColumnValue(rs, b.columnIndex, b.type));
+			return createTypeConverter().convertIfNecessary(value, b.type, b.methodParameter);
+		}
+
+		@Override
+		public void handleNullValueForPrimitive(@Nullable Object target, int binding) {
+			Binding b = this.bindings[binding];
+			if (isPrimitivesDefaultedForNullValue()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Defaulting null value of column '" + b.column + "' for " +
+							(target != null ? "property '" + getPropertyName(b) + "'" : b.methodParameter) +
+							" of primitive type '" + b.type.getName() + "'");
+				}
+				return;
+			}
+			if (target != null) {
+				throw new TypeMismatchException(
+						new PropertyChangeEvent(target, getPropertyName(b), null, null), b.type);
+			}
+			throw new TypeMismatchException((Object) null, b.type);
+		}
+
+		@Override
+		public RuntimeException invocationFailure(@Nullable Object target, int binding, Throwable ex) {
+			if (target != null) {
+				PropertyChangeEvent event = new PropertyChangeEvent(target, getPropertyName(this.bindings[binding]), null, null);
+				if (ex instanceof ClassCastException) {
+					return new TypeMismatchException(event, this.bindings[binding].type, ex);
+				}
+				return new MethodInvocationException(event, ex);
+			}
+			Constructor<?> ctor = mappedConstructor;
+			if (ctor == null) {
+				ctor = ClassUtils.getConstructorIfAvailable(this.mappedClass);
+			}
+			return (ctor != null ? new BeanInstantiationException(ctor, "Constructor threw exception", ex) :
+					new BeanInstantiationException(this.mappedClass, "Constructor threw exception", ex));
+		}
+
+		private String getPropertyName(Binding binding) {
+			PropertyDescriptor pd = binding.propertyDescriptor;
+			return (pd != null ? pd.getName() : binding.column);
+		}
+	}
+
+
+	/**
+	 * Generator for a {@link RowMapper} class applying the given bindings,
+	 * retrieving column values with typed getters where possible and
+	 * delegating to a {@link MappingCallback} otherwise.
+	 */
+	private static final class MapperGenerator implements Opcodes {
+
+		private final String className;
+
+		private final Constructor<?> ctor;
+
+		@Nullable
+		private final int[] constructorBindings;
+
+		private final Binding[] bindings;
+
+		private final ClassLoader classLoader;
+
+		private int nextLocal = 4;
+
+		MapperGenerator(String className, Constructor<?> ctor, @Nullable int[] constructorBindings,
+				Binding[] bindings, ClassLoader classLoader) {
+
+			this.className = className.replace('.', '/');
+			this.ctor = ctor;
+			this.constructorBindings = constructorBindings;
+			this.bindings = bindings;
+			this.classLoader = classLoader;
+		}
+
+		byte[] generate() {
+			ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+				@Override
+				protected ClassLoader getClassLoader() {
+					return classLoader;
+				}
+			};
+			cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SYNTHETIC, this.className, null,
+					"java/lang/Object", new String[] {Type.getInternalName(RowMapper.class)});
+			cw.visitField(ACC_PRIVATE | ACC_FINAL, "callback", "L" + MAPPING_CALLBACK_NAME + ";", null, null).visitEnd();
+
+			MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(L" + MAPPING_CALLBACK_NAME + ";)V", null, null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitFieldInsn(PUTFIELD, this.className, "callback", "L" + MAPPING_CALLBACK_NAME + ";");
+			mv.visitInsn(RETURN);
+			mv.visitMaxs(0, 0);
+			mv.visitEnd();
+
+			mv = cw.visitMethod(ACC_PUBLIC, "mapRow", "(L" + RESULT_SET_NAME + ";I)Ljava/lang/Object;",
+					null, new String[] {Type.getInternalName(SQLException.class)});
+			mv.visitCode();
+			// local 3: the callback, local 4+: the mapped object and column values
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, this.className, "callback", "L" + MAPPING_CALLBACK_NAME + ";");
+			mv.visitVarInsn(ASTORE, 3);
+			int target = instantiate(mv);
+			for (int i = 0; i < this.bindings.length; i++) {
+				if (this.bindings[i].propertyDescriptor != null) {
+					applyProperty(mv, target, i);
+				}
+			}
+			mv.visitVarInsn(ALOAD, target);
+			mv.visitInsn(ARETURN);
+			mv.visitMaxs(0, 0);  // computed by the ClassWriter
+			mv.visitEnd();
+
+			cw.visitEnd();
+			return cw.toByteArray();
+		}
+
+		/**
+		 * Emit the instantiation of the mapped class, binding constructor arguments
+		 * if necessary, and store the mapped object in a new local variable.
+		 */
+		private int instantiate(MethodVisitor mv) {
+			Class<?>[] paramTypes = this.ctor.getParameterTypes();
+			int[] argLocals = new int[paramTypes.length];
+			for (int i = 0; i < paramTypes.length; i++) {
+				int binding = (this.constructorBindings != null ? this.constructorBindings[i] : -1);
+				if (binding != -1) {
+					argLocals[i] = loadColumnValue(mv, binding, -1);
+				}
+				else {
+					pushDefaultValue(mv, paramTypes[i]);
+					argLocals[i] = storeLocal(mv, paramTypes[i]);
+				}
+			}
+			String owner = Type.getInternalName(this.ctor.getDeclaringClass());
+			mv.visitTypeInsn(NEW, owner);
+			mv.visitInsn(DUP);
+			for (int i = 0; i < paramTypes.length; i++) {
+				mv.visitVarInsn(Type.getType(paramTypes[i]).getOpcode(ILOAD), argLocals[i]);
+			}
+			invokeWrappingExceptions(mv, -1, -1, () -> mv.visitMethodInsn(INVOKESPECIAL, owner, "<init>",
+					Type.getConstructorDescriptor(this.ctor), false));
+			int target = this.nextLocal++;
+			mv.visitVarInsn(ASTORE, target);
+			return target;
+		}
+
+		/**
+		 * Emit the retrieval of the column value for the given property binding
+		 * and the invocation of the corresponding setter on the mapped object.
+		 */
+		private void applyProperty(MethodVisitor mv, int target, int binding) {
+			PropertyDescriptor pd = this.bindings[binding].propertyDescriptor;
+			Assert.state(pd != null, "No property binding");
+			Method writeMethod = pd.getWriteMethod();
+			Assert.state(writeMethod != null, "No write method");
+			Label skip = new Label();
+			int value = loadColumnValue(mv, binding, target, skip);
+			Class<?> paramType = writeMethod.getParameterTypes()[0];
+			mv.visitVarInsn(ALOAD, target);
+			mv.visitVarInsn(Type.getType(paramType).getOpcode(ILOAD), value);
+			Class<?> declaringClass = this.ctor.getDeclaringClass();
+			String owner = Type.getInternalName(declaringClass);
+			invokeWrappingExceptions(mv, target, binding, () -> mv.visitMethodInsn(INVOKEVIRTUAL, owner,
+					writeMethod.getName(), Type.getMethodDescriptor(writeMethod), false));
+			Class<?> returnType = writeMethod.getReturnType();
+			if (returnType != void.class) {
+				mv.visitInsn(returnType == long.class || returnType == double.class ? POP2 : POP);
+			}
+			mv.visitLabel(skip);
+		}
+
+		private int loadColumnValue(MethodVisitor mv, int binding, int target) {
+			Label accept = new Label();
+			int local = loadColumnValue(mv, binding, target, accept);
+			mv.visitLabel(accept);
+			return local;
+		}
+
+		/**
+		 * Emit the retrieval of the column value for the given binding,
+		 * storing it in a new local variable.
+		 * @param target the local variable holding the mapped object,
+		 * or -1 for a constructor binding
+		 * @param nullForPrimitive the label to jump to in case of a {@code null}
+		 * value for a primitive type that has been accepted by the callback,
+		 * with the local variable holding the default value for a constructor binding
+		 * @return the local variable holding the value
+		 */
+		private int loadColumnValue(MethodVisitor mv, int binding, int target, Label nullForPrimitive) {
+			Class<?> type = this.bindings[binding].type;
+			int columnIndex = this.bindings[binding].columnIndex;
+			String getter = resultSetGetters.get(type);
+			if (getter == null) {
+				mv.visitVarInsn(ALOAD, 3);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitLdcInsn(binding);
+				mv.visitMethodInsn(INVOKEINTERFACE, MAPPING_CALLBACK_NAME, "getConvertedValue",
+						"(L" + RESULT_SET_NAME + ";I)Ljava/lang/Object;", true);
+				if (type != Object.class) {
+					mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+				}
+				return storeLocal(mv, type);
+			}
+			Class<?> primitiveType = (type.isPrimitive() ? type : ClassUtils.isPrimitiveWrapper(type) ?
+					ClassUtils.resolvePrimitiveIfNecessary(type) : null);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitLdcInsn(columnIndex);
+			Type returnType = (primitiveType != null ? Type.getType(primitiveType) :
+					type == java.util.Date.class ? Type.getType(java.sql.Timestamp.class) : Type.getType(type));
+			mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET_NAME, getter,
+					Type.getMethodDescriptor(returnType, Type.INT_TYPE), true);
+			if (primitiveType == null) {
+				return storeLocal(mv, type);
+			}
+			// Perform was-null check for values returned as primitives
+			int primitiveLocal = storeLocal(mv, primitiveType);
+			Label notNull = new Label();
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKEINTERFACE, RESULT_SET_NAME, "wasNull", "()Z", true);
+			mv.visitJumpInsn(IFEQ, notNull);
+			if (type.isPrimitive()) {
+				mv.visitVarInsn(ALOAD, 3);
+				if (target != -1) {
+					mv.visitVarInsn(ALOAD, target);
+				}
+				else {
+					mv.visitInsn(ACONST_NULL);
+				}
+				mv.visitLdcInsn(binding);
+				mv.visitMethodInsn(INVOKEINTERFACE, MAPPING_CALLBACK_NAME, "handleNullValueForPrimitive",
+						"(Ljava/lang/Object;I)V", true);
+				if (target == -1) {
+					pushDefaultValue(mv, type);
+					mv.visitVarInsn(returnType.getOpcode(ISTORE), primitiveLocal);
+				}
+				mv.visitJumpInsn(GOTO, nullForPrimitive);
+				mv.visitLabel(notNull);
+				return primitiveLocal;
+			}
+			int wrapperLocal = this.nextLocal++;
+			Label done = new Label();
+			mv.visitInsn(ACONST_NULL);
+			mv.visitVarInsn(ASTORE, wrapperLocal);
+			mv.visitJumpInsn(GOTO, done);
+			mv.visitLabel(notNull);
+			mv.visitVarInsn(returnType.getOpcode(ILOAD), primitiveLocal);
+			mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(type), "valueOf",
+					Type.getMethodDescriptor(Type.getType(type), returnType), false);
+			mv.visitVarInsn(ASTORE, wrapperLocal);
+			mv.visitLabel(done);
+			return wrapperLocal;
+		}
+
+		private int storeLocal(MethodVisitor mv, Class<?> type) {
+			Type asmType = Type.getType(type);
+			int local = this.nextLocal;
+			this.nextLocal += asmType.getSize();
+			mv.visitVarInsn(asmType.getOpcode(ISTORE), local);
+			return local;
+		}
+
+		private static void pushDefaultValue(MethodVisitor mv, Class<?> type) {
+			if (type == long.class) {
+				mv.visitInsn(LCONST_0);
+			}
+			else if (type == float.class) {
+				mv.visitInsn(FCONST_0);
+			}
+			else if (type == double.class) {
+				mv.visitInsn(DCONST_0);
+			}
+			else if (type.isPrimitive()) {
+				mv.visitInsn(ICONST_0);
+			}
+			else {
+				mv.visitInsn(ACONST_NULL);
+			}
+		}
+
+		/**
+		 * Emit the given invocation, turning any exception thrown by it
+		 * into the exception returned by {@link MappingCallback#invocationFailure}.
+		 */
+		private static void invokeWrappingExceptions(MethodVisitor mv, int target, int binding, Runnable invocation) {
+			Label start = new Label();
+			Label end = new Label();
+			Label handler = new Label();
+			mv.visitTryCatchBlock(start, end, handler, "java/lang/Throwable");
+			mv.visitLabel(start);
+			invocation.run();
+			mv.visitLabel(end);
+			Label after = new Label();
+			mv.visitJumpInsn(GOTO, after);
+			mv.visitLabel(handler);
+			// stack: exception
+			mv.visitVarInsn(ALOAD, 3);
+			mv.visitInsn(SWAP);
+			if (target != -1) {
+				mv.visitVarInsn(ALOAD, target);
+			}
+			else {
+				mv.visitInsn(ACONST_NULL);
+			}
+			mv.visitInsn(SWAP);
+			mv.visitLdcInsn(binding);
+			mv.visitInsn(SWAP);
+			mv.visitMethodInsn(INVOKEINTERFACE, MAPPING_CALLBACK_NAME, "invocationFailure",
+					"(Ljava/lang/Object;ILjava/lang/Throwable;)Ljava/lang/RuntimeException;", true);
+			mv.visitInsn(ATHROW);
+			mv.visitLabel(after);
+		}
+	}
+
+}
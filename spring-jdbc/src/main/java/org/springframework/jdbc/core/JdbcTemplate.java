@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,11 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -104,6 +109,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 	private static final String RETURN_UPDATE_COUNT_PREFIX = "#update-count-";
 
+	private static final int STREAM_SPLIT_BATCH_SIZE = 1024;
+
 
 	/** If this variable is false, we will throw exceptions on SQL warnings */
 	private boolean ignoreWarnings = true;
@@ -114,6 +121,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private int fetchSize = -1;
 
+	/**
+	 * If this variable is set to a value other than -1, it will be used for setting the
+	 * fetchSize property on statements backing query result streams.
+	 */
+	private int streamFetchSize = -1;
+
 	/**
 	 * If this variable is set to a non-negative value, it will be used for setting the
 	 * maxRows property on statements used for query processing.
@@ -221,6 +234,30 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.fetchSize;
 	}
 
+	/**
+	 * Set the fetch size to use for the statements backing the result streams
+	 * returned by the {@code queryForStream} methods, overriding the general
+	 * {@link #setFetchSize fetch size} of this JdbcTemplate. Streams are typically
+	 * used for processing result sets that would not fit into memory, so a fetch
+	 * size along the lines of the driver's cursor-based streaming mode is usually
+	 * appropriate here, e.g. {@code Integer.MIN_VALUE} for MySQL.
+	 * <p>Default is -1, indicating to use the general fetch size setting.
+	 * @since 5.1
+	 * @see #queryForStream(String, RowMapper)
+	 * @see java.sql.Statement#setFetchSize
+	 */
+	public void setStreamFetchSize(int streamFetchSize) {
+		this.streamFetchSize = streamFetchSize;
+	}
+
+	/**
+	 * Return the fetch size specified for result streams of this JdbcTemplate.
+	 * @since 5.1
+	 */
+	public int getStreamFetchSize() {
+		return this.streamFetchSize;
+	}
+
 	/**
 	 * Set the maximum number of rows for this JdbcTemplate. This is important for
 	 * processing subsets of large result sets, avoiding to read and hold the entire
@@ -393,6 +430,42 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	/**
+	 * Execute the given JDBC Statement callback, keeping the Statement and the
+	 * Connection open until the stream returned by the callback is closed.
+	 * On any exception, the stream is closed and both are released right away.
+	 * @param action the callback returning the result stream
+	 * @return the result stream, closing the Statement and releasing the
+	 * Connection once closed itself
+	 */
+	private <T> Stream<T> executeForStream(StatementCallback<Stream<T>> action) throws DataAccessException {
+		Assert.notNull(action, "Callback object must not be null");
+
+		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		Statement stmt = null;
+		Stream<T> result = null;
+		try {
+			stmt = con.createStatement();
+			applyStatementSettings(stmt);
+			result = result(action.doInStatement(stmt));
+			handleWarnings(stmt);
+			return result.onClose(releaseStreamResources(stmt, con));
+		}
+		catch (SQLException ex) {
+			// Release Connection early, to avoid potential connection pool deadlock
+			// in the case when the exception translator hasn't been initialized yet.
+			String sql = getSql(action);
+			closeStream(result);
+			releaseStreamResources(stmt, con).run();
+			throw translateException("StatementCallback", sql, ex);
+		}
+		catch (RuntimeException | Error ex) {
+			closeStream(result);
+			releaseStreamResources(stmt, con).run();
+			throw ex;
+		}
+	}
+
 	@Override
 	public void execute(final String sql) throws DataAccessException {
 		if (logger.isDebugEnabled()) {
@@ -456,6 +529,30 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(final String sql, final RowMapper<T> rowMapper) throws DataAccessException {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL query [" + sql + "] for result stream");
+		}
+
+		class StreamStatementCallback implements StatementCallback<Stream<T>>, SqlProvider {
+			@Override
+			public Stream<T> doInStatement(Statement stmt) throws SQLException {
+				applyStreamFetchSize(stmt);
+				ResultSet rs = stmt.executeQuery(sql);
+				return createResultSetStream(rs, rowMapper, sql).onClose(() -> JdbcUtils.closeResultSet(rs));
+			}
+			@Override
+			public String getSql() {
+				return sql;
+			}
+		}
+
+		return executeForStream(new StreamStatementCallback());
+	}
+
 	@Override
 	public Map<String, Object> queryForMap(String sql) throws DataAccessException {
 		return result(queryForObject(sql, getColumnMapRowMapper()));
@@ -628,6 +725,50 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	/**
+	 * Execute the given JDBC PreparedStatement callback, keeping the Statement
+	 * and the Connection open until the stream returned by the callback is closed.
+	 * On any exception, the stream is closed and both are released right away.
+	 * @param psc the creator of the PreparedStatement
+	 * @param action the callback returning the result stream
+	 * @return the result stream, closing the Statement and releasing the
+	 * Connection once closed itself
+	 */
+	private <T> Stream<T> executeForStream(PreparedStatementCreator psc, PreparedStatementCallback<Stream<T>> action)
+			throws DataAccessException {
+
+		Assert.notNull(psc, "PreparedStatementCreator must not be null");
+		Assert.notNull(action, "Callback object must not be null");
+		if (logger.isDebugEnabled()) {
+			String sql = getSql(psc);
+			logger.debug("Executing prepared SQL statement" + (sql != null ? " [" + sql + "]" : ""));
+		}
+
+		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		PreparedStatement ps = null;
+		Stream<T> result = null;
+		try {
+			ps = psc.createPreparedStatement(con);
+			applyStatementSettings(ps);
+			result = result(action.doInPreparedStatement(ps));
+			handleWarnings(ps);
+			return result.onClose(releaseStreamResources(psc, ps, con));
+		}
+		catch (SQLException ex) {
+			// Release Connection early, to avoid potential connection pool deadlock
+			// in the case when the exception translator hasn't been initialized yet.
+			String sql = getSql(psc);
+			closeStream(result);
+			releaseStreamResources(psc, ps, con).run();
+			throw translateException("PreparedStatementCallback", sql, ex);
+		}
+		catch (RuntimeException | Error ex) {
+			closeStream(result);
+			releaseStreamResources(psc, ps, con).run();
+			throw ex;
+		}
+	}
+
 	@Override
 	@Nullable
 	public <T> T execute(String sql, PreparedStatementCallback<T> action) throws DataAccessException {
@@ -756,6 +897,82 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, mapping each row to a result object via a
+	 * RowMapper, and turning it into an iterable and closeable Stream.
+	 * Most other {@code queryForStream} methods use this method.
+	 * <p>Rows are fetched from the ResultSet lazily, as the Stream is being
+	 * consumed, with the PreparedStatement and the Connection held until the
+	 * Stream gets closed. The Stream can also be processed in parallel: Its
+	 * ResultSet is still being read and mapped in sequence, handing off batches
+	 * of mapped rows for the subsequent pipeline stages to operate on in parallel.
+	 * @param psc Callback handler that can create a PreparedStatement given a
+	 * Connection
+	 * @param pss object that knows how to set values on the prepared statement.
+	 * If this is null, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper object that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.1
+	 * @see #setStreamFetchSize
+	 */
+	public <T> Stream<T> queryForStream(
+			PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss, final RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query for result stream");
+
+		return executeForStream(psc, new PreparedStatementCallback<Stream<T>>() {
+			@Override
+			public Stream<T> doInPreparedStatement(PreparedStatement ps) throws SQLException {
+				applyStreamFetchSize(ps);
+				ResultSet rs = null;
+				try {
+					if (pss != null) {
+						pss.setValues(ps);
+					}
+					rs = ps.executeQuery();
+				}
+				finally {
+					if (rs == null && pss instanceof ParameterDisposer) {
+						((ParameterDisposer) pss).cleanupParameters();
+					}
+				}
+				ResultSet rsToUse = rs;
+				return createResultSetStream(rsToUse, rowMapper, getSql(psc)).onClose(() -> {
+					JdbcUtils.closeResultSet(rsToUse);
+					if (pss instanceof ParameterDisposer) {
+						((ParameterDisposer) pss).cleanupParameters();
+					}
+				});
+			}
+		});
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -1331,6 +1548,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		DataSourceUtils.applyTimeout(stmt, getDataSource(), getQueryTimeout());
 	}
 
+	/**
+	 * Apply the {@link #setStreamFetchSize stream fetch size}, if any, to the
+	 * given JDBC Statement backing a result stream, overriding the general
+	 * statement settings that have been applied before.
+	 * @param stmt the JDBC Statement to prepare
+	 * @throws SQLException if thrown by JDBC API
+	 * @since 5.1
+	 * @see #applyStatementSettings
+	 */
+	protected void applyStreamFetchSize(Statement stmt) throws SQLException {
+		int streamFetchSize = getStreamFetchSize();
+		if (streamFetchSize != -1) {
+			stmt.setFetchSize(streamFetchSize);
+		}
+	}
+
 	/**
 	 * Create a new arg-based PreparedStatementSetter using the args passed in.
 	 * <p>By default, we'll create an {@link ArgumentPreparedStatementSetter}.
@@ -1420,6 +1653,35 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	private <T> Stream<T> createResultSetStream(ResultSet rs, RowMapper<T> rowMapper, @Nullable String sql) {
+		return StreamSupport.stream(new ResultSetSpliterator<>(rs, rowMapper, sql), false);
+	}
+
+	private Runnable releaseStreamResources(@Nullable Statement stmt, Connection con) {
+		return () -> {
+			JdbcUtils.closeStatement(stmt);
+			DataSourceUtils.releaseConnection(con, getDataSource());
+		};
+	}
+
+	private Runnable releaseStreamResources(
+			PreparedStatementCreator psc, @Nullable PreparedStatement ps, Connection con) {
+
+		return () -> {
+			if (psc instanceof ParameterDisposer) {
+				((ParameterDisposer) psc).cleanupParameters();
+			}
+			JdbcUtils.closeStatement(ps);
+			DataSourceUtils.releaseConnection(con, getDataSource());
+		};
+	}
+
+	private static void closeStream(@Nullable Stream<?> stream) {
+		if (stream != null) {
+			stream.close();
+		}
+	}
+
 	private static <T> T result(@Nullable T result) {
 		Assert.state(result != null, "No result");
 		return result;
@@ -1569,4 +1831,81 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream,
+	 * lazily mapping each row through a RowMapper. Splitting hands off batches
+	 * of rows that have been read and mapped in sequence, allowing subsequent
+	 * stages of a parallel Stream to operate on them concurrently.
+	 */
+	private class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		@Nullable
+		private final String sql;
+
+		private int rowNum = 0;
+
+		private boolean exhausted = false;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper, @Nullable String sql) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+			this.sql = sql;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (this.exhausted) {
+				return false;
+			}
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				this.exhausted = true;
+				return false;
+			}
+			catch (SQLException ex) {
+				throw translateException("ResultSetSpliterator", this.sql, ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			if (this.exhausted) {
+				return null;
+			}
+			Object[] batch = new Object[STREAM_SPLIT_BATCH_SIZE];
+			int size = 0;
+			try {
+				while (size < batch.length && this.rs.next()) {
+					batch[size++] = this.rowMapper.mapRow(this.rs, this.rowNum++);
+				}
+			}
+			catch (SQLException ex) {
+				throw translateException("ResultSetSpliterator", this.sql, ex);
+			}
+			if (size < batch.length) {
+				this.exhausted = true;
+			}
+			return (size > 0 ? Spliterators.spliterator(batch, 0, size, Spliterator.ORDERED) : null);
+		}
+
+		@Override
+		public long estimateSize() {
+			return (this.exhausted ? 0 : Long.MAX_VALUE);
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+	}
+
 }
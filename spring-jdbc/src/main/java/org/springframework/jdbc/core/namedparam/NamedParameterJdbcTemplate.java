@@ -16,10 +16,10 @@
 
 package org.springframework.jdbc.core.namedparam;
 
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -36,6 +36,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.SqlParameter;
 import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
+import org.springframework.jdbc.support.JdbcAccessor;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
@@ -73,15 +74,9 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
 
-	/** Cache of original SQL String to ParsedSql representation */
-	@SuppressWarnings("serial")
-	private final Map<String, ParsedSql> parsedSqlCache =
-			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	/** Cache of original SQL String to ParsedSql representation, shared per DataSource */
+	@Nullable
+	private volatile ParsedSqlCache parsedSqlCache;
 
 
 	/**
@@ -129,6 +124,9 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/**
 	 * Specify the maximum number of entries for this template's SQL cache.
 	 * Default is 256.
+	 * <p>As of 5.1, the SQL cache is shared between all templates operating on
+	 * the same {@link DataSource} with the same cache limit.
+	 * A limit of 0 or less turns off caching.
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
@@ -224,6 +222,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
@@ -401,22 +413,30 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	/**
 	 * Obtain a parsed representation of the given SQL statement.
-	 * <p>The default implementation uses an LRU cache with an upper limit of 256 entries.
+	 * <p>The default implementation uses an LRU cache with an upper limit of 256 entries,
+	 * shared with other templates for the same {@link DataSource} and not locking on lookup.
 	 * @param sql the original SQL statement
 	 * @return a representation of the parsed SQL statement
+	 * @see #setCacheLimit
 	 */
 	protected ParsedSql getParsedSql(String sql) {
-		if (getCacheLimit() <= 0) {
+		int cacheLimit = getCacheLimit();
+		if (cacheLimit <= 0) {
 			return NamedParameterUtils.parseSqlStatement(sql);
 		}
-		synchronized (this.parsedSqlCache) {
-			ParsedSql parsedSql = this.parsedSqlCache.get(sql);
-			if (parsedSql == null) {
-				parsedSql = NamedParameterUtils.parseSqlStatement(sql);
-				this.parsedSqlCache.put(sql, parsedSql);
-			}
-			return parsedSql;
+		return obtainParsedSqlCache(cacheLimit).getParsedSql(sql);
+	}
+
+	private ParsedSqlCache obtainParsedSqlCache(int cacheLimit) {
+		ParsedSqlCache parsedSqlCache = this.parsedSqlCache;
+		if (parsedSqlCache == null || parsedSqlCache.getCacheLimit() != cacheLimit) {
+			DataSource dataSource = (this.classicJdbcTemplate instanceof JdbcAccessor ?
+					((JdbcAccessor) this.classicJdbcTemplate).getDataSource() : null);
+			parsedSqlCache = (dataSource != null ?
+					ParsedSqlCache.forDataSource(dataSource, cacheLimit) : new ParsedSqlCache(cacheLimit));
+			this.parsedSqlCache = parsedSqlCache;
 		}
+		return parsedSqlCache;
 	}
 
 }
@@ -260,57 +260,90 @@ public abstract class NamedParameterUtils {
 	 * be used for a select list. Select lists should be limited to 100 or fewer elements.
 	 * A larger number of elements is not guaranteed to be supported by the database and
 	 * is strictly vendor-dependent.
+	 * <p>As of 5.1, the resulting SQL statement is cached in the given {@link ParsedSql}
+	 * per combination of collection sizes, so repeated substitutions for the same
+	 * number of list elements do not need to rebuild it.
 	 * @param parsedSql the parsed representation of the SQL statement
 	 * @param paramSource the source for named parameters
 	 * @return the SQL statement with substituted parameters
 	 * @see #parseSqlStatement
 	 */
 	public static String substituteNamedParameters(ParsedSql parsedSql, @Nullable SqlParameterSource paramSource) {
+		return substituteNamedParameters(parsedSql, paramSource, true);
+	}
+
+	private static String substituteNamedParameters(
+			ParsedSql parsedSql, @Nullable SqlParameterSource paramSource, boolean cacheSubstitutedSql) {
+
 		String originalSql = parsedSql.getOriginalSql();
 		List<String> paramNames = parsedSql.getParameterNames();
 		if (paramNames.isEmpty()) {
 			return originalSql;
 		}
-		StringBuilder actualSql = new StringBuilder(originalSql.length());
-		int lastIndex = 0;
+		Object[] expandedValues = new Object[paramNames.size()];
+		int[] expansionSizes = new int[paramNames.size()];
+		boolean cacheable = cacheSubstitutedSql;
 		for (int i = 0; i < paramNames.size(); i++) {
 			String paramName = paramNames.get(i);
-			int[] indexes = parsedSql.getParameterIndexes(i);
-			int startIndex = indexes[0];
-			int endIndex = indexes[1];
-			actualSql.append(originalSql, lastIndex, startIndex);
+			expansionSizes[i] = -1;
 			if (paramSource != null && paramSource.hasValue(paramName)) {
 				Object value = paramSource.getValue(paramName);
 				if (value instanceof SqlParameterValue) {
 					value = ((SqlParameterValue) value).getValue();
 				}
 				if (value instanceof Collection) {
-					Iterator<?> entryIter = ((Collection<?>) value).iterator();
-					int k = 0;
-					while (entryIter.hasNext()) {
-						if (k > 0) {
-							actualSql.append(", ");
-						}
-						k++;
-						Object entryItem = entryIter.next();
-						if (entryItem instanceof Object[]) {
-							Object[] expressionList = (Object[]) entryItem;
-							actualSql.append('(');
-							for (int m = 0; m < expressionList.length; m++) {
-								if (m > 0) {
-									actualSql.append(", ");
-								}
-								actualSql.append('?');
+					Collection<?> entries = (Collection<?>) value;
+					expandedValues[i] = entries;
+					expansionSizes[i] = entries.size();
+					if (cacheable && containsExpressionList(entries)) {
+						cacheable = false;
+					}
+				}
+			}
+		}
+		if (cacheable) {
+			String actualSql = parsedSql.getSubstitutedSql(expansionSizes);
+			if (actualSql == null) {
+				actualSql = buildSubstitutedSql(parsedSql, expandedValues);
+				parsedSql.cacheSubstitutedSql(expansionSizes, actualSql);
+			}
+			return actualSql;
+		}
+		return buildSubstitutedSql(parsedSql, expandedValues);
+	}
+
+	private static String buildSubstitutedSql(ParsedSql parsedSql, Object[] expandedValues) {
+		String originalSql = parsedSql.getOriginalSql();
+		StringBuilder actualSql = new StringBuilder(originalSql.length());
+		int lastIndex = 0;
+		for (int i = 0; i < expandedValues.length; i++) {
+			int[] indexes = parsedSql.getParameterIndexes(i);
+			int startIndex = indexes[0];
+			int endIndex = indexes[1];
+			actualSql.append(originalSql, lastIndex, startIndex);
+			if (expandedValues[i] instanceof Collection) {
+				Iterator<?> entryIter = ((Collection<?>) expandedValues[i]).iterator();
+				int k = 0;
+				while (entryIter.hasNext()) {
+					if (k > 0) {
+						actualSql.append(", ");
+					}
+					k++;
+					Object entryItem = entryIter.next();
+					if (entryItem instanceof Object[]) {
+						Object[] expressionList = (Object[]) entryItem;
+						actualSql.append('(');
+						for (int m = 0; m < expressionList.length; m++) {
+							if (m > 0) {
+								actualSql.append(", ");
 							}
-							actualSql.append(')');
-						}
-						else {
 							actualSql.append('?');
 						}
+						actualSql.append(')');
+					}
+					else {
+						actualSql.append('?');
 					}
-				}
-				else {
-					actualSql.append('?');
 				}
 			}
 			else {
@@ -322,6 +355,20 @@ public abstract class NamedParameterUtils {
 		return actualSql.toString();
 	}
 
+	/**
+	 * Determine whether the given collection contains expression lists,
+	 * i.e. {@code Object[]} entries: Their expansion depends on the length
+	 * of each entry, so it cannot be cached by collection size alone.
+	 */
+	private static boolean containsExpressionList(Collection<?> entries) {
+		for (Object entry : entries) {
+			if (entry instanceof Object[]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Convert a Map of named parameter values to a corresponding array.
 	 * @param parsedSql the parsed SQL statement
@@ -448,7 +495,7 @@ public abstract class NamedParameterUtils {
 	 */
 	public static String parseSqlStatementIntoString(String sql) {
 		ParsedSql parsedSql = parseSqlStatement(sql);
-		return substituteNamedParameters(parsedSql, null);
+		return substituteNamedParameters(parsedSql, null, false);
 	}
 
 	/**
@@ -463,7 +510,7 @@ public abstract class NamedParameterUtils {
 	 */
 	public static String substituteNamedParameters(String sql, SqlParameterSource paramSource) {
 		ParsedSql parsedSql = parseSqlStatement(sql);
-		return substituteNamedParameters(parsedSql, paramSource);
+		return substituteNamedParameters(parsedSql, paramSource, false);
 	}
 
 	/**
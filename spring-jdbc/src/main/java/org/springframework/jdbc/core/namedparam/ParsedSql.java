@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,7 +17,12 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -28,6 +33,10 @@ import java.util.List;
  */
 public class ParsedSql {
 
+	/** Maximum number of expansion shapes to cache substituted SQL for */
+	private static final int SUBSTITUTED_SQL_CACHE_LIMIT = 32;
+
+
 	private String originalSql;
 
 	private List<String> parameterNames = new ArrayList<>();
@@ -40,6 +49,10 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	/** Cache of substituted SQL Strings, keyed by collection parameter sizes; created on first use */
+	@Nullable
+	private volatile Map<ExpansionShape, String> substitutedSqlCache;
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -133,6 +146,43 @@ public class ParsedSql {
 		return this.totalParameterCount;
 	}
 
+	/**
+	 * Return the cached SQL statement with substituted parameters
+	 * for the given expansion shape, if any.
+	 * @param expansionSizes the number of elements per parameter position,
+	 * or -1 for parameters that do not get expanded
+	 * @since 5.1
+	 */
+	@Nullable
+	String getSubstitutedSql(int[] expansionSizes) {
+		Map<ExpansionShape, String> cache = this.substitutedSqlCache;
+		return (cache != null ? cache.get(new ExpansionShape(expansionSizes)) : null);
+	}
+
+	/**
+	 * Cache the given SQL statement with substituted parameters for the given
+	 * expansion shape, unless the maximum number of cached shapes is reached.
+	 * @param expansionSizes the number of elements per parameter position,
+	 * or -1 for parameters that do not get expanded
+	 * @param substitutedSql the SQL statement with substituted parameters
+	 * @since 5.1
+	 */
+	void cacheSubstitutedSql(int[] expansionSizes, String substitutedSql) {
+		Map<ExpansionShape, String> cache = this.substitutedSqlCache;
+		if (cache == null) {
+			synchronized (this) {
+				cache = this.substitutedSqlCache;
+				if (cache == null) {
+					cache = new ConcurrentHashMap<>(4);
+					this.substitutedSqlCache = cache;
+				}
+			}
+		}
+		if (cache.size() < SUBSTITUTED_SQL_CACHE_LIMIT) {
+			cache.put(new ExpansionShape(expansionSizes), substitutedSql);
+		}
+	}
+
 
 	/**
 	 * Exposes the original SQL String.
@@ -142,4 +192,28 @@ public class ParsedSql {
 		return this.originalSql;
 	}
 
+
+	/**
+	 * Cache key for the number of placeholders per parameter position.
+	 */
+	private static final class ExpansionShape {
+
+		private final int[] expansionSizes;
+
+		public ExpansionShape(int[] expansionSizes) {
+			this.expansionSizes = expansionSizes;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof ExpansionShape &&
+					Arrays.equals(this.expansionSizes, ((ExpansionShape) other).expansionSizes)));
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(this.expansionSizes);
+		}
+	}
+
 }
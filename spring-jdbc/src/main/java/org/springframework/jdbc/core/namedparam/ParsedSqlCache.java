@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.namedparam;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Bounded cache of {@link ParsedSql} representations, keyed by original SQL String.
+ *
+ * <p>Lookups do not lock: A cache hit only marks the entry as recently used.
+ * Once the cache limit is exceeded, entries are evicted in insertion order,
+ * with recently used entries getting a second chance (an approximation of
+ * least-recently-used eviction, also known as the "clock" algorithm).
+ *
+ * <p>Caches are {@link #forDataSource shared} between all templates operating
+ * on the same {@link DataSource} with the same cache limit, so short-lived
+ * template instances benefit from statements parsed before.
+ *
+ * @since 5.1
+ * @see NamedParameterJdbcTemplate#getParsedSql
+ */
+class ParsedSqlCache {
+
+	/** Caches shared per DataSource, keyed by cache limit */
+	private static final Map<DataSource, Map<Integer, ParsedSqlCache>> sharedCaches =
+			new ConcurrentReferenceHashMap<>(16);
+
+
+	private final int cacheLimit;
+
+	private final Map<String, Entry> entries;
+
+	private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+
+	/**
+	 * Create a new cache with the given limit.
+	 * @param cacheLimit the maximum number of entries to keep in this cache
+	 */
+	public ParsedSqlCache(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+		this.entries = new ConcurrentHashMap<>(Math.min(cacheLimit, NamedParameterJdbcTemplate.DEFAULT_CACHE_LIMIT));
+	}
+
+
+	/**
+	 * Return the cache shared by all templates operating on the given DataSource
+	 * with the given cache limit.
+	 * @param dataSource the JDBC DataSource
+	 * @param cacheLimit the maximum number of entries to keep in the cache
+	 */
+	public static ParsedSqlCache forDataSource(DataSource dataSource, int cacheLimit) {
+		return sharedCaches.computeIfAbsent(dataSource, key -> new ConcurrentHashMap<>(4))
+				.computeIfAbsent(cacheLimit, ParsedSqlCache::new);
+	}
+
+
+	/**
+	 * Return the maximum number of entries to keep in this cache.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+
+	/**
+	 * Return the parsed representation of the given SQL statement,
+	 * parsing and caching it if not cached already.
+	 * @param sql the original SQL statement
+	 * @return a representation of the parsed SQL statement
+	 */
+	public ParsedSql getParsedSql(String sql) {
+		Entry entry = this.entries.get(sql);
+		if (entry != null) {
+			entry.markUsed();
+			return entry.parsedSql;
+		}
+		Entry newEntry = new Entry(sql, NamedParameterUtils.parseSqlStatement(sql));
+		entry = this.entries.putIfAbsent(sql, newEntry);
+		if (entry != null) {
+			entry.markUsed();
+			return entry.parsedSql;
+		}
+		this.evictionQueue.add(newEntry);
+		if (this.size.incrementAndGet() > this.cacheLimit) {
+			evict();
+		}
+		return newEntry.parsedSql;
+	}
+
+	/**
+	 * Return the current number of cached entries.
+	 */
+	public int size() {
+		return this.size.get();
+	}
+
+	private void evict() {
+		// Limit second chances, in case of concurrent hits on all remaining entries
+		int secondChances = this.cacheLimit;
+		while (this.size.get() > this.cacheLimit) {
+			Entry eldest = this.evictionQueue.poll();
+			if (eldest == null) {
+				return;
+			}
+			if (eldest.used && secondChances-- > 0) {
+				eldest.used = false;
+				this.evictionQueue.add(eldest);
+			}
+			else if (this.entries.remove(eldest.sql, eldest)) {
+				this.size.decrementAndGet();
+			}
+		}
+	}
+
+
+	private static final class Entry {
+
+		final String sql;
+
+		final ParsedSql parsedSql;
+
+		volatile boolean used;
+
+		Entry(String sql, ParsedSql parsedSql) {
+			this.sql = sql;
+			this.parsedSql = parsedSql;
+		}
+
+		void markUsed() {
+			// Avoid the volatile write for entries that are hit repeatedly
+			if (!this.used) {
+				this.used = true;
+			}
+		}
+	}
+
+}
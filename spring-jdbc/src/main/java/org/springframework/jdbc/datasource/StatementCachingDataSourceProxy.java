@@ -0,0 +1,508 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Proxy for a target JDBC {@link javax.sql.DataSource}, caching the
+ * {@link PreparedStatement PreparedStatements} prepared on each Connection.
+ * Useful with connection pools or drivers that do not cache statements
+ * themselves, for example embedded databases accessed through a
+ * {@link DriverManagerDataSource} or {@link SimpleDriverDataSource}.
+ *
+ * <p>Every Connection obtained from this proxy keeps a bounded least-recently-used
+ * cache of statements, keyed by SQL String and further {@code prepareStatement}
+ * arguments such as result set type and concurrency. Closing a statement returns
+ * it to the cache, with its parameters cleared and any modified settings (such as
+ * fetch size, max rows and query timeout) restored, after closing any ResultSets
+ * that it has returned. Statements found closed in the meantime, e.g. through
+ * {@link ResultSet#getStatement()}, are discarded. Closing the Connection closes
+ * all of its cached statements before releasing the Connection itself.
+ *
+ * <p>Statements are therefore reused for as long as a Connection is held:
+ * for example within a transaction managed by {@link DataSourceTransactionManager}
+ * (working with this proxy as its DataSource) or through a
+ * {@link TransactionAwareDataSourceProxy} or {@link LazyConnectionDataSourceProxy}
+ * delegating to this proxy. For a single long-lived Connection, wrap a Connection
+ * obtained from this proxy in a {@link SingleConnectionDataSource} with
+ * "suppressClose" enabled.
+ *
+ * <p><b>NOTE:</b> This DataSource proxy returns wrapped Connections (which
+ * implement the {@link ConnectionProxy} interface) and wrapped PreparedStatements.
+ * Use {@link Connection#unwrap} or {@link Statement#unwrap} to retrieve the
+ * native JDBC objects.
+ *
+ * @since 5.1
+ * @see #setCacheLimit
+ * @see #getCacheHitCount()
+ * @see #getCacheMissCount()
+ */
+public class StatementCachingDataSourceProxy extends DelegatingDataSource {
+
+	/** Default maximum number of cached statements per Connection: 64 */
+	public static final int DEFAULT_CACHE_LIMIT = 64;
+
+	private static final Log logger = LogFactory.getLog(StatementCachingDataSourceProxy.class);
+
+	/** Getters for the Statement settings to restore when returning a statement to the cache */
+	private static final Map<String, Method> settingGetters = new HashMap<>(8);
+
+	/** Statement methods that leave state behind which cannot be restored */
+	private static final Set<String> irreversibleMethods =
+			new HashSet<>(Arrays.asList("setEscapeProcessing", "setCursorName", "closeOnCompletion"));
+
+	static {
+		settingGetters.put("setMaxRows", ReflectionUtils.findMethod(Statement.class, "getMaxRows"));
+		settingGetters.put("setLargeMaxRows", ReflectionUtils.findMethod(Statement.class, "getLargeMaxRows"));
+		settingGetters.put("setMaxFieldSize", ReflectionUtils.findMethod(Statement.class, "getMaxFieldSize"));
+		settingGetters.put("setFetchSize", ReflectionUtils.findMethod(Statement.class, "getFetchSize"));
+		settingGetters.put("setFetchDirection", ReflectionUtils.findMethod(Statement.class, "getFetchDirection"));
+		settingGetters.put("setQueryTimeout", ReflectionUtils.findMethod(Statement.class, "getQueryTimeout"));
+		settingGetters.put("setPoolable", ReflectionUtils.findMethod(Statement.class, "isPoolable"));
+	}
+
+
+	private int cacheLimit = DEFAULT_CACHE_LIMIT;
+
+	private final LongAdder cacheHitCount = new LongAdder();
+
+	private final LongAdder cacheMissCount = new LongAdder();
+
+
+	/**
+	 * Create a new StatementCachingDataSourceProxy.
+	 * @see #setTargetDataSource
+	 */
+	public StatementCachingDataSourceProxy() {
+	}
+
+	/**
+	 * Create a new StatementCachingDataSourceProxy.
+	 * @param targetDataSource the target DataSource
+	 */
+	public StatementCachingDataSourceProxy(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+
+	/**
+	 * Specify the maximum number of statements to cache per Connection.
+	 * Default is 64. A limit of 0 turns off caching.
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of statements to cache per Connection.
+	 */
+	public int getCacheLimit() {
+		return this.cacheLimit;
+	}
+
+	/**
+	 * Return the number of statements served from a Connection's cache so far.
+	 */
+	public long getCacheHitCount() {
+		return this.cacheHitCount.sum();
+	}
+
+	/**
+	 * Return the number of statements prepared on the target Connection so far,
+	 * since they were not found in a Connection's cache.
+	 */
+	public long getCacheMissCount() {
+		return this.cacheMissCount.sum();
+	}
+
+
+	/**
+	 * Obtains a Connection from the target DataSource and wraps it
+	 * with a statement-caching proxy.
+	 * @see #getStatementCachingConnectionProxy
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		return getStatementCachingConnectionProxy(obtainTargetDataSource().getConnection());
+	}
+
+	/**
+	 * Obtains a Connection from the target DataSource and wraps it
+	 * with a statement-caching proxy.
+	 * @see #getStatementCachingConnectionProxy
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return getStatementCachingConnectionProxy(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * Wrap the given Connection with a proxy that caches the statements
+	 * prepared on it, closing them once the Connection gets closed.
+	 * @param target the original Connection to wrap
+	 * @return the wrapped Connection
+	 */
+	protected Connection getStatementCachingConnectionProxy(Connection target) {
+		return (Connection) Proxy.newProxyInstance(
+				ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class},
+				new StatementCachingInvocationHandler(target, this.cacheLimit));
+	}
+
+
+	private static void closeStatement(PreparedStatement statement) {
+		try {
+			statement.close();
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not close cached JDBC PreparedStatement", ex);
+		}
+	}
+
+	private static boolean isClosed(PreparedStatement statement) {
+		try {
+			return statement.isClosed();
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not check whether cached JDBC PreparedStatement is closed", ex);
+			return true;
+		}
+	}
+
+	private static void closeResultSet(ResultSet resultSet) {
+		try {
+			resultSet.close();
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not close JDBC ResultSet of cached PreparedStatement", ex);
+		}
+	}
+
+
+	/**
+	 * Invocation handler that caches the PreparedStatements of a JDBC Connection.
+	 */
+	private class StatementCachingInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private final int cacheLimit;
+
+		private final Map<StatementKey, PreparedStatement> statementCache;
+
+		private boolean closed = false;
+
+		@SuppressWarnings("serial")
+		public StatementCachingInvocationHandler(Connection target, int cacheLimit) {
+			this.target = target;
+			this.cacheLimit = cacheLimit;
+			this.statementCache = new LinkedHashMap<StatementKey, PreparedStatement>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+					if (size() > cacheLimit) {
+						closeStatement(eldest.getValue());
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			if (method.getName().equals("equals")) {
+				// Only considered as equal when proxies are identical.
+				return (proxy == args[0]);
+			}
+			else if (method.getName().equals("hashCode")) {
+				// Use hashCode of Connection proxy.
+				return System.identityHashCode(proxy);
+			}
+			else if (method.getName().equals("toString")) {
+				return "Statement-caching proxy for target Connection [" + this.target + "]";
+			}
+			else if (method.getName().equals("unwrap")) {
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return proxy;
+				}
+			}
+			else if (method.getName().equals("isWrapperFor")) {
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return true;
+				}
+			}
+			else if (method.getName().equals("getTargetConnection")) {
+				// Handle getTargetConnection method: return underlying Connection.
+				return this.target;
+			}
+			else if (method.getName().equals("close")) {
+				// Handle close method: close cached statements before the Connection itself.
+				closeCachedStatements();
+			}
+			else if (method.getName().equals("prepareStatement") && !this.closed && this.cacheLimit > 0) {
+				return obtainStatement((Connection) proxy, method, args);
+			}
+
+			// Invoke method on target Connection.
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private PreparedStatement obtainStatement(Connection proxy, Method method, Object[] args) throws Throwable {
+			StatementKey key = new StatementKey(args);
+			PreparedStatement statement;
+			synchronized (this.statementCache) {
+				statement = this.statementCache.remove(key);
+			}
+			if (statement != null && isClosed(statement)) {
+				// Closed behind our back, e.g. through ResultSet.getStatement()
+				statement = null;
+			}
+			if (statement != null) {
+				cacheHitCount.increment();
+			}
+			else {
+				cacheMissCount.increment();
+				try {
+					statement = (PreparedStatement) method.invoke(this.target, args);
+				}
+				catch (InvocationTargetException ex) {
+					throw ex.getTargetException();
+				}
+			}
+			return (PreparedStatement) Proxy.newProxyInstance(
+					PreparedStatement.class.getClassLoader(),
+					new Class<?>[] {PreparedStatement.class},
+					new CachedStatementInvocationHandler(this, key, statement, proxy));
+		}
+
+		void returnStatement(StatementKey key, PreparedStatement statement) {
+			synchronized (this.statementCache) {
+				if (!this.closed && !this.statementCache.containsKey(key)) {
+					this.statementCache.put(key, statement);
+					return;
+				}
+			}
+			closeStatement(statement);
+		}
+
+		private void closeCachedStatements() {
+			synchronized (this.statementCache) {
+				this.closed = true;
+				for (PreparedStatement statement : this.statementCache.values()) {
+					closeStatement(statement);
+				}
+				this.statementCache.clear();
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a PreparedStatement handed out from a Connection's
+	 * cache, returning the statement to the cache on close.
+	 */
+	private static class CachedStatementInvocationHandler implements InvocationHandler {
+
+		private final StatementCachingInvocationHandler connectionHandler;
+
+		private final StatementKey key;
+
+		private final PreparedStatement target;
+
+		private final Connection connectionProxy;
+
+		@Nullable
+		private Map<Method, Object> originalSettings;
+
+		private final List<ResultSet> resultSets = new ArrayList<>(2);
+
+		private boolean reusable = true;
+
+		private boolean closed = false;
+
+		public CachedStatementInvocationHandler(StatementCachingInvocationHandler connectionHandler,
+				StatementKey key, PreparedStatement target, Connection connectionProxy) {
+
+			this.connectionHandler = connectionHandler;
+			this.key = key;
+			this.target = target;
+			this.connectionProxy = connectionProxy;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on PreparedStatement interface coming in...
+
+			if (method.getName().equals("equals")) {
+				// Only considered as equal when proxies are identical.
+				return (proxy == args[0]);
+			}
+			else if (method.getName().equals("hashCode")) {
+				// Use hashCode of PreparedStatement proxy.
+				return System.identityHashCode(proxy);
+			}
+			else if (method.getName().equals("toString")) {
+				return "Cached proxy for target PreparedStatement [" + this.target + "]";
+			}
+			else if (method.getName().equals("unwrap")) {
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return proxy;
+				}
+			}
+			else if (method.getName().equals("isWrapperFor")) {
+				if (((Class<?>) args[0]).isInstance(proxy)) {
+					return true;
+				}
+			}
+			else if (method.getName().equals("close")) {
+				// Handle close method: return the statement to the cache.
+				if (!this.closed) {
+					this.closed = true;
+					release();
+				}
+				return null;
+			}
+			else if (method.getName().equals("isClosed")) {
+				return this.closed;
+			}
+			else if (method.getName().equals("getConnection")) {
+				// Expose the Connection proxy that this statement has been obtained from.
+				return this.connectionProxy;
+			}
+
+			if (this.closed) {
+				throw new SQLException("Statement handle already closed");
+			}
+			Method settingGetter = settingGetters.get(method.getName());
+			if (settingGetter != null) {
+				if (this.originalSettings == null) {
+					this.originalSettings = new LinkedHashMap<>(4);
+				}
+				if (!this.originalSettings.containsKey(method)) {
+					this.originalSettings.put(method, settingGetter.invoke(this.target));
+				}
+			}
+			else if (irreversibleMethods.contains(method.getName())) {
+				this.reusable = false;
+			}
+			else if (method.getName().startsWith("execute")) {
+				// Executing a statement implicitly closes its current ResultSets.
+				this.resultSets.clear();
+			}
+
+			// Invoke method on target PreparedStatement.
+			try {
+				Object retVal = method.invoke(this.target, args);
+				if (retVal instanceof ResultSet) {
+					// Obtained through executeQuery, getResultSet or getGeneratedKeys:
+					// to be closed before returning the statement to the cache.
+					this.resultSets.add((ResultSet) retVal);
+				}
+				return retVal;
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+
+		private void release() {
+			for (ResultSet resultSet : this.resultSets) {
+				closeResultSet(resultSet);
+			}
+			this.resultSets.clear();
+			if (this.reusable) {
+				try {
+					this.target.clearParameters();
+					this.target.clearBatch();
+					this.target.clearWarnings();
+					if (this.originalSettings != null) {
+						for (Map.Entry<Method, Object> setting : this.originalSettings.entrySet()) {
+							setting.getKey().invoke(this.target, setting.getValue());
+						}
+					}
+					this.connectionHandler.returnStatement(this.key, this.target);
+					return;
+				}
+				catch (Throwable ex) {
+					logger.debug("Could not reset JDBC PreparedStatement for reuse - closing it instead", ex);
+				}
+			}
+			closeStatement(this.target);
+		}
+	}
+
+
+	/**
+	 * Cache key for a statement: the arguments given to {@code prepareStatement},
+	 * i.e. the SQL String plus any result set type, concurrency and holdability
+	 * or generated key settings.
+	 */
+	private static final class StatementKey {
+
+		private final Object[] args;
+
+		public StatementKey(Object[] args) {
+			this.args = args;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof StatementKey &&
+					Arrays.deepEquals(this.args, ((StatementKey) other).args)));
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.deepHashCode(this.args);
+		}
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Mock object based tests for {@link BatchWriter}.
+ *
+ * @since 5.1
+ */
+public class BatchWriterTests {
+
+	private static final String SQL = "INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)";
+
+	private Connection connection;
+
+	private DataSource dataSource;
+
+	private PreparedStatement preparedStatement;
+
+	private JdbcTemplate template;
+
+	private final AtomicInteger executions = new AtomicInteger();
+
+	private final Executor executor = task -> {
+		this.executions.incrementAndGet();
+		new Thread(task).start();
+	};
+
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = mock(Connection.class);
+		this.dataSource = mock(DataSource.class);
+		this.preparedStatement = mock(PreparedStatement.class);
+		this.template = new JdbcTemplate(this.dataSource, false);
+		given(this.dataSource.getConnection()).willReturn(this.connection);
+		given(this.connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
+		DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+		given(databaseMetaData.getDatabaseProductName()).willReturn("MySQL");
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+		given(this.connection.getMetaData()).willReturn(databaseMetaData);
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
+	}
+
+	@After
+	public void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+
+	@Test
+	public void flushAtBatchSize() throws Exception {
+		BatchWriter<Integer> writer = new BatchWriter<>(this.template, SQL, (ps, id) -> ps.setInt(1, id));
+		writer.setBatchSize(2);
+		for (int i = 0; i < 5; i++) {
+			writer.write(i);
+		}
+		verify(this.preparedStatement, times(2)).executeBatch();
+		writer.close();
+
+		verify(this.preparedStatement, times(3)).executeBatch();
+		verify(this.preparedStatement, times(5)).addBatch();
+		verify(this.preparedStatement).setInt(1, 4);
+		verify(this.preparedStatement, times(3)).close();
+		verify(this.connection, atLeastOnce()).close();
+		assertEquals(3, writer.getMetrics().getFlushCount());
+		assertEquals(5, writer.getMetrics().getRowCount());
+		assertEquals(1, writer.getMetrics().getLastFlushRowCount());
+	}
+
+	@Test
+	public void flushAtMaxBatchBytes() throws Exception {
+		BatchWriter<Object[]> writer = BatchWriter.forArguments(this.template, SQL);
+		writer.setMaxBatchBytes(40);
+		for (int i = 0; i < 6; i++) {
+			writer.write(new Object[] {i, "twelve chars"});
+		}
+		verify(this.preparedStatement, times(3)).executeBatch();
+		verify(this.preparedStatement).setObject(1, 5);
+		verify(this.preparedStatement, times(6)).setString(2, "twelve chars");
+		writer.close();
+
+		verify(this.preparedStatement, times(3)).executeBatch();
+		assertEquals(6, writer.getMetrics().getRowCount());
+	}
+
+	@Test
+	public void flushInBackground() throws Exception {
+		BatchWriter<Integer> writer = new BatchWriter<>(this.template, SQL, (ps, id) -> ps.setInt(1, id));
+		writer.setBatchSize(10);
+		writer.setFlushExecutor(this.executor);
+		for (int i = 0; i < 95; i++) {
+			writer.write(i);
+		}
+		writer.close();
+
+		assertTrue(this.executions.get() > 0);
+		verify(this.preparedStatement, times(10)).executeBatch();
+		verify(this.preparedStatement, times(95)).addBatch();
+		assertEquals(10, writer.getMetrics().getFlushCount());
+		assertEquals(95, writer.getMetrics().getRowCount());
+	}
+
+	@Test
+	public void flushFailureInBackground() throws Exception {
+		given(this.preparedStatement.executeBatch()).willThrow(new SQLException("Bad update", "42000"));
+		BatchWriter<Integer> writer = new BatchWriter<>(this.template, SQL, (ps, id) -> ps.setInt(1, id));
+		writer.setBatchSize(10);
+		writer.setFlushExecutor(this.executor);
+		try {
+			for (int i = 0; i < 15; i++) {
+				writer.write(i);
+			}
+			writer.close();
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertTrue(ex.getCause() instanceof SQLException);
+		}
+		verify(this.preparedStatement).executeBatch();
+		assertEquals(0, writer.getMetrics().getFlushCount());
+	}
+
+	@Test
+	public void flushBeforeCommit() throws Exception {
+		TransactionSynchronizationManager.initSynchronization();
+		BatchWriter<Integer> writer = new BatchWriter<>(this.template, SQL, (ps, id) -> ps.setInt(1, id));
+		writer.setBatchSize(10);
+		writer.setFlushExecutor(this.executor);
+		for (int i = 0; i < 15; i++) {
+			writer.write(i);
+		}
+		verify(this.preparedStatement).executeBatch();
+
+		TransactionSynchronizationUtils.triggerBeforeCommit(false);
+		verify(this.preparedStatement, times(2)).executeBatch();
+		TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		assertEquals(0, this.executions.get());
+		assertEquals(15, writer.getMetrics().getRowCount());
+	}
+
+	@Test
+	public void discardOnRollback() throws Exception {
+		TransactionSynchronizationManager.initSynchronization();
+		BatchWriter<Integer> writer = new BatchWriter<>(this.template, SQL, (ps, id) -> ps.setInt(1, id));
+		writer.setBatchSize(10);
+		for (int i = 0; i < 15; i++) {
+			writer.write(i);
+		}
+		TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		TransactionSynchronizationManager.clearSynchronization();
+		writer.close();
+
+		verify(this.preparedStatement).executeBatch();
+		assertEquals(10, writer.getMetrics().getRowCount());
+	}
+
+}
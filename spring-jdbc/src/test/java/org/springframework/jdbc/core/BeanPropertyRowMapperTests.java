@@ -22,6 +22,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.jdbc.core.test.ConcretePerson;
@@ -67,6 +68,23 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testInitBeanWrapperWithWrappedInstance() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new BeanPropertyRowMapper<Person>(Person.class) {
+					@Override
+					protected void initBeanWrapper(BeanWrapper bw) {
+						assertTrue(bw.getWrappedInstance() instanceof Person);
+						super.initBeanWrapper(bw);
+					}
+				});
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
 	@Test
 	public void testMappingWithInheritance() throws Exception {
 		Mock mock = new Mock();
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyEditorSupport;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ConstructorPerson;
+import org.springframework.jdbc.core.test.DatePerson;
+import org.springframework.jdbc.core.test.ExtendedPerson;
+import org.springframework.jdbc.core.test.Person;
+import org.springframework.jdbc.core.test.SpacePerson;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link GeneratedBeanPropertyRowMapper}.
+ *
+ * @since 5.1
+ */
+public class GeneratedBeanPropertyRowMapperTests extends AbstractRowMapperTests {
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+
+	@Test
+	public void testStaticQueryWithRowMapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(Person.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingIsCompiledPerColumnLayout() throws Exception {
+		GeneratedBeanPropertyRowMapper<Person> mapper = GeneratedBeanPropertyRowMapper.newInstance(Person.class);
+		List<Person> result = new Mock().getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		verifyPerson(result.get(0));
+		result = new Mock().getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		verifyPerson(result.get(0));
+		result = new Mock(MockType.THREE).getJdbcTemplate().query(
+				"select name as \"Last Name\", age, birth_date, balance from people", mapper);
+		assertNull(result.get(0).getName());
+		assertEquals(22L, result.get(0).getAge());
+	}
+
+	@Test
+	public void testMappingIsResolvedOncePerResultSet() throws Exception {
+		GeneratedBeanPropertyRowMapper<Person> mapper = GeneratedBeanPropertyRowMapper.newInstance(Person.class);
+		ResultSet rs1 = mockResultSet("name");
+		ResultSet rs2 = mockResultSet("Last Name");
+
+		assertEquals("Bubba", mapper.mapRow(rs1, 0).getName());
+		assertNull(mapper.mapRow(rs2, 0).getName());
+		assertEquals("Bubba", mapper.mapRow(rs1, 1).getName());
+		assertNull(mapper.mapRow(rs2, 1).getName());
+
+		verify(rs1, times(1)).getMetaData();
+		verify(rs2, times(1)).getMetaData();
+	}
+
+	@Test
+	public void testMappingWithInheritance() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(ConcretePerson.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithConstructorBinding() throws Exception {
+		Mock mock = new Mock();
+		List<ConstructorPerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(ConstructorPerson.class));
+		assertEquals(1, result.size());
+		ConstructorPerson bean = result.get(0);
+		assertEquals("Bubba", bean.name());
+		assertEquals(22L, bean.age());
+		assertEquals(new java.util.Date(1221222L), bean.birth_date());
+		assertEquals(new BigDecimal("1234.56"), bean.balance());
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithConstructorBindingAndNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		thrown.expect(TypeMismatchException.class);
+		mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(ConstructorPerson.class));
+	}
+
+	@Test
+	public void testMappingWithConstructorBindingAndDefaultedNullValue() throws Exception {
+		GeneratedBeanPropertyRowMapper<ConstructorPerson> mapper =
+				new GeneratedBeanPropertyRowMapper<>(ConstructorPerson.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<ConstructorPerson> result = new Mock(MockType.TWO).getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals("Bubba", result.get(0).name());
+		assertEquals(0L, result.get(0).age());
+	}
+
+	@Test
+	public void testMappingWithNoUnpopulatedFieldsFound() throws Exception {
+		Mock mock = new Mock();
+		GeneratedBeanPropertyRowMapper<ConcretePerson> mapper =
+				new GeneratedBeanPropertyRowMapper<>(ConcretePerson.class);
+		mapper.setCheckFullyPopulated(true);
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		GeneratedBeanPropertyRowMapper<ExtendedPerson> mapper =
+				new GeneratedBeanPropertyRowMapper<>(ExtendedPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		thrown.expect(InvalidDataAccessApiUsageException.class);
+		mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper);
+	}
+
+	@Test
+	public void testMappingNullValue() throws Exception {
+		GeneratedBeanPropertyRowMapper<Person> mapper = new GeneratedBeanPropertyRowMapper<>(Person.class);
+		Mock mock = new Mock(MockType.TWO);
+		thrown.expect(TypeMismatchException.class);
+		mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+	}
+
+	@Test
+	public void testMappingDefaultedNullValue() throws Exception {
+		GeneratedBeanPropertyRowMapper<Person> mapper = new GeneratedBeanPropertyRowMapper<>(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<Person> result = new Mock(MockType.TWO).getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals("Bubba", result.get(0).getName());
+		assertEquals(0L, result.get(0).getAge());
+	}
+
+	@Test
+	public void testQueryWithSpaceInColumnNameAndLocalDateTime() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(SpacePerson.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testQueryWithSpaceInColumnNameAndLocalDate() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<DatePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<>(DatePerson.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithCustomizedBeanWrapper() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				new GeneratedBeanPropertyRowMapper<Person>(Person.class) {
+					@Override
+					protected void initBeanWrapper(BeanWrapper bw) {
+						super.initBeanWrapper(bw);
+						bw.registerCustomEditor(String.class, new PropertyEditorSupport() {
+							@Override
+							public void setAsText(String text) {
+								setValue(text.toUpperCase());
+							}
+						});
+					}
+				});
+		assertEquals(1, result.size());
+		assertEquals("BUBBA", result.get(0).getName());
+		assertEquals(22L, result.get(0).getAge());
+		mock.verifyClosed();
+	}
+
+	private static ResultSet mockResultSet(String nameColumn) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rs.getString(1)).willReturn("Bubba");
+		given(rs.getLong(2)).willReturn(22L);
+		given(rsmd.getColumnCount()).willReturn(2);
+		given(rsmd.getColumnLabel(1)).willReturn(nameColumn);
+		given(rsmd.getColumnLabel(2)).willReturn("age");
+		return rs;
+	}
+
+}
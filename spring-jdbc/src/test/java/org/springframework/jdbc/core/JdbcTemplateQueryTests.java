@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,15 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -33,7 +39,10 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.SQLWarningException;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
@@ -392,4 +401,90 @@ public class JdbcTemplateQueryTests {
 		verify(this.preparedStatement).close();
 	}
 
+	@Test
+	public void testQueryForStream() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			verify(this.resultSet, never()).next();
+			Iterator<Integer> it = stream.iterator();
+			assertEquals(11, it.next().intValue());
+			verify(this.resultSet, never()).close();
+			assertEquals(12, it.next().intValue());
+			assertFalse(it.hasNext());
+			verify(this.resultSet, never()).close();
+			verify(this.statement, never()).close();
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgsAndStreamFetchSize() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		this.template.setFetchSize(10);
+		this.template.setStreamFetchSize(Integer.MIN_VALUE);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3)) {
+			assertEquals(Arrays.asList(11, 12), stream.collect(Collectors.toList()));
+		}
+		verify(this.preparedStatement).setFetchSize(10);
+		verify(this.preparedStatement).setFetchSize(Integer.MIN_VALUE);
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamInParallel() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR";
+		AtomicInteger counter = new AtomicInteger();
+		given(this.resultSet.next()).willAnswer(invocation -> counter.incrementAndGet() <= 5000);
+		given(this.resultSet.getInt(1)).willAnswer(invocation -> counter.get());
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			List<Integer> result = stream.parallel().map(age -> age * 2).collect(Collectors.toList());
+			assertEquals(5000, result.size());
+			for (int i = 0; i < result.size(); i++) {
+				assertEquals((i + 1) * 2, result.get(i).intValue());
+			}
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithFailingQuery() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR";
+		given(this.statement.executeQuery(sql)).willThrow(new SQLException("bad SQL"));
+		this.template.setExceptionTranslator(new SQLStateSQLExceptionTranslator());
+		this.thrown.expect(DataAccessException.class);
+		try {
+			this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1));
+		}
+		finally {
+			verify(this.statement).close();
+			verify(this.connection).close();
+		}
+	}
+
+	@Test
+	public void testQueryForStreamWithWarning() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.preparedStatement.getWarnings()).willReturn(new SQLWarning("warning"));
+		this.template.setIgnoreWarnings(false);
+		this.thrown.expect(SQLWarningException.class);
+		try {
+			this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3);
+		}
+		finally {
+			verify(this.resultSet).close();
+			verify(this.preparedStatement).close();
+			verify(this.connection).close();
+		}
+	}
+
 }
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -125,6 +127,26 @@ public class NamedParameterJdbcTemplateTests {
 		assertSame(dataSource, namedParameterTemplate.getJdbcTemplate().getDataSource());
 	}
 
+	@Test
+	public void testParsedSqlCacheSharedPerDataSource() {
+		String sql = "SELECT * FROM customer WHERE id = :id";
+		ParsedSql parsedSql = namedParameterTemplate.getParsedSql(sql);
+		assertSame(parsedSql, namedParameterTemplate.getParsedSql(sql));
+		assertSame(parsedSql, new NamedParameterJdbcTemplate(dataSource).getParsedSql(sql));
+		assertNotSame(parsedSql, new NamedParameterJdbcTemplate(mock(DataSource.class)).getParsedSql(sql));
+
+		NamedParameterJdbcTemplate smallCacheTemplate = new NamedParameterJdbcTemplate(dataSource);
+		smallCacheTemplate.setCacheLimit(16);
+		ParsedSql smallCacheParsedSql = smallCacheTemplate.getParsedSql(sql);
+		assertNotSame(parsedSql, smallCacheParsedSql);
+		assertSame(smallCacheParsedSql, smallCacheTemplate.getParsedSql(sql));
+		assertSame(parsedSql, namedParameterTemplate.getParsedSql(sql));
+
+		NamedParameterJdbcTemplate uncachedTemplate = new NamedParameterJdbcTemplate(dataSource);
+		uncachedTemplate.setCacheLimit(0);
+		assertNotSame(uncachedTemplate.getParsedSql(sql), uncachedTemplate.getParsedSql(sql));
+	}
+
 	@Test
 	public void testExecute() throws SQLException {
 		given(preparedStatement.executeUpdate()).willReturn(1);
@@ -331,6 +353,36 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		params.put("country", "UK");
+		List<Customer> customers;
+		try (Stream<Customer> stream = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			customers = stream.collect(Collectors.toList());
+			verify(preparedStatement, never()).close();
+		}
+		assertEquals(1, customers.size());
+		assertTrue("Customer id was assigned correctly", customers.get(0).getId() == 1);
+		assertTrue("Customer forename was assigned correctly", customers.get(0).getForename().equals("rod"));
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(resultSet).close();
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryWithRowMapperNoParameters() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
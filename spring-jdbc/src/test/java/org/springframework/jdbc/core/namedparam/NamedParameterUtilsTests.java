@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -310,4 +311,34 @@ public class NamedParameterUtilsTests {
 		assertEquals("xxx", psql2.getParameterNames().get(0));
 	}
 
+	@Test
+	public void substituteNamedParametersCachedPerExpansionShape() {
+		ParsedSql psql = NamedParameterUtils.parseSqlStatement("select * from t where id in (:ids) and a = :a");
+		MapSqlParameterSource paramSource = new MapSqlParameterSource("a", 1).addValue("ids", Arrays.asList(1, 2));
+		String sql = NamedParameterUtils.substituteNamedParameters(psql, paramSource);
+		assertEquals("select * from t where id in (?, ?) and a = ?", sql);
+
+		paramSource.addValue("ids", Arrays.asList(3, 4));
+		assertSame(sql, NamedParameterUtils.substituteNamedParameters(psql, paramSource));
+		paramSource.addValue("ids", Arrays.asList(1, 2, 3));
+		assertEquals("select * from t where id in (?, ?, ?) and a = ?",
+				NamedParameterUtils.substituteNamedParameters(psql, paramSource));
+		paramSource.addValue("ids", Collections.singletonList(new Object[] {1, 2}));
+		assertEquals("select * from t where id in ((?, ?)) and a = ?",
+				NamedParameterUtils.substituteNamedParameters(psql, paramSource));
+		paramSource.addValue("ids", Collections.singletonList(new Object[] {1, 2, 3}));
+		assertEquals("select * from t where id in ((?, ?, ?)) and a = ?",
+				NamedParameterUtils.substituteNamedParameters(psql, paramSource));
+	}
+
+	@Test
+	public void substitutedSqlCachedOnFirstSubstitution() {
+		ParsedSql psql = NamedParameterUtils.parseSqlStatement("select * from t where id in (:ids)");
+		assertNull(psql.getSubstitutedSql(new int[] {2}));
+		String sql = NamedParameterUtils.substituteNamedParameters(
+				psql, new MapSqlParameterSource("ids", Arrays.asList(1, 2)));
+		assertSame(sql, psql.getSubstitutedSql(new int[] {2}));
+		assertNull(psql.getSubstitutedSql(new int[] {3}));
+	}
+
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.namedparam;
+
+import org.junit.Test;
+
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ParsedSqlCache}.
+ *
+ * @since 5.1
+ */
+public class ParsedSqlCacheTests {
+
+	private final ParsedSqlCache cache = new ParsedSqlCache(4);
+
+
+	@Test
+	public void cachedParsedSql() {
+		ParsedSql parsedSql = this.cache.getParsedSql("select * from t where a = :a");
+		assertEquals(1, parsedSql.getNamedParameterCount());
+		assertSame(parsedSql, this.cache.getParsedSql("select * from t where a = :a"));
+		assertEquals(1, this.cache.size());
+	}
+
+	@Test
+	public void cacheLimit() {
+		for (int i = 0; i < 100; i++) {
+			this.cache.getParsedSql("select * from t where a = :a" + i);
+			assertTrue(this.cache.size() <= 4);
+		}
+		assertEquals(4, this.cache.size());
+	}
+
+	@Test
+	public void recentlyUsedEntriesSurviveEviction() {
+		ParsedSql parsedSql = this.cache.getParsedSql("select * from t where a = :a");
+		for (int i = 0; i < 100; i++) {
+			assertSame(parsedSql, this.cache.getParsedSql("select * from t where a = :a"));
+			this.cache.getParsedSql("select * from t where a = :a" + i);
+		}
+		assertEquals(4, this.cache.size());
+	}
+
+	@Test
+	public void sharedPerDataSource() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+		assertSame(ParsedSqlCache.forDataSource(dataSource, 4), ParsedSqlCache.forDataSource(dataSource, 4));
+		assertNotSame(ParsedSqlCache.forDataSource(dataSource, 4),
+				ParsedSqlCache.forDataSource(new DriverManagerDataSource(), 4));
+	}
+
+	@Test
+	public void sharedPerDataSourceAndCacheLimit() {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource();
+		ParsedSqlCache smallCache = ParsedSqlCache.forDataSource(dataSource, 4);
+		ParsedSqlCache largeCache = ParsedSqlCache.forDataSource(dataSource, 8);
+		assertNotSame(smallCache, largeCache);
+		assertEquals(4, smallCache.getCacheLimit());
+		assertEquals(8, largeCache.getCacheLimit());
+
+		for (int i = 0; i < 100; i++) {
+			smallCache.getParsedSql("select * from t where a = :a" + i);
+			largeCache.getParsedSql("select * from t where a = :a" + i);
+		}
+		assertEquals(4, smallCache.size());
+		assertEquals(8, largeCache.size());
+	}
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link StatementCachingDataSourceProxy}.
+ *
+ * @since 5.1
+ */
+public class StatementCachingDataSourceProxyTests {
+
+	private Connection connection;
+
+	private DataSource targetDataSource;
+
+	private StatementCachingDataSourceProxy dataSource;
+
+	private final List<PreparedStatement> statements = new ArrayList<>();
+
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = mock(Connection.class);
+		this.targetDataSource = mock(DataSource.class);
+		given(this.targetDataSource.getConnection()).willReturn(this.connection);
+		given(this.connection.prepareStatement(anyString())).will(invocation -> newStatement());
+		given(this.connection.prepareStatement(anyString(), anyInt(), anyInt())).will(invocation -> newStatement());
+		this.dataSource = new StatementCachingDataSourceProxy(this.targetDataSource);
+	}
+
+	@After
+	public void verifyTransactionSynchronizationManagerState() {
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+	}
+
+
+	@Test
+	public void statementCachedPerSqlAndResultSetType() throws Exception {
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("select 1");
+		PreparedStatement target = this.statements.get(0);
+		assertSame(con, ps.getConnection());
+		ps.close();
+		assertTrue(ps.isClosed());
+
+		ps = con.prepareStatement("select 1");
+		ps.executeQuery();
+		ps.close();
+		assertEquals(1, this.statements.size());
+		verify(target).executeQuery();
+		ps = con.prepareStatement("select 1", ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+		ps.close();
+		assertEquals(2, this.statements.size());
+
+		verify(this.connection).prepareStatement("select 1");
+		verify(target, times(2)).clearParameters();
+		verify(target, never()).close();
+		assertEquals(1, this.dataSource.getCacheHitCount());
+		assertEquals(2, this.dataSource.getCacheMissCount());
+
+		con.close();
+		verify(target).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void statementInUseNotShared() throws Exception {
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps1 = con.prepareStatement("select 1");
+		PreparedStatement ps2 = con.prepareStatement("select 1");
+		assertEquals(2, this.statements.size());
+		PreparedStatement target1 = this.statements.get(0);
+		PreparedStatement target2 = this.statements.get(1);
+		ps1.close();
+		ps2.close();
+
+		verify(target1, never()).close();
+		verify(target2).close();
+		assertEquals(0, this.dataSource.getCacheHitCount());
+		assertEquals(2, this.dataSource.getCacheMissCount());
+		con.close();
+	}
+
+	@Test
+	public void statementSettingsRestored() throws Exception {
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("select 1");
+		PreparedStatement target = this.statements.get(0);
+		given(target.getMaxRows()).willReturn(0);
+		ps.setMaxRows(10);
+		ps.setMaxRows(20);
+		ps.close();
+
+		verify(target).setMaxRows(10);
+		verify(target).setMaxRows(20);
+		verify(target).setMaxRows(0);
+		verify(target).getMaxRows();
+		verify(target, never()).close();
+		con.close();
+	}
+
+	@Test
+	public void resultSetsClosedOnRelease() throws Exception {
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("select 1");
+		PreparedStatement target = this.statements.get(0);
+		ResultSet resultSet = mock(ResultSet.class);
+		ResultSet generatedKeys = mock(ResultSet.class);
+		given(target.executeQuery()).willReturn(resultSet);
+		given(target.getGeneratedKeys()).willReturn(generatedKeys);
+		assertSame(resultSet, ps.executeQuery());
+		assertSame(generatedKeys, ps.getGeneratedKeys());
+		ps.close();
+
+		verify(resultSet).close();
+		verify(generatedKeys).close();
+		verify(target, never()).close();
+		con.close();
+	}
+
+	@Test
+	public void closedStatementNotReused() throws Exception {
+		Connection con = this.dataSource.getConnection();
+		con.prepareStatement("select 1").close();
+		PreparedStatement target = this.statements.get(0);
+		given(target.isClosed()).willReturn(true);
+
+		PreparedStatement ps = con.prepareStatement("select 1");
+		assertEquals(2, this.statements.size());
+		ps.executeQuery();
+		verify(this.statements.get(1)).executeQuery();
+		verify(target, never()).executeQuery();
+		assertEquals(0, this.dataSource.getCacheHitCount());
+		assertEquals(2, this.dataSource.getCacheMissCount());
+		ps.close();
+		con.close();
+	}
+
+	@Test
+	public void cacheLimit() throws Exception {
+		this.dataSource.setCacheLimit(2);
+		Connection con = this.dataSource.getConnection();
+		PreparedStatement ps = con.prepareStatement("select 1");
+		PreparedStatement target = this.statements.get(0);
+		ps.close();
+		con.prepareStatement("select 2").close();
+		verify(target, never()).close();
+		con.prepareStatement("select 3").close();
+		verify(target).close();
+		con.close();
+	}
+
+	@Test
+	public void statementsCachedWithinTransaction() throws Exception {
+		PreparedStatement target = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement(anyString())).willReturn(target);
+		given(target.getConnection()).willReturn(this.connection);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+		TransactionTemplate transactionTemplate =
+				new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+
+		transactionTemplate.execute(status -> {
+			jdbcTemplate.update("update t set a = ?", 1);
+			jdbcTemplate.update("update t set a = ?", 2);
+			return null;
+		});
+
+		verify(this.connection).prepareStatement("update t set a = ?");
+		verify(target, times(2)).executeUpdate();
+		verify(target).close();
+		verify(this.connection).commit();
+		verify(this.connection).close();
+		assertEquals(1, this.dataSource.getCacheHitCount());
+	}
+
+	@Test
+	public void statementsCachedThroughTransactionAwareDataSourceProxy() throws Exception {
+		DataSource transactionAwareDataSource = new TransactionAwareDataSourceProxy(this.dataSource);
+		TransactionTemplate transactionTemplate =
+				new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+
+		transactionTemplate.execute(status -> {
+			try {
+				Connection con = transactionAwareDataSource.getConnection();
+				con.prepareStatement("select 1").close();
+				con.close();
+				con = transactionAwareDataSource.getConnection();
+				con.prepareStatement("select 1").close();
+				con.close();
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+			return null;
+		});
+
+		verify(this.connection).prepareStatement("select 1");
+		verify(this.connection).close();
+		assertEquals(1, this.dataSource.getCacheHitCount());
+		assertEquals(1, this.dataSource.getCacheMissCount());
+	}
+
+
+	private PreparedStatement newStatement() {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		this.statements.add(statement);
+		return statement;
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark comparing {@link BufferingStompDecoder} and
+ * {@link IncrementalStompDecoder} on a stream of SEND frames delivered in
+ * chunks of a given size.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class StompDecoderBenchmark {
+
+	@Benchmark
+	public void bufferingDecoder(BenchmarkState state, Blackhole bh) {
+		BufferingStompDecoder decoder = new BufferingStompDecoder(state.stompDecoder, state.bufferSizeLimit);
+		for (byte[] chunk : state.chunks) {
+			bh.consume(decoder.decode(ByteBuffer.wrap(chunk)));
+		}
+	}
+
+	@Benchmark
+	public void incrementalDecoder(BenchmarkState state, Blackhole bh) {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(state.stompDecoder, state.bufferSizeLimit);
+		for (byte[] chunk : state.chunks) {
+			bh.consume(decoder.decode(ByteBuffer.wrap(chunk)));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"64", "1024", "65536"})
+		public int chunkSize;
+
+		@Param({"true", "false"})
+		public boolean contentLength;
+
+		public final int bufferSizeLimit = 64 * 1024;
+
+		public final StompDecoder stompDecoder = new StompDecoder();
+
+		public byte[][] chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder frames = new StringBuilder();
+			String payload = "{\"symbol\":\"ACME\",\"price\":100.25,\"volume\":4200}";
+			for (int i = 0; i < 100; i++) {
+				frames.append("SEND\ndestination:/app/trade\ncontent-type:application/json\n");
+				if (this.contentLength) {
+					frames.append("content-length:").append(payload.length()).append('\n');
+				}
+				frames.append("receipt:r-").append(i).append("\nx-trace:a\\cb\n\n").append(payload).append('\0');
+			}
+			byte[] bytes = frames.toString().getBytes(StandardCharsets.UTF_8);
+			int count = (bytes.length + this.chunkSize - 1) / this.chunkSize;
+			this.chunks = new byte[count][];
+			for (int i = 0; i < count; i++) {
+				int offset = i * this.chunkSize;
+				this.chunks[i] = new byte[Math.min(this.chunkSize, bytes.length - offset)];
+				System.arraycopy(bytes, offset, this.chunks[i], 0, this.chunks[i].length);
+			}
+		}
+	}
+
+}
@@ -16,15 +16,17 @@
 
 package org.springframework.messaging.simp.broker;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
@@ -55,6 +57,11 @@ import org.springframework.util.StringUtils;
  * header on subscription messages with Spring EL expressions evaluated against
  * the headers to filter out messages in addition to destination matching.
  *
+ * <p>As of 5.1, subscribed destinations are kept in a segment-based index so
+ * that resolving the subscriptions for a destination no longer needs to match
+ * every subscription of every session, and the resolved destination cache is
+ * updated incrementally without a global lock.
+ *
  * @author Rossen Stoyanchev
  * @author Sebastien Deleuze
  * @author Juergen Hoeller
@@ -81,6 +88,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final ExpressionParser expressionParser = new SpelExpressionParser();
 
+	private volatile DestinationIndex destinationIndex = new DestinationIndex(this.pathMatcher);
+
 	private final DestinationCache destinationCache = new DestinationCache();
 
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
@@ -91,6 +100,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		this.pathMatcher = pathMatcher;
+		DestinationIndex index = new DestinationIndex(pathMatcher);
+		for (SessionSubscriptionInfo info : this.subscriptionRegistry.getAllSubscriptions()) {
+			for (String destination : info.getDestinations()) {
+				index.addDestination(destination, info.getSessionId());
+			}
+		}
+		this.destinationIndex = index;
 	}
 
 	/**
@@ -102,6 +118,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	/**
 	 * Specify the maximum number of entries for the resolved destination cache.
+	 * Once exceeded, the least recently used entries are evicted.
 	 * Default is 1024.
 	 */
 	public void setCacheLimit(int cacheLimit) {
@@ -115,6 +132,20 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		return this.cacheLimit;
 	}
 
+	/**
+	 * Return the number of destinations currently held in the resolved destination cache.
+	 */
+	int getCacheSize() {
+		return this.destinationCache.size();
+	}
+
+	/**
+	 * Whether the subscriptions for the given destination are currently cached.
+	 */
+	boolean isCached(String destination) {
+		return this.destinationCache.contains(destination);
+	}
+
 	/**
 	 * Configure the name of a header that a subscription message can have for
 	 * the purpose of filtering messages matched to the subscription. The header
@@ -149,6 +180,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		Expression expression = getSelectorExpression(message.getHeaders());
 		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
+		this.destinationIndex.addDestination(destination, sessionId);
 		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
 	}
 
@@ -181,6 +213,13 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
+				if (info.getSubscriptions(destination) == null) {
+					this.destinationIndex.removeDestination(destination, sessionId);
+					if (info.getSubscriptions(destination) != null) {
+						// Concurrently re-subscribed to the same destination
+						this.destinationIndex.addDestination(destination, sessionId);
+					}
+				}
 				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
 			}
 		}
@@ -190,6 +229,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
+			for (String destination : info.getDestinations()) {
+				this.destinationIndex.removeDestination(destination, sessionId);
+			}
 			this.destinationCache.updateAfterRemovedSession(info);
 		}
 	}
@@ -242,117 +284,151 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.subscriptionRegistry + "]";
+		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.destinationIndex + ", " +
+				this.subscriptionRegistry + "]";
 	}
 
 
 	/**
 	 * A cache for destinations previously resolved via
-	 * {@link DefaultSubscriptionRegistry#findSubscriptionsInternal(String, Message)}
+	 * {@link DefaultSubscriptionRegistry#findSubscriptionsInternal(String, Message)}.
+	 * <p>Cached values are never modified once published: updates replace them
+	 * with a modified copy, which allows for lock-free reads and incremental,
+	 * per-destination invalidation. Each entry records the time of its last
+	 * access, and once the cache limit is exceeded the least recently used
+	 * entries are evicted under a lock held for eviction only.
 	 */
 	private class DestinationCache {
 
 		/** Map from destination -> <sessionId, subscriptionId> for fast look-ups */
-		private final Map<String, LinkedMultiValueMap<String, String>> accessCache =
-				new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
-
-		/** Map from destination -> <sessionId, subscriptionId> with locking */
-		@SuppressWarnings("serial")
-		private final Map<String, LinkedMultiValueMap<String, String>> updateCache =
-				new LinkedHashMap<String, LinkedMultiValueMap<String, String>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, LinkedMultiValueMap<String, String>> eldest) {
-						if (size() > getCacheLimit()) {
-							accessCache.remove(eldest.getKey());
-							return true;
-						}
-						else {
-							return false;
-						}
-					}
-				};
+		private final Map<String, CacheEntry> accessCache = new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
+
+		/** Lock for evicting entries once the cache limit is exceeded */
+		private final Object evictionLock = new Object();
+
+		/** Incremented on every subscription change, to detect stale results from concurrent look-ups */
+		private final AtomicLong modificationCount = new AtomicLong();
 
 
 		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
-			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
-			if (result == null) {
-				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
-							}
+			CacheEntry entry = this.accessCache.get(destination);
+			if (entry != null) {
+				entry.lastAccess = System.nanoTime();
+				return entry.subscriptions;
+			}
+			long modificationCount = this.modificationCount.get();
+			LinkedMultiValueMap<String, String> result = resolveSubscriptions(destination);
+			if (!result.isEmpty() && this.accessCache.putIfAbsent(destination, new CacheEntry(result)) == null) {
+				if (this.modificationCount.get() != modificationCount) {
+					// Subscriptions changed while resolving: the cached result may be stale
+					this.accessCache.remove(destination);
+				}
+				else if (this.accessCache.size() > getCacheLimit()) {
+					evictLeastRecentlyUsed();
+				}
+			}
+			return result;
+		}
+
+		private LinkedMultiValueMap<String, String> resolveSubscriptions(String destination) {
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+			destinationIndex.findCandidates(destination, (destinationPattern, sessionIds) -> {
+				if (!destinationPattern.equals(destination) && !getPathMatcher().match(destinationPattern, destination)) {
+					return;
+				}
+				for (String sessionId : sessionIds) {
+					SessionSubscriptionInfo info = subscriptionRegistry.getSubscriptions(sessionId);
+					Set<Subscription> subs = (info != null ? info.getSubscriptions(destinationPattern) : null);
+					if (subs != null) {
+						for (Subscription sub : subs) {
+							result.add(sessionId, sub.getId());
+						}
+					}
+				}
+			});
+			return result;
+		}
+
+		private void evictLeastRecentlyUsed() {
+			synchronized (this.evictionLock) {
+				while (this.accessCache.size() > getCacheLimit()) {
+					Map.Entry<String, CacheEntry> eldest = null;
+					for (Map.Entry<String, CacheEntry> candidate : this.accessCache.entrySet()) {
+						if (eldest == null || candidate.getValue().lastAccess - eldest.getValue().lastAccess < 0) {
+							eldest = candidate;
 						}
 					}
-					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
-						this.accessCache.put(destination, result);
+					if (eldest == null) {
+						return;
 					}
+					// Entries replaced concurrently are looked at again by the next pass
+					this.accessCache.remove(eldest.getKey(), eldest.getValue());
 				}
 			}
-			return result;
+		}
+
+		/**
+		 * Return the number of cached destinations.
+		 */
+		public int size() {
+			return this.accessCache.size();
+		}
+
+		/**
+		 * Whether subscriptions for the given destination are cached.
+		 */
+		public boolean contains(String destination) {
+			return this.accessCache.containsKey(destination);
 		}
 
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				this.updateCache.forEach((cachedDestination, subscriptions) -> {
-					if (getPathMatcher().match(destination, cachedDestination)) {
+			this.modificationCount.incrementAndGet();
+			for (String cachedDestination : this.accessCache.keySet()) {
+				if (getPathMatcher().match(destination, cachedDestination)) {
+					this.accessCache.computeIfPresent(cachedDestination, (key, entry) -> {
 						// Subscription id's may also be populated via getSubscriptions()
-						List<String> subsForSession = subscriptions.get(sessionId);
-						if (subsForSession == null || !subsForSession.contains(subsId)) {
-							subscriptions.add(sessionId, subsId);
-							this.accessCache.put(cachedDestination, subscriptions.deepCopy());
+						List<String> subsForSession = entry.subscriptions.get(sessionId);
+						if (subsForSession != null && subsForSession.contains(subsId)) {
+							return entry;
 						}
-					}
-				});
+						LinkedMultiValueMap<String, String> updated = entry.subscriptions.deepCopy();
+						updated.add(sessionId, subsId);
+						return entry.withSubscriptions(updated);
+					});
+				}
 			}
 		}
 
 		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					List<String> subscriptions = sessionMap.get(sessionId);
-					if (subscriptions != null) {
-						subscriptions.remove(subsId);
-						if (subscriptions.isEmpty()) {
-							sessionMap.remove(sessionId);
-						}
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
+			this.modificationCount.incrementAndGet();
+			for (String cachedDestination : this.accessCache.keySet()) {
+				this.accessCache.computeIfPresent(cachedDestination, (key, entry) -> {
+					List<String> subscriptions = entry.subscriptions.get(sessionId);
+					if (subscriptions == null || !subscriptions.contains(subsId)) {
+						return entry;
+					}
+					LinkedMultiValueMap<String, String> updated = entry.subscriptions.deepCopy();
+					List<String> updatedSubscriptions = updated.get(sessionId);
+					updatedSubscriptions.remove(subsId);
+					if (updatedSubscriptions.isEmpty()) {
+						updated.remove(sessionId);
 					}
+					return (updated.isEmpty() ? null : entry.withSubscriptions(updated));
 				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
 			}
 		}
 
 		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					if (sessionMap.remove(info.getSessionId()) != null) {
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
+			this.modificationCount.incrementAndGet();
+			for (String cachedDestination : this.accessCache.keySet()) {
+				this.accessCache.computeIfPresent(cachedDestination, (key, entry) -> {
+					if (!entry.subscriptions.containsKey(info.getSessionId())) {
+						return entry;
 					}
+					LinkedMultiValueMap<String, String> updated = entry.subscriptions.deepCopy();
+					updated.remove(info.getSessionId());
+					return (updated.isEmpty() ? null : entry.withSubscriptions(updated));
 				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
 			}
 		}
 
@@ -363,6 +439,189 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 
+	/**
+	 * Cached subscriptions for a destination, along with the time of the last
+	 * look-up, in {@link System#nanoTime()} terms.
+	 */
+	private static final class CacheEntry {
+
+		final LinkedMultiValueMap<String, String> subscriptions;
+
+		volatile long lastAccess = System.nanoTime();
+
+		CacheEntry(LinkedMultiValueMap<String, String> subscriptions) {
+			this.subscriptions = subscriptions;
+		}
+
+		CacheEntry withSubscriptions(LinkedMultiValueMap<String, String> subscriptions) {
+			CacheEntry entry = new CacheEntry(subscriptions);
+			entry.lastAccess = this.lastAccess;
+			return entry;
+		}
+	}
+
+
+	/**
+	 * Index of subscribed destination patterns, organized as a trie over the
+	 * segments of a destination. Literal segments map to child nodes by name
+	 * while any single-segment wildcard (e.g. "*", "PRICE.*", "{id}") maps to
+	 * a shared wildcard node, and patterns containing "**" are held at the node
+	 * for the literal prefix before the "**". A look-up therefore only visits
+	 * the nodes along the segments of the destination and returns candidate
+	 * patterns that still need to be verified with the {@link PathMatcher}.
+	 * <p>Segment indexing relies on {@link AntPathMatcher} semantics and is only
+	 * applied to a default-style {@code AntPathMatcher} (case-sensitive, without
+	 * token trimming); for any other {@code PathMatcher} all patterns are kept
+	 * at the root node and verified on every look-up.
+	 */
+	private static class DestinationIndex {
+
+		private static final String WILDCARD_KEY = "*";
+
+		@Nullable
+		private final String pathSeparator;
+
+		private final Node root = new Node();
+
+		public DestinationIndex(PathMatcher pathMatcher) {
+			this.pathSeparator = determinePathSeparator(pathMatcher);
+		}
+
+		/**
+		 * Determine the path separator for an {@link AntPathMatcher} with default
+		 * matching rules, or {@code null} if segment indexing cannot be applied.
+		 */
+		@Nullable
+		private static String determinePathSeparator(PathMatcher pathMatcher) {
+			if (pathMatcher.getClass() != AntPathMatcher.class) {
+				return null;
+			}
+			// AntPathMatcher does not expose its settings: derive them from its behavior
+			String combined = pathMatcher.combine("a", "b");
+			if (combined.length() < 3 || !combined.startsWith("a") || !combined.endsWith("b")) {
+				return null;
+			}
+			String separator = combined.substring(1, combined.length() - 1);
+			if (pathMatcher.match("a", "A") || pathMatcher.match("a", " a")) {
+				return null;
+			}
+			return separator;
+		}
+
+		public synchronized void addDestination(String destination, String sessionId) {
+			Node node = this.root;
+			boolean multiSegment = (this.pathSeparator == null);
+			if (this.pathSeparator != null) {
+				for (String segment : StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true)) {
+					if ("**".equals(segment)) {
+						multiSegment = true;
+						break;
+					}
+					node = node.getOrCreateChild(isWildcardSegment(segment) ? WILDCARD_KEY : segment);
+				}
+			}
+			Map<String, Set<String>> patterns = (multiSegment ? node.multiSegmentPatterns : node.patterns);
+			patterns.computeIfAbsent(destination, key -> ConcurrentHashMap.newKeySet()).add(sessionId);
+		}
+
+		public synchronized void removeDestination(String destination, String sessionId) {
+			Deque<Node> path = new ArrayDeque<>();
+			Deque<String> keys = new ArrayDeque<>();
+			Node node = this.root;
+			boolean multiSegment = (this.pathSeparator == null);
+			if (this.pathSeparator != null) {
+				for (String segment : StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true)) {
+					if ("**".equals(segment)) {
+						multiSegment = true;
+						break;
+					}
+					String key = (isWildcardSegment(segment) ? WILDCARD_KEY : segment);
+					Node child = node.children.get(key);
+					if (child == null) {
+						return;
+					}
+					path.push(node);
+					keys.push(key);
+					node = child;
+				}
+			}
+			Map<String, Set<String>> patterns = (multiSegment ? node.multiSegmentPatterns : node.patterns);
+			Set<String> sessionIds = patterns.get(destination);
+			if (sessionIds == null || !sessionIds.remove(sessionId) || !sessionIds.isEmpty()) {
+				return;
+			}
+			patterns.remove(destination);
+			// Prune nodes that no longer lead to any pattern
+			while (!path.isEmpty() && node.isEmpty()) {
+				node = path.pop();
+				node.children.remove(keys.pop());
+			}
+		}
+
+		private static boolean isWildcardSegment(String segment) {
+			return (segment.indexOf('*') != -1 || segment.indexOf('?') != -1 || segment.indexOf('{') != -1);
+		}
+
+		/**
+		 * Pass each pattern that may match the given destination, along with the ids
+		 * of the sessions subscribed to it, to the given callback.
+		 */
+		public void findCandidates(String destination, BiConsumer<String, Set<String>> callback) {
+			String[] segments = (this.pathSeparator != null ?
+					StringUtils.tokenizeToStringArray(destination, this.pathSeparator, false, true) : new String[0]);
+			findCandidates(this.root, segments, 0, callback);
+		}
+
+		private void findCandidates(Node node, String[] segments, int index,
+				BiConsumer<String, Set<String>> callback) {
+
+			node.multiSegmentPatterns.forEach(callback);
+			Node wildcardChild = node.children.get(WILDCARD_KEY);
+			if (index == segments.length) {
+				node.patterns.forEach(callback);
+				if (wildcardChild != null) {
+					// "/foo/*" also matches "/foo/"
+					wildcardChild.patterns.forEach(callback);
+				}
+				return;
+			}
+			Node child = node.children.get(segments[index]);
+			if (child != null) {
+				findCandidates(child, segments, index + 1, callback);
+			}
+			if (wildcardChild != null) {
+				findCandidates(wildcardChild, segments, index + 1, callback);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "index[" + this.root.children.size() + " root segment(s)]";
+		}
+
+
+		private static class Node {
+
+			/** Segment -> child node, including the shared wildcard node */
+			private final Map<String, Node> children = new ConcurrentHashMap<>(4);
+
+			/** Patterns ending at this node: pattern -> sessionIds */
+			private final Map<String, Set<String>> patterns = new ConcurrentHashMap<>(4);
+
+			/** Patterns with a "**" after this node: pattern -> sessionIds */
+			private final Map<String, Set<String>> multiSegmentPatterns = new ConcurrentHashMap<>(4);
+
+			public Node getOrCreateChild(String key) {
+				return this.children.computeIfAbsent(key, k -> new Node());
+			}
+
+			public boolean isEmpty() {
+				return (this.children.isEmpty() && this.patterns.isEmpty() && this.multiSegmentPatterns.isEmpty());
+			}
+		}
+	}
+
+
 	/**
 	 * Provide access to session subscriptions by sessionId.
 	 */
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.Assert;
+
+/**
+ * Executes tasks on a fixed number of shards, selected by session id, on top
+ * of a shared {@link Executor}. Tasks within a shard run one at a time and in
+ * the order of submission, which preserves the order of tasks per session,
+ * while tasks of different shards run concurrently.
+ *
+ * <p>Each shard is backed by a lock-free queue of limited capacity and is
+ * drained by at most one task on the underlying executor at any time. Tasks
+ * submitted to a full shard, or after {@link #shutdown()}, are rejected with a
+ * {@link TaskRejectedException}: running them on the caller's thread instead
+ * would overtake the tasks already queued for the same sessions.
+ *
+ * @since 5.1
+ * @see SimpleBrokerMessageHandler#setFanOutExecutor
+ */
+class SessionShardedExecutor {
+
+	/** Maximum number of tasks a shard runs before yielding its executor thread */
+	private static final int MAX_TASKS_PER_RUN = 256;
+
+	private static final Log logger = LogFactory.getLog(SessionShardedExecutor.class);
+
+
+	private final Shard[] shards;
+
+	private volatile boolean shutdown;
+
+
+	/**
+	 * Create an instance with the given executor and number of shards.
+	 * @param executor the executor to drain the shards with
+	 * @param shardCount the number of shards, i.e. the maximum number of
+	 * tasks to run concurrently
+	 * @param queueCapacity the maximum number of queued tasks per shard
+	 */
+	public SessionShardedExecutor(Executor executor, int shardCount, int queueCapacity) {
+		Assert.notNull(executor, "Executor must not be null");
+		Assert.isTrue(shardCount > 0, "Shard count must be greater than 0");
+		Assert.isTrue(queueCapacity > 0, "Queue capacity must be greater than 0");
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			this.shards[i] = new Shard(executor, queueCapacity);
+		}
+	}
+
+
+	/**
+	 * Return the number of shards.
+	 */
+	public int getShardCount() {
+		return this.shards.length;
+	}
+
+	/**
+	 * Return the index of the shard for the given session id.
+	 */
+	public int getShardIndex(String sessionId) {
+		return (sessionId.hashCode() & Integer.MAX_VALUE) % this.shards.length;
+	}
+
+	/**
+	 * Execute the given task on the shard for the given session id.
+	 * @throws TaskRejectedException if the shard is full, or if this
+	 * executor has been shut down
+	 */
+	public void execute(String sessionId, Runnable task) {
+		execute(getShardIndex(sessionId), task);
+	}
+
+	/**
+	 * Execute the given task on the shard with the given index.
+	 * @throws TaskRejectedException if the shard is full, or if this
+	 * executor has been shut down
+	 * @see #getShardIndex(String)
+	 */
+	public void execute(int shardIndex, Runnable task) {
+		if (this.shutdown) {
+			throw new TaskRejectedException("Executor has been shut down - did not accept task: " + task);
+		}
+		this.shards[shardIndex].add(task);
+	}
+
+	/**
+	 * Stop accepting tasks and discard the tasks that have not started yet.
+	 * Tasks already running are allowed to complete, but the underlying
+	 * executor itself is not shut down.
+	 * @return the number of discarded tasks
+	 */
+	public int shutdown() {
+		this.shutdown = true;
+		int discarded = 0;
+		for (Shard shard : this.shards) {
+			discarded += shard.clear();
+		}
+		return discarded;
+	}
+
+	/**
+	 * Whether this executor has been {@link #shutdown() shut down}.
+	 */
+	public boolean isShutdown() {
+		return this.shutdown;
+	}
+
+	/**
+	 * Return the number of queued tasks for each shard.
+	 */
+	public int[] getQueueDepths() {
+		int[] depths = new int[this.shards.length];
+		for (int i = 0; i < this.shards.length; i++) {
+			depths[i] = this.shards[i].queueDepth.get();
+		}
+		return depths;
+	}
+
+	/**
+	 * Return the number of completed tasks for each shard.
+	 */
+	public long[] getCompletedTaskCounts() {
+		long[] counts = new long[this.shards.length];
+		for (int i = 0; i < this.shards.length; i++) {
+			counts[i] = this.shards[i].completedTaskCount.get();
+		}
+		return counts;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("shards[");
+		sb.append(this.shards.length).append(", queue depths: ");
+		for (int i = 0; i < this.shards.length; i++) {
+			sb.append(i > 0 ? ", " : "").append(this.shards[i].queueDepth.get());
+		}
+		return sb.append("]").toString();
+	}
+
+
+	private final class Shard implements Runnable {
+
+		private final Executor executor;
+
+		private final int queueCapacity;
+
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger queueDepth = new AtomicInteger();
+
+		private final AtomicLong completedTaskCount = new AtomicLong();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		public Shard(Executor executor, int queueCapacity) {
+			this.executor = executor;
+			this.queueCapacity = queueCapacity;
+		}
+
+		public void add(Runnable task) {
+			if (this.queueDepth.incrementAndGet() > this.queueCapacity) {
+				this.queueDepth.decrementAndGet();
+				throw new TaskRejectedException("Shard queue capacity of " + this.queueCapacity +
+						" reached - did not accept task: " + task);
+			}
+			this.tasks.add(task);
+			trySchedule();
+		}
+
+		public int clear() {
+			int count = 0;
+			while (this.tasks.poll() != null) {
+				this.queueDepth.decrementAndGet();
+				count++;
+			}
+			return count;
+		}
+
+		private void trySchedule() {
+			if (this.scheduled.compareAndSet(false, true)) {
+				try {
+					this.executor.execute(this);
+				}
+				catch (Throwable ex) {
+					// Tasks remain queued: the next submission will try again
+					this.scheduled.set(false);
+					logger.error("Failed to schedule shard with " + this.queueDepth.get() + " queued task(s)", ex);
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < MAX_TASKS_PER_RUN && !SessionShardedExecutor.this.shutdown; i++) {
+					Runnable task = this.tasks.poll();
+					if (task == null) {
+						break;
+					}
+					this.queueDepth.decrementAndGet();
+					try {
+						task.run();
+					}
+					catch (Throwable ex) {
+						logger.error("Failed to execute task", ex);
+					}
+					finally {
+						this.completedTaskCount.incrementAndGet();
+					}
+				}
+			}
+			finally {
+				this.scheduled.set(false);
+				if (!SessionShardedExecutor.this.shutdown && !this.tasks.isEmpty()) {
+					trySchedule();
+				}
+			}
+		}
+	}
+
+}
@@ -17,12 +17,17 @@
 package org.springframework.messaging.simp.broker;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -70,6 +75,16 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
+	@Nullable
+	private Executor fanOutExecutor;
+
+	private int fanOutShardCount = Runtime.getRuntime().availableProcessors();
+
+	private int fanOutQueueCapacity = 10000;
+
+	@Nullable
+	private SessionShardedExecutor sessionShardedExecutor;
+
 
 	private SubscriptionRegistry subscriptionRegistry;
 
@@ -250,8 +265,103 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 	}
 
 
+	/**
+	 * Configure an {@link Executor} to send messages to subscribers with.
+	 * <p>When set, the messages for subscribers of a published message are no
+	 * longer created and sent on the thread that handles the published message.
+	 * Instead subscribers are partitioned by session id across a fixed number
+	 * of {@link #setFanOutShardCount shards}, each processed on the given
+	 * executor by at most one thread at a time. All messages for a given session,
+	 * including connect and disconnect acknowledgements and heartbeats, go
+	 * through the same shard, and are therefore sent in order.
+	 * <p>By default this is not set, and messages are sent to subscribers
+	 * serially on the calling thread.
+	 * @since 5.1
+	 * @see #setFanOutShardCount
+	 * @see #getFanOutQueueDepths()
+	 */
+	public void setFanOutExecutor(@Nullable Executor fanOutExecutor) {
+		this.fanOutExecutor = fanOutExecutor;
+		initSessionShardedExecutor();
+	}
+
+	/**
+	 * Return the configured fan-out executor.
+	 * @since 5.1
+	 */
+	@Nullable
+	public Executor getFanOutExecutor() {
+		return this.fanOutExecutor;
+	}
+
+	/**
+	 * Configure the number of shards to partition subscribers into when a
+	 * {@link #setFanOutExecutor fan-out executor} is set, i.e. the maximum
+	 * number of threads that concurrently send messages to subscribers.
+	 * <p>By default this is the number of available processors.
+	 * @since 5.1
+	 */
+	public void setFanOutShardCount(int fanOutShardCount) {
+		Assert.isTrue(fanOutShardCount > 0, "Fan-out shard count must be greater than 0");
+		this.fanOutShardCount = fanOutShardCount;
+		initSessionShardedExecutor();
+	}
+
+	/**
+	 * Return the configured number of fan-out shards.
+	 * @since 5.1
+	 */
+	public int getFanOutShardCount() {
+		return this.fanOutShardCount;
+	}
+
+	/**
+	 * Configure the maximum number of tasks to queue per fan-out shard when a
+	 * {@link #setFanOutExecutor fan-out executor} is set. Once a shard is full,
+	 * messages for its sessions are dropped and logged as errors until it drains,
+	 * rather than buffered without limit for slow or stuck clients.
+	 * <p>By default this is 10000.
+	 * @since 5.1
+	 * @see #getFanOutQueueDepths()
+	 */
+	public void setFanOutQueueCapacity(int fanOutQueueCapacity) {
+		Assert.isTrue(fanOutQueueCapacity > 0, "Fan-out queue capacity must be greater than 0");
+		this.fanOutQueueCapacity = fanOutQueueCapacity;
+		initSessionShardedExecutor();
+	}
+
+	/**
+	 * Return the configured maximum number of tasks to queue per fan-out shard.
+	 * @since 5.1
+	 */
+	public int getFanOutQueueCapacity() {
+		return this.fanOutQueueCapacity;
+	}
+
+	private void initSessionShardedExecutor() {
+		this.sessionShardedExecutor = (this.fanOutExecutor != null ? new SessionShardedExecutor(
+				this.fanOutExecutor, this.fanOutShardCount, this.fanOutQueueCapacity) : null);
+	}
+
+	/**
+	 * Return the number of tasks queued in each fan-out shard, or {@code null}
+	 * if no {@link #setFanOutExecutor fan-out executor} is set.
+	 * <p>Note that this is not a number of messages: a single task sends a
+	 * published message to all subscribers of the shard, while other tasks
+	 * send a single message, e.g. a heartbeat, to one session.
+	 * @since 5.1
+	 */
+	@Nullable
+	public int[] getFanOutQueueDepths() {
+		return (this.sessionShardedExecutor != null ? this.sessionShardedExecutor.getQueueDepths() : null);
+	}
+
+
 	@Override
 	public void startInternal() {
+		if (this.sessionShardedExecutor != null && this.sessionShardedExecutor.isShutdown()) {
+			initSessionShardedExecutor();
+		}
 		publishBrokerAvailableEvent();
 		if (this.taskScheduler != null) {
 			long interval = initHeartbeatTaskDelay();
@@ -284,6 +394,12 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (this.heartbeatFuture != null) {
 			this.heartbeatFuture.cancel(true);
 		}
+		if (this.sessionShardedExecutor != null) {
+			int discarded = this.sessionShardedExecutor.shutdown();
+			if (discarded > 0 && logger.isWarnEnabled()) {
+				logger.warn("Discarded " + discarded + " queued fan-out task(s) on stop");
+			}
+		}
 	}
 
 	@Override
@@ -319,7 +435,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 				connectAck.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER, message);
 				connectAck.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, serverHeartbeat);
 				Message<byte[]> messageOut = MessageBuilder.createMessage(EMPTY_PAYLOAD, connectAck.getMessageHeaders());
-				getClientOutboundChannel().send(messageOut);
+				sendToSession(sessionId, messageOut);
 			}
 		}
 		else if (SimpMessageType.DISCONNECT.equals(messageType)) {
@@ -375,7 +491,24 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		}
 		initHeaders(accessor);
 		Message<byte[]> message = MessageBuilder.createMessage(EMPTY_PAYLOAD, accessor.getMessageHeaders());
-		getClientOutboundChannel().send(message);
+		sendToSession(sessionId, message);
+	}
+
+	private void sendToSession(String sessionId, Message<?> message) {
+		SessionShardedExecutor executor = this.sessionShardedExecutor;
+		if (executor != null) {
+			try {
+				executor.execute(sessionId, () -> getClientOutboundChannel().send(message));
+			}
+			catch (TaskRejectedException ex) {
+				if (logger.isErrorEnabled()) {
+					logger.error("Failed to send " + message, ex);
+				}
+			}
+		}
+		else {
+			getClientOutboundChannel().send(message);
+		}
 	}
 
 	protected void sendMessageToSubscribers(@Nullable String destination, Message<?> message) {
@@ -383,37 +516,97 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 		if (!subscriptions.isEmpty() && logger.isDebugEnabled()) {
 			logger.debug("Broadcasting to " + subscriptions.size() + " sessions.");
 		}
+		if (subscriptions.isEmpty()) {
+			return;
+		}
 		long now = System.currentTimeMillis();
-		subscriptions.forEach((sessionId, subscriptionIds) -> {
-			for (String subscriptionId : subscriptionIds) {
-				SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
-				initHeaders(headerAccessor);
-				headerAccessor.setSessionId(sessionId);
-				headerAccessor.setSubscriptionId(subscriptionId);
-				headerAccessor.copyHeadersIfAbsent(message.getHeaders());
-				Object payload = message.getPayload();
-				Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+		Map<String, Object> replyHeaders = getReplyHeaders(message.getHeaders());
+		SessionShardedExecutor executor = this.sessionShardedExecutor;
+		if (executor == null) {
+			subscriptions.forEach((sessionId, subscriptionIds) ->
+					sendMessageToSession(sessionId, subscriptionIds, message, replyHeaders, now));
+			return;
+		}
+		// Partition sessions by shard once, and hand each shard a single task
+		List<List<Map.Entry<String, List<String>>>> shardedSubscriptions = new ArrayList<>(executor.getShardCount());
+		for (int i = 0; i < executor.getShardCount(); i++) {
+			shardedSubscriptions.add(null);
+		}
+		for (Map.Entry<String, List<String>> entry : subscriptions.entrySet()) {
+			int shardIndex = executor.getShardIndex(entry.getKey());
+			List<Map.Entry<String, List<String>>> entries = shardedSubscriptions.get(shardIndex);
+			if (entries == null) {
+				entries = new ArrayList<>();
+				shardedSubscriptions.set(shardIndex, entries);
+			}
+			entries.add(entry);
+		}
+		for (int i = 0; i < shardedSubscriptions.size(); i++) {
+			List<Map.Entry<String, List<String>>> entries = shardedSubscriptions.get(i);
+			if (entries != null) {
 				try {
-					getClientOutboundChannel().send(reply);
+					executor.execute(i, () -> {
+						for (Map.Entry<String, List<String>> entry : entries) {
+							sendMessageToSession(entry.getKey(), entry.getValue(), message, replyHeaders, now);
+						}
+					});
 				}
-				catch (Throwable ex) {
+				catch (TaskRejectedException ex) {
 					if (logger.isErrorEnabled()) {
-						logger.error("Failed to send " + message, ex);
+						logger.error("Failed to send " + message + " to " + entries.size() + " session(s)", ex);
 					}
 				}
-				finally {
-					SessionInfo info = this.sessions.get(sessionId);
-					if (info != null) {
-						info.setLastWriteTime(now);
-					}
+			}
+		}
+	}
+
+	/**
+	 * Determine the headers of the given published message that all replies
+	 * to it have in common, once for all subscribers. Header values, including
+	 * the native headers, are immutable and shared by the replies as is.
+	 */
+	private static Map<String, Object> getReplyHeaders(MessageHeaders headers) {
+		Map<String, Object> replyHeaders = new HashMap<>(headers);
+		replyHeaders.remove(MessageHeaders.ID);
+		replyHeaders.remove(MessageHeaders.TIMESTAMP);
+		replyHeaders.remove(SimpMessageHeaderAccessor.MESSAGE_TYPE_HEADER);
+		replyHeaders.remove(SimpMessageHeaderAccessor.SESSION_ID_HEADER);
+		replyHeaders.remove(SimpMessageHeaderAccessor.SUBSCRIPTION_ID_HEADER);
+		return replyHeaders;
+	}
+
+	private void sendMessageToSession(String sessionId, List<String> subscriptionIds, Message<?> message,
+			Map<String, Object> replyHeaders, long now) {
+
+		Object payload = message.getPayload();
+		for (String subscriptionId : subscriptionIds) {
+			SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			initHeaders(headerAccessor);
+			headerAccessor.setSessionId(sessionId);
+			headerAccessor.setSubscriptionId(subscriptionId);
+			headerAccessor.copyHeadersIfAbsent(replyHeaders);
+			Message<?> reply = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+			try {
+				getClientOutboundChannel().send(reply);
+			}
+			catch (Throwable ex) {
+				if (logger.isErrorEnabled()) {
+					logger.error("Failed to send " + message, ex);
+				}
+			}
+			finally {
+				SessionInfo info = this.sessions.get(sessionId);
+				if (info != null) {
+					info.setLastWriteTime(now);
 				}
 			}
-		});
+		}
 	}
 
 	@Override
 	public String toString() {
-		return "SimpleBrokerMessageHandler [" + this.subscriptionRegistry + "]";
+		return "SimpleBrokerMessageHandler [" + this.subscriptionRegistry +
+				(this.sessionShardedExecutor != null ? ", " + this.sessionShardedExecutor : "") + "]";
 	}
 
 
@@ -506,7 +699,7 @@ public class SimpleBrokerMessageHandler extends AbstractBrokerMessageHandler {
 					}
 					initHeaders(accessor);
 					MessageHeaders headers = accessor.getMessageHeaders();
-					getClientOutboundChannel().send(MessageBuilder.createMessage(EMPTY_PAYLOAD, headers));
+					sendToSession(info.getSessionId(), MessageBuilder.createMessage(EMPTY_PAYLOAD, headers));
 				}
 			}
 		}
@@ -16,6 +16,8 @@
 
 package org.springframework.messaging.simp.config;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.SubscribableChannel;
@@ -39,6 +41,15 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 	@Nullable
 	private String selectorHeaderName = "selector";
 
+	@Nullable
+	private Executor fanOutExecutor;
+
+	@Nullable
+	private Integer fanOutShardCount;
+
+	@Nullable
+	private Integer fanOutQueueCapacity;
+
 
 	public SimpleBrokerRegistration(SubscribableChannel inChannel, MessageChannel outChannel, String[] prefixes) {
 		super(inChannel, outChannel, prefixes);
@@ -89,6 +100,43 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 		this.selectorHeaderName = selectorHeaderName;
 	}
 
+	/**
+	 * Configure an {@link Executor} to send messages to subscribers with,
+	 * partitioning subscribers by session across a fixed number of shards.
+	 * <p>By default this is not set, and messages are sent to subscribers
+	 * on the thread that handles the published message.
+	 * @since 5.1
+	 * @see SimpleBrokerMessageHandler#setFanOutExecutor
+	 */
+	public SimpleBrokerRegistration setFanOutExecutor(Executor fanOutExecutor) {
+		this.fanOutExecutor = fanOutExecutor;
+		return this;
+	}
+
+	/**
+	 * Configure the number of shards to partition subscribers into when a
+	 * {@link #setFanOutExecutor fan-out executor} is set.
+	 * <p>By default this is the number of available processors.
+	 * @since 5.1
+	 * @see SimpleBrokerMessageHandler#setFanOutShardCount
+	 */
+	public SimpleBrokerRegistration setFanOutShardCount(int fanOutShardCount) {
+		this.fanOutShardCount = fanOutShardCount;
+		return this;
+	}
+
+	/**
+	 * Configure the maximum number of tasks to queue per shard when a
+	 * {@link #setFanOutExecutor fan-out executor} is set.
+	 * <p>By default this is 10000.
+	 * @since 5.1
+	 * @see SimpleBrokerMessageHandler#setFanOutQueueCapacity
+	 */
+	public SimpleBrokerRegistration setFanOutQueueCapacity(int fanOutQueueCapacity) {
+		this.fanOutQueueCapacity = fanOutQueueCapacity;
+		return this;
+	}
+
 
 	@Override
 	protected SimpleBrokerMessageHandler getMessageHandler(SubscribableChannel brokerChannel) {
@@ -101,6 +149,15 @@ public class SimpleBrokerRegistration extends AbstractBrokerRegistration {
 			handler.setHeartbeatValue(this.heartbeat);
 		}
 		handler.setSelectorHeaderName(this.selectorHeaderName);
+		if (this.fanOutShardCount != null) {
+			handler.setFanOutShardCount(this.fanOutShardCount);
+		}
+		if (this.fanOutQueueCapacity != null) {
+			handler.setFanOutQueueCapacity(this.fanOutQueueCapacity);
+		}
+		if (this.fanOutExecutor != null) {
+			handler.setFanOutExecutor(this.fanOutExecutor);
+		}
 		return handler;
 	}
 
@@ -0,0 +1,445 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderInitializer;
+import org.springframework.util.Assert;
+
+/**
+ * A stateful alternative to {@link BufferingStompDecoder} that decodes STOMP
+ * frames incrementally, resuming where the previous input left off instead of
+ * re-assembling and re-parsing an incomplete frame every time more data arrives.
+ *
+ * <p>Lines and payloads contained entirely within the input are parsed straight
+ * from it; only the incomplete line or payload at the end of the input is
+ * copied into an internal buffer, which is reused from frame to frame. Header
+ * names defined by the STOMP protocol are resolved to shared {@code String}
+ * instances, and header values are only unescaped if they contain an escape
+ * sequence.
+ *
+ * <p>An instance holds the state of a single stream (e.g. WebSocket session)
+ * and is not thread-safe. If decoding fails, the instance should not be used
+ * any more as its internal state is not guaranteed to be consistent. It is
+ * expected that the underlying session is closed at that point.
+ *
+ * @since 5.1
+ * @see StompDecoder
+ * @see BufferingStompDecoder
+ */
+public class IncrementalStompDecoder {
+
+	private static final int INITIAL_BUFFER_SIZE = 256;
+
+	private static final int MAX_RETAINED_BUFFER_SIZE = 8 * 1024;
+
+	private static final Log logger = LogFactory.getLog(IncrementalStompDecoder.class);
+
+
+	private final StompDecoder stompDecoder;
+
+	private final int bufferSizeLimit;
+
+	private State state = State.COMMAND;
+
+	/** Incomplete line or payload (without content-length) from previous input */
+	private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+	private int bufferLength;
+
+	/** The last line read, either from the input or from the internal buffer */
+	private byte[] lineBytes = this.buffer;
+
+	private int lineOffset;
+
+	private int lineLength;
+
+	@Nullable
+	private StompHeaderAccessor headerAccessor;
+
+	private int contentLength = -1;
+
+	@Nullable
+	private byte[] payload;
+
+	private int payloadLength;
+
+	private int frameSize;
+
+
+	/**
+	 * Create a new {@code IncrementalStompDecoder}.
+	 * @param stompDecoder the decoder to obtain the {@link MessageHeaderInitializer} from
+	 * @param bufferSizeLimit the maximum size of a single STOMP frame
+	 */
+	public IncrementalStompDecoder(StompDecoder stompDecoder, int bufferSizeLimit) {
+		Assert.notNull(stompDecoder, "StompDecoder is required");
+		Assert.isTrue(bufferSizeLimit > 0, "Buffer size limit must be greater than 0");
+		this.stompDecoder = stompDecoder;
+		this.bufferSizeLimit = bufferSizeLimit;
+	}
+
+
+	/**
+	 * Return the {@link StompDecoder} the header initializer is obtained from.
+	 */
+	public final StompDecoder getStompDecoder() {
+		return this.stompDecoder;
+	}
+
+	/**
+	 * Return the configured buffer size limit.
+	 */
+	public final int getBufferSizeLimit() {
+		return this.bufferSizeLimit;
+	}
+
+
+	/**
+	 * Decode the readable bytes of the given {@code DataBuffer}, which are
+	 * consumed entirely. Releasing the buffer remains the caller's responsibility.
+	 * @param dataBuffer a buffer containing new data to decode
+	 * @return the decoded messages, or an empty list if none
+	 * @throws StompConversionException raised in case of decoding issues
+	 * @see #decode(ByteBuffer)
+	 */
+	public List<Message<byte[]>> decode(DataBuffer dataBuffer) {
+		List<Message<byte[]>> messages = decode(dataBuffer.asByteBuffer());
+		dataBuffer.readPosition(dataBuffer.writePosition());
+		return messages;
+	}
+
+	/**
+	 * Decode the remaining bytes of the given {@code ByteBuffer}, which are
+	 * consumed entirely. Complete frames are returned; the state of an
+	 * incomplete frame at the end of the input is kept, and decoding resumes
+	 * from there on the next invocation.
+	 * @param byteBuffer a buffer containing new data to decode
+	 * @return the decoded messages, or an empty list if none
+	 * @throws StompConversionException raised in case of decoding issues
+	 */
+	public List<Message<byte[]>> decode(ByteBuffer byteBuffer) {
+		List<Message<byte[]>> messages = new ArrayList<>(1);
+		boolean endOfLineOnly = false;
+		while (byteBuffer.hasRemaining()) {
+			if (this.state == State.COMMAND) {
+				if (this.bufferLength == 0 && skipEndOfLine(byteBuffer)) {
+					endOfLineOnly = true;
+				}
+				else if (readLine(byteBuffer)) {
+					endOfLineOnly = (this.lineLength == 0);
+					if (!endOfLineOnly) {
+						startFrame();
+					}
+				}
+				else {
+					endOfLineOnly = false;
+				}
+			}
+			else if (this.state == State.HEADERS) {
+				if (readLine(byteBuffer)) {
+					if (this.lineLength > 0) {
+						readHeader();
+					}
+					else {
+						startPayload();
+					}
+				}
+			}
+			else {
+				byte[] payload = readPayload(byteBuffer);
+				if (payload != null) {
+					messages.add(completeFrame(payload));
+				}
+			}
+		}
+		// Only end-of-line characters at the end of the input are STOMP heartbeats,
+		// consistent with StompDecoder
+		if (endOfLineOnly && this.state == State.COMMAND && this.bufferLength == 0) {
+			messages.add(createHeartbeat());
+		}
+		return messages;
+	}
+
+	/**
+	 * Return the number of bytes of the current incomplete STOMP frame read so far.
+	 */
+	public int getPartialFrameSize() {
+		return this.frameSize;
+	}
+
+	/**
+	 * Get the expected content length of the current incomplete STOMP frame,
+	 * if its headers have been read completely.
+	 */
+	@Nullable
+	public Integer getExpectedContentLength() {
+		return (this.state == State.BODY && this.contentLength >= 0 ? this.contentLength : null);
+	}
+
+
+	private boolean skipEndOfLine(ByteBuffer byteBuffer) {
+		int position = byteBuffer.position();
+		byte b = byteBuffer.get(position);
+		if (b == '\n') {
+			setPosition(byteBuffer, position + 1);
+			return true;
+		}
+		else if (b == '\r' && position + 1 < byteBuffer.limit()) {
+			if (byteBuffer.get(position + 1) != '\n') {
+				throw new StompConversionException("'\\r' must be followed by '\\n'");
+			}
+			setPosition(byteBuffer, position + 2);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Read up to and including the next LF, exposing the line content without
+	 * the EOL through {@link #lineBytes}, {@link #lineOffset}, {@link #lineLength}.
+	 * @return {@code true} if a complete line was read, or {@code false} if the
+	 * input was exhausted and its remaining content was buffered instead
+	 */
+	private boolean readLine(ByteBuffer byteBuffer) {
+		int start = byteBuffer.position();
+		int limit = byteBuffer.limit();
+		for (int i = start; i < limit; i++) {
+			if (byteBuffer.get(i) == '\n') {
+				updateFrameSize(i + 1 - start);
+				if (this.bufferLength == 0 && byteBuffer.hasArray()) {
+					this.lineBytes = byteBuffer.array();
+					this.lineOffset = byteBuffer.arrayOffset() + start;
+					this.lineLength = i - start;
+				}
+				else {
+					appendToBuffer(byteBuffer, start, i);
+					this.lineBytes = this.buffer;
+					this.lineOffset = 0;
+					this.lineLength = this.bufferLength;
+					this.bufferLength = 0;
+				}
+				setPosition(byteBuffer, i + 1);
+				if (this.lineLength > 0 && this.lineBytes[this.lineOffset + this.lineLength - 1] == '\r') {
+					this.lineLength--;
+				}
+				if (StompDecoder.indexOf(this.lineBytes, this.lineOffset, this.lineLength, (byte) '\r') != -1) {
+					throw new StompConversionException("'\\r' must be followed by '\\n'");
+				}
+				return true;
+			}
+		}
+		updateFrameSize(limit - start);
+		appendToBuffer(byteBuffer, start, limit);
+		setPosition(byteBuffer, limit);
+		return false;
+	}
+
+	private void startFrame() {
+		StompCommand command = StompDecoder.decodeCommand(this.lineBytes, this.lineOffset, this.lineLength);
+		StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(command);
+		initHeaders(headerAccessor);
+		this.headerAccessor = headerAccessor;
+		this.state = State.HEADERS;
+	}
+
+	private void readHeader() {
+		Assert.state(this.headerAccessor != null, "No frame in progress");
+		int colonIndex = StompDecoder.indexOf(this.lineBytes, this.lineOffset, this.lineLength, (byte) ':');
+		if (colonIndex <= 0) {
+			throw new StompConversionException("Illegal header: '" +
+					new String(this.lineBytes, this.lineOffset, this.lineLength, StandardCharsets.UTF_8) +
+					"'. A header must be of the form <name>:[<value>].");
+		}
+		String headerName = StompDecoder.decodeHeaderName(this.lineBytes, this.lineOffset, colonIndex);
+		String headerValue = StompDecoder.decodeHeaderValue(this.lineBytes,
+				this.lineOffset + colonIndex + 1, this.lineLength - colonIndex - 1);
+		this.headerAccessor.addNativeHeader(headerName, headerValue);
+	}
+
+	private void startPayload() {
+		Assert.state(this.headerAccessor != null, "No frame in progress");
+		Integer contentLength;
+		try {
+			contentLength = this.headerAccessor.getContentLength();
+		}
+		catch (NumberFormatException ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Ignoring invalid content-length: '" + this.headerAccessor);
+			}
+			contentLength = null;
+		}
+		if (contentLength != null && contentLength >= 0) {
+			if (contentLength > this.bufferSizeLimit) {
+				throw new StompConversionException(
+						"STOMP 'content-length' header value " + contentLength +
+						"  exceeds configured buffer size limit " + this.bufferSizeLimit);
+			}
+			this.contentLength = contentLength;
+			this.payload = new byte[contentLength];
+			this.payloadLength = 0;
+		}
+		this.state = State.BODY;
+	}
+
+	@Nullable
+	private byte[] readPayload(ByteBuffer byteBuffer) {
+		if (this.contentLength >= 0) {
+			byte[] payload = this.payload;
+			Assert.state(payload != null, "No payload in progress");
+			int length = Math.min(byteBuffer.remaining(), this.contentLength - this.payloadLength);
+			updateFrameSize(length);
+			byteBuffer.get(payload, this.payloadLength, length);
+			this.payloadLength += length;
+			if (this.payloadLength == this.contentLength && byteBuffer.hasRemaining()) {
+				if (byteBuffer.get() != 0) {
+					throw new StompConversionException("Frame must be terminated with a null octet");
+				}
+				return payload;
+			}
+			return null;
+		}
+		int start = byteBuffer.position();
+		int limit = byteBuffer.limit();
+		for (int i = start; i < limit; i++) {
+			if (byteBuffer.get(i) == 0) {
+				updateFrameSize(i - start);
+				byte[] payload;
+				if (this.bufferLength == 0) {
+					payload = new byte[i - start];
+					byteBuffer.get(payload);
+				}
+				else {
+					appendToBuffer(byteBuffer, start, i);
+					payload = Arrays.copyOf(this.buffer, this.bufferLength);
+					this.bufferLength = 0;
+				}
+				setPosition(byteBuffer, i + 1);
+				return payload;
+			}
+		}
+		updateFrameSize(limit - start);
+		appendToBuffer(byteBuffer, start, limit);
+		setPosition(byteBuffer, limit);
+		return null;
+	}
+
+	private Message<byte[]> completeFrame(byte[] payload) {
+		StompHeaderAccessor headerAccessor = this.headerAccessor;
+		Assert.state(headerAccessor != null, "No frame in progress");
+		if (payload.length > 0) {
+			StompCommand command = headerAccessor.getCommand();
+			if (command != null && !command.isBodyAllowed()) {
+				throw new StompConversionException(command +
+						" shouldn't have a payload: length=" + payload.length + ", headers=" + headerAccessor);
+			}
+		}
+		headerAccessor.updateSimpMessageHeadersFromStompHeaders();
+		headerAccessor.setLeaveMutable(true);
+		Message<byte[]> message = MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+		if (logger.isTraceEnabled()) {
+			logger.trace("Decoded " + headerAccessor.getDetailedLogMessage(payload));
+		}
+		reset();
+		return message;
+	}
+
+	private Message<byte[]> createHeartbeat() {
+		StompHeaderAccessor headerAccessor = StompHeaderAccessor.createForHeartbeat();
+		initHeaders(headerAccessor);
+		headerAccessor.setLeaveMutable(true);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Decoded " + headerAccessor.getDetailedLogMessage(null));
+		}
+		return MessageBuilder.createMessage(StompDecoder.HEARTBEAT_PAYLOAD, headerAccessor.getMessageHeaders());
+	}
+
+	private void initHeaders(StompHeaderAccessor headerAccessor) {
+		MessageHeaderInitializer initializer = this.stompDecoder.getHeaderInitializer();
+		if (initializer != null) {
+			initializer.initHeaders(headerAccessor);
+		}
+	}
+
+	private void reset() {
+		this.state = State.COMMAND;
+		this.headerAccessor = null;
+		this.contentLength = -1;
+		this.payload = null;
+		this.payloadLength = 0;
+		this.frameSize = 0;
+		if (this.buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+			this.buffer = new byte[INITIAL_BUFFER_SIZE];
+		}
+		this.lineBytes = this.buffer;
+	}
+
+	private void updateFrameSize(int length) {
+		this.frameSize += length;
+		if (this.frameSize > this.bufferSizeLimit) {
+			throw new StompConversionException("The configured STOMP buffer size limit of " +
+					this.bufferSizeLimit + " bytes has been exceeded");
+		}
+	}
+
+	private void appendToBuffer(ByteBuffer byteBuffer, int start, int end) {
+		int length = end - start;
+		if (this.bufferLength + length > this.buffer.length) {
+			int capacity = Math.max(this.buffer.length * 2, this.bufferLength + length);
+			this.buffer = Arrays.copyOf(this.buffer, capacity);
+		}
+		if (byteBuffer.hasArray()) {
+			System.arraycopy(byteBuffer.array(), byteBuffer.arrayOffset() + start,
+					this.buffer, this.bufferLength, length);
+		}
+		else {
+			for (int i = 0; i < length; i++) {
+				this.buffer[this.bufferLength + i] = byteBuffer.get(start + i);
+			}
+		}
+		this.bufferLength += length;
+	}
+
+	private static void setPosition(ByteBuffer byteBuffer, int position) {
+		// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+		((Buffer) byteBuffer).position(position);
+	}
+
+
+	/**
+	 * The part of a STOMP frame the decoder expects next.
+	 */
+	private enum State {
+
+		COMMAND, HEADERS, BODY
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
@@ -53,6 +52,34 @@ public class StompDecoder {
 
 	private static final Log logger = LogFactory.getLog(StompDecoder.class);
 
+	private static final StompCommand[] COMMANDS = StompCommand.values();
+
+	/** Encoded names of the STOMP commands, indexed like {@link #COMMANDS} */
+	private static final byte[][] COMMAND_NAME_BYTES = new byte[COMMANDS.length][];
+
+	/** Names of the headers defined by the STOMP protocol, decoded without allocation */
+	private static final String[] WELL_KNOWN_HEADER_NAMES = new String[] {
+			StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+			StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+			StompHeaderAccessor.STOMP_ID_HEADER, StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER,
+			StompHeaderAccessor.STOMP_RECEIPT_HEADER, StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER,
+			StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_NACK_HEADER,
+			StompHeaderAccessor.STOMP_HOST_HEADER, StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER,
+			StompHeaderAccessor.STOMP_VERSION_HEADER, StompHeaderAccessor.STOMP_HEARTBEAT_HEADER,
+			StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_PASSCODE_HEADER,
+			StompHeaderAccessor.STOMP_MESSAGE_HEADER, "session", "server", "transaction"};
+
+	private static final byte[][] WELL_KNOWN_HEADER_NAME_BYTES = new byte[WELL_KNOWN_HEADER_NAMES.length][];
+
+	static {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			COMMAND_NAME_BYTES[i] = COMMANDS[i].name().getBytes(StandardCharsets.UTF_8);
+		}
+		for (int i = 0; i < WELL_KNOWN_HEADER_NAMES.length; i++) {
+			WELL_KNOWN_HEADER_NAME_BYTES[i] = WELL_KNOWN_HEADER_NAMES[i].getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
 	@Nullable
 	private MessageHeaderInitializer headerInitializer;
 
@@ -135,12 +162,15 @@ public class StompDecoder {
 		Buffer buffer = byteBuffer;
 		buffer.mark();
 
-		String command = readCommand(byteBuffer);
-		if (command.length() > 0) {
+		int commandStart = byteBuffer.position();
+		int commandEnd = readCommand(byteBuffer);
+		if (commandEnd > commandStart) {
 			StompHeaderAccessor headerAccessor = null;
 			byte[] payload = null;
 			if (byteBuffer.remaining() > 0) {
-				StompCommand stompCommand = StompCommand.valueOf(command);
+				StompCommand stompCommand = (byteBuffer.hasArray() ?
+						decodeCommand(byteBuffer.array(), byteBuffer.arrayOffset() + commandStart, commandEnd - commandStart) :
+						decodeCommand(copyOfRange(byteBuffer, commandStart, commandEnd), 0, commandEnd - commandStart));
 				headerAccessor = StompHeaderAccessor.create(stompCommand);
 				initHeaders(headerAccessor);
 				readHeaders(byteBuffer, headerAccessor);
@@ -206,68 +236,110 @@ public class StompDecoder {
 		}
 	}
 
-	private String readCommand(ByteBuffer byteBuffer) {
-		ByteArrayOutputStream command = new ByteArrayOutputStream(256);
-		while (byteBuffer.remaining() > 0 && !tryConsumeEndOfLine(byteBuffer)) {
-			command.write(byteBuffer.get());
-		}
-		return new String(command.toByteArray(), StandardCharsets.UTF_8);
+	/**
+	 * Read the command line, returning the end index of the command, or the
+	 * limit of the buffer if the command line is incomplete.
+	 */
+	private int readCommand(ByteBuffer byteBuffer) {
+		int end = readLine(byteBuffer);
+		return (end != -1 ? end : byteBuffer.limit());
 	}
 
 	private void readHeaders(ByteBuffer byteBuffer, StompHeaderAccessor headerAccessor) {
 		while (true) {
-			ByteArrayOutputStream headerStream = new ByteArrayOutputStream(256);
-			boolean headerComplete = false;
-			while (byteBuffer.hasRemaining()) {
-				if (tryConsumeEndOfLine(byteBuffer)) {
-					headerComplete = true;
-					break;
+			int start = byteBuffer.position();
+			int end = readLine(byteBuffer);
+			if (end == -1 || end == start) {
+				break;
+			}
+			byte[] bytes;
+			int offset;
+			if (byteBuffer.hasArray()) {
+				bytes = byteBuffer.array();
+				offset = byteBuffer.arrayOffset() + start;
+			}
+			else {
+				bytes = copyOfRange(byteBuffer, start, end);
+				offset = 0;
+			}
+			int length = end - start;
+			int colonIndex = indexOf(bytes, offset, length, (byte) ':');
+			if (colonIndex <= 0) {
+				if (byteBuffer.remaining() > 0) {
+					String header = new String(bytes, offset, length, StandardCharsets.UTF_8);
+					throw new StompConversionException("Illegal header: '" + header +
+							"'. A header must be of the form <name>:[<value>].");
 				}
-				headerStream.write(byteBuffer.get());
 			}
-			if (headerStream.size() > 0 && headerComplete) {
-				String header = new String(headerStream.toByteArray(), StandardCharsets.UTF_8);
-				int colonIndex = header.indexOf(':');
-				if (colonIndex <= 0) {
-					if (byteBuffer.remaining() > 0) {
-						throw new StompConversionException("Illegal header: '" + header +
-								"'. A header must be of the form <name>:[<value>].");
-					}
+			else {
+				String headerName = decodeHeaderName(bytes, offset, colonIndex);
+				String headerValue = decodeHeaderValue(bytes, offset + colonIndex + 1, length - colonIndex - 1);
+				try {
+					headerAccessor.addNativeHeader(headerName, headerValue);
 				}
-				else {
-					String headerName = unescape(header.substring(0, colonIndex));
-					String headerValue = unescape(header.substring(colonIndex + 1));
-					try {
-						headerAccessor.addNativeHeader(headerName, headerValue);
-					}
-					catch (InvalidMimeTypeException ex) {
-						if (byteBuffer.remaining() > 0) {
-							throw ex;
-						}
+				catch (InvalidMimeTypeException ex) {
+					if (byteBuffer.remaining() > 0) {
+						throw ex;
 					}
 				}
 			}
-			else {
-				break;
+		}
+	}
+
+	/**
+	 * Resolve the {@link StompCommand} for the given command line bytes without
+	 * creating an intermediate {@code String} for well-known commands.
+	 * @throws IllegalArgumentException if the command is not a STOMP command
+	 */
+	static StompCommand decodeCommand(byte[] bytes, int offset, int length) {
+		for (int i = 0; i < COMMANDS.length; i++) {
+			if (regionMatches(COMMAND_NAME_BYTES[i], bytes, offset, length)) {
+				return COMMANDS[i];
 			}
 		}
+		return StompCommand.valueOf(new String(bytes, offset, length, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decode a header name, returning the shared {@code String} instance for
+	 * headers defined by the STOMP protocol.
+	 */
+	static String decodeHeaderName(byte[] bytes, int offset, int length) {
+		for (int i = 0; i < WELL_KNOWN_HEADER_NAMES.length; i++) {
+			if (regionMatches(WELL_KNOWN_HEADER_NAME_BYTES[i], bytes, offset, length)) {
+				return WELL_KNOWN_HEADER_NAMES[i];
+			}
+		}
+		return decodeHeaderValue(bytes, offset, length);
+	}
+
+	/**
+	 * Decode a header value, unescaping it only if it contains an escape sequence.
+	 */
+	static String decodeHeaderValue(byte[] bytes, int offset, int length) {
+		String value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+		return (indexOf(bytes, offset, length, (byte) '\\') != -1 ? unescape(value) : value);
 	}
 
 	/**
 	 * See STOMP Spec 1.2:
 	 * <a href="http://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
 	 */
-	private String unescape(String inString) {
+	static String unescape(String inString) {
+		int index = inString.indexOf('\\');
+		if (index == -1) {
+			return inString;
+		}
+
 		StringBuilder sb = new StringBuilder(inString.length());
 		int pos = 0;  // position in the old string
-		int index = inString.indexOf('\\');
 
 		while (index >= 0) {
-			sb.append(inString.substring(pos, index));
+			sb.append(inString, pos, index);
 			if (index + 1 >= inString.length()) {
 				throw new StompConversionException("Illegal escape sequence at index " + index + ": " + inString);
 			}
-			Character c = inString.charAt(index + 1);
+			char c = inString.charAt(index + 1);
 			if (c == 'r') {
 				sb.append('\r');
 			}
@@ -288,7 +360,7 @@ public class StompDecoder {
 			index = inString.indexOf('\\', pos);
 		}
 
-		sb.append(inString.substring(pos));
+		sb.append(inString, pos, inString.length());
 		return sb.toString();
 	}
 
@@ -319,18 +391,70 @@ public class StompDecoder {
 			}
 		}
 		else {
-			ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
-			while (byteBuffer.remaining() > 0) {
-				byte b = byteBuffer.get();
-				if (b == 0) {
-					return payload.toByteArray();
+			int start = byteBuffer.position();
+			for (int i = start; i < byteBuffer.limit(); i++) {
+				if (byteBuffer.get(i) == 0) {
+					byte[] payload = new byte[i - start];
+					byteBuffer.get(payload);
+					byteBuffer.get();
+					return payload;
+				}
+			}
+			// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+			((Buffer) byteBuffer).position(byteBuffer.limit());
+		}
+		return null;
+	}
+
+	/**
+	 * Read up to and including the next EOL, returning the index at which the
+	 * line content ends, or -1 if the buffer was exhausted before an EOL.
+	 */
+	private int readLine(ByteBuffer byteBuffer) {
+		while (byteBuffer.hasRemaining()) {
+			byte b = byteBuffer.get();
+			if (b == '\n') {
+				return byteBuffer.position() - 1;
+			}
+			else if (b == '\r') {
+				if (byteBuffer.remaining() > 0 && byteBuffer.get() == '\n') {
+					return byteBuffer.position() - 2;
 				}
 				else {
-					payload.write(b);
+					throw new StompConversionException("'\\r' must be followed by '\\n'");
 				}
 			}
 		}
-		return null;
+		return -1;
+	}
+
+	private static byte[] copyOfRange(ByteBuffer byteBuffer, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = byteBuffer.get(start + i);
+		}
+		return bytes;
+	}
+
+	static int indexOf(byte[] bytes, int offset, int length, byte target) {
+		for (int i = 0; i < length; i++) {
+			if (bytes[offset + i] == target) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean regionMatches(byte[] expected, byte[] bytes, int offset, int length) {
+		if (expected.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (expected[i] != bytes[offset + i]) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -16,11 +16,10 @@
 
 package org.springframework.messaging.simp.stomp;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +29,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
@@ -40,6 +43,13 @@ import org.springframework.util.Assert;
 /**
  * An encoder for STOMP frames.
  *
+ * <p>As of 5.1, frames can also be encoded straight into a {@link DataBuffer}
+ * obtained from a given {@link DataBufferFactory}, e.g. a Netty
+ * {@code NettyDataBufferFactory} with a pooled allocator, and a frame sent to
+ * multiple subscriptions can be {@link #encodeShared encoded once} and then
+ * written out for each subscription, as done by the WebSocket
+ * {@code StompSubProtocolHandler} for messages broadcast by a broker.
+ *
  * @author Andy Wilkinson
  * @author Rossen Stoyanchev
  * @since 4.0
@@ -55,6 +65,42 @@ public class StompEncoder  {
 
 	private static final int HEADER_KEY_CACHE_LIMIT = 32;
 
+	private static final DataBufferFactory HEAP_BUFFER_FACTORY = new DefaultDataBufferFactory();
+
+	/** Encoded command line, i.e. the command followed by LF, for each command */
+	private static final Map<StompCommand, byte[]> COMMAND_BYTES = new EnumMap<>(StompCommand.class);
+
+	/** Encoded keys of the headers defined by the STOMP protocol, which need no escaping */
+	private static final Map<String, byte[]> WELL_KNOWN_HEADER_KEYS = new HashMap<>(32);
+
+	private static final byte[] CONTENT_LENGTH_KEY =
+			(StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER + ":").getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] SUBSCRIPTION_KEY =
+			(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER + ":").getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] MESSAGE_ID_KEY =
+			(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER + ":").getBytes(StandardCharsets.UTF_8);
+
+	static {
+		for (StompCommand command : StompCommand.values()) {
+			COMMAND_BYTES.put(command, (command.name() + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+		String[] headerKeys = new String[] {StompHeaderAccessor.STOMP_ID_HEADER,
+				StompHeaderAccessor.STOMP_HOST_HEADER, StompHeaderAccessor.STOMP_ACCEPT_VERSION_HEADER,
+				StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER, StompHeaderAccessor.STOMP_RECEIPT_HEADER,
+				StompHeaderAccessor.STOMP_RECEIPT_ID_HEADER, StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER,
+				StompHeaderAccessor.STOMP_VERSION_HEADER, StompHeaderAccessor.STOMP_MESSAGE_HEADER,
+				StompHeaderAccessor.STOMP_ACK_HEADER, StompHeaderAccessor.STOMP_NACK_HEADER,
+				StompHeaderAccessor.STOMP_LOGIN_HEADER, StompHeaderAccessor.STOMP_PASSCODE_HEADER,
+				StompHeaderAccessor.STOMP_DESTINATION_HEADER, StompHeaderAccessor.STOMP_CONTENT_TYPE_HEADER,
+				StompHeaderAccessor.STOMP_CONTENT_LENGTH_HEADER, StompHeaderAccessor.STOMP_HEARTBEAT_HEADER,
+				"session", "server", "transaction"};
+		for (String headerKey : headerKeys) {
+			WELL_KNOWN_HEADER_KEYS.put(headerKey, headerKey.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
 
 	private final Map<String, byte[]> headerKeyAccessCache = new ConcurrentHashMap<>(HEADER_KEY_CACHE_LIMIT);
 
@@ -90,41 +136,118 @@ public class StompEncoder  {
 	 * @return the encoded message
 	 */
 	public byte[] encode(Map<String, Object> headers, byte[] payload) {
+		DataBuffer buffer = encode(headers, payload, HEAP_BUFFER_FACTORY);
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Encodes the given STOMP {@code message} into a {@link DataBuffer}
+	 * allocated from the given factory.
+	 * @param message the message to encode
+	 * @param bufferFactory the factory to allocate the buffer from
+	 * @return the encoded message
+	 * @since 5.1
+	 */
+	public DataBuffer encode(Message<byte[]> message, DataBufferFactory bufferFactory) {
+		return encode(message.getHeaders(), message.getPayload(), bufferFactory);
+	}
+
+	/**
+	 * Encodes the given payload and headers into a {@link DataBuffer}
+	 * allocated from the given factory.
+	 * @param headers the headers
+	 * @param payload the payload
+	 * @param bufferFactory the factory to allocate the buffer from
+	 * @return the encoded message
+	 * @since 5.1
+	 */
+	public DataBuffer encode(Map<String, Object> headers, byte[] payload, DataBufferFactory bufferFactory) {
+		Assert.notNull(bufferFactory, "'bufferFactory' is required");
+		DataBuffer buffer = bufferFactory.allocateBuffer(128 + payload.length);
+		try {
+			encode(headers, payload, buffer);
+			return buffer;
+		}
+		catch (RuntimeException ex) {
+			DataBufferUtils.release(buffer);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Encodes the given payload and headers, writing to the given
+	 * {@link DataBuffer}, e.g. a wrapped Netty {@code ByteBuf}.
+	 * @param headers the headers
+	 * @param payload the payload
+	 * @param output the buffer to write to
+	 * @since 5.1
+	 */
+	public void encode(Map<String, Object> headers, byte[] payload, DataBuffer output) {
 		Assert.notNull(headers, "'headers' is required");
 		Assert.notNull(payload, "'payload' is required");
 
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream(128 + payload.length);
-			DataOutputStream output = new DataOutputStream(baos);
+		if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
+			logger.trace("Encoding heartbeat");
+			output.write(StompDecoder.HEARTBEAT_PAYLOAD);
+		}
 
-			if (SimpMessageType.HEARTBEAT.equals(SimpMessageHeaderAccessor.getMessageType(headers))) {
-				logger.trace("Encoding heartbeat");
-				output.write(StompDecoder.HEARTBEAT_PAYLOAD);
-			}
+		else {
+			StompCommand command = getCommand(headers);
+			output.write(COMMAND_BYTES.get(command));
+			writeHeaders(command, headers, payload, false, output);
+			output.write(LF);
+			writeBody(payload, output);
+			output.write((byte) 0);
+		}
+	}
 
-			else {
-				StompCommand command = StompHeaderAccessor.getCommand(headers);
-				if (command == null) {
-					throw new IllegalStateException("Missing STOMP command: " + headers);
-				}
+	/**
+	 * Encodes the given payload and headers once, for sending the same frame to
+	 * several subscriptions. The returned frame can then be written out for each
+	 * subscription without encoding the command, headers, and payload again;
+	 * only the {@code subscription} and {@code message-id} headers, which are
+	 * written last, are encoded per subscription. Any such headers in the given
+	 * headers are ignored.
+	 * @param headers the headers
+	 * @param payload the payload
+	 * @return the shared frame
+	 * @since 5.1
+	 */
+	public SharedFrame encodeShared(Map<String, Object> headers, byte[] payload) {
+		Assert.notNull(headers, "'headers' is required");
+		Assert.notNull(payload, "'payload' is required");
 
-				output.write(command.toString().getBytes(StandardCharsets.UTF_8));
-				output.write(LF);
-				writeHeaders(command, headers, payload, output);
-				output.write(LF);
-				writeBody(payload, output);
-				output.write((byte) 0);
-			}
+		StompCommand command = getCommand(headers);
+		DataBuffer prefix = HEAP_BUFFER_FACTORY.allocateBuffer(128);
+		prefix.write(COMMAND_BYTES.get(command));
+		writeHeaders(command, headers, payload, true, prefix);
+		byte[] prefixBytes = new byte[prefix.readableByteCount()];
+		prefix.read(prefixBytes);
 
-			return baos.toByteArray();
-		}
-		catch (IOException ex) {
-			throw new StompConversionException("Failed to encode STOMP frame, headers=" + headers,  ex);
+		byte[] suffixBytes = new byte[payload.length + 2];
+		suffixBytes[0] = LF;
+		System.arraycopy(payload, 0, suffixBytes, 1, payload.length);
+		suffixBytes[suffixBytes.length - 1] = 0;
+
+		return new SharedFrame(prefixBytes, suffixBytes, shouldEscape(command));
+	}
+
+	private static StompCommand getCommand(Map<String, Object> headers) {
+		StompCommand command = StompHeaderAccessor.getCommand(headers);
+		if (command == null) {
+			throw new IllegalStateException("Missing STOMP command: " + headers);
 		}
+		return command;
+	}
+
+	private static boolean shouldEscape(StompCommand command) {
+		return (command != StompCommand.CONNECT && command != StompCommand.CONNECTED);
 	}
 
 	private void writeHeaders(StompCommand command, Map<String, Object> headers, byte[] payload,
-			DataOutputStream output) throws IOException {
+			boolean shared, DataBuffer output) {
 
 		@SuppressWarnings("unchecked")
 		Map<String,List<String>> nativeHeaders =
@@ -138,12 +261,16 @@ public class StompEncoder  {
 			return;
 		}
 
-		boolean shouldEscape = (command != StompCommand.CONNECT && command != StompCommand.CONNECTED);
+		boolean shouldEscape = shouldEscape(command);
 
 		for (Entry<String, List<String>> entry : nativeHeaders.entrySet()) {
 			if (command.requiresContentLength() && "content-length".equals(entry.getKey())) {
 				continue;
 			}
+			if (shared && (StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER.equals(entry.getKey()) ||
+					StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER.equals(entry.getKey()))) {
+				continue;
+			}
 
 			List<String> values = entry.getValue();
 			if (StompCommand.CONNECT.equals(command) &&
@@ -162,13 +289,17 @@ public class StompEncoder  {
 
 		if (command.requiresContentLength()) {
 			int contentLength = payload.length;
-			output.write("content-length:".getBytes(StandardCharsets.UTF_8));
+			output.write(CONTENT_LENGTH_KEY);
 			output.write(Integer.toString(contentLength).getBytes(StandardCharsets.UTF_8));
 			output.write(LF);
 		}
 	}
 
 	private byte[] encodeHeaderKey(String input, boolean escape) {
+		byte[] wellKnownKey = WELL_KNOWN_HEADER_KEYS.get(input);
+		if (wellKnownKey != null) {
+			return wellKnownKey;
+		}
 		String inputToUse = (escape ? escape(input) : input);
 		if (this.headerKeyAccessCache.containsKey(inputToUse)) {
 			return this.headerKeyAccessCache.get(inputToUse);
@@ -184,7 +315,7 @@ public class StompEncoder  {
 		}
 	}
 
-	private byte[] encodeHeaderValue(String input, boolean escape) {
+	private static byte[] encodeHeaderValue(String input, boolean escape) {
 		String inputToUse = (escape ? escape(input) : input);
 		return inputToUse.getBytes(StandardCharsets.UTF_8);
 	}
@@ -193,7 +324,7 @@ public class StompEncoder  {
 	 * See STOMP Spec 1.2:
 	 * <a href="http://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">"Value Encoding"</a>.
 	 */
-	private String escape(String inString) {
+	private static String escape(String inString) {
 		StringBuilder sb = null;
 		for (int i = 0; i < inString.length(); i++) {
 			char c = inString.charAt(i);
@@ -220,7 +351,7 @@ public class StompEncoder  {
 		return (sb != null ? sb.toString() : inString);
 	}
 
-	private StringBuilder getStringBuilder(@Nullable StringBuilder sb, String inString, int i) {
+	private static StringBuilder getStringBuilder(@Nullable StringBuilder sb, String inString, int i) {
 		if (sb == null) {
 			sb = new StringBuilder(inString.length());
 			sb.append(inString.substring(0, i));
@@ -228,8 +359,126 @@ public class StompEncoder  {
 		return sb;
 	}
 
-	private void writeBody(byte[] payload, DataOutputStream output) throws IOException {
+	private void writeBody(byte[] payload, DataBuffer output) {
 		output.write(payload);
 	}
 
+
+	/**
+	 * A frame encoded once via {@link StompEncoder#encodeShared}, to be written
+	 * out for any number of subscriptions.
+	 * @since 5.1
+	 */
+	public static final class SharedFrame {
+
+		/** The command and all headers except the subscription header */
+		private final byte[] prefix;
+
+		/** The blank line, the body and the terminating NUL */
+		private final byte[] suffix;
+
+		private final boolean escape;
+
+		/** The prefix decoded from UTF-8, on first use */
+		@Nullable
+		private volatile String textPrefix;
+
+		/** The suffix decoded from UTF-8, on first use */
+		@Nullable
+		private volatile String textSuffix;
+
+		private SharedFrame(byte[] prefix, byte[] suffix, boolean escape) {
+			this.prefix = prefix;
+			this.suffix = suffix;
+			this.escape = escape;
+		}
+
+		/**
+		 * Return the frame for the given subscription as a {@code byte[]}.
+		 * @param subscriptionId the value of the subscription header
+		 * @param messageId the value of the message-id header, if any
+		 */
+		public byte[] encode(String subscriptionId, @Nullable String messageId) {
+			byte[] subscriptionValue = encodeHeaderValue(subscriptionId, this.escape);
+			byte[] messageIdValue = (messageId != null ? encodeHeaderValue(messageId, this.escape) : null);
+			byte[] bytes = new byte[this.prefix.length + SUBSCRIPTION_KEY.length + subscriptionValue.length + 1 +
+					(messageIdValue != null ? MESSAGE_ID_KEY.length + messageIdValue.length + 1 : 0) +
+					this.suffix.length];
+			int index = copy(this.prefix, bytes, 0);
+			index = copy(SUBSCRIPTION_KEY, bytes, index);
+			index = copy(subscriptionValue, bytes, index);
+			bytes[index++] = LF;
+			if (messageIdValue != null) {
+				index = copy(MESSAGE_ID_KEY, bytes, index);
+				index = copy(messageIdValue, bytes, index);
+				bytes[index++] = LF;
+			}
+			copy(this.suffix, bytes, index);
+			return bytes;
+		}
+
+		private static int copy(byte[] source, byte[] target, int index) {
+			System.arraycopy(source, 0, target, index, source.length);
+			return index + source.length;
+		}
+
+		/**
+		 * Return the frame for the given subscription as text, e.g. for a
+		 * WebSocket text message. The shared part of the frame, including the
+		 * payload, is decoded from UTF-8 only once, on first use, and not again
+		 * for every subscription.
+		 * @param subscriptionId the value of the subscription header
+		 * @param messageId the value of the message-id header, if any
+		 */
+		public String encodeToString(String subscriptionId, @Nullable String messageId) {
+			String prefix = this.textPrefix;
+			String suffix = this.textSuffix;
+			if (prefix == null || suffix == null) {
+				prefix = new String(this.prefix, StandardCharsets.UTF_8);
+				suffix = new String(this.suffix, StandardCharsets.UTF_8);
+				this.textPrefix = prefix;
+				this.textSuffix = suffix;
+			}
+			String subscriptionValue = (this.escape ? escape(subscriptionId) : subscriptionId);
+			String messageIdValue = (messageId != null && this.escape ? escape(messageId) : messageId);
+			StringBuilder sb = new StringBuilder(prefix.length() + suffix.length() + 64);
+			sb.append(prefix);
+			sb.append(StompHeaderAccessor.STOMP_SUBSCRIPTION_HEADER).append(':').append(subscriptionValue).append('\n');
+			if (messageIdValue != null) {
+				sb.append(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER).append(':').append(messageIdValue).append('\n');
+			}
+			sb.append(suffix);
+			return sb.toString();
+		}
+
+		/**
+		 * Return the frame for the given subscription in a {@link DataBuffer}
+		 * allocated from the given factory.
+		 * @param subscriptionId the value of the subscription header
+		 * @param messageId the value of the message-id header, if any
+		 * @param bufferFactory the factory to allocate the buffer from
+		 */
+		public DataBuffer encode(String subscriptionId, @Nullable String messageId,
+				DataBufferFactory bufferFactory) {
+
+			byte[] subscriptionValue = encodeHeaderValue(subscriptionId, this.escape);
+			byte[] messageIdValue = (messageId != null ? encodeHeaderValue(messageId, this.escape) : null);
+			int capacity = this.prefix.length + SUBSCRIPTION_KEY.length + subscriptionValue.length + 1 +
+					(messageIdValue != null ? MESSAGE_ID_KEY.length + messageIdValue.length + 1 : 0) +
+					this.suffix.length;
+			DataBuffer buffer = bufferFactory.allocateBuffer(capacity);
+			buffer.write(this.prefix);
+			buffer.write(SUBSCRIPTION_KEY);
+			buffer.write(subscriptionValue);
+			buffer.write(LF);
+			if (messageIdValue != null) {
+				buffer.write(MESSAGE_ID_KEY);
+				buffer.write(messageIdValue);
+				buffer.write(LF);
+			}
+			buffer.write(this.suffix);
+			return buffer;
+		}
+	}
+
 }
@@ -220,8 +220,7 @@ public class StompHeaderAccessor extends SimpMessageHeaderAccessor {
 		}
 		trySetStompHeaderForSubscriptionId();
 		if (getMessageId() == null) {
-			String messageId = getSessionId() + '-' + messageIdCounter.getAndIncrement();
-			setNativeHeader(STOMP_MESSAGE_ID_HEADER, messageId);
+			setNativeHeader(STOMP_MESSAGE_ID_HEADER, generateMessageId(getSessionId()));
 		}
 	}
 
@@ -488,6 +487,17 @@ public class StompHeaderAccessor extends SimpMessageHeaderAccessor {
 
 	// Static factory methods and accessors
 
+	/**
+	 * Generate a unique {@code message-id} for a MESSAGE frame sent to the
+	 * given session, as applied by {@link #updateStompCommandAsServerMessage()}
+	 * to frames without one.
+	 * @param sessionId the id of the session that the frame is sent to
+	 * @since 5.1
+	 */
+	public static String generateMessageId(@Nullable String sessionId) {
+		return sessionId + "-" + messageIdCounter.getAndIncrement();
+	}
+
 	/**
 	 * Create an instance for the given STOMP command.
 	 */
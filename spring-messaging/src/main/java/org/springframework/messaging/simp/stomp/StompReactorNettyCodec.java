@@ -18,6 +18,12 @@ package org.springframework.messaging.simp.stomp;
 import java.nio.ByteBuffer;
 import java.util.List;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.tcp.reactor.AbstractNioBufferReactorNettyCodec;
 
@@ -33,6 +39,9 @@ public class StompReactorNettyCodec extends AbstractNioBufferReactorNettyCodec<b
 
 	private final StompEncoder encoder;
 
+	@Nullable
+	private volatile NettyDataBufferFactory bufferFactory;
+
 
 	public StompReactorNettyCodec() {
 		this(new StompDecoder());
@@ -53,8 +62,33 @@ public class StompReactorNettyCodec extends AbstractNioBufferReactorNettyCodec<b
 		return this.decoder.decode(nioBuffer);
 	}
 
+	/**
+	 * Encode the given message straight into the output buffer, without an
+	 * intermediate {@code byte[]}.
+	 */
+	@Override
+	public void encode(Message<byte[]> message, ByteBuf outputBuffer) {
+		NettyDataBufferFactory bufferFactory = getBufferFactory(outputBuffer.alloc());
+		this.encoder.encode(message.getHeaders(), message.getPayload(), bufferFactory.wrap(outputBuffer));
+	}
+
+	/**
+	 * Encode the given message into a heap {@code ByteBuffer}. Not used by
+	 * {@link #encode(Message, ByteBuf)}, which writes to the output buffer directly.
+	 */
+	@Override
 	protected ByteBuffer encodeInternal(Message<byte[]> message) {
-		return ByteBuffer.wrap(this.encoder.encode(message));
+		return this.encoder.encode(message, new DefaultDataBufferFactory()).asByteBuffer();
+	}
+
+	private NettyDataBufferFactory getBufferFactory(ByteBufAllocator allocator) {
+		// Typically the same allocator for every connection: keep its factory around
+		NettyDataBufferFactory bufferFactory = this.bufferFactory;
+		if (bufferFactory == null || bufferFactory.getByteBufAllocator() != allocator) {
+			bufferFactory = new NettyDataBufferFactory(allocator);
+			this.bufferFactory = bufferFactory;
+		}
+		return bufferFactory;
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,10 +28,13 @@ import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.MultiValueMap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test fixture for
@@ -232,6 +235,78 @@ public class DefaultSubscriptionRegistryTests {
 		this.registry.unregisterAllSubscriptions(sess2);
 	}
 
+	@Test
+	public void registerSubscriptionsWithWildcardSegments() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/topic/*/prices"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "/topic/{market}/prices/**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs04", "/topic/NASDAQ/prices"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs05", "/queue/NASDAQ/prices"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/NASDAQ/prices"));
+		assertEquals(Arrays.asList("subs01", "subs02", "subs03", "subs04"), sort(actual.get("sess01")));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/NYSE/prices/IBM"));
+		assertEquals(Arrays.asList("subs01", "subs03"), sort(actual.get("sess01")));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic"));
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess01"));
+
+		actual = this.registry.findSubscriptions(createMessage("/queue/NYSE/prices"));
+		assertEquals(0, actual.size());
+	}
+
+	@Test
+	public void registerSubscriptionWithTrailingWildcardMatchesTrailingSeparator() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/*"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/"));
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess01"));
+	}
+
+	@Test
+	public void registerSubscriptionsWithCustomPathSeparator() {
+		this.registry.setPathMatcher(new AntPathMatcher("."));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "price.stock.*.IBM"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "price.**"));
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs03", "price.stock.NYSE.IBM"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("price.stock.NASDAQ.IBM"));
+		assertEquals(Arrays.asList("subs01", "subs02"), sort(actual.get("sess01")));
+
+		actual = this.registry.findSubscriptions(createMessage("price.stock.NYSE.IBM"));
+		assertEquals(Arrays.asList("subs01", "subs02", "subs03"), sort(actual.get("sess01")));
+	}
+
+	@Test
+	public void registerSubscriptionsWithCaseInsensitivePathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/PRICE/*"));
+		this.registry.setPathMatcher(pathMatcher);
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs02", "/TOPIC/price/ibm"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/price/IBM"));
+		assertEquals(Arrays.asList("subs01", "subs02"), sort(actual.get("sess01")));
+	}
+
+	@Test
+	public void unregisterAndReregisterWithPattern() {
+		this.registry.registerSubscription(subscribeMessage("sess01", "subs01", "/topic/*/prices"));
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/topic/NYSE/prices")).size());
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess01", "subs01"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/NYSE/prices")).size());
+
+		this.registry.registerSubscription(subscribeMessage("sess02", "subs01", "/topic/*/prices"));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/NYSE/prices"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("subs01"), actual.get("sess02"));
+
+		this.registry.unregisterAllSubscriptions("sess02");
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/NYSE/prices")).size());
+	}
+
 	@Test
 	public void registerSubscriptionWithDestinationPatternRegex() {
 		String sessId = "sess01";
@@ -439,6 +514,51 @@ public class DefaultSubscriptionRegistryTests {
 		assertEquals(2, this.registry.findSubscriptions(createMessage("/bar")).size());
 	}
 
+	@Test
+	public void cacheLimitNotReachedByDroppedDestinations() throws Exception {
+		this.registry.setCacheLimit(2);
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "2", "/bar"));
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/foo")).size());
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/bar")).size());
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "1"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "3", "/foo"));
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/foo")).size());
+		assertEquals(2, this.registry.getCacheSize());
+		assertTrue(this.registry.isCached("/foo"));
+		assertTrue(this.registry.isCached("/bar"));
+
+		this.registry.unregisterAllSubscriptions("sess1");
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/baz"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "2", "/qux"));
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/baz")).size());
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/qux")).size());
+		assertEquals(2, this.registry.getCacheSize());
+		assertTrue(this.registry.isCached("/baz"));
+		assertTrue(this.registry.isCached("/qux"));
+	}
+
+	@Test
+	public void cacheEvictsLeastRecentlyUsed() throws Exception {
+		this.registry.setCacheLimit(2);
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "2", "/bar"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "3", "/baz"));
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/foo")).size());
+		Thread.sleep(1);
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/bar")).size());
+		Thread.sleep(1);
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/foo")).size());
+		Thread.sleep(1);
+
+		assertEquals(1, this.registry.findSubscriptions(createMessage("/baz")).size());
+		assertEquals(2, this.registry.getCacheSize());
+		assertTrue(this.registry.isCached("/foo"));
+		assertFalse(this.registry.isCached("/bar"));
+		assertTrue(this.registry.isCached("/baz"));
+	}
+
 	private Message<?> createMessage(String destination) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
 		accessor.setDestination(destination);
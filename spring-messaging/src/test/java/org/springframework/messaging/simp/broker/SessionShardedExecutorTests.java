@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.core.task.TaskRejectedException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link SessionShardedExecutor}.
+ */
+public class SessionShardedExecutorTests {
+
+	private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+
+	@After
+	public void tearDown() {
+		this.executorService.shutdownNow();
+	}
+
+
+	@Test
+	public void tasksPerSessionRunInOrder() throws Exception {
+		SessionShardedExecutor executor = new SessionShardedExecutor(this.executorService, 3, Integer.MAX_VALUE);
+		List<String> sessionIds = Arrays.asList("sess1", "sess2", "sess3", "sess4", "sess5");
+		Map<String, List<Integer>> results = new ConcurrentHashMap<>();
+		int taskCount = 1000;
+		CountDownLatch latch = new CountDownLatch(sessionIds.size() * taskCount);
+
+		for (int i = 0; i < taskCount; i++) {
+			int index = i;
+			for (String sessionId : sessionIds) {
+				executor.execute(sessionId, () -> {
+					results.computeIfAbsent(sessionId, id -> new ArrayList<>()).add(index);
+					latch.countDown();
+				});
+			}
+		}
+
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		for (String sessionId : sessionIds) {
+			List<Integer> sessionResults = results.get(sessionId);
+			assertEquals(taskCount, sessionResults.size());
+			for (int i = 0; i < taskCount; i++) {
+				assertEquals(Integer.valueOf(i), sessionResults.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void sameShardForSameSession() {
+		SessionShardedExecutor executor = new SessionShardedExecutor(this.executorService, 8, 100);
+		assertEquals(executor.getShardIndex("sess1"), executor.getShardIndex(new String("sess1")));
+		assertTrue(executor.getShardIndex("sess1") < 8);
+	}
+
+	@Test
+	public void queueDepths() throws Exception {
+		List<Runnable> scheduled = new ArrayList<>();
+		SessionShardedExecutor executor = new SessionShardedExecutor(scheduled::add, 2, 100);
+
+		executor.execute(0, () -> {});
+		executor.execute(0, () -> {});
+		executor.execute(1, () -> {});
+		assertArrayEquals(new int[] {2, 1}, executor.getQueueDepths());
+		assertEquals("Each shard is scheduled once", 2, scheduled.size());
+
+		scheduled.get(0).run();
+		assertArrayEquals(new int[] {0, 1}, executor.getQueueDepths());
+		assertEquals(2L, executor.getCompletedTaskCounts()[0]);
+	}
+
+	@Test
+	public void taskFailureDoesNotStopShard() throws Exception {
+		SessionShardedExecutor executor = new SessionShardedExecutor(Runnable::run, 1, 100);
+		List<String> results = new ArrayList<>();
+
+		executor.execute("sess1", () -> {
+			throw new IllegalStateException("expected");
+		});
+		executor.execute("sess1", () -> results.add("done"));
+
+		assertEquals(Arrays.asList("done"), results);
+		assertArrayEquals(new int[] {0}, executor.getQueueDepths());
+	}
+
+	@Test
+	public void fullShardRejectsTasks() throws Exception {
+		List<Runnable> scheduled = new ArrayList<>();
+		SessionShardedExecutor executor = new SessionShardedExecutor(scheduled::add, 2, 2);
+
+		executor.execute(0, () -> {});
+		executor.execute(0, () -> {});
+		try {
+			executor.execute(0, () -> {});
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+		executor.execute(1, () -> {});
+		assertArrayEquals(new int[] {2, 1}, executor.getQueueDepths());
+
+		scheduled.get(0).run();
+		executor.execute(0, () -> {});
+		assertArrayEquals(new int[] {1, 1}, executor.getQueueDepths());
+	}
+
+	@Test
+	public void shutdownDiscardsQueuedTasks() throws Exception {
+		List<Runnable> scheduled = new ArrayList<>();
+		SessionShardedExecutor executor = new SessionShardedExecutor(scheduled::add, 2, 100);
+		List<String> results = new ArrayList<>();
+
+		executor.execute(0, () -> results.add("first"));
+		executor.execute(0, () -> results.add("second"));
+		executor.execute(1, () -> results.add("third"));
+
+		assertEquals(3, executor.shutdown());
+		assertTrue(executor.isShutdown());
+		assertArrayEquals(new int[] {0, 0}, executor.getQueueDepths());
+		scheduled.forEach(Runnable::run);
+		assertTrue(results.isEmpty());
+
+		try {
+			executor.execute(0, () -> results.add("fourth"));
+			fail("Should have thrown TaskRejectedException");
+		}
+		catch (TaskRejectedException ex) {
+			// expected
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.messaging.simp.broker;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ScheduledFuture;
@@ -151,6 +152,78 @@ public class SimpleBrokerMessageHandlerTests {
 		assertTrue(messageCaptured(sess2, "sub3", "/bar"));
 	}
 
+	@Test
+	public void subscribePublishWithFanOutExecutor() {
+		List<Runnable> tasks = new ArrayList<>();
+		this.messageHandler.setFanOutExecutor(tasks::add);
+		this.messageHandler.setFanOutShardCount(2);
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub2", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess2", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess3", "sub1", "/foo"));
+
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+
+		verifyNoMoreInteractions(this.clientOutboundChannel);
+		int[] queueDepths = this.messageHandler.getFanOutQueueDepths();
+		assertNotNull(queueDepths);
+		assertEquals(2, queueDepths.length);
+		assertTrue(queueDepths[0] + queueDepths[1] > 0);
+
+		tasks.forEach(Runnable::run);
+
+		verify(this.clientOutboundChannel, times(4)).send(this.messageCaptor.capture());
+		assertTrue(messageCaptured("sess1", "sub1", "/foo"));
+		assertTrue(messageCaptured("sess1", "sub2", "/foo"));
+		assertTrue(messageCaptured("sess2", "sub1", "/foo"));
+		assertTrue(messageCaptured("sess3", "sub1", "/foo"));
+		assertArrayEquals(new int[] {0, 0}, this.messageHandler.getFanOutQueueDepths());
+	}
+
+	@Test
+	public void stopDiscardsQueuedFanOutTasks() {
+		List<Runnable> tasks = new ArrayList<>();
+		this.messageHandler.setFanOutExecutor(tasks::add);
+		this.messageHandler.setFanOutShardCount(1);
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+		assertArrayEquals(new int[] {1}, this.messageHandler.getFanOutQueueDepths());
+
+		this.messageHandler.stop();
+		assertArrayEquals(new int[] {0}, this.messageHandler.getFanOutQueueDepths());
+		tasks.forEach(Runnable::run);
+		verifyNoMoreInteractions(this.clientOutboundChannel);
+
+		tasks.clear();
+		this.messageHandler.start();
+		this.messageHandler.handleMessage(createMessage("/foo", "message2"));
+		tasks.forEach(Runnable::run);
+		verify(this.clientOutboundChannel, times(1)).send(this.messageCaptor.capture());
+		assertTrue(messageCaptured("sess1", "sub1", "/foo"));
+	}
+
+	@Test
+	public void fanOutQueueCapacity() {
+		List<Runnable> tasks = new ArrayList<>();
+		this.messageHandler.setFanOutExecutor(tasks::add);
+		this.messageHandler.setFanOutShardCount(1);
+		this.messageHandler.setFanOutQueueCapacity(2);
+		this.messageHandler.start();
+
+		this.messageHandler.handleMessage(createSubscriptionMessage("sess1", "sub1", "/foo"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message1"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message2"));
+		this.messageHandler.handleMessage(createMessage("/foo", "message3"));
+		assertArrayEquals(new int[] {2}, this.messageHandler.getFanOutQueueDepths());
+
+		tasks.forEach(Runnable::run);
+		verify(this.clientOutboundChannel, times(2)).send(this.messageCaptor.capture());
+	}
+
 	@Test
 	public void connect() {
 
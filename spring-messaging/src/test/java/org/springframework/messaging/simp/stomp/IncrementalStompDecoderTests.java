@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.messaging.simp.stomp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link IncrementalStompDecoder}.
+ *
+ * @since 5.1
+ */
+public class IncrementalStompDecoderTests {
+
+	private static final String FRAMES =
+			"CONNECT\naccept-version:1.1\nhost:github.org\nheart-beat:10000,10000\n\n\0" +
+			"SEND\ndestination:/queue/a\ncontent-type:text/plain\ncontent-length:12\n\nMessage\0body\0" +
+			"SEND\r\ndestination:/queue/b\r\nfoo\\c\\\\:a\\nb\\r\r\n\r\nNo content-length\0" +
+			"DISCONNECT\nreceipt:77\n\n\0";
+
+	private final StompDecoder stompDecoder = new StompDecoder();
+
+
+	@Test
+	public void decodeInOneChunk() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 1024);
+		List<Message<byte[]>> messages = decoder.decode(toByteBuffer(FRAMES));
+
+		assertFrames(messages);
+		assertEquals(0, decoder.getPartialFrameSize());
+		assertNull(decoder.getExpectedContentLength());
+	}
+
+	@Test
+	public void decodeSplitAtEveryPosition() {
+		byte[] bytes = FRAMES.getBytes(StandardCharsets.UTF_8);
+		for (int i = 1; i < bytes.length; i++) {
+			IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 1024);
+			List<Message<byte[]>> messages = new ArrayList<>();
+			messages.addAll(decoder.decode(ByteBuffer.wrap(bytes, 0, i).slice()));
+			messages.addAll(decoder.decode(ByteBuffer.wrap(bytes, i, bytes.length - i).slice()));
+			assertFrames(messages);
+		}
+	}
+
+	@Test
+	public void decodeByteByByteFromDirectBuffers() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 1024);
+		List<Message<byte[]>> messages = new ArrayList<>();
+		for (byte b : FRAMES.getBytes(StandardCharsets.UTF_8)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1);
+			buffer.put(b).flip();
+			messages.addAll(decoder.decode(buffer));
+			assertFalse(buffer.hasRemaining());
+		}
+		assertFrames(messages);
+	}
+
+	@Test
+	public void decodeDataBuffer() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 1024);
+		DataBuffer dataBuffer = new DefaultDataBufferFactory().wrap(FRAMES.getBytes(StandardCharsets.UTF_8));
+		List<Message<byte[]>> messages = decoder.decode(dataBuffer);
+
+		assertFrames(messages);
+		assertEquals(0, dataBuffer.readableByteCount());
+	}
+
+	@Test
+	public void splitMessageWithContentLength() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		String chunk1 = "SEND\na:alpha\n\nPayload1\0SEND\ncontent-length:19\n\nPayload2a";
+		List<Message<byte[]>> messages = decoder.decode(toByteBuffer(chunk1));
+
+		assertEquals(1, messages.size());
+		assertEquals("Payload1", new String(messages.get(0).getPayload(), StandardCharsets.UTF_8));
+		assertEquals(33, decoder.getPartialFrameSize());
+		assertEquals(19, (int) decoder.getExpectedContentLength());
+
+		messages = decoder.decode(toByteBuffer("-Payload2b\0"));
+		assertEquals(1, messages.size());
+		assertEquals("Payload2a-Payload2b", new String(messages.get(0).getPayload(), StandardCharsets.UTF_8));
+		assertEquals(0, decoder.getPartialFrameSize());
+		assertNull(decoder.getExpectedContentLength());
+	}
+
+	@Test
+	public void decodeHeartbeat() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		List<Message<byte[]>> messages = decoder.decode(toByteBuffer("\r\n\n"));
+
+		assertEquals(1, messages.size());
+		assertEquals(SimpMessageType.HEARTBEAT, StompHeaderAccessor.wrap(messages.get(0)).getMessageType());
+
+		messages = decoder.decode(toByteBuffer("\nDISCONNECT\n\n\0"));
+		assertEquals(1, messages.size());
+		assertEquals(StompCommand.DISCONNECT, StompHeaderAccessor.wrap(messages.get(0)).getCommand());
+	}
+
+	@Test
+	public void wellKnownHeaderNamesAreShared() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		Message<byte[]> message = decoder.decode(toByteBuffer("SEND\ndestination:/queue/a\n\n\0")).get(0);
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(message);
+
+		String name = headers.toNativeHeaderMap().keySet().iterator().next();
+		assertSame(StompHeaderAccessor.STOMP_DESTINATION_HEADER, name);
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void bufferSizeLimit() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 10);
+		decoder.decode(toByteBuffer("SEND\na:alpha\n\nMessage body"));
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void contentLengthExceedingBufferSizeLimit() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		decoder.decode(toByteBuffer("SEND\ncontent-length:129\n\n"));
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void invalidEscapeSequence() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		decoder.decode(toByteBuffer("SEND\na:alpha\\x\\n\nMessage body\0"));
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void carriageReturnSplitFromInvalidCharacter() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		decoder.decode(toByteBuffer("SEND\na:alpha\r"));
+		decoder.decode(toByteBuffer("x\n\nMessage body\0"));
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void illegalHeader() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		decoder.decode(toByteBuffer("SEND\nalpha\n\nMessage body\0"));
+	}
+
+	@Test(expected = StompConversionException.class)
+	public void incorrectTerminator() {
+		IncrementalStompDecoder decoder = new IncrementalStompDecoder(this.stompDecoder, 128);
+		decoder.decode(toByteBuffer("SEND\ncontent-length:4\n\nbody*"));
+	}
+
+
+	private void assertFrames(List<Message<byte[]>> messages) {
+		assertEquals(4, messages.size());
+
+		StompHeaderAccessor headers = StompHeaderAccessor.wrap(messages.get(0));
+		assertEquals(StompCommand.CONNECT, headers.getCommand());
+		assertEquals("github.org", headers.getHost());
+		assertEquals(0, messages.get(0).getPayload().length);
+
+		headers = StompHeaderAccessor.wrap(messages.get(1));
+		assertEquals(StompCommand.SEND, headers.getCommand());
+		assertEquals("/queue/a", headers.getDestination());
+		assertEquals("Message\0body", new String(messages.get(1).getPayload(), StandardCharsets.UTF_8));
+
+		headers = StompHeaderAccessor.wrap(messages.get(2));
+		assertEquals("/queue/b", headers.getDestination());
+		assertEquals("a\nb\r", headers.getFirstNativeHeader("foo:\\"));
+		assertEquals("No content-length", new String(messages.get(2).getPayload(), StandardCharsets.UTF_8));
+
+		headers = StompHeaderAccessor.wrap(messages.get(3));
+		assertEquals(StompCommand.DISCONNECT, headers.getCommand());
+		assertEquals("77", headers.getReceipt());
+	}
+
+	private ByteBuffer toByteBuffer(String chunk) {
+		return ByteBuffer.wrap(chunk.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,12 @@
 
 package org.springframework.messaging.simp.stomp;
 
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
 
@@ -88,4 +92,66 @@ public class StompEncoderTests {
 				new String(encoder.encode(frame)));
 	}
 
+	@Test
+	public void encodeFrameToDataBuffer() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SEND);
+		headers.addNativeHeader("a", "alpha");
+		Message<byte[]> frame = MessageBuilder.createMessage(
+				"Message body".getBytes(), headers.getMessageHeaders());
+
+		DataBuffer buffer = encoder.encode(frame, new DefaultDataBufferFactory());
+
+		assertEquals("SEND\na:alpha\ncontent-length:12\n\nMessage body\0",
+				toString(buffer));
+	}
+
+	@Test
+	public void encodeHeartbeatToDataBuffer() {
+		StompHeaderAccessor headers = StompHeaderAccessor.createForHeartbeat();
+		Message<byte[]> frame = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+
+		DataBuffer buffer = encoder.encode(frame, new DefaultDataBufferFactory());
+
+		assertEquals("\n", toString(buffer));
+	}
+
+	@Test
+	public void encodeSharedFrame() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setSubscriptionId("ignored");
+		headers.setMessageId("ignored");
+		headers.setDestination("/topic/foo");
+		StompEncoder.SharedFrame frame = encoder.encodeShared(
+				headers.getMessageHeaders(), "Message body".getBytes());
+
+		assertEquals("MESSAGE\ndestination:/topic/foo\ncontent-length:12\nsubscription:sub1\n\nMessage body\0",
+				new String(frame.encode("sub1", null)));
+		assertEquals("MESSAGE\ndestination:/topic/foo\ncontent-length:12\nsubscription:sub\\c2\n" +
+				"message-id:s1-1\n\nMessage body\0",
+				toString(frame.encode("sub:2", "s1-1", new DefaultDataBufferFactory())));
+		assertEquals("MESSAGE\ndestination:/topic/foo\ncontent-length:12\nsubscription:sub3\n" +
+				"message-id:s1-2\n\nMessage body\0",
+				new String(frame.encode("sub3", "s1-2"), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void encodeSharedFrameToString() {
+		StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+		headers.setDestination("/topic/foo");
+		StompEncoder.SharedFrame frame = encoder.encodeShared(
+				headers.getMessageHeaders(), "Message b\u00f6dy".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals("MESSAGE\ndestination:/topic/foo\ncontent-length:13\nsubscription:sub1\n\nMessage b\u00f6dy\0",
+				frame.encodeToString("sub1", null));
+		assertEquals("MESSAGE\ndestination:/topic/foo\ncontent-length:13\nsubscription:sub\\c2\n" +
+				"message-id:s1-1\n\nMessage b\u00f6dy\0",
+				frame.encodeToString("sub:2", "s1-1"));
+	}
+
+	private static String toString(DataBuffer buffer) {
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
 }
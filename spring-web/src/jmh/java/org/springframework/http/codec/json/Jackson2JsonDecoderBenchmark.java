@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmark for {@link Jackson2JsonDecoder} decoding a JSON array into a
+ * {@code Flux} of POJOs, with the input split into chunks of a given size.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2JsonDecoderBenchmark {
+
+	@Benchmark
+	public void decode(BenchmarkState state, Blackhole bh) {
+		Flux<DataBuffer> input = Flux.fromArray(state.chunks).map(state.bufferFactory::wrap);
+		state.decoder.decode(input, state.elementType, MediaType.APPLICATION_JSON, Collections.emptyMap())
+				.doOnNext(bh::consume)
+				.blockLast();
+	}
+
+	@Benchmark
+	public void decodeToMono(BenchmarkState state, Blackhole bh) {
+		Flux<DataBuffer> input = Flux.fromArray(state.chunks).map(state.bufferFactory::wrap);
+		bh.consume(state.decoder.decodeToMono(input, state.listType,
+				MediaType.APPLICATION_JSON, Collections.emptyMap()).block());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"1", "1000"})
+		public int elementCount;
+
+		@Param({"8192"})
+		public int chunkSize;
+
+		public Jackson2JsonDecoder decoder;
+
+		public DefaultDataBufferFactory bufferFactory;
+
+		public ResolvableType elementType;
+
+		public ResolvableType listType;
+
+		public byte[][] chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.decoder = new Jackson2JsonDecoder();
+			this.bufferFactory = new DefaultDataBufferFactory();
+			this.elementType = ResolvableType.forClass(Pojo.class);
+			this.listType = ResolvableType.forClassWithGenerics(List.class, Pojo.class);
+
+			StringBuilder json = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					json.append(',');
+				}
+				json.append("{\"foo\":\"foo").append(i).append("\",\"bar\":\"bar").append(i).append("\"}");
+			}
+			byte[] bytes = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+			int count = (bytes.length + this.chunkSize - 1) / this.chunkSize;
+			this.chunks = new byte[count][];
+			for (int i = 0; i < count; i++) {
+				int offset = i * this.chunkSize;
+				int length = Math.min(this.chunkSize, bytes.length - offset);
+				this.chunks[i] = new byte[length];
+				System.arraycopy(bytes, offset, this.chunks[i], 0, length);
+			}
+		}
+	}
+
+
+	public static class Pojo {
+
+		private String foo;
+
+		private String bar;
+
+		public String getFoo() {
+			return this.foo;
+		}
+
+		public void setFoo(String foo) {
+			this.foo = foo;
+		}
+
+		public String getBar() {
+			return this.bar;
+		}
+
+		public void setBar(String bar) {
+			this.bar = bar;
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.http.codec.json;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+/**
+ * Benchmark comparing binding through {@link Jackson2Tokenizer} and a
+ * {@link TokenBuffer} per value with binding straight from the joined input,
+ * for a stream of small objects. Run with {@code -PjmhProfilers=gc} to
+ * compare allocation rates as well.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2TokenizerBenchmark {
+
+	@Benchmark
+	public void tokenizeElements(BenchmarkState state, Blackhole bh) {
+		Jackson2Tokenizer.tokenize(state.input(), state.mapper.getFactory(), true)
+				.doOnNext(tokenBuffer -> bh.consume(state.readValue(state.elementReader, tokenBuffer)))
+				.blockLast();
+	}
+
+	@Benchmark
+	public void tokenizeList(BenchmarkState state, Blackhole bh) {
+		Jackson2Tokenizer.tokenize(state.input(), state.mapper.getFactory(), false)
+				.doOnNext(tokenBuffer -> bh.consume(state.readValue(state.listReader, tokenBuffer)))
+				.blockLast();
+	}
+
+	@Benchmark
+	public void joinAndBindList(BenchmarkState state, Blackhole bh) throws IOException {
+		DataBuffer dataBuffer = DataBufferUtils.join(state.input()).block();
+		try (JsonParser parser = state.mapper.getFactory().createParser(dataBuffer.asInputStream())) {
+			bh.consume(state.listReader.readValue(parser));
+		}
+		finally {
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"100", "10000"})
+		public int elementCount;
+
+		@Param({"8192"})
+		public int chunkSize;
+
+		public final ObjectMapper mapper = new ObjectMapper();
+
+		public final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public ObjectReader elementReader;
+
+		public ObjectReader listReader;
+
+		public byte[][] chunks;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.elementReader = this.mapper.readerFor(Jackson2JsonDecoderBenchmark.Pojo.class);
+			this.listReader = this.mapper.readerFor(this.mapper.getTypeFactory()
+					.constructCollectionType(List.class, Jackson2JsonDecoderBenchmark.Pojo.class));
+
+			StringBuilder json = new StringBuilder("[");
+			for (int i = 0; i < this.elementCount; i++) {
+				if (i > 0) {
+					json.append(',');
+				}
+				json.append("{\"foo\":\"foo").append(i).append("\",\"bar\":\"bar").append(i).append("\"}");
+			}
+			byte[] bytes = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+			int count = (bytes.length + this.chunkSize - 1) / this.chunkSize;
+			this.chunks = new byte[count][];
+			for (int i = 0; i < count; i++) {
+				int offset = i * this.chunkSize;
+				int length = Math.min(this.chunkSize, bytes.length - offset);
+				this.chunks[i] = new byte[length];
+				System.arraycopy(bytes, offset, this.chunks[i], 0, length);
+			}
+		}
+
+		Flux<DataBuffer> input() {
+			return Flux.fromArray(this.chunks).map(this.bufferFactory::wrap);
+		}
+
+		Object readValue(ObjectReader reader, TokenBuffer tokenBuffer) {
+			try {
+				return reader.readValue(tokenBuffer.asParser(this.mapper));
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmark for {@link PathPattern#matches} with the same patterns and paths
+ * as the {@code AntPathMatcher} benchmark in spring-core, for comparison.
+ *
+ * @since 5.1
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@Benchmark
+	public void matches(BenchmarkState state, Blackhole bh) {
+		for (PathContainer path : state.paths) {
+			bh.consume(state.pathPattern.matches(path));
+		}
+	}
+
+	@Benchmark
+	public void parseAndMatch(BenchmarkState state, Blackhole bh) {
+		for (String path : state.rawPaths) {
+			bh.consume(state.pathPattern.matches(PathContainer.parsePath(path)));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"/api/v1/orders/list", "/api/v1/orders/*", "/api/**",
+				"/api/{version}/orders/{id}", "/static/{*path}"})
+		public String pattern;
+
+		public PathPattern pathPattern;
+
+		public String[] rawPaths;
+
+		public PathContainer[] paths;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.pathPattern = new PathPatternParser().parse(this.pattern);
+			this.rawPaths = new String[] {"/api/v1/orders/list", "/api/v1/orders/42",
+					"/api/v2/catalog/items/7/details", "/static/css/theme/main.css", "/login"};
+			this.paths = new PathContainer[this.rawPaths.length];
+			for (int i = 0; i < this.rawPaths.length; i++) {
+				this.paths[i] = PathContainer.parsePath(this.rawPaths[i]);
+			}
+		}
+	}
+
+}
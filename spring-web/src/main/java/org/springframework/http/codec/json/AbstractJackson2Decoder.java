@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,16 @@ package org.springframework.http.codec.json;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -37,6 +42,7 @@ import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.CodecException;
 import org.springframework.core.codec.DecodingException;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.codec.HttpMessageDecoder;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -75,7 +81,7 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		Flux<TokenBuffer> tokens = tokenize(input, true);
+		Flux<TokenBuffer> tokens = tokenize(input);
 		return decodeInternal(tokens, elementType, mimeType, hints);
 	}
 
@@ -83,47 +89,84 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 	public Mono<Object> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
-		Flux<TokenBuffer> tokens = tokenize(input, false);
-		return decodeInternal(tokens, elementType, mimeType, hints).singleOrEmpty();
+		ObjectReader reader = getObjectReader(elementType, hints);
+		return Flux.from(input)
+				.collectList()
+				.flatMap(dataBuffers -> Mono.justOrEmpty(decodeDataBuffers(dataBuffers, reader)));
 	}
 
-	private Flux<TokenBuffer> tokenize(Publisher<DataBuffer> input, boolean tokenizeArrayElements) {
+	private Flux<TokenBuffer> tokenize(Publisher<DataBuffer> input) {
 		Flux<DataBuffer> inputFlux = Flux.from(input);
 		JsonFactory factory = getObjectMapper().getFactory();
-		return Jackson2Tokenizer.tokenize(inputFlux, factory, tokenizeArrayElements);
+		return Jackson2Tokenizer.tokenize(inputFlux, factory, true);
 	}
 
 	private Flux<Object> decodeInternal(Flux<TokenBuffer> tokens, ResolvableType elementType,
 			@Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
 
 		Assert.notNull(tokens, "'tokens' must not be null");
-		Assert.notNull(elementType, "'elementType' must not be null");
-
-		MethodParameter param = getParameter(elementType);
-		Class<?> contextClass = (param != null ? param.getContainingClass() : null);
-		JavaType javaType = getJavaType(elementType.getType(), contextClass);
-		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
-
-		ObjectReader reader = (jsonView != null ?
-				getObjectMapper().readerWithView(jsonView).forType(javaType) :
-				getObjectMapper().readerFor(javaType));
+		ObjectReader reader = getObjectReader(elementType, hints);
 
 		return tokens.map(tokenBuffer -> {
 			try {
 				return reader.readValue(tokenBuffer.asParser(getObjectMapper()));
 			}
-			catch (InvalidDefinitionException ex) {
-				throw new CodecException("Type definition error: " + ex.getType(), ex);
-			}
-			catch (JsonProcessingException ex) {
-				throw new DecodingException("JSON decoding error: " + ex.getOriginalMessage(), ex);
-			}
 			catch (IOException ex) {
-				throw new DecodingException("I/O error while parsing input stream", ex);
+				throw processException(ex);
 			}
 		});
 	}
 
+	/**
+	 * Bind the value straight from the complete input, feeding the backing
+	 * arrays of the given buffers to a non-blocking parser one after the other,
+	 * without copying them and without a {@link TokenBuffer} for the value.
+	 * @return the decoded value, or {@code null} if the input has no content
+	 * @throws DecodingException if the value is followed by further content
+	 */
+	@Nullable
+	private Object decodeDataBuffers(List<DataBuffer> dataBuffers, ObjectReader reader) {
+		try (JsonParser parser = new FeedingParser(
+				getObjectMapper().getFactory().createNonBlockingByteArrayParser(), dataBuffers)) {
+			if (parser.nextToken() == null) {
+				return null;
+			}
+			Object value = reader.readValue(parser);
+			if (parser.nextToken() != null) {
+				throw new DecodingException("JSON decoding error: Unexpected content after the root value");
+			}
+			return value;
+		}
+		catch (IOException ex) {
+			throw processException(ex);
+		}
+		finally {
+			dataBuffers.forEach(DataBufferUtils::release);
+		}
+	}
+
+	private ObjectReader getObjectReader(ResolvableType elementType, @Nullable Map<String, Object> hints) {
+		Assert.notNull(elementType, "'elementType' must not be null");
+		MethodParameter param = getParameter(elementType);
+		Class<?> contextClass = (param != null ? param.getContainingClass() : null);
+		JavaType javaType = getJavaType(elementType.getType(), contextClass);
+		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
+		return (jsonView != null ?
+				getObjectMapper().readerWithView(jsonView).forType(javaType) :
+				getObjectMapper().readerFor(javaType));
+	}
+
+	private CodecException processException(IOException ex) {
+		if (ex instanceof InvalidDefinitionException) {
+			return new CodecException("Type definition error: " + ((InvalidDefinitionException) ex).getType(), ex);
+		}
+		if (ex instanceof JsonProcessingException) {
+			return new DecodingException("JSON decoding error: " +
+					((JsonProcessingException) ex).getOriginalMessage(), ex);
+		}
+		return new DecodingException("I/O error while parsing input stream", ex);
+	}
+
 
 	// HttpMessageDecoder...
 
@@ -146,4 +189,66 @@ public abstract class AbstractJackson2Decoder extends Jackson2CodecSupport imple
 		return parameter.getParameterAnnotation(annotType);
 	}
 
+
+	/**
+	 * Non-blocking parser that feeds the next buffer whenever it runs out of
+	 * input, so that it can be bound like a blocking parser over the complete
+	 * input.
+	 */
+	private static class FeedingParser extends JsonParserDelegate {
+
+		private final ByteArrayFeeder inputFeeder;
+
+		private final Iterator<DataBuffer> input;
+
+		FeedingParser(JsonParser parser, List<DataBuffer> input) {
+			super(parser);
+			this.inputFeeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+			this.input = input.iterator();
+		}
+
+		@Override
+		public JsonToken nextToken() throws IOException {
+			JsonToken token = this.delegate.nextToken();
+			while (token == JsonToken.NOT_AVAILABLE) {
+				if (this.input.hasNext()) {
+					Jackson2Tokenizer.feedInput(this.inputFeeder, this.input.next());
+				}
+				else {
+					this.inputFeeder.endOfInput();
+				}
+				token = this.delegate.nextToken();
+			}
+			return token;
+		}
+
+		@Override
+		public JsonToken nextValue() throws IOException {
+			JsonToken token = nextToken();
+			return (token == JsonToken.FIELD_NAME ? nextToken() : token);
+		}
+
+		@Override
+		public JsonParser skipChildren() throws IOException {
+			JsonToken current = currentToken();
+			if (current != JsonToken.START_OBJECT && current != JsonToken.START_ARRAY) {
+				return this;
+			}
+			int depth = 1;
+			while (depth > 0) {
+				JsonToken token = nextToken();
+				if (token == null) {
+					break;
+				}
+				if (token.isStructStart()) {
+					depth++;
+				}
+				else if (token.isStructEnd()) {
+					depth--;
+				}
+			}
+			return this;
+		}
+	}
+
 }
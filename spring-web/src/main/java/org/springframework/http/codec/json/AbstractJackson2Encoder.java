@@ -25,6 +25,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -34,7 +37,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.exc.InvalidDefinitionException;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 import reactor.core.publisher.Mono;
 
 import org.springframework.core.MethodParameter;
@@ -43,19 +49,27 @@ import org.springframework.core.codec.CodecException;
 import org.springframework.core.codec.EncodingException;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.HttpMessageEncoder;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.MimeType;
+import org.springframework.util.ObjectUtils;
 
 /**
  * Base class providing support methods for Jackson 2.9 encoding. For non-streaming use
  * cases, {@link Flux} elements are collected into a {@link List} before serialization for
  * performance reason.
  *
+ * <p>{@link ObjectWriter} instances are cached per element type, JSON view and
+ * MIME type, and values are serialized straight into the target {@link DataBuffer}.
+ * For streaming media types, several elements can optionally be batched into a
+ * single buffer when demand allows, see {@link #setStreamingBatchSize}.
+ *
  * @author Sebastien Deleuze
  * @author Arjen Poutsma
  * @since 5.0
@@ -75,6 +89,10 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 
 	private final List<MediaType> streamingMediaTypes = new ArrayList<>(1);
 
+	private final Map<WriterCacheKey, ObjectWriter> writerCache = new ConcurrentReferenceHashMap<>(64);
+
+	private int streamingBatchSize = 1;
+
 
 	/**
 	 * Constructor with a Jackson {@link ObjectMapper} to use.
@@ -96,6 +114,31 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		this.streamingMediaTypes.addAll(mediaTypes);
 	}
 
+	/**
+	 * Configure the maximum number of elements to serialize into a single
+	 * {@link DataBuffer} when encoding to a streaming media type.
+	 * <p>By default this is set to 1, i.e. every element is written and flushed
+	 * on its own. With higher values, elements are never held back to fill up a
+	 * batch: a buffer contains the elements that are already available when
+	 * there is demand for it, e.g. elements produced while the consumer was
+	 * still busy writing the previous buffer. Up to this number of elements is
+	 * requested from the producer ahead of demand.
+	 * @param streamingBatchSize the maximum number of elements per buffer
+	 * @since 5.1
+	 */
+	public void setStreamingBatchSize(int streamingBatchSize) {
+		Assert.isTrue(streamingBatchSize > 0, "'streamingBatchSize' must be greater than 0");
+		this.streamingBatchSize = streamingBatchSize;
+	}
+
+	/**
+	 * Return the configured streaming batch size.
+	 * @since 5.1
+	 */
+	public int getStreamingBatchSize() {
+		return this.streamingBatchSize;
+	}
+
 
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
@@ -122,13 +165,19 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		for (MediaType streamingMediaType : this.streamingMediaTypes) {
 			if (streamingMediaType.isCompatibleWith(mimeType)) {
 				byte[] separator = STREAM_SEPARATORS.getOrDefault(streamingMediaType, NEWLINE_SEPARATOR);
-				return Flux.from(inputStream).map(value -> {
-					DataBuffer buffer = encodeValue(value, mimeType, bufferFactory, elementType, hints, encoding);
-					if (separator != null) {
-						buffer.write(separator);
-					}
-					return buffer;
-				});
+				ObjectWriter writer = getObjectWriter(mimeType, elementType, hints);
+				if (this.streamingBatchSize > 1) {
+					int batchSize = this.streamingBatchSize;
+					Flux<List<Object>> batches = Flux.create(sink -> {
+						BatchingSubscriber subscriber = new BatchingSubscriber(sink, batchSize);
+						inputStream.subscribe(subscriber);
+						sink.onRequest(n -> subscriber.drain());
+						sink.onDispose(subscriber::dispose);
+					});
+					return batches.map(values -> encodeValues(values, writer, bufferFactory, encoding, separator));
+				}
+				return Flux.from(inputStream).map(value ->
+						encodeValues(Collections.singletonList(value), writer, bufferFactory, encoding, separator));
 			}
 		}
 
@@ -140,23 +189,27 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	private DataBuffer encodeValue(Object value, @Nullable MimeType mimeType, DataBufferFactory bufferFactory,
 			ResolvableType elementType, @Nullable Map<String, Object> hints, JsonEncoding encoding) {
 
-		JavaType javaType = getJavaType(elementType.getType(), null);
-		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
-		ObjectWriter writer = (jsonView != null ?
-				getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
-
-		if (javaType.isContainerType()) {
-			writer = writer.forType(javaType);
-		}
+		ObjectWriter writer = getObjectWriter(mimeType, elementType, hints);
+		return encodeValues(Collections.singletonList(value), writer, bufferFactory, encoding, null);
+	}
 
-		writer = customizeWriter(writer, mimeType, elementType, hints);
+	private DataBuffer encodeValues(List<?> values, ObjectWriter writer, DataBufferFactory bufferFactory,
+			JsonEncoding encoding, @Nullable byte[] separator) {
 
 		DataBuffer buffer = bufferFactory.allocateBuffer();
-		OutputStream outputStream = buffer.asOutputStream();
-
+		boolean release = true;
 		try {
-			JsonGenerator generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
-			writer.writeValue(generator, value);
+			OutputStream outputStream = buffer.asOutputStream();
+			for (Object value : values) {
+				JsonGenerator generator = getObjectMapper().getFactory().createGenerator(outputStream, encoding);
+				writer.writeValue(generator, value);
+				generator.flush();
+				if (separator != null) {
+					buffer.write(separator);
+				}
+			}
+			release = false;
+			return buffer;
 		}
 		catch (InvalidDefinitionException ex) {
 			throw new CodecException("Type definition error: " + ex.getType(), ex);
@@ -167,10 +220,48 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 		catch (IOException ex) {
 			throw new IllegalStateException("Unexpected I/O error while writing to data buffer", ex);
 		}
+		finally {
+			if (release) {
+				DataBufferUtils.release(buffer);
+			}
+		}
+	}
 
-		return buffer;
+	/**
+	 * Return the {@link ObjectWriter} for the given element type, MIME type and
+	 * JSON view hint, creating and {@link #customizeWriter customizing} it on
+	 * first access only.
+	 */
+	private ObjectWriter getObjectWriter(@Nullable MimeType mimeType, ResolvableType elementType,
+			@Nullable Map<String, Object> hints) {
+
+		Class<?> jsonView = (hints != null ? (Class<?>) hints.get(Jackson2CodecSupport.JSON_VIEW_HINT) : null);
+		WriterCacheKey cacheKey = new WriterCacheKey(elementType, jsonView, mimeType);
+		ObjectWriter writer = this.writerCache.get(cacheKey);
+		if (writer == null) {
+			JavaType javaType = getJavaType(elementType.getType(), null);
+			writer = (jsonView != null ?
+					getObjectMapper().writerWithView(jsonView) : getObjectMapper().writer());
+			if (javaType.isContainerType()) {
+				writer = writer.forType(javaType);
+			}
+			writer = customizeWriter(writer, mimeType, elementType, hints);
+			this.writerCache.put(cacheKey, writer);
+		}
+		return writer;
 	}
-	
+
+	/**
+	 * Subclasses can use this method to customize the {@link ObjectWriter} used
+	 * for writing values.
+	 * <p>The returned writer is cached per element type, MIME type and JSON view,
+	 * so customizations must not depend on any other hints.
+	 * @param writer the writer instance to customize
+	 * @param mimeType the selected MIME type
+	 * @param elementType the type of element values to write
+	 * @param hints a map with serialization hints
+	 * @return the customized {@code ObjectWriter} to use
+	 */
 	protected ObjectWriter customizeWriter(ObjectWriter writer, @Nullable MimeType mimeType,
 			ResolvableType elementType, @Nullable Map<String, Object> hints) {
 
@@ -221,5 +312,154 @@ public abstract class AbstractJackson2Encoder extends Jackson2CodecSupport imple
 	protected <A extends Annotation> A getAnnotation(MethodParameter parameter, Class<A> annotType) {
 		return parameter.getMethodAnnotation(annotType);
 	}
+
+
+	/**
+	 * Cache key for {@link ObjectWriter} instances.
+	 */
+	private static final class WriterCacheKey {
+
+		private final ResolvableType elementType;
+
+		@Nullable
+		private final Class<?> jsonView;
+
+		@Nullable
+		private final MimeType mimeType;
+
+		public WriterCacheKey(ResolvableType elementType, @Nullable Class<?> jsonView, @Nullable MimeType mimeType) {
+			this.elementType = elementType;
+			this.jsonView = jsonView;
+			this.mimeType = mimeType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof WriterCacheKey)) {
+				return false;
+			}
+			WriterCacheKey otherKey = (WriterCacheKey) other;
+			return (this.elementType.equals(otherKey.elementType) &&
+					this.jsonView == otherKey.jsonView &&
+					ObjectUtils.nullSafeEquals(this.mimeType, otherKey.mimeType));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.elementType.hashCode() * 31 + ObjectUtils.nullSafeHashCode(this.jsonView)) * 31 +
+					ObjectUtils.nullSafeHashCode(this.mimeType);
+		}
+	}
+
+
+	/**
+	 * Subscriber to the elements of a stream that emits the elements received
+	 * so far in batches of up to the given size whenever the downstream has
+	 * demand, without ever waiting for a batch to fill up. No more than the
+	 * batch size is requested ahead from the upstream, which keeps up the
+	 * backpressure in both directions.
+	 */
+	private static final class BatchingSubscriber extends BaseSubscriber<Object> {
+
+		private final FluxSink<List<Object>> sink;
+
+		private final int batchSize;
+
+		private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger wip = new AtomicInteger();
+
+		/** Elements requested but not emitted yet, only accessed while draining */
+		private int outstanding;
+
+		private boolean terminated;
+
+		private volatile boolean done;
+
+		@Nullable
+		private volatile Throwable error;
+
+		public BatchingSubscriber(FluxSink<List<Object>> sink, int batchSize) {
+			this.sink = sink;
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			drain();
+		}
+
+		@Override
+		protected void hookOnNext(Object value) {
+			this.queue.offer(value);
+			drain();
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			this.done = true;
+			drain();
+		}
+
+		@Override
+		protected void hookOnError(Throwable ex) {
+			this.error = ex;
+			this.done = true;
+			drain();
+		}
+
+		/**
+		 * Emit batches while there is demand, and request more elements from
+		 * the upstream. Elements received synchronously from within a request
+		 * are collected, and emitted together once the request has returned.
+		 */
+		public void drain() {
+			if (this.wip.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				if (this.terminated || this.sink.isCancelled()) {
+					this.queue.clear();
+				}
+				else {
+					emitBatches();
+				}
+				missed = this.wip.addAndGet(-missed);
+			}
+			while (missed != 0);
+		}
+
+		private void emitBatches() {
+			while (!this.queue.isEmpty() && this.sink.requestedFromDownstream() > 0) {
+				List<Object> batch = new ArrayList<>(Math.min(this.queue.size(), this.batchSize));
+				Object value;
+				while (batch.size() < this.batchSize && (value = this.queue.poll()) != null) {
+					batch.add(value);
+				}
+				this.outstanding -= batch.size();
+				this.sink.next(batch);
+			}
+			if (this.done) {
+				Throwable ex = this.error;
+				if (ex != null) {
+					this.terminated = true;
+					this.sink.error(ex);
+				}
+				else if (this.queue.isEmpty()) {
+					this.terminated = true;
+					this.sink.complete();
+				}
+			}
+			else if (this.outstanding < this.batchSize) {
+				int toRequest = this.batchSize - this.outstanding;
+				this.outstanding = this.batchSize;
+				request(toRequest);
+			}
+		}
+	}
 	
 }
@@ -17,6 +17,7 @@
 package org.springframework.http.codec.json;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
@@ -90,12 +91,8 @@ class Jackson2Tokenizer {
 	}
 
 	private Flux<TokenBuffer> tokenize(DataBuffer dataBuffer) {
-		byte[] bytes = new byte[dataBuffer.readableByteCount()];
-		dataBuffer.read(bytes);
-		DataBufferUtils.release(dataBuffer);
-
 		try {
-			this.inputFeeder.feedInput(bytes, 0, bytes.length);
+			feedInput(this.inputFeeder, dataBuffer);
 			return parseTokenBufferFlux();
 		}
 		catch (JsonProcessingException ex) {
@@ -105,6 +102,29 @@ class Jackson2Tokenizer {
 		catch (IOException ex) {
 			return Flux.error(ex);
 		}
+		finally {
+			// The parser consumes all input before returning
+			DataBufferUtils.release(dataBuffer);
+		}
+	}
+
+	/**
+	 * Feed the readable bytes of the given buffer to a non-blocking parser,
+	 * straight from the backing array if there is one.
+	 * <p>The parser refers to the fed bytes until it has consumed them, so the
+	 * buffer must not be released before then.
+	 */
+	static void feedInput(ByteArrayFeeder inputFeeder, DataBuffer dataBuffer) throws IOException {
+		ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+		if (byteBuffer.hasArray()) {
+			int offset = byteBuffer.arrayOffset() + byteBuffer.position();
+			inputFeeder.feedInput(byteBuffer.array(), offset, offset + byteBuffer.remaining());
+		}
+		else {
+			byte[] bytes = new byte[byteBuffer.remaining()];
+			byteBuffer.get(bytes);
+			inputFeeder.feedInput(bytes, 0, bytes.length);
+		}
 	}
 
 	private Flux<TokenBuffer> endOfInput() {
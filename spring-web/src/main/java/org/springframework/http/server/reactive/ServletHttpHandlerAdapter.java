@@ -108,6 +108,12 @@ public class ServletHttpHandlerAdapter implements Servlet {
 		return this.servletPath;
 	}
 
+	/**
+	 * Set the {@link DataBufferFactory} to allocate request body and response
+	 * buffers with, e.g. a {@link org.springframework.core.io.buffer.PooledDataBufferFactory}
+	 * in order to recycle buffers across requests.
+	 * <p>By default this is a {@link DefaultDataBufferFactory} for heap buffers.
+	 */
 	public void setDataBufferFactory(DataBufferFactory dataBufferFactory) {
 		Assert.notNull(dataBufferFactory, "DataBufferFactory must not be null");
 		this.dataBufferFactory = dataBufferFactory;
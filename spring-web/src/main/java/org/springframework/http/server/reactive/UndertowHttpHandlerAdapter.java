@@ -54,6 +54,13 @@ public class UndertowHttpHandlerAdapter implements io.undertow.server.HttpHandle
 	}
 
 
+	/**
+	 * Set the {@link DataBufferFactory} to allocate response buffers with, e.g.
+	 * a {@link org.springframework.core.io.buffer.PooledDataBufferFactory} in
+	 * order to recycle buffers across requests. The request body is exposed
+	 * through the buffers pooled by Undertow itself.
+	 * <p>By default this is a {@link DefaultDataBufferFactory} for heap buffers.
+	 */
 	public void setDataBufferFactory(DataBufferFactory bufferFactory) {
 		Assert.notNull(bufferFactory, "DataBufferFactory must not be null");
 		this.bufferFactory = bufferFactory;
@@ -0,0 +1,296 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.Nullable;
+
+/**
+ * A prefix tree over the segments of the URL patterns of registered mappings,
+ * used by the {@code AbstractHandlerMethodMapping} variants of Spring MVC and
+ * Spring WebFlux to narrow down the mappings to evaluate for a lookup path to
+ * those that can possibly match it. The cost of a lookup depends on the depth
+ * of the path rather than on the number of registered mappings.
+ *
+ * <p>The table is deliberately lenient: literal segments are compared
+ * case-insensitively, empty segments are ignored, with suffix pattern matching
+ * any file extension of the last segment is ignored, and any other pattern
+ * segment matches any path segment. The returned candidates are hence a
+ * superset of the actual matches and must still be checked against the full
+ * request conditions.
+ *
+ * <p>Not thread-safe; access must be guarded by the caller, e.g. by the lock
+ * of a mapping registry. Mainly for internal use within the framework.
+ *
+ * @since 5.1
+ * @param <T> the mapping type
+ */
+public class PatternRouteTable<T> {
+
+	private static final char SEPARATOR = '/';
+
+	private static final String DOUBLE_WILDCARD = "**";
+
+	private static final String CAPTURE_THE_REST = "{*";
+
+
+	private final Node<T> root = new Node<>();
+
+	private final boolean suffixPatternMatch;
+
+
+	/**
+	 * Create a table without suffix pattern matching, for patterns that match
+	 * a file extension only if they explicitly declare one.
+	 */
+	public PatternRouteTable() {
+		this(false);
+	}
+
+	/**
+	 * Create a table.
+	 * @param suffixPatternMatch whether a pattern is also a candidate for a
+	 * path that adds a file extension to its last segment, e.g. "/users" for
+	 * "/users.json", as with the suffix pattern matching of Spring MVC
+	 */
+	public PatternRouteTable(boolean suffixPatternMatch) {
+		this.suffixPatternMatch = suffixPatternMatch;
+	}
+
+
+	/**
+	 * Add a mapping under each of the given patterns. A mapping without
+	 * patterns is considered a candidate for any lookup path.
+	 * @param mapping the mapping to add
+	 * @param patterns the URL patterns of the mapping, if any
+	 */
+	public void add(T mapping, @Nullable Collection<String> patterns) {
+		if (patterns == null || patterns.isEmpty()) {
+			this.root.catchAll.add(mapping);
+			return;
+		}
+		for (String pattern : patterns) {
+			Node<T> node = this.root;
+			boolean catchAll = false;
+			for (String segment : tokenize(pattern)) {
+				if (isCatchAll(segment)) {
+					catchAll = true;
+					break;
+				}
+				node = (isLiteral(segment) ? node.getOrCreateLiteralChild(segment) : node.getOrCreateWildcardChild());
+			}
+			(catchAll ? node.catchAll : node.terminal).add(mapping);
+		}
+	}
+
+	/**
+	 * Remove a mapping previously {@link #add added} with the given patterns.
+	 * @param mapping the mapping to remove
+	 * @param patterns the URL patterns the mapping was added with
+	 */
+	public void remove(T mapping, @Nullable Collection<String> patterns) {
+		if (patterns == null || patterns.isEmpty()) {
+			this.root.catchAll.remove(mapping);
+			return;
+		}
+		for (String pattern : patterns) {
+			remove(this.root, tokenize(pattern), 0, mapping);
+		}
+	}
+
+	private boolean remove(Node<T> node, List<String> segments, int index, T mapping) {
+		if (index == segments.size() || isCatchAll(segments.get(index))) {
+			if (index < segments.size()) {
+				node.catchAll.remove(mapping);
+			}
+			else {
+				node.terminal.remove(mapping);
+			}
+		}
+		else {
+			String segment = segments.get(index);
+			if (isLiteral(segment)) {
+				Node<T> child = node.literalChildren.get(segment);
+				if (child != null && remove(child, segments, index + 1, mapping)) {
+					node.literalChildren.remove(segment);
+				}
+			}
+			else if (node.wildcardChild != null && remove(node.wildcardChild, segments, index + 1, mapping)) {
+				node.wildcardChild = null;
+			}
+		}
+		return node.isEmpty();
+	}
+
+	/**
+	 * Return the mappings that can possibly match the given lookup path,
+	 * in no particular order.
+	 * @param lookupPath the lookup path of the current request
+	 */
+	public Collection<T> getCandidates(String lookupPath) {
+		List<String> segments = tokenize(lookupPath);
+		boolean trailingSeparator = (!lookupPath.isEmpty() && lookupPath.charAt(lookupPath.length() - 1) == SEPARATOR);
+		return getCandidates(segments, trailingSeparator);
+	}
+
+	/**
+	 * Return the mappings that can possibly match the given parsed lookup path,
+	 * in no particular order.
+	 * @param lookupPath the lookup path of the current request
+	 */
+	public Collection<T> getCandidates(PathContainer lookupPath) {
+		List<PathContainer.Element> elements = lookupPath.elements();
+		List<String> segments = new ArrayList<>(elements.size());
+		for (PathContainer.Element element : elements) {
+			if (element instanceof PathContainer.PathSegment) {
+				String segment = ((PathContainer.PathSegment) element).valueToMatch().trim();
+				if (!segment.isEmpty()) {
+					segments.add(foldCase(segment));
+				}
+			}
+		}
+		boolean trailingSeparator = (!elements.isEmpty() &&
+				elements.get(elements.size() - 1) instanceof PathContainer.Separator);
+		return getCandidates(segments, trailingSeparator);
+	}
+
+	private Collection<T> getCandidates(List<String> segments, boolean trailingSeparator) {
+		Set<T> result = new LinkedHashSet<>();
+		collect(this.root, segments, 0, trailingSeparator, result);
+		return result;
+	}
+
+	private void collect(Node<T> node, List<String> segments, int index, boolean trailingSeparator,
+			Set<T> result) {
+
+		result.addAll(node.catchAll);
+		if (index == segments.size()) {
+			result.addAll(node.terminal);
+			if (trailingSeparator && node.wildcardChild != null) {
+				// A trailing "/*" also matches a path ending with a separator
+				result.addAll(node.wildcardChild.terminal);
+			}
+			return;
+		}
+		String segment = segments.get(index);
+		Node<T> child = node.literalChildren.get(segment);
+		if (child != null) {
+			collect(child, segments, index + 1, trailingSeparator, result);
+		}
+		if (this.suffixPatternMatch && index == segments.size() - 1) {
+			// Suffix pattern match, e.g. "/users" for "/users.json", or "/v1.0" for "/v1.0.json";
+			// "/users.*" also matches "/users.tar.gz", so any dot may start the extension
+			int dotIndex = segment.lastIndexOf('.');
+			while (dotIndex > 0) {
+				child = node.literalChildren.get(segment.substring(0, dotIndex));
+				if (child != null) {
+					collect(child, segments, index + 1, trailingSeparator, result);
+				}
+				dotIndex = segment.lastIndexOf('.', dotIndex - 1);
+			}
+		}
+		if (node.wildcardChild != null) {
+			collect(node.wildcardChild, segments, index + 1, trailingSeparator, result);
+		}
+	}
+
+
+	private static List<String> tokenize(String path) {
+		List<String> segments = new ArrayList<>();
+		int start = 0;
+		int length = path.length();
+		while (start <= length) {
+			int end = path.indexOf(SEPARATOR, start);
+			if (end == -1) {
+				end = length;
+			}
+			String segment = path.substring(start, end).trim();
+			if (!segment.isEmpty()) {
+				segments.add(foldCase(segment));
+			}
+			start = end + 1;
+		}
+		return segments;
+	}
+
+	/**
+	 * Fold the case of the given segment the same way as
+	 * {@link String#equalsIgnoreCase} compares characters.
+	 */
+	private static String foldCase(String segment) {
+		char[] chars = null;
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			char folded = Character.toLowerCase(Character.toUpperCase(c));
+			if (c != folded) {
+				if (chars == null) {
+					chars = segment.toCharArray();
+				}
+				chars[i] = folded;
+			}
+		}
+		return (chars != null ? new String(chars) : segment);
+	}
+
+	private static boolean isCatchAll(String segment) {
+		return (DOUBLE_WILDCARD.equals(segment) || segment.startsWith(CAPTURE_THE_REST));
+	}
+
+	private static boolean isLiteral(String segment) {
+		return (segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1);
+	}
+
+
+	private static final class Node<T> {
+
+		private final Map<String, Node<T>> literalChildren = new HashMap<>(4);
+
+		@Nullable
+		private Node<T> wildcardChild;
+
+		/** Mappings with a pattern that ends at this node */
+		private final Set<T> terminal = new LinkedHashSet<>(2);
+
+		/** Mappings with a pattern that matches any remaining path at this node */
+		private final Set<T> catchAll = new LinkedHashSet<>(2);
+
+		public Node<T> getOrCreateLiteralChild(String segment) {
+			return this.literalChildren.computeIfAbsent(segment, key -> new Node<>());
+		}
+
+		public Node<T> getOrCreateWildcardChild() {
+			if (this.wildcardChild == null) {
+				this.wildcardChild = new Node<>();
+			}
+			return this.wildcardChild;
+		}
+
+		public boolean isEmpty() {
+			return (this.literalChildren.isEmpty() && this.wildcardChild == null &&
+					this.terminal.isEmpty() && this.catchAll.isEmpty());
+		}
+	}
+
+}
@@ -133,6 +133,21 @@ public class Jackson2JsonDecoderTests extends AbstractDataBufferAllocatingTestCa
 				.verify();
 	}
 
+	@Test
+	public void decodeToListFromMultipleBuffers() throws Exception {
+		Flux<DataBuffer> source = Flux.just(stringBuffer("[{\"bar\":\"b1\",\"fo"),
+				stringBuffer("o\":\"f1\"},{\"bar\":\"b2\","), stringBuffer("\"foo\":\"f2\"}]"));
+
+		ResolvableType elementType = ResolvableType.forClassWithGenerics(List.class, Pojo.class);
+		Mono<Object> mono = new Jackson2JsonDecoder().decodeToMono(source, elementType,
+				null, emptyMap());
+
+		StepVerifier.create(mono)
+				.expectNext(asList(new Pojo("f1", "b1"), new Pojo("f2", "b2")))
+				.expectComplete()
+				.verify();
+	}
+
 	@Test
 	public void decodeArrayToFlux() throws Exception {
 		Flux<DataBuffer> source = Flux.just(stringBuffer(
@@ -221,6 +236,45 @@ public class Jackson2JsonDecoderTests extends AbstractDataBufferAllocatingTestCa
 				.verifyComplete();
 	}
 
+	@Test
+	public void decodeWhitespaceBodyToMono() throws Exception {
+		Flux<DataBuffer> source = Flux.just(stringBuffer(" \n"));
+		ResolvableType elementType = forClass(Pojo.class);
+		Mono<Object> mono = new Jackson2JsonDecoder().decodeToMono(source, elementType, null, emptyMap());
+
+		StepVerifier.create(mono)
+				.expectNextCount(0)
+				.verifyComplete();
+	}
+
+	@Test
+	public void invalidDataToMono() throws Exception {
+		Flux<DataBuffer> source = Flux.just(stringBuffer("{\"foo\": \"foo\", "));
+		ResolvableType elementType = forClass(Pojo.class);
+		Mono<Object> mono = new Jackson2JsonDecoder().decodeToMono(source, elementType, null, emptyMap());
+		StepVerifier.create(mono).verifyErrorMatches(ex -> ex instanceof DecodingException);
+	}
+
+	@Test
+	public void trailingValueToMono() throws Exception {
+		Flux<DataBuffer> source = Flux.just(stringBuffer("{\"foo\":\"f1\"}"), stringBuffer("{\"foo\":\"f2\"}"));
+		ResolvableType elementType = forClass(Pojo.class);
+		Mono<Object> mono = new Jackson2JsonDecoder().decodeToMono(source, elementType, null, emptyMap());
+		StepVerifier.create(mono).verifyErrorMatches(ex -> ex instanceof DecodingException);
+	}
+
+	@Test
+	public void skipUnknownPropertyAcrossBuffersToMono() throws Exception {
+		Flux<DataBuffer> source = Flux.just(stringBuffer("{\"bar\":\"b1\",\"unknown\":{\"a\":[1,"),
+				stringBuffer("2]},\"fo"), stringBuffer("o\":\"f1\"}  "));
+		ResolvableType elementType = forClass(Pojo.class);
+		Mono<Object> mono = new Jackson2JsonDecoder().decodeToMono(source, elementType, null, emptyMap());
+
+		StepVerifier.create(mono)
+				.expectNext(new Pojo("f1", "b1"))
+				.verifyComplete();
+	}
+
 	@Test
 	public void invalidData() throws Exception {
 		Flux<DataBuffer> source = Flux.just(stringBuffer( "{\"foofoo\": \"foofoo\", \"barbar\": \"barbar\"}"));
@@ -17,9 +17,12 @@
 package org.springframework.http.codec.json;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
@@ -33,11 +36,14 @@ import static org.springframework.http.codec.json.JacksonViewBean.*;
 import org.springframework.util.MimeType;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.core.io.buffer.AbstractDataBufferAllocatingTestCase;
 import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.Pojo;
 import org.springframework.http.codec.ServerSentEvent;
@@ -159,6 +165,90 @@ public class Jackson2JsonEncoderTests extends AbstractDataBufferAllocatingTestCa
 				.verifyComplete();
 	}
 
+	@Test
+	public void encodeAsStreamWithBatching() throws Exception {
+		this.encoder.setStreamingBatchSize(2);
+		Flux<Pojo> source = Flux.just(
+				new Pojo("foo", "bar"),
+				new Pojo("foofoo", "barbar"),
+				new Pojo("foofoofoo", "barbarbar")
+		);
+		ResolvableType type = ResolvableType.forClass(Pojo.class);
+		Flux<DataBuffer> output = this.encoder.encode(source, this.bufferFactory, type, APPLICATION_STREAM_JSON, emptyMap());
+
+		StepVerifier.create(output)
+				.consumeNextWith(stringConsumer("{\"foo\":\"foo\",\"bar\":\"bar\"}\n" +
+						"{\"foo\":\"foofoo\",\"bar\":\"barbar\"}\n"))
+				.consumeNextWith(stringConsumer("{\"foo\":\"foofoofoo\",\"bar\":\"barbarbar\"}\n"))
+				.verifyComplete();
+	}
+
+	@Test
+	public void encodeAsStreamWithBatchingAndSlowSubscriber() throws Exception {
+		this.encoder.setStreamingBatchSize(2);
+		List<Long> upstreamRequests = new CopyOnWriteArrayList<>();
+		Flux<Pojo> source = Flux.just(
+				new Pojo("foo", "bar"),
+				new Pojo("foofoo", "barbar"),
+				new Pojo("foofoofoo", "barbarbar")
+		).doOnRequest(upstreamRequests::add);
+		ResolvableType type = ResolvableType.forClass(Pojo.class);
+		Flux<DataBuffer> output = this.encoder.encode(source, this.bufferFactory, type, APPLICATION_STREAM_JSON, emptyMap());
+
+		StepVerifier.create(output, 0)
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(100))
+				.thenRequest(1)
+				.consumeNextWith(stringConsumer("{\"foo\":\"foo\",\"bar\":\"bar\"}\n" +
+						"{\"foo\":\"foofoo\",\"bar\":\"barbar\"}\n"))
+				.expectNoEvent(Duration.ofMillis(100))
+				.thenRequest(1)
+				.consumeNextWith(stringConsumer("{\"foo\":\"foofoofoo\",\"bar\":\"barbarbar\"}\n"))
+				.verifyComplete();
+
+		assertEquals(Arrays.asList(2L, 2L), upstreamRequests);
+	}
+
+	@Test
+	public void encodeAsStreamWithBatchingAndAsynchronousSource() throws Exception {
+		this.encoder.setStreamingBatchSize(4);
+		Flux<Pojo> source = Flux.range(0, 20)
+				.map(i -> new Pojo("foo" + i, "bar" + i))
+				.delayElements(Duration.ofMillis(1));
+		ResolvableType type = ResolvableType.forClass(Pojo.class);
+		Flux<DataBuffer> output = this.encoder.encode(source, this.bufferFactory, type, APPLICATION_STREAM_JSON, emptyMap())
+				.delayElements(Duration.ofMillis(10), Schedulers.single());
+
+		StepVerifier.create(output.map(buffer -> {
+			String json = DataBufferTestUtils.dumpString(buffer, StandardCharsets.UTF_8);
+			DataBufferUtils.release(buffer);
+			return json.split("\n").length;
+		}).reduce(0, Integer::sum))
+				.expectNext(20)
+				.verifyComplete();
+	}
+
+	@Test
+	public void encodeWithCachedWriterAndDifferentJsonViews() throws Exception {
+		JacksonViewBean bean = new JacksonViewBean();
+		bean.setWithView1("with");
+		bean.setWithView2("with");
+		bean.setWithoutView("without");
+		ResolvableType type = ResolvableType.forClass(JacksonViewBean.class);
+
+		for (int i = 0; i < 2; i++) {
+			Map<String, Object> hints = singletonMap(JSON_VIEW_HINT, MyJacksonView1.class);
+			StepVerifier.create(this.encoder.encode(Mono.just(bean), this.bufferFactory, type, null, hints))
+					.consumeNextWith(stringConsumer("{\"withView1\":\"with\"}"))
+					.verifyComplete();
+
+			hints = singletonMap(JSON_VIEW_HINT, MyJacksonView3.class);
+			StepVerifier.create(this.encoder.encode(Mono.just(bean), this.bufferFactory, type, null, hints))
+					.consumeNextWith(stringConsumer("{\"withoutView\":\"without\"}"))
+					.verifyComplete();
+		}
+	}
+
 	@Test
 	public void fieldLevelJsonView() throws Exception {
 		JacksonViewBean bean = new JacksonViewBean();
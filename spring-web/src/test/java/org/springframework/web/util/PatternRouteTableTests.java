@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import org.springframework.http.server.PathContainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link PatternRouteTable}.
+ */
+public class PatternRouteTableTests {
+
+	private final PatternRouteTable<String> table = new PatternRouteTable<>(true);
+
+
+	@Test
+	public void literalAndWildcardSegments() {
+		add("/users");
+		add("/users/{id}");
+		add("/users/{id}/orders");
+		add("/users/me/orders");
+		add("/orders/*");
+
+		assertCandidates("/users", "/users");
+		assertCandidates("/users/42", "/users/{id}");
+		assertCandidates("/users/me/orders", "/users/{id}/orders", "/users/me/orders");
+		assertCandidates("/orders/42", "/orders/*");
+		assertCandidates("/accounts/42");
+	}
+
+	@Test
+	public void catchAllSegments() {
+		add("/static/**");
+		add("/files/{*path}");
+		add("/a/**/b");
+
+		assertCandidates("/static", "/static/**");
+		assertCandidates("/static/css/main.css", "/static/**");
+		assertCandidates("/files/a/b/c", "/files/{*path}");
+		assertCandidates("/a/x/y/b", "/a/**/b");
+		assertCandidates("/b");
+	}
+
+	@Test
+	public void lenientMatching() {
+		add("/users");
+		add("/orders/*");
+
+		assertCandidates("/USERS", "/users");
+		assertCandidates("/users/", "/users");
+		assertCandidates("//users", "/users");
+		assertCandidates("/orders/", "/orders/*");
+	}
+
+	@Test
+	public void suffixPatternMatch() {
+		add("/users");
+		add("/api/v1.0");
+		add("/api/v1");
+
+		assertCandidates("/users.json", "/users");
+		assertCandidates("/users.tar.gz", "/users");
+		assertCandidates("/api/v1.0.json", "/api/v1.0", "/api/v1");
+		assertCandidates("/api/v1.0", "/api/v1.0", "/api/v1");
+		assertCandidates("/api/v2.0.json");
+	}
+
+	@Test
+	public void noSuffixPatternMatch() {
+		PatternRouteTable<String> table = new PatternRouteTable<>();
+		table.add("/users", Collections.singleton("/users"));
+		table.add("/api/v1.0", Collections.singleton("/api/v1.0"));
+
+		assertTrue(table.getCandidates("/users.json").isEmpty());
+		assertEquals(Collections.singleton("/api/v1.0"), new HashSet<>(table.getCandidates("/api/v1.0")));
+		assertTrue(table.getCandidates("/api/v1.0.json").isEmpty());
+	}
+
+	@Test
+	public void mappingWithoutPatterns() {
+		this.table.add("none", Collections.emptySet());
+		add("/users");
+
+		assertCandidates("/users", "none", "/users");
+		assertCandidates("/other", "none");
+	}
+
+	@Test
+	public void mappingWithSeveralPatterns() {
+		this.table.add("multi", new HashSet<>(Arrays.asList("/a/{x}", "/{y}/b")));
+
+		Collection<String> candidates = this.table.getCandidates("/a/b");
+		assertEquals(1, candidates.size());
+		assertTrue(candidates.contains("multi"));
+	}
+
+	@Test
+	public void remove() {
+		add("/users/{id}");
+		add("/users/{id}/orders");
+
+		this.table.remove("/users/{id}/orders", Collections.singleton("/users/{id}/orders"));
+		assertCandidates("/users/42/orders");
+		assertCandidates("/users/42", "/users/{id}");
+
+		this.table.remove("/users/{id}", Collections.singleton("/users/{id}"));
+		assertCandidates("/users/42");
+	}
+
+	@Test
+	public void parsedLookupPath() {
+		add("/users");
+		add("/users/{id}");
+		add("/orders/*");
+
+		assertParsedCandidates("/users", "/users");
+		assertParsedCandidates("/USERS", "/users");
+		assertParsedCandidates("/users/", "/users", "/users/{id}");
+		assertParsedCandidates("/users;a=b", "/users");
+		assertParsedCandidates("/us%65rs", "/users");
+		assertParsedCandidates("/users/42", "/users/{id}");
+		assertParsedCandidates("/orders/", "/orders/*");
+		assertParsedCandidates("/accounts");
+	}
+
+
+	private void add(String pattern) {
+		this.table.add(pattern, Collections.singleton(pattern));
+	}
+
+	private void assertCandidates(String path, String... expected) {
+		Collection<String> candidates = this.table.getCandidates(path);
+		assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(candidates));
+		assertEquals(expected.length, candidates.size());
+	}
+
+	private void assertParsedCandidates(String path, String... expected) {
+		Collection<String> candidates = this.table.getCandidates(PathContainer.parsePath(path));
+		assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(candidates));
+		assertEquals(expected.length, candidates.size());
+	}
+
+}
@@ -17,7 +17,9 @@
 package org.springframework.web.reactive.result.method;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.Set;
 
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -162,6 +164,11 @@ public class HandlerMethodMappingTests {
 			return (parsedPattern.matches(lookupPath) ? pattern : null);
 		}
 
+		@Override
+		protected Set<PathPattern> getMappingPathPatterns(String pattern) {
+			return Collections.singleton(this.parser.parse(pattern));
+		}
+
 		@Override
 		protected Comparator<String> getMappingComparator(ServerWebExchange exchange) {
 			return (o1, o2) -> PathPattern.SPECIFICITY_COMPARATOR.compare(parser.parse(o1), parser.parse(o2));
@@ -36,14 +36,17 @@ import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.core.MethodIntrospector;
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsUtils;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.PatternRouteTable;
 
 /**
  * Abstract base class for {@link HandlerMapping} implementations that define
@@ -378,8 +381,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			addMatchingMappings(directPathMatches, matches, request);
 		}
 		if (matches.isEmpty()) {
-			// No choice but to go through all mappings...
-			addMatchingMappings(this.mappingRegistry.getMappings().keySet(), matches, request);
+			// Go through all mappings with patterns that can match the lookup path...
+			addMatchingMappings(this.mappingRegistry.getMappingsByPattern(lookupPath), matches, request);
 		}
 
 		if (!matches.isEmpty()) {
@@ -489,6 +492,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 	/**
 	 * Extract and return the URL paths contained in a mapping.
+	 * <p>Besides direct URL lookups, the returned patterns are used to narrow
+	 * down the mappings to check for a lookup path. A mapping that returns no
+	 * patterns is checked for every lookup path.
 	 */
 	protected abstract Set<String> getMappingPathPatterns(T mapping);
 
@@ -525,6 +531,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final MultiValueMap<String, T> urlLookup = new LinkedMultiValueMap<>();
 
+		private final PatternRouteTable<T> patternLookup = new PatternRouteTable<>(true);
+
 		private final Map<String, List<HandlerMethod>> nameLookup = new ConcurrentHashMap<>();
 
 		private final Map<HandlerMethod, CorsConfiguration> corsLookup = new ConcurrentHashMap<>();
@@ -548,6 +556,15 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.urlLookup.get(urlPath);
 		}
 
+		/**
+		 * Return mappings with patterns that can possibly match the given URL
+		 * path, along with mappings that do not expose any patterns. Not thread-safe.
+		 * @see #acquireReadLock()
+		 */
+		public Collection<T> getMappingsByPattern(String urlPath) {
+			return this.patternLookup.getCandidates(urlPath);
+		}
+
 		/**
 		 * Return handler methods by mapping name. Thread-safe for concurrent use.
 		 */
@@ -593,6 +610,9 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.urlLookup.add(url, mapping);
 				}
 
+				Set<String> routePatterns = getRoutePatterns(mapping);
+				this.patternLookup.add(mapping, routePatterns);
+
 				String name = null;
 				if (getNamingStrategy() != null) {
 					name = getNamingStrategy().getName(handlerMethod, mapping);
@@ -604,7 +624,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					this.corsLookup.put(handlerMethod, corsConfig);
 				}
 
-				this.registry.put(mapping, new MappingRegistration<>(mapping, handlerMethod, directUrls, name));
+				this.registry.put(mapping,
+						new MappingRegistration<>(mapping, handlerMethod, directUrls, routePatterns, name));
 			}
 			finally {
 				this.readWriteLock.writeLock().unlock();
@@ -631,6 +652,20 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return urls;
 		}
 
+		/**
+		 * Return the patterns to index the given mapping by, or {@code null} if
+		 * the mapping is to be checked for every lookup path since the configured
+		 * {@link PathMatcher} is not an {@link AntPathMatcher} using "/" as separator.
+		 */
+		@Nullable
+		private Set<String> getRoutePatterns(T mapping) {
+			PathMatcher pathMatcher = getPathMatcher();
+			if (pathMatcher instanceof AntPathMatcher && "a/b".equals(pathMatcher.combine("a", "b"))) {
+				return getMappingPathPatterns(mapping);
+			}
+			return null;
+		}
+
 		private void addMappingName(String name, HandlerMethod handlerMethod) {
 			List<HandlerMethod> oldList = this.nameLookup.get(name);
 			if (oldList == null) {
@@ -680,6 +715,8 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 					}
 				}
 
+				this.patternLookup.remove(definition.getMapping(), definition.getRoutePatterns());
+
 				removeMappingName(definition);
 
 				this.corsLookup.remove(definition.getHandlerMethod());
@@ -722,17 +759,21 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 
 		private final List<String> directUrls;
 
+		@Nullable
+		private final Set<String> routePatterns;
+
 		@Nullable
 		private final String mappingName;
 
-		public MappingRegistration(T mapping, HandlerMethod handlerMethod,
-				@Nullable List<String> directUrls, @Nullable String mappingName) {
+		public MappingRegistration(T mapping, HandlerMethod handlerMethod, @Nullable List<String> directUrls,
+				@Nullable Set<String> routePatterns, @Nullable String mappingName) {
 
 			Assert.notNull(mapping, "Mapping must not be null");
 			Assert.notNull(handlerMethod, "HandlerMethod must not be null");
 			this.mapping = mapping;
 			this.handlerMethod = handlerMethod;
 			this.directUrls = (directUrls != null ? directUrls : Collections.emptyList());
+			this.routePatterns = routePatterns;
 			this.mappingName = mappingName;
 		}
 
@@ -748,6 +789,11 @@ public abstract class AbstractHandlerMethodMapping<T> extends AbstractHandlerMap
 			return this.directUrls;
 		}
 
+		@Nullable
+		public Set<String> getRoutePatterns() {
+			return this.routePatterns;
+		}
+
 		@Nullable
 		public String getMappingName() {
 			return this.mappingName;
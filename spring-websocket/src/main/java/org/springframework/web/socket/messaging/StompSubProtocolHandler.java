@@ -35,6 +35,7 @@ import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpAttributes;
 import org.springframework.messaging.simp.SimpAttributesContextHolder;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
@@ -50,8 +51,12 @@ import org.springframework.messaging.support.ImmutableMessageChannelInterceptor;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderInitializer;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.ObjectUtils;
 import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -114,6 +119,10 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 
 	private final Stats stats = new Stats();
 
+	/** Frames shared by the replies of a broker, keyed by the payload instance of the published message */
+	private final Map<byte[], SharedMessageFrame> sharedFrames =
+			new ConcurrentReferenceHashMap<>(16, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
 
 	/**
 	 * Configure a handler for error messages sent to clients which allows
@@ -398,6 +407,11 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 			return;
 		}
 
+		if (isBrokerMessage(message)) {
+			sendBrokerMessageToClient(session, message);
+			return;
+		}
+
 		StompHeaderAccessor accessor = getStompHeaderAccessor(message);
 		StompCommand command = accessor.getCommand();
 
@@ -405,12 +419,7 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 			if (accessor.getSubscriptionId() == null && logger.isWarnEnabled()) {
 				logger.warn("No STOMP \"subscription\" header in " + message);
 			}
-			String origDestination = accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
-			if (origDestination != null) {
-				accessor = toMutableAccessor(accessor, message);
-				accessor.removeNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
-				accessor.setDestination(origDestination);
-			}
+			accessor = restoreOriginalDestination(accessor, message);
 		}
 		else if (StompCommand.CONNECTED.equals(command)) {
 			this.stats.incrementConnectedCount();
@@ -440,18 +449,117 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 		sendToClient(session, accessor, payload);
 	}
 
-	private void sendToClient(WebSocketSession session, StompHeaderAccessor stompAccessor, byte[] payload) {
-		StompCommand command = stompAccessor.getCommand();
+	/**
+	 * Whether the given message is a MESSAGE sent by a broker to a subscription,
+	 * typically one of many replies to a published message that share the same
+	 * payload and native headers.
+	 */
+	private static boolean isBrokerMessage(Message<?> message) {
+		MessageHeaders headers = message.getHeaders();
+		if (MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class) instanceof StompHeaderAccessor ||
+				!SimpMessageType.MESSAGE.equals(SimpMessageHeaderAccessor.getMessageType(headers)) ||
+				SimpMessageHeaderAccessor.getSubscriptionId(headers) == null) {
+			return false;
+		}
+		StompCommand command = StompHeaderAccessor.getCommand(headers);
+		return (command == null || StompCommand.SEND.equals(command));
+	}
+
+	/**
+	 * Send a MESSAGE from a broker, encoding the frame only once for all replies
+	 * to the same published message, and then writing it out with the
+	 * subscription and message-id headers of each reply.
+	 * <p>The replies to a published message share its payload instance, which
+	 * the encoded frame is cached for, so that interleaved replies to different
+	 * published messages each find their own frame.
+	 */
+	private void sendBrokerMessageToClient(WebSocketSession session, Message<?> message) {
+		byte[] payload = (byte[]) message.getPayload();
+		MessageHeaders headers = message.getHeaders();
+		String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+		Assert.state(subscriptionId != null, "No subscription id");
+		SharedMessageFrame sharedFrame = this.sharedFrames.get(payload);
+		WebSocketMessage<?> frame;
 		try {
-			byte[] bytes = this.stompEncoder.encode(stompAccessor.getMessageHeaders(), payload);
-			boolean useBinary = (payload.length > 0 && !(session instanceof SockJsSession) &&
-					MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(stompAccessor.getContentType()));
-			if (useBinary) {
-				session.sendMessage(new BinaryMessage(bytes));
+			String messageId;
+			if (sharedFrame != null && sharedFrame.matches(payload, headers)) {
+				messageId = getNativeMessageId(headers);
+				if (messageId == null) {
+					messageId = StompHeaderAccessor.generateMessageId(SimpMessageHeaderAccessor.getSessionId(headers));
+				}
 			}
 			else {
-				session.sendMessage(new TextMessage(bytes));
+				StompHeaderAccessor accessor = restoreOriginalDestination(getStompHeaderAccessor(message), message);
+				sharedFrame = new SharedMessageFrame(payload, headers, accessor.getContentType(),
+						this.stompEncoder.encodeShared(accessor.getMessageHeaders(), payload));
+				this.sharedFrames.put(payload, sharedFrame);
+				messageId = accessor.getMessageId();
 			}
+			StompEncoder.SharedFrame encoded = sharedFrame.getFrame();
+			frame = (isBinary(session, payload, sharedFrame.getContentType()) ?
+					new BinaryMessage(encoded.encode(subscriptionId, messageId)) :
+					new TextMessage(encoded.encodeToString(subscriptionId, messageId)));
+		}
+		catch (Throwable ex) {
+			handleEncodingFailure(session, ex);
+			return;
+		}
+		sendToClient(session, StompCommand.MESSAGE, frame);
+	}
+
+	@Nullable
+	private static String getNativeMessageId(MessageHeaders headers) {
+		Map<String, List<String>> nativeHeaders = getNativeHeaders(headers);
+		List<String> values = (nativeHeaders != null ?
+				nativeHeaders.get(StompHeaderAccessor.STOMP_MESSAGE_ID_HEADER) : null);
+		return (values != null && !values.isEmpty() ? values.get(0) : null);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable
+	private static Map<String, List<String>> getNativeHeaders(MessageHeaders headers) {
+		return (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+	}
+
+	private StompHeaderAccessor restoreOriginalDestination(StompHeaderAccessor accessor, Message<?> message) {
+		String origDestination = accessor.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+		if (origDestination != null) {
+			accessor = toMutableAccessor(accessor, message);
+			accessor.removeNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+			accessor.setDestination(origDestination);
+		}
+		return accessor;
+	}
+
+	private void sendToClient(WebSocketSession session, StompHeaderAccessor stompAccessor, byte[] payload) {
+		byte[] bytes;
+		try {
+			bytes = this.stompEncoder.encode(stompAccessor.getMessageHeaders(), payload);
+		}
+		catch (Throwable ex) {
+			handleEncodingFailure(session, ex);
+			return;
+		}
+		WebSocketMessage<?> frame = (isBinary(session, payload, stompAccessor.getContentType()) ?
+				new BinaryMessage(bytes) : new TextMessage(bytes));
+		sendToClient(session, stompAccessor.getCommand(), frame);
+	}
+
+	private void handleEncodingFailure(WebSocketSession session, Throwable ex) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Failed to encode STOMP frame for client in session " + session.getId(), ex);
+		}
+		closeOnProtocolError(session);
+	}
+
+	private static boolean isBinary(WebSocketSession session, byte[] payload, @Nullable MimeType contentType) {
+		return (payload.length > 0 && !(session instanceof SockJsSession) &&
+				MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(contentType));
+	}
+
+	private void sendToClient(WebSocketSession session, @Nullable StompCommand command, WebSocketMessage<?> frame) {
+		try {
+			session.sendMessage(frame);
 		}
 		catch (SessionLimitExceededException ex) {
 			// Bad session, just get out
@@ -466,16 +574,20 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 		}
 		finally {
 			if (StompCommand.ERROR.equals(command)) {
-				try {
-					session.close(CloseStatus.PROTOCOL_ERROR);
-				}
-				catch (IOException ex) {
-					// Ignore
-				}
+				closeOnProtocolError(session);
 			}
 		}
 	}
 
+	private void closeOnProtocolError(WebSocketSession session) {
+		try {
+			session.close(CloseStatus.PROTOCOL_ERROR);
+		}
+		catch (IOException ex) {
+			// Ignore
+		}
+	}
+
 	private StompHeaderAccessor getStompHeaderAccessor(Message<?> message) {
 		MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
 		if (accessor instanceof StompHeaderAccessor) {
@@ -641,6 +753,65 @@ public class StompSubProtocolHandler implements SubProtocolHandler, ApplicationE
 	}
 
 
+	/**
+	 * A MESSAGE frame encoded once for the replies of a broker to a published
+	 * message, along with the parts of the reply headers that it depends on.
+	 * Replies share the payload instance of the published message, while their
+	 * native headers are equal but not necessarily the same map instance.
+	 */
+	private static class SharedMessageFrame {
+
+		private final byte[] payload;
+
+		@Nullable
+		private final Map<String, List<String>> nativeHeaders;
+
+		@Nullable
+		private final Object destination;
+
+		@Nullable
+		private final Object contentTypeHeader;
+
+		@Nullable
+		private final MimeType contentType;
+
+		private final StompEncoder.SharedFrame frame;
+
+		public SharedMessageFrame(byte[] payload, MessageHeaders headers, @Nullable MimeType contentType,
+				StompEncoder.SharedFrame frame) {
+
+			this.payload = payload;
+			this.nativeHeaders = getNativeHeaders(headers);
+			this.destination = headers.get(SimpMessageHeaderAccessor.DESTINATION_HEADER);
+			this.contentTypeHeader = headers.get(MessageHeaders.CONTENT_TYPE);
+			this.contentType = contentType;
+			this.frame = frame;
+		}
+
+		/**
+		 * Whether a reply with the given payload and headers encodes to this frame,
+		 * i.e. whether it shares the payload of the published message that this
+		 * frame was encoded for, and has the same native headers, destination,
+		 * and content type.
+		 */
+		public boolean matches(byte[] payload, MessageHeaders headers) {
+			return (this.payload == payload &&
+					ObjectUtils.nullSafeEquals(this.destination, headers.get(SimpMessageHeaderAccessor.DESTINATION_HEADER)) &&
+					ObjectUtils.nullSafeEquals(this.contentTypeHeader, headers.get(MessageHeaders.CONTENT_TYPE)) &&
+					ObjectUtils.nullSafeEquals(this.nativeHeaders, getNativeHeaders(headers)));
+		}
+
+		@Nullable
+		public MimeType getContentType() {
+			return this.contentType;
+		}
+
+		public StompEncoder.SharedFrame getFrame() {
+			return this.frame;
+		}
+	}
+
+
 	private static class Stats {
 
 		private final AtomicInteger connect = new AtomicInteger();
@@ -23,6 +23,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Before;
@@ -297,6 +299,77 @@ public class StompSubProtocolHandlerTests {
 		assertTrue(webSocketMessage instanceof TextMessage);
 	}
 
+	@Test
+	public void handleMessageToClientWithBrokerMessages() {
+
+		StompHeaderAccessor published = StompHeaderAccessor.create(StompCommand.SEND);
+		published.setDestination("/topic/foo");
+		published.setNativeHeader("foo", "bar");
+		Message<byte[]> message = MessageBuilder.createMessage("Hi".getBytes(), published.getMessageHeaders());
+
+		AtomicInteger sharedFrameCount = new AtomicInteger();
+		this.protocolHandler.setEncoder(new StompEncoder() {
+			@Override
+			public SharedFrame encodeShared(Map<String, Object> headers, byte[] payload) {
+				sharedFrameCount.incrementAndGet();
+				return super.encodeShared(headers, payload);
+			}
+		});
+
+		TestWebSocketSession session2 = new TestWebSocketSession("s2");
+		this.protocolHandler.handleMessageToClient(this.session, createBrokerMessage(message, "s1", "sub1"));
+		this.protocolHandler.handleMessageToClient(session2, createBrokerMessage(message, "s2", "sub:2"));
+		this.protocolHandler.handleMessageToClient(session2, createBrokerMessage(message, "s2", "sub3"));
+
+		assertEquals(1, sharedFrameCount.get());
+		assertEquals(1, this.session.getSentMessages().size());
+		assertEquals(2, session2.getSentMessages().size());
+		String frame1 = (String) this.session.getSentMessages().get(0).getPayload();
+		String frame2 = (String) session2.getSentMessages().get(0).getPayload();
+		String frame3 = (String) session2.getSentMessages().get(1).getPayload();
+		assertTrue(frame1.startsWith("MESSAGE\n"));
+		assertTrue(frame1.contains("destination:/topic/foo\n"));
+		assertTrue(frame1.contains("foo:bar\n"));
+		assertTrue(frame1.contains("subscription:sub1\n"));
+		assertTrue(frame1.contains("message-id:s1-"));
+		assertTrue(frame1.endsWith("\n\nHi\u0000"));
+		assertTrue(frame2.contains("subscription:sub\\c2\n"));
+		assertTrue(frame2.contains("message-id:s2-"));
+		assertTrue(frame3.contains("subscription:sub3\n"));
+		assertEquals(frame2.replaceAll("message-id:.*\n", "").replace("sub\\c2", "sub3"),
+				frame3.replaceAll("message-id:.*\n", ""));
+	}
+
+	@Test
+	public void handleMessageToClientWithInterleavedBrokerMessages() {
+
+		StompHeaderAccessor published = StompHeaderAccessor.create(StompCommand.SEND);
+		published.setDestination("/topic/foo");
+		Message<byte[]> message1 = MessageBuilder.createMessage("Hi".getBytes(), published.getMessageHeaders());
+		Message<byte[]> message2 = MessageBuilder.createMessage("Bye".getBytes(), published.getMessageHeaders());
+
+		AtomicInteger sharedFrameCount = new AtomicInteger();
+		this.protocolHandler.setEncoder(new StompEncoder() {
+			@Override
+			public SharedFrame encodeShared(Map<String, Object> headers, byte[] payload) {
+				sharedFrameCount.incrementAndGet();
+				return super.encodeShared(headers, payload);
+			}
+		});
+
+		TestWebSocketSession session2 = new TestWebSocketSession("s2");
+		this.protocolHandler.handleMessageToClient(this.session, createBrokerMessage(message1, "s1", "sub1"));
+		this.protocolHandler.handleMessageToClient(this.session, createBrokerMessage(message2, "s1", "sub1"));
+		this.protocolHandler.handleMessageToClient(session2, createBrokerMessage(message1, "s2", "sub2"));
+		this.protocolHandler.handleMessageToClient(session2, createBrokerMessage(message2, "s2", "sub2"));
+
+		assertEquals(2, sharedFrameCount.get());
+		assertTrue(((String) this.session.getSentMessages().get(0).getPayload()).endsWith("\n\nHi\u0000"));
+		assertTrue(((String) this.session.getSentMessages().get(1).getPayload()).endsWith("\n\nBye\u0000"));
+		assertTrue(((String) session2.getSentMessages().get(0).getPayload()).endsWith("\n\nHi\u0000"));
+		assertTrue(((String) session2.getSentMessages().get(1).getPayload()).endsWith("\n\nBye\u0000"));
+	}
+
 	@Test
 	public void handleMessageFromClient() {
 
@@ -516,6 +589,15 @@ public class StompSubProtocolHandlerTests {
 	}
 
 
+	private static Message<byte[]> createBrokerMessage(Message<byte[]> message, String sessionId, String subscriptionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.copyHeadersIfAbsent(message.getHeaders());
+		return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+	}
+
+
 	private static class UniqueUser extends TestPrincipal implements DestinationUserNameProvider {
 
 		private UniqueUser(String name) {